@@ -0,0 +1,558 @@
+package org.raevnos.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import org.raevnos.util.iterator.SplitPolicy;
+
+/**
+ * An Aho-Corasick automaton for finding every occurrence of many
+ * patterns in a text in a single pass. Instances are immutable and
+ * can be shared between threads.
+ *
+ * Matches are reported as a {@code LongStream}, each holding the index
+ * of a pattern and the position the match starts at. Use {@code
+ * matchPattern()} and {@code matchStart()} to take them apart.
+ * Overlapping matches are all reported, in order of where they end,
+ * with longer patterns first among those ending at the same place.
+ *
+ * The trie's transitions are stored flattened: the edges of every
+ * node are sorted by character in one shared array, and the root has
+ * a table with an entry for every character. Streams of matches over
+ * a {@code CharSequence} split for parallel processing by range; each
+ * range re-reads the characters before it that a match ending inside
+ * it could start at, and only reports matches that end inside it.
+ *
+ * In case-insensitive mode, characters are compared like {@code
+ * String.equalsIgnoreCase()}.
+ */
+public final class AhoCorasick {
+    private static final int POSITION_BITS = 40;
+    private static final long POSITION_MASK = (1L << POSITION_BITS) - 1;
+    private static final int MAX_PATTERNS = 1 << (Long.SIZE - POSITION_BITS);
+
+    private final String[] patterns;
+    private final int[] cpLengths; // Lengths of the patterns in codepoints
+    private final boolean ignoreCase;
+    private final int maxLength;
+
+    private final int[] rootNext; // Transitions from the root, for every char
+    private final int[] first; // Index of each node's first edge
+    private final char[] labels;
+    private final int[] targets;
+    private final int[] fail;
+    private final int[] report; // First node on the failure chain with output, or -1
+    private final int[] outFirst; // Index of each node's first pattern in outPatterns
+    private final int[] outPatterns;
+
+    private AhoCorasick(List<String> patterns, boolean ignoreCase) {
+        this.patterns = patterns.toArray(new String[0]);
+        this.ignoreCase = ignoreCase;
+        this.cpLengths = new int[this.patterns.length];
+        int max = 0;
+
+        // Build the trie with sorted children.
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<List<Integer>> outputs = new ArrayList<>();
+        children.add(new TreeMap<>());
+        outputs.add(new ArrayList<>());
+        for (int p = 0; p < this.patterns.length; p++) {
+            String pat = this.patterns[p];
+            cpLengths[p] = pat.codePointCount(0, pat.length());
+            max = Math.max(max, pat.length());
+            int node = 0;
+            for (int i = 0; i < pat.length(); i++) {
+                char c = fold(pat.charAt(i));
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    outputs.add(new ArrayList<>());
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            outputs.get(node).add(p);
+        }
+        this.maxLength = max;
+
+        // Renumber the nodes breadth-first and flatten the edges.
+        int n = children.size();
+        int[] order = new int[n]; // New number -> trie node
+        int[] renumber = new int[n]; // Trie node -> new number
+        int count = 1;
+        for (int i = 0; i < count; i++) {
+            for (int child : children.get(order[i]).values()) {
+                renumber[child] = count;
+                order[count++] = child;
+            }
+        }
+        first = new int[n + 1];
+        labels = new char[n - 1];
+        targets = new int[n - 1];
+        outFirst = new int[n + 1];
+        outPatterns = new int[this.patterns.length];
+        for (int i = 0, e = 0, o = 0; i < n; i++) {
+            first[i] = e;
+            outFirst[i] = o;
+            for (var edge : children.get(order[i]).entrySet()) {
+                labels[e] = edge.getKey();
+                targets[e++] = renumber[edge.getValue()];
+            }
+            for (int p : outputs.get(order[i])) {
+                outPatterns[o++] = p;
+            }
+        }
+        first[n] = n - 1;
+        outFirst[n] = this.patterns.length;
+
+        // Failure links and output links, breadth-first.
+        rootNext = new int[Character.MAX_VALUE + 1];
+        for (int e = first[0]; e < first[1]; e++) {
+            rootNext[labels[e]] = targets[e];
+        }
+        fail = new int[n];
+        report = new int[n];
+        report[0] = -1;
+        for (int u = 0; u < n; u++) {
+            for (int e = first[u]; e < first[u + 1]; e++) {
+                int v = targets[e];
+                fail[v] = u == 0 ? 0 : step(fail[u], labels[e]);
+                report[v] = outFirst[v] < outFirst[v + 1] ? v : report[fail[v]];
+            }
+        }
+    }
+
+    /**
+     * Build an automaton that matches characters exactly.
+     * @param patterns the strings to look for.
+     * @return a new automaton.
+     * @throws NullPointerException if passed a null collection or pattern.
+     * @throws IllegalArgumentException if a pattern is empty.
+     */
+    public static AhoCorasick of(Collection<? extends CharSequence> patterns) {
+        return of(patterns, false);
+    }
+
+    /**
+     * Build an automaton.
+     * @param patterns the strings to look for.
+     * @param ignoreCase true to ignore case differences.
+     * @return a new automaton.
+     * @throws NullPointerException if passed a null collection or pattern.
+     * @throws IllegalArgumentException if a pattern is empty or there
+     * are too many patterns.
+     */
+    public static AhoCorasick of(Collection<? extends CharSequence> patterns, boolean ignoreCase) {
+        if (patterns.size() >= MAX_PATTERNS) {
+            throw new IllegalArgumentException("too many patterns");
+        }
+        List<String> pats = new ArrayList<>(patterns.size());
+        for (CharSequence p : patterns) {
+            if (p.length() == 0) {
+                throw new IllegalArgumentException("empty pattern");
+            }
+            pats.add(p.toString());
+        }
+        return new AhoCorasick(pats, ignoreCase);
+    }
+
+    /** @return the number of patterns. */
+    public int patternCount() { return patterns.length; }
+
+    /**
+     * @param i the index of a pattern.
+     * @return the pattern.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public String pattern(int i) { return patterns[i]; }
+
+    /** @return true if the automaton ignores case. */
+    public boolean ignoresCase() { return ignoreCase; }
+
+    /**
+     * @param match a match from one of the streams.
+     * @return the index of the pattern that matched.
+     */
+    public static int matchPattern(long match) {
+        return (int)(match >>> POSITION_BITS);
+    }
+
+    /**
+     * @param match a match from one of the streams.
+     * @return the position of the first character of the match, in
+     * characters or codepoints depending on the stream.
+     */
+    public static long matchStart(long match) {
+        return match & POSITION_MASK;
+    }
+
+    private static long encode(int pattern, long start) {
+        return ((long)pattern << POSITION_BITS) | start;
+    }
+
+    private char fold(char c) {
+        return ignoreCase ? Character.toLowerCase(Character.toUpperCase(c)) : c;
+    }
+
+    /** @return the state after reading c in state s. */
+    private int step(int s, char c) {
+        while (s != 0) {
+            int lo = first[s], hi = first[s + 1] - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char l = labels[mid];
+                if (l < c) {
+                    lo = mid + 1;
+                } else if (l > c) {
+                    hi = mid - 1;
+                } else {
+                    return targets[mid];
+                }
+            }
+            s = fail[s];
+        }
+        return rootNext[c];
+    }
+
+    /**
+     * Find all matches in a sequence.
+     * @param text the sequence to search.
+     * @return a sequential stream of matches, with positions in characters.
+     * @throws NullPointerException if passed a null sequence.
+     */
+    public LongStream matches(CharSequence text) {
+        return matches(text, SplitPolicy.DEFAULT);
+    }
+
+    /**
+     * Find all matches in a sequence.
+     * @param text the sequence to search.
+     * @param policy how to divide the text for parallel processing.
+     * @return a sequential stream of matches, with positions in characters.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public LongStream matches(CharSequence text, SplitPolicy policy) {
+        Objects.requireNonNull(text);
+        return StreamSupport.longStream(new CharMatchSpliterator(text, policy.resolve(text.length())),
+                                        false);
+    }
+
+    /**
+     * Find all matches in the characters of a list.
+     * @param text the list to search.
+     * @return a sequential stream of matches, with positions in characters.
+     * @throws NullPointerException if passed a null list.
+     */
+    public LongStream matches(StringList text) {
+        return matches(text.source());
+    }
+
+    /**
+     * Find all matches in a stream of codepoints, such as one from
+     * {@code Readers.codePoints()}. The result is parallel if the
+     * argument is, and closing it closes the argument.
+     * @param codePoints the codepoints to search.
+     * @return a stream of matches, with positions in codepoints.
+     * @throws NullPointerException if passed a null stream.
+     */
+    public LongStream matches(IntStream codePoints) {
+        return matches(codePoints, SplitPolicy.DEFAULT);
+    }
+
+    /**
+     * Find all matches in a stream of codepoints, such as one from
+     * {@code Readers.codePoints()}. The result is parallel if the
+     * argument is, and closing it closes the argument.
+     * @param codePoints the codepoints to search.
+     * @param policy how to batch codepoints for parallel processing.
+     * @return a stream of matches, with positions in codepoints.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public LongStream matches(IntStream codePoints, SplitPolicy policy) {
+        var s = new CodePointMatchSpliterator(codePoints.spliterator(), 0, 0,
+                                              policy.resolve(Long.MAX_VALUE));
+        return StreamSupport.longStream(s, codePoints.isParallel()).onClose(codePoints::close);
+    }
+
+    /**
+     * @param text the sequence to search.
+     * @return true if any pattern occurs in the sequence.
+     * @throws NullPointerException if passed a null sequence.
+     */
+    public boolean containsAny(CharSequence text) {
+        int s = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            s = step(s, fold(text.charAt(i)));
+            if (report[s] >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Matches in a range of a sequence. */
+    private final class CharMatchSpliterator implements Spliterator.OfLong {
+        private final CharSequence text;
+        private final SplitPolicy policy;
+        private int pos, end;
+        private int reportFrom; // Only report matches ending after this
+        private int state;
+        private int emit = -1, emitIdx; // Node and pattern index of pending output
+
+        CharMatchSpliterator(CharSequence text, SplitPolicy policy) {
+            this(text, policy, 0, text.length(), 0, 0);
+        }
+
+        private CharMatchSpliterator(CharSequence text, SplitPolicy policy, int pos, int end,
+                                     int reportFrom, int state) {
+            this.text = text;
+            this.policy = policy;
+            this.pos = pos;
+            this.end = end;
+            this.reportFrom = reportFrom;
+            this.state = state;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            while (emit < 0) {
+                if (pos >= end) {
+                    return false;
+                }
+                state = step(state, fold(text.charAt(pos++)));
+                if (pos > reportFrom && report[state] >= 0) {
+                    emit = report[state];
+                    emitIdx = outFirst[emit];
+                }
+            }
+            int p = outPatterns[emitIdx++];
+            if (emitIdx == outFirst[emit + 1]) {
+                emit = report[fail[emit]];
+                if (emit >= 0) {
+                    emitIdx = outFirst[emit];
+                }
+            }
+            action.accept(encode(p, pos - patterns[p].length()));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            while (emit >= 0) {
+                tryAdvance(action);
+            }
+            int s = state;
+            for (int i = pos; i < end; ) {
+                s = step(s, fold(text.charAt(i++)));
+                if (i > reportFrom) {
+                    for (int node = report[s]; node >= 0; node = report[fail[node]]) {
+                        for (int o = outFirst[node]; o < outFirst[node + 1]; o++) {
+                            int p = outPatterns[o];
+                            action.accept(encode(p, i - patterns[p].length()));
+                        }
+                    }
+                }
+            }
+            pos = end;
+            state = s;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            if (emit >= 0) {
+                return null;
+            }
+            int from = Math.max(pos, reportFrom);
+            int k = (int)policy.splitSize(end - from);
+            if (k == 0) {
+                return null;
+            }
+            int mid = from + k;
+            var prefix = new CharMatchSpliterator(text, policy, pos, mid, reportFrom, state);
+            pos = Math.max(0, mid - (maxLength - 1));
+            reportFrom = mid;
+            state = 0;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - pos;
+        }
+
+        @Override
+        public int characteristics() {
+            int flags = ORDERED | DISTINCT | NONNULL;
+            return text instanceof String ? flags | IMMUTABLE : flags;
+        }
+    }
+
+    /**
+     * Matches in a spliterator of codepoints. The source is split by
+     * reading batches into arrays, and batches split by range.
+     */
+    private final class CodePointMatchSpliterator implements Spliterator.OfLong, IntConsumer {
+        private final Spliterator.OfInt source; // Null when reading part of a batch
+        private final int[] cps; // The batch, or null when reading the source
+        private int pos, end; // The range of the batch left to read
+        private final SplitPolicy policy;
+        private int state;
+        private long index; // Number of codepoints read
+        private int batch;
+        private final ArrayDeque<Long> pending = new ArrayDeque<>();
+        private LongConsumer sink; // Receives matches while reading a codepoint
+
+        CodePointMatchSpliterator(Spliterator.OfInt source, int state, long index, SplitPolicy policy) {
+            this.source = source;
+            this.cps = null;
+            this.state = state;
+            this.index = index;
+            this.policy = policy;
+        }
+
+        private CodePointMatchSpliterator(int[] cps, int pos, int end, int state, long index,
+                                          SplitPolicy policy) {
+            this.source = null;
+            this.cps = cps;
+            this.pos = pos;
+            this.end = end;
+            this.state = state;
+            this.index = index;
+            this.policy = policy;
+        }
+
+        /** Feed a codepoint to the automaton and pass its matches on. */
+        @Override
+        public void accept(int cp) {
+            int s = state;
+            if (Character.isBmpCodePoint(cp)) {
+                s = step(s, fold((char)cp));
+            } else {
+                s = step(s, Character.highSurrogate(cp));
+                s = step(s, Character.lowSurrogate(cp));
+            }
+            state = s;
+            index++;
+            for (int node = report[s]; node >= 0; node = report[fail[node]]) {
+                for (int o = outFirst[node]; o < outFirst[node + 1]; o++) {
+                    int p = outPatterns[o];
+                    sink.accept(encode(p, index - cpLengths[p]));
+                }
+            }
+        }
+
+        /** Read one codepoint. @return false at the end. */
+        private boolean feed() {
+            if (cps == null) {
+                return source.tryAdvance(this);
+            } else if (pos < end) {
+                accept(cps[pos++]);
+                return true;
+            } else {
+                return false;
+            }
+        }
+
+        /**
+         * Work out the state after reading a range of codepoints,
+         * without reporting matches.
+         * @param s the state before the range.
+         */
+        private int warm(int s, int[] a, int from, int to) {
+            if (to - from >= maxLength - 1) {
+                // Only the codepoints a match ending later could use matter.
+                s = 0;
+                from = to - Math.max(0, maxLength - 1);
+            }
+            for (int i = from; i < to; i++) {
+                int cp = a[i];
+                if (Character.isBmpCodePoint(cp)) {
+                    s = step(s, fold((char)cp));
+                } else {
+                    s = step(s, Character.highSurrogate(cp));
+                    s = step(s, Character.lowSurrogate(cp));
+                }
+            }
+            return s;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            sink = pending::add;
+            while (pending.isEmpty() && feed()) {
+            }
+            if (pending.isEmpty()) {
+                return false;
+            }
+            action.accept(pending.poll());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            while (!pending.isEmpty()) {
+                action.accept(pending.poll());
+            }
+            sink = action;
+            if (cps == null) {
+                source.forEachRemaining(this);
+            } else {
+                while (pos < end) {
+                    accept(cps[pos++]);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            if (!pending.isEmpty()) {
+                return null;
+            }
+            if (cps != null) {
+                int k = (int)policy.splitSize(end - pos);
+                if (k == 0) {
+                    return null;
+                }
+                int mid = pos + k;
+                var prefix = new CodePointMatchSpliterator(cps, pos, mid, state, index, policy);
+                state = warm(state, cps, pos, mid);
+                index += k;
+                pos = mid;
+                return prefix;
+            }
+            batch = policy.batchSize(batch);
+            int[] b = new int[batch];
+            int[] n = {0};
+            while (n[0] < batch && source.tryAdvance((int cp) -> b[n[0]++] = cp)) {
+            }
+            if (n[0] == 0) {
+                return null;
+            }
+            var prefix = new CodePointMatchSpliterator(b, 0, n[0], state, index, policy);
+            state = warm(state, b, 0, n[0]);
+            index += n[0];
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return cps == null ? source.estimateSize() : end - pos;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package org.raevnos.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+/**
+ * An immutable set of UTF-16 characters, for scanning text for any of
+ * several characters at once.
+ *
+ * Membership of characters below U+0100 is a bitmap lookup. When
+ * scanning Latin-1 bytes, such as a byte array, Latin-1 {@code
+ * CompactText} or a {@code LATIN1} {@code MappedCharSequence}, 8
+ * bytes are tested per step with SWAR (SIMD within a register)
+ * arithmetic on {@code long}s when the class has only a few Latin-1
+ * members.
+ */
+public final class CharClass implements IntPredicate {
+    /** Classes with at most this many Latin-1 members use SWAR byte comparisons. */
+    private static final int SWAR_MAX = 4;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+    private static final VarHandle LONGS =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /** The characters {@code Character.isWhitespace()} is true for. */
+    public static final CharClass WHITESPACE = matching(Character::isWhitespace);
+
+    private final long[] latin1; // Bitmap of members below 256
+    private final char[] others; // Sorted members 256 and above
+    private final long[] patterns; // Each SWAR member byte repeated 8 times, or null
+
+    private CharClass(long[] latin1, char[] others) {
+        this.latin1 = latin1;
+        this.others = others;
+        int n = 0;
+        for (long w : latin1) {
+            n += Long.bitCount(w);
+        }
+        if (n <= SWAR_MAX) {
+            patterns = new long[n];
+            for (int c = 0, j = 0; c < 256; c++) {
+                if (containsByte(c)) {
+                    patterns[j++] = ONES * c;
+                }
+            }
+        } else {
+            patterns = null;
+        }
+    }
+
+    /**
+     * Make a class of the characters in a sequence.
+     * @param members the characters in the class.
+     * @return a new class.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public static CharClass of(CharSequence members) {
+        Objects.requireNonNull(members);
+        long[] latin1 = new long[4];
+        int len = members.length();
+        char[] others = new char[len];
+        int n = 0;
+        for (int i = 0; i < len; i++) {
+            char c = members.charAt(i);
+            if (c < 256) {
+                latin1[c >>> 6] |= 1L << c;
+            } else {
+                others[n++] = c;
+            }
+        }
+        return new CharClass(latin1, sortedDistinct(others, n));
+    }
+
+    /** @return the first n elements of an array, sorted and without duplicates. */
+    private static char[] sortedDistinct(char[] chars, int n) {
+        Arrays.sort(chars, 0, n);
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+            if (j == 0 || chars[j - 1] != chars[i]) {
+                chars[j++] = chars[i];
+            }
+        }
+        return Arrays.copyOf(chars, j);
+    }
+
+    /**
+     * Make a class of a range of characters.
+     * @param first the first character in the range.
+     * @param last the last character in the range.
+     * @return a new class.
+     * @throws IllegalArgumentException if {@code last} is before {@code first}.
+     */
+    public static CharClass range(char first, char last) {
+        if (last < first) {
+            throw new IllegalArgumentException("empty range");
+        }
+        return matching(c -> c >= first && c <= last);
+    }
+
+    /**
+     * Make a class of every character a predicate is true for.
+     * @param pred the test, called once for every UTF-16 code unit.
+     * @return a new class.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public static CharClass matching(IntPredicate pred) {
+        Objects.requireNonNull(pred);
+        long[] latin1 = new long[4];
+        StringBuilder others = new StringBuilder();
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (pred.test(c)) {
+                if (c < 256) {
+                    latin1[c >>> 6] |= 1L << c;
+                } else {
+                    others.append((char)c);
+                }
+            }
+        }
+        return new CharClass(latin1, others.toString().toCharArray());
+    }
+
+    /**
+     * @param other another class.
+     * @return a class of the characters in either this or the other.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public CharClass union(CharClass other) {
+        long[] latin1 = new long[4];
+        for (int i = 0; i < 4; i++) {
+            latin1[i] = this.latin1[i] | other.latin1[i];
+        }
+        char[] merged = new char[others.length + other.others.length];
+        System.arraycopy(others, 0, merged, 0, others.length);
+        System.arraycopy(other.others, 0, merged, others.length, other.others.length);
+        return new CharClass(latin1, sortedDistinct(merged, merged.length));
+    }
+
+    private boolean containsByte(int b) {
+        return (latin1[b >>> 6] & (1L << b)) != 0;
+    }
+
+    /**
+     * @param c a character.
+     * @return true if the character is a member of the class.
+     */
+    public boolean contains(char c) {
+        if (c < 256) {
+            return containsByte(c);
+        } else {
+            return others.length > 0 && Arrays.binarySearch(others, c) >= 0;
+        }
+    }
+
+    /**
+     * @param c a character.
+     * @return true if the character is a member of the class. Values
+     * outside of the range of a {@code char} are never members.
+     */
+    @Override
+    public boolean test(int c) {
+        return c >= 0 && c <= Character.MAX_VALUE && contains((char)c);
+    }
+
+    /** @return a word with the high bit set in exactly the bytes of w that are zero. */
+    private static long zeroBytes(long w) {
+        return ~(((w & LOW7) + LOW7) | w | LOW7);
+    }
+
+    /**
+     * @return a word with the high bit set in exactly the bytes of w
+     * that are members of the class.
+     */
+    private long matchBytes(long w) {
+        long m = 0;
+        if (patterns != null) {
+            for (long p : patterns) {
+                m |= zeroBytes(w ^ p);
+            }
+        } else {
+            for (int i = 0; i < 64; i += 8) {
+                if (containsByte((int)(w >>> i) & 0xFF)) {
+                    m |= 0x80L << i;
+                }
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Find the first member of the class in a range of Latin-1 bytes.
+     * @param latin1 the bytes to search.
+     * @param fromIndex the index of the first byte to search.
+     * @param toIndex one past the index of the last byte to search.
+     * @return the index of the first matching byte, or -1 if none match.
+     * @throws NullPointerException if passed a null array.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    public int indexIn(byte[] latin1, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, latin1.length);
+        int i = fromIndex;
+        for (; i + 8 <= toIndex; i += 8) {
+            long m = matchBytes((long)LONGS.get(latin1, i));
+            if (m != 0) {
+                return i + (Long.numberOfTrailingZeros(m) >>> 3);
+            }
+        }
+        for (; i < toIndex; i++) {
+            if (containsByte(latin1[i] & 0xFF)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Count the members of the class in a range of Latin-1 bytes.
+     * @param latin1 the bytes to search.
+     * @param fromIndex the index of the first byte to search.
+     * @param toIndex one past the index of the last byte to search.
+     * @return the number of matching bytes.
+     * @throws NullPointerException if passed a null array.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    public int countIn(byte[] latin1, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, latin1.length);
+        int count = 0;
+        int i = fromIndex;
+        for (; i + 8 <= toIndex; i += 8) {
+            count += Long.bitCount(matchBytes((long)LONGS.get(latin1, i)));
+        }
+        for (; i < toIndex; i++) {
+            if (containsByte(latin1[i] & 0xFF)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Find the first member of the class in a range of a mapped file
+     * of Latin-1 bytes.
+     * @param file the file to search.
+     * @param fromPos the offset of the first byte to search.
+     * @param toPos one past the offset of the last byte to search.
+     * @return the offset of the first matching byte, or -1 if none match.
+     * @throws NullPointerException if passed a null file.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    public long indexIn(MappedFile file, long fromPos, long toPos) {
+        Objects.checkFromToIndex(fromPos, toPos, file.size());
+        long i = fromPos;
+        for (; i + 8 <= toPos; i += 8) {
+            long m = matchBytes(file.getLong(i));
+            if (m != 0) {
+                return i + (Long.numberOfTrailingZeros(m) >>> 3);
+            }
+        }
+        for (; i < toPos; i++) {
+            if (containsByte(file.get(i) & 0xFF)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Count the members of the class in a range of a mapped file of
+     * Latin-1 bytes.
+     * @param file the file to search.
+     * @param fromPos the offset of the first byte to search.
+     * @param toPos one past the offset of the last byte to search.
+     * @return the number of matching bytes.
+     * @throws NullPointerException if passed a null file.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    public long countIn(MappedFile file, long fromPos, long toPos) {
+        Objects.checkFromToIndex(fromPos, toPos, file.size());
+        long count = 0;
+        long i = fromPos;
+        for (; i + 8 <= toPos; i += 8) {
+            count += Long.bitCount(matchBytes(file.getLong(i)));
+        }
+        for (; i < toPos; i++) {
+            if (containsByte(file.get(i) & 0xFF)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Find the first member of the class in a range of a sequence.
+     * @param s the sequence to search.
+     * @param fromIndex the index of the first character to search.
+     * @param toIndex one past the index of the last character to search.
+     * @return the index of the first match, or -1 if none match.
+     * @throws NullPointerException if passed a null sequence.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    public int indexIn(CharSequence s, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, s.length());
+        if (s instanceof MappedCharSequence) {
+            MappedCharSequence m = (MappedCharSequence)s;
+            if (m.encoding() == MappedCharSequence.Encoding.LATIN1) {
+                long off = m.byteOffset();
+                long r = indexIn(m.file(), off + fromIndex, off + toIndex);
+                return r < 0 ? -1 : (int)(r - off);
+            }
+        }
+        if (s instanceof CompactText && ((CompactText)s).isLatin1()) {
+            CompactText t = (CompactText)s;
+            int r = indexIn(t.bytes(), t.offset() + fromIndex, t.offset() + toIndex);
+            return r < 0 ? -1 : r - t.offset();
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            if (contains(s.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Count the members of the class in a range of a sequence.
+     * @param s the sequence to search.
+     * @param fromIndex the index of the first character to search.
+     * @param toIndex one past the index of the last character to search.
+     * @return the number of matches.
+     * @throws NullPointerException if passed a null sequence.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    public int countIn(CharSequence s, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, s.length());
+        if (s instanceof MappedCharSequence) {
+            MappedCharSequence m = (MappedCharSequence)s;
+            if (m.encoding() == MappedCharSequence.Encoding.LATIN1) {
+                long off = m.byteOffset();
+                return (int)countIn(m.file(), off + fromIndex, off + toIndex);
+            }
+        }
+        if (s instanceof CompactText && ((CompactText)s).isLatin1()) {
+            CompactText t = (CompactText)s;
+            return countIn(t.bytes(), t.offset() + fromIndex, t.offset() + toIndex);
+        }
+        int count = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            if (contains(s.charAt(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,101 @@
+package org.raevnos.util;
+
+import java.util.Objects;
+
+/**
+ * A read-only view of a range of another {@code CharSequence} that
+ * doesn't copy the characters. Slices of slices refer directly to the
+ * original sequence. Two slices are equal if they hold the same
+ * characters, and hash like the equivalent {@code String}, so they
+ * can be used as map keys without materializing them.
+ */
+public final class CharSlice implements CharSequence {
+    private final CharSequence source;
+    private final int start;
+    private final int end;
+    private int hash;
+
+    /**
+     * Make a view of part of a sequence.
+     * @param source the underlying sequence.
+     * @param begIdxInclusive the index of the first character.
+     * @param endIdxExclusive one past the index of the last character.
+     * @throws NullPointerException if passed a null sequence.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    public CharSlice(CharSequence source, int begIdxInclusive, int endIdxExclusive) {
+        Objects.checkFromToIndex(begIdxInclusive, endIdxExclusive, source.length());
+        if (source instanceof CharSlice) {
+            CharSlice other = (CharSlice)source;
+            this.source = other.source;
+            this.start = other.start + begIdxInclusive;
+            this.end = other.start + endIdxExclusive;
+        } else {
+            this.source = source;
+            this.start = begIdxInclusive;
+            this.end = endIdxExclusive;
+        }
+    }
+
+    /**
+     * @return the sequence this is a view of.
+     */
+    public CharSequence source() {
+        return source;
+    }
+
+    /**
+     * @return the index in the source of the first character of the slice.
+     */
+    public int start() {
+        return start;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int i) {
+        Objects.checkIndex(i, end - start);
+        return source.charAt(start + i);
+    }
+
+    @Override
+    public CharSlice subSequence(int begIdxInclusive, int endIdxExclusive) {
+        return new CharSlice(this, begIdxInclusive, endIdxExclusive);
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder(end - start).append(source, start, end).toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o instanceof CharSlice) {
+            CharSlice other = (CharSlice)o;
+            return length() == other.length() && CharSequence.compare(this, other) == 0;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * @return the same hash code as a {@code String} with the same contents.
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            for (int i = start; i < end; i++) {
+                h = 31 * h + source.charAt(i);
+            }
+            hash = h;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,173 @@
+package org.raevnos.util;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Divides data into content-defined chunks in the style of FastCDC,
+ * so that inserting or deleting data only changes the chunks near the
+ * edit. Duplicate regions of different files then produce identical
+ * chunks that can be found by hashing them. Instances are immutable.
+ *
+ * Cut points are found with a Gear hash, which shifts left by one bit
+ * and adds a random value for each byte. The hash at a position only
+ * depends on the 64 bytes ending there, so candidate cut points are
+ * found in parallel over blocks of the input. A sequential pass then
+ * applies the size rules: no chunk is smaller than the minimum size
+ * (except the last) or larger than the maximum, and a stricter test
+ * is used before the average size is reached than after, which keeps
+ * chunk sizes close to the average.
+ */
+public final class Chunker {
+    private static final int BLOCK = 1 << 20;
+
+    private final int minSize, avgSize, maxSize;
+    private final long smallMask, largeMask;
+
+    private Chunker(int minSize, int avgSize, int maxSize) {
+        if (avgSize < 64 || Integer.bitCount(avgSize) != 1) {
+            throw new IllegalArgumentException("average size must be a power of two of at least 64");
+        }
+        if (minSize < 1 || minSize > avgSize || maxSize < avgSize) {
+            throw new IllegalArgumentException("sizes must be increasing");
+        }
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+        int bits = Integer.numberOfTrailingZeros(avgSize);
+        smallMask = -1L << (Long.SIZE - (bits + 2));
+        largeMask = -1L << (Long.SIZE - (bits - 2));
+    }
+
+    /**
+     * Make a chunker.
+     * @param minSize the smallest size of a chunk.
+     * @param avgSize the target size of a chunk.
+     * @param maxSize the largest size of a chunk.
+     * @return a new chunker.
+     * @throws IllegalArgumentException if the average is not a power
+     * of two of at least 64, or the sizes are out of order.
+     */
+    public static Chunker of(int minSize, int avgSize, int maxSize) {
+        return new Chunker(minSize, avgSize, maxSize);
+    }
+
+    /**
+     * Make a chunker with a minimum size of a quarter of the average
+     * and a maximum of eight times the average.
+     * @param avgSize the target size of a chunk.
+     * @return a new chunker.
+     * @throws IllegalArgumentException if the average is not a power
+     * of two of at least 64.
+     */
+    public static Chunker of(int avgSize) {
+        return new Chunker(avgSize / 4, avgSize, (int)Math.min(avgSize * 8L, Integer.MAX_VALUE));
+    }
+
+    /** @return the smallest size of a chunk. */
+    public int minSize() { return minSize; }
+
+    /** @return the target size of a chunk. */
+    public int averageSize() { return avgSize; }
+
+    /** @return the largest size of a chunk. */
+    public int maxSize() { return maxSize; }
+
+    /**
+     * Find the chunks of a file. The work is done in the common pool
+     * when the stream's terminal operation starts.
+     * @param file the file to divide.
+     * @return the offsets of the ends of the chunks, in increasing order.
+     * The last is the size of the file.
+     * @throws NullPointerException if passed a null file.
+     */
+    public LongStream boundaries(MappedFile file) {
+        Objects.requireNonNull(file);
+        int flags = Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT
+            | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+        return StreamSupport.longStream(() -> Spliterators.spliterator(
+                                            cut(i -> file.get(i) & 0xFF, file.size()), flags),
+                                        flags, false);
+    }
+
+    /**
+     * Find the chunks of an array of bytes.
+     * @param bytes the data to divide.
+     * @return the indexes of the ends of the chunks, in increasing order.
+     * The last is the length of the array.
+     * @throws NullPointerException if passed a null array.
+     */
+    public IntStream boundaries(byte[] bytes) {
+        Objects.requireNonNull(bytes);
+        return LongStream.of(cut(i -> bytes[(int)i] & 0xFF, bytes.length))
+            .mapToInt(i -> (int)i);
+    }
+
+    /**
+     * Find the chunks of a sequence of characters.
+     * @param s the text to divide.
+     * @return the indexes of the ends of the chunks, in increasing order.
+     * The last is the length of the sequence.
+     * @throws NullPointerException if passed a null sequence.
+     */
+    public IntStream boundaries(CharSequence s) {
+        Objects.requireNonNull(s);
+        return LongStream.of(cut(i -> s.charAt((int)i), s.length()))
+            .mapToInt(i -> (int)i);
+    }
+
+    /** @return the chunk boundaries of a source. */
+    private long[] cut(LongToIntFunction source, long size) {
+        long blocks = (size + BLOCK - 1) / BLOCK;
+        // Candidates are end positions, shifted left one bit, with the
+        // low bit set if they also pass the small chunk test.
+        long[] candidates = LongStream.range(0, blocks).parallel()
+            .flatMap(b -> candidates(source, b * BLOCK, Math.min(size, (b + 1) * BLOCK)))
+            .toArray();
+        LongStream.Builder cuts = LongStream.builder();
+        long start = 0;
+        int c = 0;
+        while (start < size) {
+            long cut = Math.min(start + maxSize, size);
+            if (size - start > minSize) {
+                long small = start + minSize, normal = start + avgSize;
+                while (c < candidates.length && (candidates[c] >>> 1) <= small) {
+                    c++;
+                }
+                for (; c < candidates.length && (candidates[c] >>> 1) < cut; c++) {
+                    long pos = candidates[c] >>> 1;
+                    if (pos > normal || (candidates[c] & 1) != 0) {
+                        cut = pos;
+                        break;
+                    }
+                }
+            } else {
+                cut = size;
+            }
+            cuts.add(cut);
+            start = cut;
+        }
+        return cuts.build().toArray();
+    }
+
+    /** @return the candidate cut points ending in a block. */
+    private LongStream candidates(LongToIntFunction source, long from, long to) {
+        LongStream.Builder found = LongStream.builder();
+        long h = 0;
+        for (long i = Math.max(0, from - (Long.SIZE - 1)); i < from; i++) {
+            h = (h << 1) + RollingHash.randomize(source.applyAsInt(i));
+        }
+        for (long i = from; i < to; i++) {
+            h = (h << 1) + RollingHash.randomize(source.applyAsInt(i));
+            if ((h & largeMask) == 0) {
+                found.add(((i + 1) << 1) | ((h & smallMask) == 0 ? 1 : 0));
+            }
+        }
+        return found.build();
+    }
+}
@@ -0,0 +1,133 @@
+package org.raevnos.util;
+
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@code Comparator} that orders strings according to a {@code
+ * Collator}, caching the collation keys of recently compared strings
+ * in a bounded least-recently-used cache. Comparisons of cached
+ * strings are a plain byte array comparison.
+ *
+ * Use it as the ordering of a {@code SortedList<String>} to make
+ * repeated binary searches cheap. Instances are thread safe: the
+ * cache is divided into stripes chosen by hash code, each with its own
+ * lock and share of the capacity, and keys are generated outside the
+ * locks by a per-thread copy of the collator, so parallel sorts don't
+ * compare one pair at a time.
+ */
+public class CollationKeyComparator implements Comparator<String> {
+    /** The fewest keys a stripe is given, so small caches aren't split up. */
+    private static final int MIN_STRIPE_SIZE = 16;
+
+    private final ThreadLocal<Collator> collators;
+    private final Stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /** One lock's share of the cache. */
+    private static final class Stripe extends LinkedHashMap<String, byte[]> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> e) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * Create a new comparator.
+     * @param collator the collator to generate keys with. It is cloned,
+     * so later changes to it have no effect.
+     * @param cacheSize the maximum number of keys to cache.
+     * @throws NullPointerException if the collator is null.
+     * @throws IllegalArgumentException if the cache size is not positive.
+     */
+    public CollationKeyComparator(Collator collator, int cacheSize) {
+        Objects.requireNonNull(collator);
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("cache size must be greater than 0");
+        }
+        Collator copy = (Collator)collator.clone();
+        this.collators = ThreadLocal.withInitial(() -> (Collator)copy.clone());
+        int n = Integer.highestOneBit(Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                                                           cacheSize / MIN_STRIPE_SIZE)));
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new Stripe(cacheSize / n + (i < cacheSize % n ? 1 : 0));
+        }
+    }
+
+    /**
+     * Look up or compute the collation key bytes of a string.
+     * @param s the string
+     * @return the bytes of its collation key.
+     */
+    private byte[] key(String s) {
+        int h = s.hashCode();
+        Stripe stripe = stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+        byte[] key;
+        synchronized (stripe) {
+            key = stripe.get(s);
+        }
+        if (key != null) {
+            hits.increment();
+            return key;
+        }
+        misses.increment();
+        key = collators.get().getCollationKey(s).toByteArray();
+        synchronized (stripe) {
+            stripe.put(s, key);
+        }
+        return key;
+    }
+
+    @Override
+    public int compare(String a, String b) {
+        return Arrays.compareUnsigned(key(a), key(b));
+    }
+
+    /**
+     * @return the number of key lookups satisfied by the cache.
+     */
+    public long hitCount() { return hits.sum(); }
+
+    /**
+     * @return the number of key lookups that had to compute a new key.
+     */
+    public long missCount() { return misses.sum(); }
+
+    /**
+     * @return the fraction of key lookups satisfied by the cache, or
+     * 0 if there have been none.
+     */
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double)h / total;
+    }
+
+    /**
+     * @return the number of currently cached keys.
+     */
+    public int cacheSize() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,490 @@
+package org.raevnos.util;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An immutable sequence of characters stored as Latin-1 or UTF-8
+ * bytes.
+ *
+ * Text is stored as Latin-1, one byte per character, when every
+ * character is below U+0100, and as UTF-8 otherwise. Unpaired
+ * surrogates are encoded as {@code '?'}, like {@code
+ * String.getBytes(UTF_8)}. Text from {@code CompactText.of()} owns
+ * its bytes; text from a {@code TextArena} or {@code subSequence()}
+ * is a view of a shared array.
+ *
+ * Hash codes are the same as for a {@code String} with the same
+ * characters, and are cached. {@code compareTo()} orders text like
+ * {@code String.compareTo()}, comparing bytes directly when both
+ * texts have the same encoding.
+ *
+ * {@code charAt()} is constant time for Latin-1 text. For UTF-8 text
+ * it decodes forwards or backwards from the position of the previous
+ * call, so scanning in either direction is linear. Accesses further
+ * away start from a sparse index of positions, built the first time
+ * one is needed.
+ */
+public final class CompactText implements CharSequence, Comparable<CompactText>, Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Index the position of every this many characters of UTF-8 text. */
+    private static final int INDEX_INTERVAL = 64;
+
+    /** The empty text. */
+    public static final CompactText EMPTY = new CompactText(new byte[0], 0, 0, false, 0);
+
+    private final byte[] bytes;
+    private final int offset;
+    private final int byteLength;
+    private final int length;
+    private final boolean utf8;
+    private int hash;
+    /** Char index in the high half and byte index in the low half of a code point. */
+    private transient volatile long cursor;
+    /** Positions, packed like the cursor, of every INDEX_INTERVAL'th character. */
+    private transient volatile long[] positions;
+
+    CompactText(byte[] bytes, int offset, int byteLength, boolean utf8, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.byteLength = byteLength;
+        this.utf8 = utf8;
+        this.length = length;
+    }
+
+    /**
+     * Make a compact copy of a sequence.
+     * @param s the characters to copy.
+     * @return the text, or the argument if it is already a {@code CompactText}.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public static CompactText of(CharSequence s) {
+        if (s instanceof CompactText) {
+            return (CompactText)s;
+        }
+        int n = s.length();
+        if (n == 0) {
+            return EMPTY;
+        }
+        int size = encodedLength(s);
+        boolean utf8 = size >= 0;
+        byte[] bytes = new byte[utf8 ? size : n];
+        encode(s, utf8, bytes, 0);
+        return new CompactText(bytes, 0, bytes.length, utf8, n);
+    }
+
+    /**
+     * @return the number of bytes needed to encode s as UTF-8, or -1
+     * if it can be encoded as Latin-1.
+     */
+    static int encodedLength(CharSequence s) {
+        int n = s.length();
+        int size = 0;
+        boolean latin1 = true;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                size += 1;
+            } else if (c < 0x100) {
+                size += 2;
+            } else {
+                latin1 = false;
+                if (c < 0x800) {
+                    size += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < n
+                           && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    size += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    size += 1;
+                } else {
+                    size += 3;
+                }
+            }
+        }
+        return latin1 ? -1 : size;
+    }
+
+    /** Write the encoded characters of s into dst starting at off. */
+    static void encode(CharSequence s, boolean utf8, byte[] dst, int off) {
+        int n = s.length();
+        if (!utf8) {
+            for (int i = 0; i < n; i++) {
+                dst[off++] = (byte)s.charAt(i);
+            }
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                dst[off++] = (byte)c;
+            } else if (c < 0x800) {
+                dst[off++] = (byte)(0xC0 | (c >>> 6));
+                dst[off++] = (byte)(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n
+                       && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                dst[off++] = (byte)(0xF0 | (cp >>> 18));
+                dst[off++] = (byte)(0x80 | ((cp >>> 12) & 0x3F));
+                dst[off++] = (byte)(0x80 | ((cp >>> 6) & 0x3F));
+                dst[off++] = (byte)(0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                dst[off++] = (byte)'?';
+            } else {
+                dst[off++] = (byte)(0xE0 | (c >>> 12));
+                dst[off++] = (byte)(0x80 | ((c >>> 6) & 0x3F));
+                dst[off++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /** @return the number of UTF-16 characters in a range of UTF-8 bytes. */
+    static int decodedLength(byte[] bytes, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            int b = bytes[i] & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                n += b >= 0xF0 ? 2 : 1;
+            }
+        }
+        return n;
+    }
+
+    /** @return the number of bytes in the UTF-8 sequence with the given lead byte. */
+    private static int sequenceLength(int lead) {
+        return lead < 0x80 ? 1 : lead < 0xE0 ? 2 : lead < 0xF0 ? 3 : 4;
+    }
+
+    /** @return the code point encoded at byte index i. */
+    private int decode(int i) {
+        int b = bytes[i] & 0xFF;
+        switch (sequenceLength(b)) {
+        case 1:
+            return b;
+        case 2:
+            return ((b & 0x1F) << 6) | (bytes[i + 1] & 0x3F);
+        case 3:
+            return ((b & 0x0F) << 12) | ((bytes[i + 1] & 0x3F) << 6)
+                | (bytes[i + 2] & 0x3F);
+        default:
+            return ((b & 0x07) << 18) | ((bytes[i + 1] & 0x3F) << 12)
+                | ((bytes[i + 2] & 0x3F) << 6) | (bytes[i + 3] & 0x3F);
+        }
+    }
+
+    /**
+     * Find the code point holding a character of UTF-8 text.
+     * @return the char index of the code point in the high half and
+     * its byte offset from {@code offset} in the low half.
+     */
+    private long locate(int index) {
+        long cur = cursor;
+        int c = (int)(cur >>> 32);
+        if (Math.abs(index - c) >= INDEX_INTERVAL) {
+            cur = positions()[index / INDEX_INTERVAL];
+            c = (int)(cur >>> 32);
+        }
+        int b = (int)cur;
+        while (c > index) {
+            // Back up to the previous lead byte.
+            do {
+                b--;
+            } while ((bytes[offset + b] & 0xC0) == 0x80);
+            c -= sequenceLength(bytes[offset + b] & 0xFF) == 4 ? 2 : 1;
+        }
+        while (true) {
+            int n = sequenceLength(bytes[offset + b] & 0xFF);
+            int width = n == 4 ? 2 : 1;
+            if (index < c + width) {
+                cur = ((long)c << 32) | b;
+                cursor = cur;
+                return cur;
+            }
+            c += width;
+            b += n;
+        }
+    }
+
+    /** @return the sparse index of UTF-8 text, building it if needed. */
+    private long[] positions() {
+        long[] p = positions;
+        if (p == null) {
+            p = new long[(length - 1) / INDEX_INTERVAL + 1];
+            int next = 0;
+            for (int c = 0, b = 0; next < p.length; ) {
+                int n = sequenceLength(bytes[offset + b] & 0xFF);
+                int width = n == 4 ? 2 : 1;
+                if ((long)next * INDEX_INTERVAL < c + width) {
+                    p[next++] = ((long)c << 32) | b;
+                }
+                c += width;
+                b += n;
+            }
+            positions = p;
+        }
+        return p;
+    }
+
+    @Override
+    public int length() { return length; }
+
+    @Override
+    public boolean isEmpty() { return length == 0; }
+
+    /** @return the number of bytes used to store the characters. */
+    public int byteLength() { return byteLength; }
+
+    /** @return true if the text is stored as Latin-1, false for UTF-8. */
+    public boolean isLatin1() { return !utf8; }
+
+    /** Latin-1 text exposes its bytes to {@code CharClass} scanning. */
+    byte[] bytes() { return bytes; }
+
+    int offset() { return offset; }
+
+    @Override
+    public char charAt(int index) {
+        Objects.checkIndex(index, length);
+        if (!utf8) {
+            return (char)(bytes[offset + index] & 0xFF);
+        }
+        long cur = locate(index);
+        int cp = decode(offset + (int)cur);
+        if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            return (char)cp;
+        } else if ((int)(cur >>> 32) == index) {
+            return Character.highSurrogate(cp);
+        } else {
+            return Character.lowSurrogate(cp);
+        }
+    }
+
+    /**
+     * Find the first occurrence of a code point like {@code
+     * String.indexOf(int, int)}, searching the bytes directly.
+     * @param cp the code point to look for.
+     * @param fromIndex the index to start searching at.
+     * @return the index of the first match, or -1 if not found.
+     */
+    public int indexOf(int cp, int fromIndex) {
+        fromIndex = Math.max(fromIndex, 0);
+        if (fromIndex >= length || !Character.isValidCodePoint(cp)) {
+            return -1;
+        } else if (!utf8) {
+            if (cp >= 0x100) {
+                return -1;
+            }
+            for (int i = offset + fromIndex, end = offset + byteLength; i < end; i++) {
+                if ((bytes[i] & 0xFF) == cp) {
+                    return i - offset;
+                }
+            }
+            return -1;
+        }
+        byte[] pattern = encodeCodePoint(cp);
+        if (pattern == null) {
+            return Strings.indexOf(toString(), cp, fromIndex);
+        }
+        long cur = locate(fromIndex);
+        int c = (int)(cur >>> 32);
+        int i = offset + (int)cur;
+        int end = offset + byteLength;
+        if (c < fromIndex) {
+            // Starting on the second half of a surrogate pair.
+            c += 2;
+            i += 4;
+        }
+        for (; i < end; i += sequenceLength(bytes[i] & 0xFF)) {
+            if (bytes[i] == pattern[0] && matches(pattern, i)) {
+                return c;
+            }
+            c += (bytes[i] & 0xFF) >= 0xF0 ? 2 : 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Find the last occurrence of a code point like {@code
+     * String.lastIndexOf(int)}, searching the bytes directly.
+     * @param cp the code point to look for.
+     * @return the index of the last match, or -1 if not found.
+     */
+    public int lastIndexOf(int cp) {
+        if (!Character.isValidCodePoint(cp)) {
+            return -1;
+        } else if (!utf8) {
+            if (cp >= 0x100) {
+                return -1;
+            }
+            for (int i = offset + byteLength - 1; i >= offset; i--) {
+                if ((bytes[i] & 0xFF) == cp) {
+                    return i - offset;
+                }
+            }
+            return -1;
+        }
+        byte[] pattern = encodeCodePoint(cp);
+        if (pattern == null) {
+            return Strings.lastIndexOf(toString(), cp);
+        }
+        int end = offset + byteLength;
+        for (int i = end - pattern.length; i >= offset; i--) {
+            // A lead byte can't match inside another sequence.
+            if (bytes[i] == pattern[0] && matches(pattern, i)) {
+                return length - decodedLength(bytes, i, end);
+            }
+        }
+        return -1;
+    }
+
+    /** @return true if the bytes starting at i are the pattern. */
+    private boolean matches(byte[] pattern, int i) {
+        return i + pattern.length <= offset + byteLength
+            && Arrays.equals(bytes, i, i + pattern.length, pattern, 0, pattern.length);
+    }
+
+    /**
+     * @return the UTF-8 encoding of a code point, or null for a
+     * surrogate, which can only be found as half of a pair.
+     */
+    private static byte[] encodeCodePoint(int cp) {
+        if (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE) {
+            return null;
+        }
+        byte[] b = new byte[cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4];
+        encode(new String(Character.toChars(cp)), true, b, 0);
+        return b;
+    }
+
+    /**
+     * Return a range of the text. The result shares bytes with this
+     * text unless the range splits a surrogate pair, in which case it
+     * is a {@code String}.
+     * @param start the index of the first character, inclusive.
+     * @param end the index of the last character, exclusive.
+     * @return the characters in the range.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        if (start == end) {
+            return EMPTY;
+        } else if (!utf8) {
+            return new CompactText(bytes, offset + start, end - start, false, end - start);
+        }
+        long from = locate(start);
+        long to = end == length ? ((long)length << 32) | byteLength : locate(end);
+        if ((int)(from >>> 32) != start || (int)(to >>> 32) != end) {
+            return toString().substring(start, end);
+        }
+        return new CompactText(bytes, offset + (int)from, (int)to - (int)from, true, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, offset, byteLength,
+                          utf8 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Compare with another text in the same order as {@code String.compareTo()}.
+     * @param other the text to compare with.
+     * @return a negative number, zero, or a positive number as this
+     * text is less than, equal to, or greater than the other.
+     * @throws NullPointerException if passed a null argument.
+     */
+    @Override
+    public int compareTo(CompactText other) {
+        if (utf8 != other.utf8) {
+            return compareChars(other);
+        }
+        int m = Arrays.mismatch(bytes, offset, offset + byteLength,
+                                other.bytes, other.offset, other.offset + other.byteLength);
+        if (m < 0) {
+            return 0;
+        } else if (m == byteLength || m == other.byteLength) {
+            return Integer.compare(byteLength, other.byteLength);
+        }
+        int a = bytes[offset + m] & 0xFF;
+        int b = other.bytes[other.offset + m] & 0xFF;
+        if (utf8 && (a & 0xC0) != 0x80) {
+            // UTF-8 sorts by code point, but UTF-16 sorts supplementary
+            // characters before U+E000 through U+FFFF.
+            if (a >= 0xF0 && b >= 0xEE && b < 0xF0) {
+                return -1;
+            } else if (b >= 0xF0 && a >= 0xEE && a < 0xF0) {
+                return 1;
+            }
+        }
+        return Integer.compare(a, b);
+    }
+
+    /** Compare text with different encodings a character at a time. */
+    private int compareChars(CompactText other) {
+        int n = Math.min(length, other.length);
+        for (int i = 0; i < n; i++) {
+            char a = charAt(i), b = other.charAt(i);
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return length - other.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        } else if (o instanceof CompactText) {
+            CompactText other = (CompactText)o;
+            if (length != other.length) {
+                return false;
+            } else if (utf8 == other.utf8) {
+                return Arrays.equals(bytes, offset, offset + byteLength,
+                                     other.bytes, other.offset, other.offset + other.byteLength);
+            } else {
+                return compareChars(other) == 0;
+            }
+        } else {
+            return false;
+        }
+    }
+
+    /** @return the same hash code as a {@code String} with the same characters. */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && length > 0) {
+            int end = offset + byteLength;
+            if (!utf8) {
+                for (int i = offset; i < end; i++) {
+                    h = 31 * h + (bytes[i] & 0xFF);
+                }
+            } else {
+                for (int i = offset; i < end; i += sequenceLength(bytes[i] & 0xFF)) {
+                    int cp = decode(i);
+                    if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                        h = 31 * h + cp;
+                    } else {
+                        h = 31 * h + Character.highSurrogate(cp);
+                        h = 31 * h + Character.lowSurrogate(cp);
+                    }
+                }
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    /** Serialize views of shared arrays without the rest of the array. */
+    private Object writeReplace() {
+        if (offset == 0 && byteLength == bytes.length) {
+            return this;
+        }
+        return new CompactText(Arrays.copyOfRange(bytes, offset, offset + byteLength),
+                               0, byteLength, utf8, length);
+    }
+}
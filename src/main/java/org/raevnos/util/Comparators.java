@@ -1,5 +1,6 @@
 package org.raevnos.util;
 
+import java.text.Collator;
 import java.util.Comparator;
 import java.util.Objects;
 import java.util.Optional;
@@ -56,4 +57,17 @@ public class Comparators {
             }
         };
     }
+
+    /**
+     * Returns a new Comparator that sorts strings according to a
+     * {@code Collator}, caching collation keys.
+     * @param collator the collator to sort with.
+     * @param cacheSize the maximum number of collation keys to cache.
+     * @return a new Comparator that sorts strings.
+     * @throws NullPointerException if passed a null object.
+     * @throws IllegalArgumentException if the cache size is not positive.
+     */
+    public static CollationKeyComparator collating(Collator collator, int cacheSize) {
+        return new CollationKeyComparator(collator, cacheSize);
+    }
 }
@@ -0,0 +1,201 @@
+package org.raevnos.util;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes and decodes single values to and from {@code ByteBuffer}s,
+ * for use with {@code TupleCodec}. Fixed width values use the byte
+ * order of the buffer.
+ */
+public interface ComponentCodec<T> {
+    /**
+     * Write a value at the buffer's position.
+     * @param value the value to write.
+     * @param buf the buffer to write to.
+     * @throws BufferOverflowException if the buffer is too small. Part
+     * of the value may have been written.
+     */
+    void encode(T value, ByteBuffer buf);
+
+    /**
+     * Read a value from the buffer's position.
+     * @param buf the buffer to read from.
+     * @return the decoded value.
+     * @throws BufferUnderflowException if the buffer doesn't hold a
+     * complete value.
+     * @throws IllegalArgumentException if the data is malformed.
+     */
+    T decode(ByteBuffer buf);
+
+    /**
+     * Write an unsigned LEB128 variable length integer.
+     * @param v the value, treated as unsigned.
+     * @param buf the buffer to write to.
+     */
+    static void putVarLong(long v, ByteBuffer buf) {
+        while ((v & ~0x7FL) != 0) {
+            buf.put((byte)((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte)v);
+    }
+
+    /**
+     * Read an unsigned LEB128 variable length integer.
+     * @param buf the buffer to read from.
+     * @return the value.
+     * @throws IllegalArgumentException if the encoding is longer than 10 bytes.
+     */
+    static long getVarLong(ByteBuffer buf) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf.get();
+            v |= (long)(b & 0x7F) << shift;
+            if (b >= 0) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    /**
+     * @return a codec for ints as unsigned varints. Small non-negative
+     * numbers take the least space; negative ones take 5 bytes.
+     */
+    static ComponentCodec<Integer> varInt() {
+        return new ComponentCodec<Integer>() {
+            @Override public void encode(Integer value, ByteBuffer buf) {
+                putVarLong(Integer.toUnsignedLong(value), buf);
+            }
+            @Override public Integer decode(ByteBuffer buf) {
+                return (int)getVarLong(buf);
+            }
+        };
+    }
+
+    /**
+     * @return a codec for longs as unsigned varints.
+     */
+    static ComponentCodec<Long> varLong() {
+        return new ComponentCodec<Long>() {
+            @Override public void encode(Long value, ByteBuffer buf) {
+                putVarLong(value, buf);
+            }
+            @Override public Long decode(ByteBuffer buf) {
+                return getVarLong(buf);
+            }
+        };
+    }
+
+    /**
+     * @return a codec for ints as zig-zag encoded varints. Numbers of small
+     * magnitude take the least space.
+     */
+    static ComponentCodec<Integer> zigZagInt() {
+        return new ComponentCodec<Integer>() {
+            @Override public void encode(Integer value, ByteBuffer buf) {
+                int v = value;
+                putVarLong(Integer.toUnsignedLong((v << 1) ^ (v >> 31)), buf);
+            }
+            @Override public Integer decode(ByteBuffer buf) {
+                int v = (int)getVarLong(buf);
+                return (v >>> 1) ^ -(v & 1);
+            }
+        };
+    }
+
+    /**
+     * @return a codec for longs as zig-zag encoded varints.
+     */
+    static ComponentCodec<Long> zigZagLong() {
+        return new ComponentCodec<Long>() {
+            @Override public void encode(Long value, ByteBuffer buf) {
+                long v = value;
+                putVarLong((v << 1) ^ (v >> 63), buf);
+            }
+            @Override public Long decode(ByteBuffer buf) {
+                long v = getVarLong(buf);
+                return (v >>> 1) ^ -(v & 1);
+            }
+        };
+    }
+
+    /**
+     * @return a codec for ints as 4 bytes.
+     */
+    static ComponentCodec<Integer> fixedInt() {
+        return new ComponentCodec<Integer>() {
+            @Override public void encode(Integer value, ByteBuffer buf) {
+                buf.putInt(value);
+            }
+            @Override public Integer decode(ByteBuffer buf) {
+                return buf.getInt();
+            }
+        };
+    }
+
+    /**
+     * @return a codec for longs as 8 bytes.
+     */
+    static ComponentCodec<Long> fixedLong() {
+        return new ComponentCodec<Long>() {
+            @Override public void encode(Long value, ByteBuffer buf) {
+                buf.putLong(value);
+            }
+            @Override public Long decode(ByteBuffer buf) {
+                return buf.getLong();
+            }
+        };
+    }
+
+    /**
+     * @return a codec for doubles as 8 bytes.
+     */
+    static ComponentCodec<Double> fixedDouble() {
+        return new ComponentCodec<Double>() {
+            @Override public void encode(Double value, ByteBuffer buf) {
+                buf.putDouble(value);
+            }
+            @Override public Double decode(ByteBuffer buf) {
+                return buf.getDouble();
+            }
+        };
+    }
+
+    /**
+     * @return a codec for strings as a varint byte length followed by
+     * UTF-8 bytes.
+     */
+    static ComponentCodec<String> utf8() {
+        return new ComponentCodec<String>() {
+            @Override public void encode(String value, ByteBuffer buf) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                putVarLong(bytes.length, buf);
+                buf.put(bytes);
+            }
+            @Override public String decode(ByteBuffer buf) {
+                long len = getVarLong(buf);
+                if (len > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("string too long");
+                }
+                if (len > buf.remaining()) {
+                    throw new BufferUnderflowException();
+                }
+                String s;
+                if (buf.hasArray()) {
+                    s = new String(buf.array(), buf.arrayOffset() + buf.position(),
+                                   (int)len, StandardCharsets.UTF_8);
+                    buf.position(buf.position() + (int)len);
+                } else {
+                    byte[] bytes = new byte[(int)len];
+                    buf.get(bytes);
+                    s = new String(bytes, StandardCharsets.UTF_8);
+                }
+                return s;
+            }
+        };
+    }
+}
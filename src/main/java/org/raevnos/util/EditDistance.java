@@ -0,0 +1,291 @@
+package org.raevnos.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Computes Levenshtein edit distances between a fixed pattern and
+ * other text, using Myers' bit-parallel algorithm as extended to
+ * multiple words by Hyyrö. Each character of the text is processed
+ * 64 rows of the dynamic programming table at a time.
+ *
+ * Instances are immutable and can be shared between threads, which
+ * makes scoring many candidates in a parallel stream cheap: the
+ * pattern is compiled once.
+ */
+public final class EditDistance {
+    private final String pattern;
+    private final Peq forward;
+    private final Peq backward; // Of the reversed pattern, for finding match starts
+
+    /** The pattern's character bitmasks, one {@code long} per 64 characters. */
+    private static final class Peq {
+        final int m;
+        final int words;
+        final long[] latin1; // words entries for each char below 256
+        final char[] others; // Sorted distinct pattern chars 256 and above
+        final long[] otherMasks;
+        final long high; // Bit of the last row in the last word
+
+        Peq(CharSequence p) {
+            m = p.length();
+            words = Math.max(1, (m + 63) >>> 6);
+            latin1 = new long[256 * words];
+            char[] chars = new char[m];
+            int n = 0;
+            for (int i = 0; i < m; i++) {
+                char c = p.charAt(i);
+                if (c < 256) {
+                    latin1[c * words + (i >>> 6)] |= 1L << i;
+                } else {
+                    chars[n++] = c;
+                }
+            }
+            Arrays.sort(chars, 0, n);
+            int d = 0;
+            for (int i = 0; i < n; i++) {
+                if (d == 0 || chars[d - 1] != chars[i]) {
+                    chars[d++] = chars[i];
+                }
+            }
+            others = Arrays.copyOf(chars, d);
+            otherMasks = new long[d * words];
+            for (int i = 0; i < m; i++) {
+                char c = p.charAt(i);
+                if (c >= 256) {
+                    otherMasks[Arrays.binarySearch(others, c) * words + (i >>> 6)] |= 1L << i;
+                }
+            }
+            high = 1L << ((m - 1) & 63);
+        }
+
+        /** @return the bitmask of pattern positions in word w holding c. */
+        long mask(char c, int w) {
+            if (c < 256) {
+                return latin1[c * words + w];
+            }
+            int i = others.length == 0 ? -1 : Arrays.binarySearch(others, c);
+            return i < 0 ? 0 : otherMasks[i * words + w];
+        }
+    }
+
+    /**
+     * One column of the table: the vertical deltas of each word, and
+     * the score in the last row.
+     */
+    private static final class Column {
+        final Peq peq;
+        final long[] pv, mv;
+        int score;
+
+        Column(Peq peq) {
+            this.peq = peq;
+            pv = new long[peq.words];
+            mv = new long[peq.words];
+            Arrays.fill(pv, -1L);
+            score = peq.m;
+        }
+
+        /**
+         * Advance the column past a character of text.
+         * @param global true if the top row counts skipped text, false
+         * to let matches start anywhere.
+         */
+        void advance(char c, boolean global) {
+            int hin = global ? 1 : 0;
+            int last = peq.words - 1;
+            for (int w = 0; w <= last; w++) {
+                long eq = peq.mask(c, w);
+                long p = pv[w], n = mv[w];
+                long xv = eq | n;
+                if (hin < 0) {
+                    eq |= 1;
+                }
+                long xh = (((eq & p) + p) ^ p) | eq;
+                long ph = n | ~(xh | p);
+                long mh = p & xh;
+                long top = w == last ? peq.high : Long.MIN_VALUE;
+                int hout = (ph & top) != 0 ? 1 : (mh & top) != 0 ? -1 : 0;
+                ph <<= 1;
+                mh <<= 1;
+                if (hin < 0) {
+                    mh |= 1;
+                } else if (hin > 0) {
+                    ph |= 1;
+                }
+                pv[w] = mh | ~(xv | ph);
+                mv[w] = ph & xv;
+                hin = hout;
+            }
+            score += hin;
+        }
+    }
+
+    private EditDistance(String pattern) {
+        this.pattern = pattern;
+        this.forward = new Peq(pattern);
+        this.backward = new Peq(new StringBuilder(pattern).reverse());
+    }
+
+    /**
+     * Compile a pattern.
+     * @param pattern the text to compare others with.
+     * @return a new instance.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public static EditDistance of(CharSequence pattern) {
+        return new EditDistance(pattern.toString());
+    }
+
+    /** @return the pattern. */
+    public String pattern() { return pattern; }
+
+    /**
+     * @param text the text to compare with.
+     * @return the edit distance between the pattern and the text.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public int distance(CharSequence text) {
+        int n = text.length();
+        if (forward.m == 0) {
+            return n;
+        }
+        Column col = new Column(forward);
+        for (int j = 0; j < n; j++) {
+            col.advance(text.charAt(j), true);
+        }
+        return col.score;
+    }
+
+    /**
+     * Compute the edit distance between the pattern and text, giving
+     * up as soon as it must be more than a limit.
+     * @param text the text to compare with.
+     * @param k the largest distance of interest.
+     * @return the edit distance, or -1 if it is more than {@code k}.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public int distance(CharSequence text, int k) {
+        int n = text.length();
+        if (k < 0 || Math.abs(n - forward.m) > k) {
+            return -1;
+        } else if (forward.m == 0) {
+            return n;
+        }
+        Column col = new Column(forward);
+        for (int j = 0; j < n; j++) {
+            col.advance(text.charAt(j), true);
+            // Each remaining character can lower the score by at most one.
+            if (col.score - (n - j - 1) > k) {
+                return -1;
+            }
+        }
+        return col.score <= k ? col.score : -1;
+    }
+
+    /**
+     * @param text the list to compare with.
+     * @param k the largest distance of interest.
+     * @return the edit distance, or -1 if it is more than {@code k}.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public int distance(StringList text, int k) {
+        return distance(text.source(), k);
+    }
+
+    /**
+     * Find the first approximate occurrence of the pattern in text.
+     * @param text the text to search.
+     * @param k the most edits allowed.
+     * @return the index the occurrence starts at, or -1 if not found.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public int indexIn(CharSequence text, int k) {
+        return indexIn(text, k, 0);
+    }
+
+    /**
+     * Find the first approximate occurrence of the pattern in text,
+     * starting at a given index. Occurrences are found in order of
+     * where they end. Among those ending at the first possible place,
+     * the one with the fewest edits is chosen, and then the longest.
+     * @param text the text to search.
+     * @param k the most edits allowed.
+     * @param fromIndex the index to start searching from.
+     * @return the index the occurrence starts at, or -1 if not found.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public int indexIn(CharSequence text, int k, int fromIndex) {
+        int n = text.length();
+        fromIndex = Math.max(fromIndex, 0);
+        if (k < 0 || fromIndex > n) {
+            return -1;
+        } else if (forward.m <= k) {
+            return fromIndex;
+        }
+        Column col = new Column(forward);
+        for (int j = fromIndex; j < n; j++) {
+            col.advance(text.charAt(j), false);
+            if (col.score <= k) {
+                return startOf(text, fromIndex, j + 1, k);
+            }
+        }
+        return -1;
+    }
+
+    /** @return the start of the best occurrence ending at end. */
+    private int startOf(CharSequence text, int fromIndex, int end, int k) {
+        int lo = Math.max(fromIndex, end - forward.m - k);
+        Column col = new Column(backward);
+        int best = col.score, start = end;
+        for (int j = end - 1; j >= lo; j--) {
+            col.advance(text.charAt(j), true);
+            if (col.score <= best) {
+                best = col.score;
+                start = j;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * Score candidates against the pattern. The result is parallel if
+     * the argument is.
+     * @param candidates the text to compare with.
+     * @param k the largest distance of interest.
+     * @return the distance of each candidate, or -1 where it is more than {@code k}.
+     * @throws NullPointerException if passed a null stream.
+     */
+    public IntStream distances(Stream<? extends CharSequence> candidates, int k) {
+        return candidates.mapToInt(c -> distance(c, k));
+    }
+
+    /**
+     * Score a list of candidates against the pattern in parallel.
+     * @param candidates the text to compare with.
+     * @param k the largest distance of interest.
+     * @return the distance of each candidate, or -1 where it is more than {@code k}.
+     * @throws NullPointerException if passed a null list.
+     */
+    public int[] distances(List<? extends CharSequence> candidates, int k) {
+        Objects.requireNonNull(candidates);
+        int[] result = new int[candidates.size()];
+        Arrays.parallelSetAll(result, i -> distance(candidates.get(i), k));
+        return result;
+    }
+
+    /**
+     * Keep the candidates within an edit distance of the pattern. The
+     * result is parallel if the argument is.
+     * @param candidates the text to compare with.
+     * @param k the largest distance allowed.
+     * @return the candidates within {@code k} edits.
+     * @throws NullPointerException if passed a null stream.
+     */
+    public <T extends CharSequence> Stream<T> within(Stream<T> candidates, int k) {
+        return candidates.filter(c -> distance(c, k) >= 0);
+    }
+}
@@ -0,0 +1,247 @@
+package org.raevnos.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * A compressed full-text index based on the Burrows-Wheeler transform
+ * of a text. Counting the occurrences of a pattern takes time
+ * proportional to the length of the pattern, and doesn't need the
+ * original text. Locating them uses a sample of the suffix array.
+ *
+ * The transform is stored as a wavelet matrix: one bit vector per bit
+ * of the alphabet ranks of its characters, so about {@code
+ * ceil(log2(sigma))} bits per character for an alphabet of {@code
+ * sigma} characters, plus a small rank directory.
+ *
+ * Build one with {@code SuffixArray.fmIndex()}.
+ */
+public class FMIndex {
+    /** Number of 64 bit words between rank directory entries. */
+    private static final int WORDS_PER_RANK = 8;
+
+    private final char[] alphabet;
+    private final int levels; // Bits in an alphabet rank
+    private final long[][] bits; // Bit vectors of each level of the wavelet matrix
+    private final int[][] ranks; // Number of set bits before every WORDS_PER_RANK words
+    private final int[] zeros; // Number of clear bits in each level
+    private final int primary; // Row holding the end of text marker, stored as rank 0.
+    private final int[] counts; // counts[c]: rows starting with a character less than c
+    private final long[] sampled; // Bit set of rows with a sampled position.
+    private final int[] sampledRank; // Number of sampled rows before each word of sampled.
+    private final int[] samples;
+    private final int n;
+
+    FMIndex(SuffixArray sa, int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("sample rate must be at least 1");
+        }
+        CharSequence text = sa.text();
+        this.n = text.length();
+        int rows = n + 1;
+
+        alphabet = text.chars().distinct().sorted()
+            .collect(StringBuilder::new, (sb, c) -> sb.append((char)c), StringBuilder::append)
+            .toString().toCharArray();
+        int sigma = alphabet.length;
+        levels = sigma <= 1 ? 1 : 32 - Integer.numberOfLeadingZeros(sigma - 1);
+
+        // Row 0 is the suffix holding only the end marker; row i + 1
+        // is suffix array entry i.
+        int[] bwt = new int[rows];
+        counts = new int[sigma + 1];
+        int p = -1;
+        for (int r = 0; r < rows; r++) {
+            int pos = r == 0 ? n : sa.get(r - 1);
+            if (pos == 0) {
+                p = r;
+            } else {
+                bwt[r] = rank(text.charAt(pos - 1));
+                counts[bwt[r] + 1]++;
+            }
+        }
+        primary = p;
+        counts[0] = 1;
+        for (int c = 0; c < sigma; c++) {
+            counts[c + 1] += counts[c];
+        }
+
+        // Each level holds one bit of each character, most significant
+        // first, in the order left by stably sorting on the bits above.
+        int words = rows / 64 + 1;
+        bits = new long[levels][];
+        ranks = new int[levels][];
+        zeros = new int[levels];
+        for (int l = 0; l < levels; l++) {
+            int shift = levels - 1 - l;
+            int[] cur = bwt;
+            long[] b = new long[words];
+            IntStream.range(0, words).parallel().forEach(w -> {
+                    long word = 0;
+                    for (int r = w * 64, end = Math.min(r + 64, rows); r < end; r++) {
+                        word |= (long)((cur[r] >>> shift) & 1) << r;
+                    }
+                    b[w] = word;
+                });
+            int[] rank = new int[words / WORDS_PER_RANK + 1];
+            int ones = 0;
+            for (int w = 0; w < words; w++) {
+                if (w % WORDS_PER_RANK == 0) {
+                    rank[w / WORDS_PER_RANK] = ones;
+                }
+                ones += Long.bitCount(b[w]);
+            }
+            bits[l] = b;
+            ranks[l] = rank;
+            zeros[l] = rows - ones;
+            if (l + 1 < levels) {
+                int[] next = new int[rows];
+                int zi = 0, oi = zeros[l];
+                for (int r = 0; r < rows; r++) {
+                    if (((cur[r] >>> shift) & 1) == 0) {
+                        next[zi++] = cur[r];
+                    } else {
+                        next[oi++] = cur[r];
+                    }
+                }
+                bwt = next;
+            }
+        }
+
+        sampled = new long[(rows + 63) / 64];
+        int nSamples = 0;
+        for (int r = 0; r < rows; r++) {
+            int pos = r == 0 ? n : sa.get(r - 1);
+            if (pos % sampleRate == 0) {
+                sampled[r >>> 6] |= 1L << r;
+                nSamples++;
+            }
+        }
+        sampledRank = new int[sampled.length + 1];
+        for (int w = 0; w < sampled.length; w++) {
+            sampledRank[w + 1] = sampledRank[w] + Long.bitCount(sampled[w]);
+        }
+        samples = new int[nSamples];
+        for (int r = 0, j = 0; r < rows; r++) {
+            if ((sampled[r >>> 6] & (1L << r)) != 0) {
+                samples[j++] = r == 0 ? n : sa.get(r - 1);
+            }
+        }
+    }
+
+    /** @return the alphabet rank of a character, or -1 if it isn't in the text. */
+    private int rank(char c) {
+        int r = Arrays.binarySearch(alphabet, c);
+        return r < 0 ? -1 : r;
+    }
+
+    /** @return the number of set bits in positions [0, i) of a level. */
+    private int rank1(int level, int i) {
+        long[] b = bits[level];
+        int w = i >>> 6;
+        int count = ranks[level][w / WORDS_PER_RANK];
+        for (int k = w - w % WORDS_PER_RANK; k < w; k++) {
+            count += Long.bitCount(b[k]);
+        }
+        if ((i & 63) != 0) {
+            count += Long.bitCount(b[w] & ((1L << i) - 1));
+        }
+        return count;
+    }
+
+    /** @return the number of occurrences of character rank c in rows [0, row). */
+    private int occ(int c, int row) {
+        int start = 0, i = row;
+        for (int l = 0; l < levels; l++) {
+            if (((c >>> (levels - 1 - l)) & 1) == 0) {
+                start -= rank1(l, start);
+                i -= rank1(l, i);
+            } else {
+                start = zeros[l] + rank1(l, start);
+                i = zeros[l] + rank1(l, i);
+            }
+        }
+        int count = i - start;
+        if (c == 0 && primary < row) {
+            count--;
+        }
+        return count;
+    }
+
+    /** @return the alphabet rank of the BWT character in a row. */
+    private int access(int row) {
+        int c = 0, i = row;
+        for (int l = 0; l < levels; l++) {
+            int bit = (int)(bits[l][i >>> 6] >>> i) & 1;
+            i = bit == 0 ? i - rank1(l, i) : zeros[l] + rank1(l, i);
+            c = (c << 1) | bit;
+        }
+        return c;
+    }
+
+    /**
+     * Find the range of rows starting with a pattern.
+     * @return the start row in the high 32 bits and end row in the low
+     * 32 bits.
+     */
+    private long search(CharSequence pattern) {
+        int sp = 0, ep = n + 1;
+        for (int i = pattern.length() - 1; i >= 0 && sp < ep; i--) {
+            int c = rank(pattern.charAt(i));
+            if (c < 0) {
+                return 0;
+            }
+            sp = counts[c] + occ(c, sp);
+            ep = counts[c] + occ(c, ep);
+        }
+        return sp < ep ? ((long)sp << 32) | ep : 0;
+    }
+
+    /**
+     * @return the length of the indexed text.
+     */
+    public int length() { return n; }
+
+    /**
+     * Count the occurrences of a pattern in the text.
+     * @param pattern the substring to look for.
+     * @return the number of times it appears, including overlapping
+     * ones. An empty pattern appears at every index including the end
+     * of the text.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public int count(CharSequence pattern) {
+        Objects.requireNonNull(pattern);
+        long range = search(pattern);
+        return (int)range - (int)(range >>> 32);
+    }
+
+    /** @return the text position of the suffix in a row. */
+    private int position(int row) {
+        int steps = 0;
+        while ((sampled[row >>> 6] & (1L << row)) == 0) {
+            int c = access(row);
+            row = counts[c] + occ(c, row);
+            steps++;
+        }
+        int w = row >>> 6;
+        int idx = sampledRank[w] + Long.bitCount(sampled[w] & ((1L << row) - 1));
+        return samples[idx] + steps;
+    }
+
+    /**
+     * Find the occurrences of a pattern in the text.
+     * @param pattern the substring to look for.
+     * @return a stream of the starting indexes of each occurrence, in
+     * increasing order.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public IntStream locate(CharSequence pattern) {
+        Objects.requireNonNull(pattern);
+        long range = search(pattern);
+        return IntStream.range((int)(range >>> 32), (int)range)
+            .map(this::position)
+            .sorted();
+    }
+}
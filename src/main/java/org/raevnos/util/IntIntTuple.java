@@ -0,0 +1,91 @@
+package org.raevnos.util;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A pair of ints with the same natural order as a {@code
+ * Tuple<Integer, Integer>}, without boxing. Can be packed into a
+ * single {@code long} that sorts the same way.
+ */
+public record IntIntTuple(int first, int second)
+    implements Comparable<IntIntTuple>, Serializable {
+
+    /**
+     * Compare two pairs of ints in tuple order.
+     * @return a number less than, equal to, or greater than 0
+     * depending on how the pairs compare.
+     */
+    public static int compare(int first1, int second1, int first2, int second2) {
+        int cmp = Integer.compare(first1, first2);
+        if (cmp == 0) {
+            return Integer.compare(second1, second2);
+        } else {
+            return cmp;
+        }
+    }
+
+    /**
+     * Pack a pair of ints into a long. Packed values compare with
+     * {@code Long.compare} in the same order as the pairs.
+     * @param first the first element
+     * @param second the second element
+     * @return the packed pair.
+     */
+    public static long pack(int first, int second) {
+        return ((long)first << 32) | Integer.toUnsignedLong(second ^ Integer.MIN_VALUE);
+    }
+
+    /**
+     * @return this tuple packed into a long.
+     */
+    public long pack() {
+        return pack(first, second);
+    }
+
+    /**
+     * Unpack a tuple from a long created by {@code pack()}.
+     * @param packed the packed pair.
+     * @return a new tuple.
+     */
+    public static IntIntTuple unpack(long packed) {
+        return new IntIntTuple((int)(packed >> 32), (int)packed ^ Integer.MIN_VALUE);
+    }
+
+    /**
+     * @return an exact normalized key for radix sorting these tuples.
+     */
+    public static NormalizedKey<IntIntTuple> normalizedKey() {
+        return NormalizedKey.ofLong(IntIntTuple::pack);
+    }
+
+    /**
+     * @return a boxed {@code Tuple} with the same elements.
+     */
+    public Tuple<Integer, Integer> toTuple() {
+        return new Tuple<>(first, second);
+    }
+
+    /**
+     * Convert a boxed {@code Tuple}.
+     * @param t the tuple to convert.
+     * @return a new tuple.
+     * @throws NullPointerException if passed a null tuple or it has a null element.
+     */
+    public static IntIntTuple of(Tuple<Integer, Integer> t) {
+        Objects.requireNonNull(t);
+        return new IntIntTuple(t.first(), t.second());
+    }
+
+    /**
+     * Compare based on first values; if they compare the same, compare based
+     * on the second values of each tuple.
+     * @param other The tuple to compare this one to.
+     * @return a number less than, equal to, or greater than 0
+     * depending on how the tuples compare.
+     */
+    @Override public int compareTo(IntIntTuple other) {
+        Objects.requireNonNull(other);
+        return compare(first, second, other.first, other.second);
+    }
+}
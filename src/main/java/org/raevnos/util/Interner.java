@@ -0,0 +1,299 @@
+package org.raevnos.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache of canonical {@code String} and {@code
+ * StringList} instances, for deduplicating values that repeat a lot.
+ * Unlike {@code String.intern()}, each interner has its own size
+ * limit, can be cleared, and counts its hits and misses.
+ *
+ * The cache is divided into stripes, each with its own lock, chosen
+ * by hash code. Each stripe is set-associative: a hash code maps to a
+ * set of 8 entries, and when a set is full the least recently used
+ * entry in it is replaced. Lookups from character arrays, Latin-1
+ * bytes or ranges of a {@code CharSequence} compare against the cached
+ * strings directly, so a hit does not allocate a {@code String}.
+ */
+public final class Interner {
+    private static final int WAYS = 8;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /** One lock's share of the cache. */
+    private static final class Stripe {
+        final String[] keys;
+        final int[] hashes;
+        final long[] used; // Clock value of each entry's last use, 0 if empty
+        final StringList[] lists;
+        final int setMask;
+        long clock;
+        int size;
+
+        Stripe(int sets) {
+            keys = new String[sets * WAYS];
+            hashes = new int[sets * WAYS];
+            used = new long[sets * WAYS];
+            lists = new StringList[sets * WAYS];
+            setMask = sets - 1;
+        }
+    }
+
+    /**
+     * Create an interner with one stripe for each processor.
+     * @param capacity the most strings to keep. It is rounded up to a
+     * power of two, and to at least 8 for each stripe.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public Interner(int capacity) {
+        this(capacity, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create an interner.
+     * @param capacity the most strings to keep. It is rounded up to a
+     * power of two, and to at least 8 for each stripe.
+     * @param concurrency the expected number of threads using the
+     * interner at once. It is rounded up to a power of two.
+     * @throws IllegalArgumentException if either argument is not positive.
+     */
+    public Interner(int capacity, int concurrency) {
+        if (capacity < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("capacity and concurrency must be positive");
+        }
+        int nStripes = ceilingPowerOfTwo(Math.min(concurrency, 1 << 16));
+        int sets = ceilingPowerOfTwo(Math.max(1, ceilingPowerOfTwo(capacity) / WAYS / nStripes));
+        stripes = new Stripe[nStripes];
+        for (int i = 0; i < nStripes; i++) {
+            stripes[i] = new Stripe(sets);
+        }
+        stripeShift = Integer.SIZE - Integer.numberOfTrailingZeros(nStripes);
+    }
+
+    private static int ceilingPowerOfTwo(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /** Spread the bits of a string hash code. */
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Get the canonical instance of a string.
+     * @param s the characters to look up.
+     * @return a cached string equal to the characters.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public String intern(CharSequence s) {
+        if (s instanceof String) {
+            return get(s.hashCode(), s, 0, s.length());
+        }
+        return intern(s, 0, s.length());
+    }
+
+    /**
+     * Get the canonical instance of a range of a sequence, such as a
+     * {@code MappedCharSequence} or the range of a {@code CharIterator}.
+     * @param s the sequence.
+     * @param fromIndex the index of the first character, inclusive.
+     * @param toIndex the index of the last character, exclusive.
+     * @return a cached string equal to the characters.
+     * @throws NullPointerException if passed a null sequence.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    public String intern(CharSequence s, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, s.length());
+        int h = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return get(h, s, fromIndex, toIndex - fromIndex);
+    }
+
+    /**
+     * Get the canonical instance of a range of a character array.
+     * @param chars the array.
+     * @param fromIndex the index of the first character, inclusive.
+     * @param toIndex the index of the last character, exclusive.
+     * @return a cached string equal to the characters.
+     * @throws NullPointerException if passed a null array.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    public String intern(char[] chars, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, chars.length);
+        int h = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            h = 31 * h + chars[i];
+        }
+        return get(h, chars, fromIndex, toIndex - fromIndex);
+    }
+
+    /**
+     * Get the canonical instance of a range of Latin-1 bytes, such as
+     * part of a buffer read from a file.
+     * @param latin1 the array.
+     * @param fromIndex the index of the first byte, inclusive.
+     * @param toIndex the index of the last byte, exclusive.
+     * @return a cached string equal to the characters.
+     * @throws NullPointerException if passed a null array.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    public String intern(byte[] latin1, int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, latin1.length);
+        int h = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            h = 31 * h + (latin1[i] & 0xFF);
+        }
+        return get(h, latin1, fromIndex, toIndex - fromIndex);
+    }
+
+    /**
+     * Get the canonical instance of a list of characters.
+     * @param list the list to look up.
+     * @return a cached list equal to the argument.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public StringList intern(StringList list) {
+        CharSequence s = list.source();
+        Stripe stripe = stripeOf(s.hashCode());
+        synchronized (stripe) {
+            int i = find(stripe, s.hashCode(), s, 0, s.length());
+            if (stripe.lists[i] == null) {
+                stripe.lists[i] = s instanceof String && s == stripe.keys[i]
+                    ? list : new StringList(stripe.keys[i]);
+            }
+            return stripe.lists[i];
+        }
+    }
+
+    private Stripe stripeOf(int h) {
+        return stripes[stripeShift == Integer.SIZE ? 0 : mix(h) >>> stripeShift];
+    }
+
+    private String get(int h, Object src, int from, int len) {
+        Stripe stripe = stripeOf(h);
+        synchronized (stripe) {
+            return stripe.keys[find(stripe, h, src, from, len)];
+        }
+    }
+
+    /**
+     * Find or add an entry in a stripe. The caller holds its lock.
+     * @return the index of the entry.
+     */
+    private int find(Stripe stripe, int h, Object src, int from, int len) {
+        int base = (mix(h) & stripe.setMask) * WAYS;
+        int victim = base;
+        long tick = ++stripe.clock;
+        for (int i = base; i < base + WAYS; i++) {
+            String key = stripe.keys[i];
+            if (key != null && stripe.hashes[i] == h && matches(key, src, from, len)) {
+                stripe.used[i] = tick;
+                hits.increment();
+                return i;
+            }
+            if (stripe.used[i] < stripe.used[victim]) {
+                victim = i;
+            }
+        }
+        misses.increment();
+        if (stripe.keys[victim] == null) {
+            stripe.size++;
+        }
+        stripe.keys[victim] = makeString(src, from, len);
+        stripe.hashes[victim] = h;
+        stripe.used[victim] = tick;
+        stripe.lists[victim] = null;
+        return victim;
+    }
+
+    private static boolean matches(String key, Object src, int from, int len) {
+        if (key.length() != len) {
+            return false;
+        } else if (src == key) {
+            return true;
+        } else if (src instanceof byte[]) {
+            byte[] b = (byte[])src;
+            for (int i = 0; i < len; i++) {
+                if (key.charAt(i) != (b[from + i] & 0xFF)) {
+                    return false;
+                }
+            }
+        } else if (src instanceof char[]) {
+            char[] c = (char[])src;
+            for (int i = 0; i < len; i++) {
+                if (key.charAt(i) != c[from + i]) {
+                    return false;
+                }
+            }
+        } else {
+            CharSequence s = (CharSequence)src;
+            for (int i = 0; i < len; i++) {
+                if (key.charAt(i) != s.charAt(from + i)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String makeString(Object src, int from, int len) {
+        if (src instanceof byte[]) {
+            return new String((byte[])src, from, len, StandardCharsets.ISO_8859_1);
+        } else if (src instanceof char[]) {
+            return new String((char[])src, from, len);
+        } else {
+            return ((CharSequence)src).subSequence(from, from + len).toString();
+        }
+    }
+
+    /** @return the number of lookups that found a cached string. */
+    public long hits() { return hits.sum(); }
+
+    /** @return the number of lookups that added a new string. */
+    public long misses() { return misses.sum(); }
+
+    /** @return the fraction of lookups that found a cached string, or 0 if there were none. */
+    public double hitRate() {
+        long h = hits.sum(), total = h + misses.sum();
+        return total == 0 ? 0.0 : (double)h / total;
+    }
+
+    /** @return the number of cached strings. */
+    public int size() {
+        int n = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                n += stripe.size;
+            }
+        }
+        return n;
+    }
+
+    /** @return the most strings the interner can hold. */
+    public int capacity() {
+        return stripes.length * stripes[0].keys.length;
+    }
+
+    /** Remove all cached strings and reset the hit and miss counts. */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Arrays.fill(stripe.keys, null);
+                Arrays.fill(stripe.lists, null);
+                Arrays.fill(stripe.used, 0);
+                stripe.size = 0;
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+}
@@ -0,0 +1,57 @@
+package org.raevnos.util;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A long and a double with the same natural order as a {@code
+ * Tuple<Long, Double>}, without boxing. Doubles are compared with
+ * {@code Double.compare}.
+ */
+public record LongDoubleTuple(long first, double second)
+    implements Comparable<LongDoubleTuple>, Serializable {
+
+    /**
+     * Compare two long and double pairs in tuple order.
+     * @return a number less than, equal to, or greater than 0
+     * depending on how the pairs compare.
+     */
+    public static int compare(long first1, double second1, long first2, double second2) {
+        int cmp = Long.compare(first1, first2);
+        if (cmp == 0) {
+            return Double.compare(second1, second2);
+        } else {
+            return cmp;
+        }
+    }
+
+    /**
+     * @return a boxed {@code Tuple} with the same elements.
+     */
+    public Tuple<Long, Double> toTuple() {
+        return new Tuple<>(first, second);
+    }
+
+    /**
+     * Convert a boxed {@code Tuple}.
+     * @param t the tuple to convert.
+     * @return a new tuple.
+     * @throws NullPointerException if passed a null tuple or it has a null element.
+     */
+    public static LongDoubleTuple of(Tuple<Long, Double> t) {
+        Objects.requireNonNull(t);
+        return new LongDoubleTuple(t.first(), t.second());
+    }
+
+    /**
+     * Compare based on first values; if they compare the same, compare based
+     * on the second values of each tuple.
+     * @param other The tuple to compare this one to.
+     * @return a number less than, equal to, or greater than 0
+     * depending on how the tuples compare.
+     */
+    @Override public int compareTo(LongDoubleTuple other) {
+        Objects.requireNonNull(other);
+        return compare(first, second, other.first, other.second);
+    }
+}
@@ -0,0 +1,56 @@
+package org.raevnos.util;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A pair of longs with the same natural order as a {@code
+ * Tuple<Long, Long>}, without boxing.
+ */
+public record LongLongTuple(long first, long second)
+    implements Comparable<LongLongTuple>, Serializable {
+
+    /**
+     * Compare two pairs of longs in tuple order.
+     * @return a number less than, equal to, or greater than 0
+     * depending on how the pairs compare.
+     */
+    public static int compare(long first1, long second1, long first2, long second2) {
+        int cmp = Long.compare(first1, first2);
+        if (cmp == 0) {
+            return Long.compare(second1, second2);
+        } else {
+            return cmp;
+        }
+    }
+
+    /**
+     * @return a boxed {@code Tuple} with the same elements.
+     */
+    public Tuple<Long, Long> toTuple() {
+        return new Tuple<>(first, second);
+    }
+
+    /**
+     * Convert a boxed {@code Tuple}.
+     * @param t the tuple to convert.
+     * @return a new tuple.
+     * @throws NullPointerException if passed a null tuple or it has a null element.
+     */
+    public static LongLongTuple of(Tuple<Long, Long> t) {
+        Objects.requireNonNull(t);
+        return new LongLongTuple(t.first(), t.second());
+    }
+
+    /**
+     * Compare based on first values; if they compare the same, compare based
+     * on the second values of each tuple.
+     * @param other The tuple to compare this one to.
+     * @return a number less than, equal to, or greater than 0
+     * depending on how the tuples compare.
+     */
+    @Override public int compareTo(LongLongTuple other) {
+        Objects.requireNonNull(other);
+        return compare(first, second, other.first, other.second);
+    }
+}
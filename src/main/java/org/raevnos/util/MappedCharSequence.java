@@ -0,0 +1,305 @@
+package org.raevnos.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A {@code CharSequence} view of a memory-mapped file, for running
+ * {@code Strings}, {@code StringList} and {@code CharIterator} style
+ * processing over large files without reading them into memory.
+ *
+ * In {@code LATIN1} mode each byte is one character. In {@code UTF8}
+ * mode the file is scanned once when opened to build a sparse index
+ * of character offsets; random access decodes forward from the
+ * nearest index entry, and sequential access is close to constant
+ * time per character. Each thread keeps its own position, shared by
+ * all views of the file, so parallel scans don't disturb each other.
+ * Malformed UTF-8 decodes as U+FFFD.
+ *
+ * Files may hold more characters than an {@code int} can index. The
+ * {@code long} versions of {@code charAt()} and {@code subSequence()}
+ * work on any view, while {@code length()} throws if the view is too
+ * long; take a smaller {@code subSequence()} first. Sub-sequences
+ * share the mapping and never copy.
+ */
+public class MappedCharSequence implements CharSequence {
+    /** How the bytes of the file are mapped to characters. */
+    public enum Encoding {
+        /** One byte per character. Also suitable for ASCII files. */
+        LATIN1,
+        /** UTF-8 encoded text. */
+        UTF8
+    }
+
+    /** Index a character offset every this many characters. */
+    private static final int INDEX_INTERVAL = 4096;
+    private static final long ASCII_MASK = 0x8080808080808080L;
+
+    private final MappedFile file;
+    private final Utf8Index index;
+    private final long start;
+    private final long end;
+
+    /** Position of the last code point decoded in UTF-8 mode. */
+    private record Cursor(long chars, long bytes) {}
+
+    /**
+     * Sparse index of UTF-8 character offsets. Entry k is the first
+     * code point whose first character is at or after k * INDEX_INTERVAL.
+     */
+    private static final class Utf8Index {
+        long[] chars;
+        long[] bytes;
+        long length;
+        /** The last position each thread decoded, in file characters. */
+        final ThreadLocal<Cursor> cursor = ThreadLocal.withInitial(() -> new Cursor(0, 0));
+    }
+
+    private MappedCharSequence(MappedFile file, Utf8Index index, long start, long end) {
+        this.file = file;
+        this.index = index;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Map a file.
+     * @param p the file to map.
+     * @param encoding the encoding of the file.
+     * @return a new sequence covering the whole file.
+     * @throws IOException on errors opening or mapping the file.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public static MappedCharSequence open(Path p, Encoding encoding) throws IOException {
+        Objects.requireNonNull(encoding);
+        MappedFile file = MappedFile.open(p);
+        if (encoding == Encoding.LATIN1) {
+            return new MappedCharSequence(file, null, 0, file.size());
+        } else {
+            Utf8Index index = buildIndex(file);
+            return new MappedCharSequence(file, index, 0, index.length);
+        }
+    }
+
+    /**
+     * @return the encoding the file is mapped with.
+     */
+    public Encoding encoding() {
+        return index == null ? Encoding.LATIN1 : Encoding.UTF8;
+    }
+
+    /**
+     * @return the underlying mapping.
+     */
+    public MappedFile file() {
+        return file;
+    }
+
+    /**
+     * @return the byte offset in the file of the first character of
+     * this view.
+     */
+    public long byteOffset() {
+        return index == null ? start : byteOffsetOf(start);
+    }
+
+    /**
+     * Decode the code point starting at a byte offset.
+     * @return the code point in the low 32 bits and its encoded length
+     * in the high bits.
+     */
+    private static long decode(MappedFile file, long pos) {
+        long size = file.size();
+        int b0 = file.get(pos) & 0xFF;
+        int len, cp, min;
+        if (b0 < 0x80) {
+            return (1L << 32) | b0;
+        } else if (b0 >= 0xC2 && b0 < 0xE0) {
+            len = 2;
+            cp = b0 & 0x1F;
+            min = 0x80;
+        } else if (b0 >= 0xE0 && b0 < 0xF0) {
+            len = 3;
+            cp = b0 & 0x0F;
+            min = 0x800;
+        } else if (b0 >= 0xF0 && b0 < 0xF5) {
+            len = 4;
+            cp = b0 & 0x07;
+            min = 0x10000;
+        } else {
+            return (1L << 32) | 0xFFFD;
+        }
+        for (int i = 1; i < len; i++) {
+            if (pos + i >= size) {
+                return (1L << 32) | 0xFFFD;
+            }
+            int b = file.get(pos + i) & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                return (1L << 32) | 0xFFFD;
+            }
+            cp = (cp << 6) | (b & 0x3F);
+        }
+        if (cp < min || cp > Character.MAX_CODE_POINT
+            || (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE)) {
+            return (1L << 32) | 0xFFFD;
+        }
+        return ((long)len << 32) | cp;
+    }
+
+    private static Utf8Index buildIndex(MappedFile file) {
+        long size = file.size();
+        int cap = 16;
+        long[] chars = new long[cap];
+        long[] bytes = new long[cap];
+        int n = 1; // Entry 0 is always (0, 0)
+        long nextMark = INDEX_INTERVAL;
+        long c = 0, pos = 0;
+        while (pos < size) {
+            // ASCII fast path, 8 bytes at a time, while no index entry is due.
+            while (pos + 8 <= size && c + 8 < nextMark
+                   && (file.getLong(pos) & ASCII_MASK) == 0) {
+                pos += 8;
+                c += 8;
+            }
+            if (pos >= size) {
+                break;
+            }
+            if (c >= nextMark) {
+                if (n == cap) {
+                    cap *= 2;
+                    chars = Arrays.copyOf(chars, cap);
+                    bytes = Arrays.copyOf(bytes, cap);
+                }
+                chars[n] = c;
+                bytes[n] = pos;
+                n++;
+                nextMark += INDEX_INTERVAL;
+            }
+            long d = decode(file, pos);
+            pos += d >>> 32;
+            c += Character.charCount((int)d);
+        }
+        Utf8Index index = new Utf8Index();
+        index.chars = Arrays.copyOf(chars, n);
+        index.bytes = Arrays.copyOf(bytes, n);
+        index.length = c;
+        return index;
+    }
+
+    /**
+     * Find the position of the code point holding the given character
+     * of the file.
+     */
+    private Cursor find(long c) {
+        Cursor cur = index.cursor.get();
+        if (cur.chars > c || c - cur.chars >= INDEX_INTERVAL) {
+            int k = (int)(c / INDEX_INTERVAL);
+            if (k >= index.chars.length || index.chars[k] > c) {
+                k--;
+            }
+            cur = new Cursor(index.chars[k], index.bytes[k]);
+        }
+        long cc = cur.chars, pos = cur.bytes;
+        while (true) {
+            long d = decode(file, pos);
+            int count = Character.charCount((int)d);
+            if (c < cc + count) {
+                cur = new Cursor(cc, pos);
+                index.cursor.set(cur);
+                return cur;
+            }
+            cc += count;
+            pos += d >>> 32;
+        }
+    }
+
+    private long byteOffsetOf(long c) {
+        if (c == index.length) {
+            return file.size();
+        }
+        Cursor cur = find(c);
+        // A view starting on the second half of a surrogate pair
+        // starts at the pair's bytes.
+        return cur.bytes;
+    }
+
+    /**
+     * @return the number of characters in this view.
+     */
+    public long longLength() {
+        return end - start;
+    }
+
+    /**
+     * @return the number of characters in this view.
+     * @throws ArithmeticException if the view holds more than {@code
+     * Integer.MAX_VALUE} characters.
+     */
+    @Override
+    public int length() {
+        return Math.toIntExact(end - start);
+    }
+
+    /**
+     * Get a character.
+     * @param i the index of the character in this view.
+     * @return the character.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public char charAt(long i) {
+        Objects.checkIndex(i, end - start);
+        long c = start + i;
+        if (index == null) {
+            return (char)(file.get(c) & 0xFF);
+        }
+        Cursor cur = find(c);
+        int cp = (int)decode(file, cur.bytes);
+        if (Character.isBmpCodePoint(cp)) {
+            return (char)cp;
+        } else if (c == cur.chars) {
+            return Character.highSurrogate(cp);
+        } else {
+            return Character.lowSurrogate(cp);
+        }
+    }
+
+    @Override
+    public char charAt(int i) {
+        return charAt((long)i);
+    }
+
+    /**
+     * Get a view of part of this sequence, sharing the mapping.
+     * @param begIdxInclusive the index of the first character.
+     * @param endIdxExclusive one past the index of the last character.
+     * @return a new view.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    public MappedCharSequence subSequence(long begIdxInclusive, long endIdxExclusive) {
+        Objects.checkFromToIndex(begIdxInclusive, endIdxExclusive, end - start);
+        return new MappedCharSequence(file, index, start + begIdxInclusive,
+                                      start + endIdxExclusive);
+    }
+
+    @Override
+    public MappedCharSequence subSequence(int begIdxInclusive, int endIdxExclusive) {
+        return subSequence((long)begIdxInclusive, (long)endIdxExclusive);
+    }
+
+    /**
+     * Copy the contents of this view into a {@code String}.
+     * @throws ArithmeticException if the view holds more than {@code
+     * Integer.MAX_VALUE} characters.
+     */
+    @Override
+    public String toString() {
+        int len = length();
+        StringBuilder sb = new StringBuilder(len);
+        for (long i = 0; i < len; i++) {
+            sb.append(charAt(i));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package org.raevnos.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A read-only memory mapping of an entire file, of any size. Files
+ * bigger than a single {@code MappedByteBuffer} can hold are mapped
+ * as several overlapping segments. All access is by absolute
+ * position, so instances can be shared between threads.
+ */
+public class MappedFile {
+    /** log2 of the size of each segment */
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+    /** Segments overlap by this much so multi-byte reads never straddle two. */
+    private static final int OVERLAP = 8;
+
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    private MappedFile(MappedByteBuffer[] segments, long size) {
+        this.segments = segments;
+        this.size = size;
+    }
+
+    /**
+     * Map a file.
+     * @param p the file to map.
+     * @return a new mapping.
+     * @throws IOException on errors opening or mapping the file.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public static MappedFile open(Path p) throws IOException {
+        Objects.requireNonNull(p);
+        try (FileChannel fc = FileChannel.open(p, StandardOpenOption.READ)) {
+            long size = fc.size();
+            int n = (int)((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            MappedByteBuffer[] segments = new MappedByteBuffer[n];
+            for (int i = 0; i < n; i++) {
+                long start = (long)i << SEGMENT_SHIFT;
+                long len = Math.min(SEGMENT_SIZE + OVERLAP, size - start);
+                segments[i] = fc.map(FileChannel.MapMode.READ_ONLY, start, len);
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new MappedFile(segments, size);
+        }
+    }
+
+    /**
+     * @return the size of the file in bytes.
+     */
+    public long size() { return size; }
+
+    /**
+     * Read a byte.
+     * @param pos the offset of the byte in the file.
+     * @return the byte.
+     * @throws IndexOutOfBoundsException if the position is outside the file.
+     */
+    public byte get(long pos) {
+        Objects.checkIndex(pos, size);
+        return segments[(int)(pos >>> SEGMENT_SHIFT)].get((int)(pos & SEGMENT_MASK));
+    }
+
+    /**
+     * Read 4 bytes as a little-endian int, so the byte at {@code pos}
+     * is the least significant one.
+     * @param pos the offset of the first byte in the file.
+     * @return the bytes as an int.
+     * @throws IndexOutOfBoundsException if any of the bytes are outside the file.
+     */
+    public int getInt(long pos) {
+        Objects.checkFromIndexSize(pos, 4, size);
+        return segments[(int)(pos >>> SEGMENT_SHIFT)].getInt((int)(pos & SEGMENT_MASK));
+    }
+
+    /**
+     * Read 8 bytes as a little-endian long, so the byte at {@code pos}
+     * is the least significant one.
+     * @param pos the offset of the first byte in the file.
+     * @return the bytes as a long.
+     * @throws IndexOutOfBoundsException if any of the bytes are outside the file.
+     */
+    public long getLong(long pos) {
+        Objects.checkFromIndexSize(pos, 8, size);
+        return segments[(int)(pos >>> SEGMENT_SHIFT)].getLong((int)(pos & SEGMENT_MASK));
+    }
+
+    /**
+     * Copy bytes into an array.
+     * @param pos the offset of the first byte in the file.
+     * @param dst the array to copy into.
+     * @param off the index in the array of the first byte.
+     * @param len the number of bytes.
+     * @throws IndexOutOfBoundsException if the range is outside the file or array.
+     * @throws NullPointerException if passed a null array.
+     */
+    public void get(long pos, byte[] dst, int off, int len) {
+        Objects.checkFromIndexSize(pos, len, size);
+        Objects.checkFromIndexSize(off, len, dst.length);
+        while (len > 0) {
+            ByteBuffer segment = segments[(int)(pos >>> SEGMENT_SHIFT)];
+            int segOff = (int)(pos & SEGMENT_MASK);
+            int n = Math.min(len, segment.limit() - segOff);
+            segment.get(segOff, dst, off, n);
+            pos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Get a read-only view of part of the file. The view shares the
+     * mapping when the range lies in a single segment, and is a copy
+     * otherwise.
+     * @param pos the offset of the first byte in the file.
+     * @param len the number of bytes.
+     * @return a buffer holding the range, in big-endian order.
+     * @throws IndexOutOfBoundsException if the range is outside the file.
+     */
+    public ByteBuffer slice(long pos, int len) {
+        Objects.checkFromIndexSize(pos, len, size);
+        int seg = (int)(pos >>> SEGMENT_SHIFT);
+        int off = (int)(pos & SEGMENT_MASK);
+        ByteBuffer segment = segments[seg];
+        if (off + len <= segment.limit()) {
+            return segment.slice(off, len).asReadOnlyBuffer();
+        }
+        ByteBuffer copy = ByteBuffer.allocate(len);
+        for (int i = 0; i < len; i++) {
+            copy.put(get(pos + i));
+        }
+        return copy.flip().asReadOnlyBuffer();
+    }
+}
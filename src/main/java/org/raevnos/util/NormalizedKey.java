@@ -0,0 +1,222 @@
+package org.raevnos.util;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Maps values to a fixed-size, order-preserving 64 bit prefix key, for
+ * use with {@code RadixSort}.
+ *
+ * Prefixes are compared as unsigned numbers. If {@code a} sorts
+ * before {@code b} in the ordering the key is used with, then {@code
+ * prefix(a)} must be less than or equal to {@code prefix(b)}. Values with
+ * equal prefixes are ordered by falling back to a {@code Comparator}
+ * unless the key is exact.
+ *
+ * Only the high {@code bits()} bits of a prefix are significant; the
+ * rest must be zero.
+ */
+@FunctionalInterface
+public interface NormalizedKey<T> {
+    /**
+     * Compute the prefix key of a value.
+     * @param value the value to encode.
+     * @return the unsigned order-preserving prefix.
+     */
+    long prefix(T value);
+
+    /**
+     * @return the number of significant high bits in the prefixes, from 1 to 64.
+     */
+    default int bits() { return 64; }
+
+    /**
+     * @return true if equal prefixes mean the values compare as equal, so no
+     * fallback comparison is ever needed.
+     */
+    default boolean isExact() { return false; }
+
+    /**
+     * Build a key from the parts of a custom key.
+     */
+    private static <T> NormalizedKey<T> of(ToLongFunction<? super T> f, int bits,
+                                           boolean exact) {
+        return new NormalizedKey<T>() {
+            @Override public long prefix(T value) { return f.applyAsLong(value); }
+            @Override public int bits() { return bits; }
+            @Override public boolean isExact() { return exact; }
+        };
+    }
+
+    /**
+     * Encode an int so its unsigned order matches signed order.
+     * @param i the int to encode
+     * @return the encoded prefix, using the high 32 bits.
+     */
+    static long encodeInt(int i) {
+        return Integer.toUnsignedLong(i ^ Integer.MIN_VALUE) << 32;
+    }
+
+    /**
+     * Encode a long so its unsigned order matches signed order.
+     * @param l the long to encode
+     * @return the encoded prefix.
+     */
+    static long encodeLong(long l) {
+        return l ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Encode a double so its unsigned order matches {@code Double.compare}.
+     * @param d the double to encode
+     * @return the encoded prefix.
+     */
+    static long encodeDouble(double d) {
+        long bits = Double.doubleToLongBits(d);
+        return bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Encode the first four UTF-16 code units of a string. Shorter strings
+     * are padded with zeros, which sort first.
+     * @param s the sequence to encode
+     * @return the encoded prefix
+     */
+    static long encodeString(CharSequence s) {
+        int len = Math.min(s.length(), 4);
+        long key = 0;
+        for (int i = 0; i < len; i++) {
+            key |= (long)s.charAt(i) << (48 - 16 * i);
+        }
+        return key;
+    }
+
+    /**
+     * @return an exact key for {@code Integer}s in natural order.
+     */
+    static NormalizedKey<Integer> ofInt() {
+        return ofInt(Integer::intValue);
+    }
+
+    /**
+     * @param f function extracting an int to sort by.
+     * @return an exact key for the natural order of the extracted ints.
+     * @throws NullPointerException if passed a null argument.
+     */
+    static <T> NormalizedKey<T> ofInt(ToIntFunction<? super T> f) {
+        Objects.requireNonNull(f);
+        return of(t -> encodeInt(f.applyAsInt(t)), 32, true);
+    }
+
+    /**
+     * @return an exact key for {@code Long}s in natural order.
+     */
+    static NormalizedKey<Long> ofLong() {
+        return ofLong(Long::longValue);
+    }
+
+    /**
+     * @param f function extracting a long to sort by.
+     * @return an exact key for the natural order of the extracted longs.
+     * @throws NullPointerException if passed a null argument.
+     */
+    static <T> NormalizedKey<T> ofLong(ToLongFunction<? super T> f) {
+        Objects.requireNonNull(f);
+        return of(t -> encodeLong(f.applyAsLong(t)), 64, true);
+    }
+
+    /**
+     * @return an exact key for {@code Double}s in natural order.
+     */
+    static NormalizedKey<Double> ofDouble() {
+        return ofDouble(Double::doubleValue);
+    }
+
+    /**
+     * @param f function extracting a double to sort by.
+     * @return an exact key for the {@code Double.compare} order of the
+     * extracted doubles.
+     * @throws NullPointerException if passed a null argument.
+     */
+    static <T> NormalizedKey<T> ofDouble(ToDoubleFunction<? super T> f) {
+        Objects.requireNonNull(f);
+        return of(t -> encodeDouble(f.applyAsDouble(t)), 64, true);
+    }
+
+    /**
+     * @return a key for {@code String}s in natural order. Strings
+     * sharing their first four characters are left to the fallback
+     * comparator.
+     */
+    static NormalizedKey<String> ofString() {
+        return ofString(Function.identity());
+    }
+
+    /**
+     * @param f function extracting a sequence to sort by.
+     * @return a key for the UTF-16 code unit order of the extracted sequences.
+     * @throws NullPointerException if passed a null argument.
+     */
+    static <T> NormalizedKey<T> ofString(Function<? super T, ? extends CharSequence> f) {
+        Objects.requireNonNull(f);
+        return of(t -> encodeString(f.apply(t)), 64, false);
+    }
+
+    /**
+     * Key for {@code Optional}s in the same order as {@code
+     * Comparators.emptyFirst}.
+     * @param key the key of the contents of the Optionals.
+     * @return a new key.
+     * @throws NullPointerException if passed a null argument.
+     */
+    static <T> NormalizedKey<Optional<? extends T>> emptyFirst(NormalizedKey<? super T> key) {
+        Objects.requireNonNull(key);
+        int bits = key.bits();
+        return of(o -> o.isEmpty() ? 0 : Long.MIN_VALUE | (key.prefix(o.orElseThrow()) >>> 1),
+                  Math.min(bits + 1, 64), key.isExact() && bits < 64);
+    }
+
+    /**
+     * Key for {@code Optional}s in the same order as {@code
+     * Comparators.emptyLast}.
+     * @param key the key of the contents of the Optionals.
+     * @return a new key.
+     * @throws NullPointerException if passed a null argument.
+     */
+    static <T> NormalizedKey<Optional<? extends T>> emptyLast(NormalizedKey<? super T> key) {
+        Objects.requireNonNull(key);
+        int bits = key.bits();
+        return of(o -> o.isEmpty() ? Long.MIN_VALUE : key.prefix(o.orElseThrow()) >>> 1,
+                  Math.min(bits + 1, 64), key.isExact() && bits < 64);
+    }
+
+    /**
+     * Key for {@code Tuple}s in their natural order. The second
+     * component only contributes to the prefix if the first is exact
+     * and leaves room for it.
+     * @param firstKey the key of the first elements.
+     * @param secondKey the key of the second elements.
+     * @return a new key.
+     * @throws NullPointerException if passed a null argument.
+     */
+    static <A extends Object & Comparable<? super A>,
+            B extends Object & Comparable<? super B>>
+        NormalizedKey<Tuple<A, B>> tuple(NormalizedKey<? super A> firstKey,
+                                         NormalizedKey<? super B> secondKey) {
+        Objects.requireNonNull(firstKey);
+        Objects.requireNonNull(secondKey);
+        int firstBits = firstKey.bits();
+        if (!firstKey.isExact() || firstBits == 64) {
+            return of(t -> firstKey.prefix(t.first()), firstBits, false);
+        }
+        int secondBits = secondKey.bits();
+        return of(t -> firstKey.prefix(t.first())
+                  | (secondKey.prefix(t.second()) >>> firstBits),
+                  Math.min(firstBits + secondBits, 64),
+                  secondKey.isExact() && firstBits + secondBits <= 64);
+    }
+}
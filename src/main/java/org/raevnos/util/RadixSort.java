@@ -0,0 +1,136 @@
+package org.raevnos.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
+
+/**
+ * Sorts by {@code NormalizedKey} prefixes using a least significant
+ * digit radix sort, then orders runs of equal prefixes with a {@code
+ * Comparator}. The sort is stable.
+ */
+public class RadixSort {
+    private RadixSort() {}
+
+    /** Below this size a plain comparison sort is faster. */
+    private static final int MIN_RADIX_SIZE = 64;
+
+    /**
+     * Sort an array.
+     * @param a the array to sort
+     * @param key the prefix key, consistent with {@code cmp}
+     * @param cmp the comparator to order equal prefixes with. If
+     * null, uses the natural ordering.
+     * @throws NullPointerException if the array or key is null.
+     * @throws ClassCastException if {@code cmp} is null and the
+     * elements are not {@code Comparable}
+     */
+    public static <T> void sort(T[] a, NormalizedKey<? super T> key,
+                                Comparator<? super T> cmp) {
+        sort(a, 0, Objects.requireNonNull(a).length, key, cmp);
+    }
+
+    /**
+     * Sort a range of an array.
+     * @param a the array to sort
+     * @param fromIndex the first index to sort, inclusive.
+     * @param toIndex the last index to sort, exclusive.
+     * @param key the prefix key, consistent with {@code cmp}
+     * @param cmp the comparator to order equal prefixes with. If
+     * null, uses the natural ordering.
+     * @throws NullPointerException if the array or key is null.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     * @throws ClassCastException if {@code cmp} is null and the
+     * elements are not {@code Comparable}
+     */
+    public static <T> void sort(T[] a, int fromIndex, int toIndex,
+                                NormalizedKey<? super T> key,
+                                Comparator<? super T> cmp) {
+        Objects.requireNonNull(a);
+        Objects.requireNonNull(key);
+        Objects.checkFromToIndex(fromIndex, toIndex, a.length);
+        int n = toIndex - fromIndex;
+        if (n < MIN_RADIX_SIZE) {
+            Arrays.sort(a, fromIndex, toIndex, cmp);
+            return;
+        }
+
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = key.prefix(a[fromIndex + i]);
+        }
+        long[] keyBuf = new long[n];
+        Object[] vals = Arrays.copyOfRange(a, fromIndex, toIndex, Object[].class);
+        Object[] valBuf = new Object[n];
+        int[] counts = new int[256];
+
+        for (int shift = 64 - 8 * ((key.bits() + 7) / 8); shift < 64; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (long k : keys) {
+                counts[(int)(k >>> shift) & 0xFF]++;
+            }
+            // Skip passes where every key has the same digit.
+            if (counts[(int)(keys[0] >>> shift) & 0xFF] == n) {
+                continue;
+            }
+            for (int i = 0, sum = 0; i < 256; i++) {
+                int c = counts[i];
+                counts[i] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int dest = counts[(int)(keys[i] >>> shift) & 0xFF]++;
+                keyBuf[dest] = keys[i];
+                valBuf[dest] = vals[i];
+            }
+            long[] tk = keys;
+            keys = keyBuf;
+            keyBuf = tk;
+            Object[] tv = vals;
+            vals = valBuf;
+            valBuf = tv;
+        }
+
+        @SuppressWarnings("unchecked")
+            T[] sorted = (T[])vals;
+        if (!key.isExact()) {
+            for (int i = 0; i < n; ) {
+                int j = i + 1;
+                while (j < n && keys[j] == keys[i]) {
+                    j++;
+                }
+                if (j - i > 1) {
+                    Arrays.sort(sorted, i, j, cmp);
+                }
+                i = j;
+            }
+        }
+        System.arraycopy(sorted, 0, a, fromIndex, n);
+    }
+
+    /**
+     * Sort a list.
+     * @param list the list to sort
+     * @param key the prefix key, consistent with {@code cmp}
+     * @param cmp the comparator to order equal prefixes with. If
+     * null, uses the natural ordering.
+     * @throws NullPointerException if the list or key is null.
+     * @throws UnsupportedOperationException if the list can't be modified.
+     * @throws ClassCastException if {@code cmp} is null and the
+     * elements are not {@code Comparable}
+     */
+    public static <T> void sort(List<T> list, NormalizedKey<? super T> key,
+                                Comparator<? super T> cmp) {
+        Objects.requireNonNull(list);
+        @SuppressWarnings("unchecked")
+            T[] a = (T[])list.toArray();
+        sort(a, key, cmp);
+        ListIterator<T> it = list.listIterator();
+        for (T t : a) {
+            it.next();
+            it.set(t);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.raevnos.util;
+
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import org.raevnos.util.iterator.RollingHashAdaptorSpliterator;
+import org.raevnos.util.iterator.RollingHashSpliterator;
+import org.raevnos.util.iterator.SplitPolicy;
+
+/**
+ * A hash of a fixed-size window of values that can be updated in
+ * constant time as the window slides along, for fingerprinting every
+ * position of large text or files. Instances are immutable.
+ *
+ * Two kinds are provided. {@code RABIN_KARP} is a polynomial hash
+ * modulo 2<sup>64</sup>. {@code BUZHASH} xors together randomized
+ * values of the elements, each rotated by its position in the window.
+ * The random values come from a fixed seed, so fingerprints are the
+ * same from run to run.
+ *
+ * Fingerprint streams have one element for each complete window, in
+ * order. Streams over a {@code CharSequence} or {@code MappedFile}
+ * split by range for parallel processing; each range hashes the first
+ * window it owns from scratch.
+ */
+public final class RollingHash {
+    /** The kinds of rolling hash. */
+    public enum Kind {
+        /** Polynomial hashing with a 64 bit odd multiplier. */
+        RABIN_KARP,
+        /** Cyclic polynomial hashing of randomized values. */
+        BUZHASH
+    }
+
+    private static final long BASE = 0x9E3779B97F4A7C15L;
+    private static final long[] TABLE = new long[256];
+
+    static {
+        SplittableRandom rng = new SplittableRandom(0x5DEECE66DL);
+        for (int i = 0; i < TABLE.length; i++) {
+            TABLE[i] = rng.nextLong();
+        }
+    }
+
+    private final Kind kind;
+    private final int window;
+    private final long outFactor; // BASE to the power of window
+
+    private RollingHash(Kind kind, int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1");
+        }
+        this.kind = Objects.requireNonNull(kind);
+        this.window = window;
+        long f = 1;
+        for (int i = 0; i < window; i++) {
+            f *= BASE;
+        }
+        this.outFactor = f;
+    }
+
+    /**
+     * @param window the number of values hashed at once.
+     * @return a Rabin-Karp hash.
+     * @throws IllegalArgumentException if the window is less than 1.
+     */
+    public static RollingHash rabinKarp(int window) {
+        return new RollingHash(Kind.RABIN_KARP, window);
+    }
+
+    /**
+     * @param window the number of values hashed at once.
+     * @return a Buzhash hash.
+     * @throws IllegalArgumentException if the window is less than 1.
+     */
+    public static RollingHash buzhash(int window) {
+        return new RollingHash(Kind.BUZHASH, window);
+    }
+
+    /** @return the kind of hash. */
+    public Kind kind() { return kind; }
+
+    /** @return the number of values hashed at once. */
+    public int window() { return window; }
+
+    /**
+     * @return a well mixed 64 bit value for a value, from a table for
+     * values below 256.
+     */
+    static long randomize(int v) {
+        if (v >= 0 && v < 256) {
+            return TABLE[v];
+        }
+        long z = (v + BASE) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Add a value to a window that is not yet full. Starting from 0,
+     * adding {@code window()} values gives the hash of those values.
+     * @param h the hash so far.
+     * @param in the value to add.
+     * @return the new hash.
+     */
+    public long push(long h, int in) {
+        if (kind == Kind.RABIN_KARP) {
+            return h * BASE + in;
+        } else {
+            return Long.rotateLeft(h, 1) ^ randomize(in);
+        }
+    }
+
+    /**
+     * Slide a full window along by one value.
+     * @param h the hash of the window.
+     * @param out the oldest value in the window.
+     * @param in the value to add.
+     * @return the hash of the new window.
+     */
+    public long roll(long h, int out, int in) {
+        if (kind == Kind.RABIN_KARP) {
+            return h * BASE - out * outFactor + in;
+        } else {
+            return Long.rotateLeft(h, 1) ^ Long.rotateLeft(randomize(out), window) ^ randomize(in);
+        }
+    }
+
+    /**
+     * Hash a window of characters.
+     * @param s the sequence holding the window.
+     * @param fromIndex the index of the first character of the window.
+     * @return the hash of the {@code window()} characters starting at {@code fromIndex}.
+     * @throws NullPointerException if passed a null sequence.
+     * @throws IndexOutOfBoundsException if the window does not fit in the sequence.
+     */
+    public long hash(CharSequence s, int fromIndex) {
+        Objects.checkFromIndexSize(fromIndex, window, s.length());
+        long h = 0;
+        for (int i = 0; i < window; i++) {
+            h = push(h, s.charAt(fromIndex + i));
+        }
+        return h;
+    }
+
+    /**
+     * Get the hash of every window of characters of a sequence.
+     * @param s the sequence to hash.
+     * @return a sequential stream of hashes, one for each starting position.
+     * @throws NullPointerException if passed a null sequence.
+     */
+    public LongStream fingerprints(CharSequence s) {
+        return fingerprints(s, SplitPolicy.DEFAULT);
+    }
+
+    /**
+     * Get the hash of every window of characters of a sequence.
+     * @param s the sequence to hash.
+     * @param policy how to split the sequence for parallel processing.
+     * @return a sequential stream of hashes, one for each starting position.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public LongStream fingerprints(CharSequence s, SplitPolicy policy) {
+        Objects.requireNonNull(s);
+        return StreamSupport.longStream(new RollingHashSpliterator(i -> s.charAt((int)i),
+                                                                   0, s.length(), this, policy),
+                                        false);
+    }
+
+    /**
+     * Get the hash of every window of bytes of a file.
+     * @param file the file to hash.
+     * @return a sequential stream of hashes, one for each starting position.
+     * @throws NullPointerException if passed a null file.
+     */
+    public LongStream fingerprints(MappedFile file) {
+        return fingerprints(file, SplitPolicy.DEFAULT);
+    }
+
+    /**
+     * Get the hash of every window of bytes of a file. Bytes are
+     * hashed as unsigned values.
+     * @param file the file to hash.
+     * @param policy how to split the file for parallel processing.
+     * @return a sequential stream of hashes, one for each starting position.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public LongStream fingerprints(MappedFile file, SplitPolicy policy) {
+        Objects.requireNonNull(file);
+        return StreamSupport.longStream(new RollingHashSpliterator(i -> file.get(i) & 0xFF,
+                                                                   0, file.size(), this, policy),
+                                        false);
+    }
+
+    /**
+     * Get the hash of every window of a stream of values, such as the
+     * codepoints from {@code Readers.codePoints()}. The result is
+     * parallel if the argument is, and closing it closes the argument.
+     * @param values the values to hash.
+     * @return a stream of hashes, one for each starting position.
+     * @throws NullPointerException if passed a null stream.
+     */
+    public LongStream fingerprints(IntStream values) {
+        var s = new RollingHashAdaptorSpliterator(values.spliterator(), this, SplitPolicy.DEFAULT);
+        return StreamSupport.longStream(s, values.isParallel()).onClose(values::close);
+    }
+}
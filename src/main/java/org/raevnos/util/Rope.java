@@ -0,0 +1,452 @@
+package org.raevnos.util;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.raevnos.util.iterator.CharSpliterator;
+import org.raevnos.util.iterator.SplitPolicy;
+
+/**
+ * An immutable sequence of characters stored as a balanced binary
+ * tree of short strings, for cheaply building and editing very large
+ * texts. Concatenation, insertion, deletion and taking
+ * sub-sequences take O(log n) time and share structure with the
+ * original, instead of copying it. Character access is O(log n).
+ *
+ * The tree is kept balanced like an AVL tree. Leaves hold up to
+ * {@code MAX_LEAF} characters each.
+ */
+public final class Rope implements CharSequence {
+    /** Maximum number of characters in a leaf. */
+    public static final int MAX_LEAF = 512;
+
+    private static final Rope EMPTY = new Rope(new Leaf(""));
+
+    private final Node root;
+    private int hash;
+
+    private Rope(Node root) {
+        this.root = root;
+    }
+
+    private static abstract class Node {
+        abstract int length();
+        abstract int depth();
+        abstract char charAt(int i);
+        abstract void appendTo(StringBuilder sb);
+    }
+
+    private static final class Leaf extends Node {
+        final String text;
+        Leaf(String text) { this.text = text; }
+        @Override int length() { return text.length(); }
+        @Override int depth() { return 0; }
+        @Override char charAt(int i) { return text.charAt(i); }
+        @Override void appendTo(StringBuilder sb) { sb.append(text); }
+    }
+
+    private static final class Concat extends Node {
+        final Node left, right;
+        final int length, depth;
+        Concat(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+            this.length = Math.addExact(left.length(), right.length());
+            this.depth = Math.max(left.depth(), right.depth()) + 1;
+        }
+        @Override int length() { return length; }
+        @Override int depth() { return depth; }
+        @Override char charAt(int i) {
+            Node n = this;
+            while (n instanceof Concat) {
+                Concat c = (Concat)n;
+                int ll = c.left.length();
+                if (i < ll) {
+                    n = c.left;
+                } else {
+                    n = c.right;
+                    i -= ll;
+                }
+            }
+            return n.charAt(i);
+        }
+        @Override void appendTo(StringBuilder sb) {
+            left.appendTo(sb);
+            right.appendTo(sb);
+        }
+    }
+
+    /** Build a balanced tree out of leaves of a sequence. */
+    private static Node build(CharSequence s, int from, int to) {
+        if (to - from <= MAX_LEAF) {
+            return new Leaf(s.subSequence(from, to).toString());
+        }
+        int leaves = (to - from + MAX_LEAF - 1) / MAX_LEAF;
+        int mid = from + (leaves / 2) * MAX_LEAF;
+        return new Concat(build(s, from, mid), build(s, mid, to));
+    }
+
+    /** Join two trees with an AVL rotation if their depths differ by two. */
+    private static Node balance(Node l, Node r) {
+        if (l.depth() > r.depth() + 1) {
+            Concat c = (Concat)l;
+            if (c.left.depth() >= c.right.depth()) {
+                return new Concat(c.left, new Concat(c.right, r));
+            } else {
+                Concat cr = (Concat)c.right;
+                return new Concat(new Concat(c.left, cr.left), new Concat(cr.right, r));
+            }
+        } else if (r.depth() > l.depth() + 1) {
+            Concat c = (Concat)r;
+            if (c.right.depth() >= c.left.depth()) {
+                return new Concat(new Concat(l, c.left), c.right);
+            } else {
+                Concat cl = (Concat)c.left;
+                return new Concat(new Concat(l, cl.left), new Concat(cl.right, c.right));
+            }
+        } else {
+            return new Concat(l, r);
+        }
+    }
+
+    /** Concatenate two trees, keeping the result balanced. */
+    private static Node join(Node l, Node r) {
+        if (l.length() == 0) {
+            return r;
+        } else if (r.length() == 0) {
+            return l;
+        } else if (l instanceof Leaf && r instanceof Leaf
+                   && l.length() + r.length() <= MAX_LEAF) {
+            return new Leaf(((Leaf)l).text + ((Leaf)r).text);
+        }
+        int dl = l.depth(), dr = r.depth();
+        if (dl > dr + 1) {
+            Concat c = (Concat)l;
+            return balance(c.left, join(c.right, r));
+        } else if (dr > dl + 1) {
+            Concat c = (Concat)r;
+            return balance(join(l, c.left), c.right);
+        } else {
+            return new Concat(l, r);
+        }
+    }
+
+    /** Split a tree into the first i characters and the rest. */
+    private static Node[] split(Node n, int i) {
+        if (i == 0) {
+            return new Node[] { EMPTY.root, n };
+        } else if (i == n.length()) {
+            return new Node[] { n, EMPTY.root };
+        } else if (n instanceof Leaf) {
+            String text = ((Leaf)n).text;
+            return new Node[] { new Leaf(text.substring(0, i)), new Leaf(text.substring(i)) };
+        }
+        Concat c = (Concat)n;
+        int ll = c.left.length();
+        if (i <= ll) {
+            Node[] parts = split(c.left, i);
+            parts[1] = join(parts[1], c.right);
+            return parts;
+        } else {
+            Node[] parts = split(c.right, i - ll);
+            parts[0] = join(c.left, parts[0]);
+            return parts;
+        }
+    }
+
+    /**
+     * @return an empty rope.
+     */
+    public static Rope empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create a rope holding a copy of a sequence.
+     * @param s the characters of the rope.
+     * @return a new rope, or {@code s} itself if it is already a rope.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public static Rope of(CharSequence s) {
+        Objects.requireNonNull(s);
+        if (s instanceof Rope) {
+            return (Rope)s;
+        } else if (s.length() == 0) {
+            return EMPTY;
+        } else {
+            return new Rope(build(s, 0, s.length()));
+        }
+    }
+
+    /**
+     * Append characters to the end of this rope.
+     * @param s the characters to append.
+     * @return a new rope.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public Rope concat(CharSequence s) {
+        return new Rope(join(root, of(s).root));
+    }
+
+    /**
+     * Insert characters into this rope.
+     * @param index the index to insert at.
+     * @param s the characters to insert.
+     * @return a new rope.
+     * @throws NullPointerException if passed a null sequence.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public Rope insert(int index, CharSequence s) {
+        Objects.checkIndex(index, length() + 1);
+        Node[] parts = split(root, index);
+        return new Rope(join(join(parts[0], of(s).root), parts[1]));
+    }
+
+    /**
+     * Remove a range of characters from this rope.
+     * @param begIdxInclusive the index of the first character to remove.
+     * @param endIdxExclusive one past the index of the last character to remove.
+     * @return a new rope.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    public Rope delete(int begIdxInclusive, int endIdxExclusive) {
+        Objects.checkFromToIndex(begIdxInclusive, endIdxExclusive, length());
+        Node[] tail = split(root, endIdxExclusive);
+        Node[] head = split(tail[0], begIdxInclusive);
+        return new Rope(join(head[0], tail[1]));
+    }
+
+    @Override
+    public Rope subSequence(int begIdxInclusive, int endIdxExclusive) {
+        Objects.checkFromToIndex(begIdxInclusive, endIdxExclusive, length());
+        Node[] tail = split(root, endIdxExclusive);
+        return new Rope(split(tail[0], begIdxInclusive)[1]);
+    }
+
+    @Override
+    public int length() {
+        return root.length();
+    }
+
+    @Override
+    public char charAt(int i) {
+        Objects.checkIndex(i, length());
+        return root.charAt(i);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return root.length() == 0;
+    }
+
+    /**
+     * @return a spliterator over the characters of the rope that
+     * splits on tree node boundaries, using {@code
+     * CharSpliterator.DEFAULT_POLICY}.
+     */
+    public Spliterator.OfInt spliterator() {
+        return spliterator(CharSpliterator.DEFAULT_POLICY);
+    }
+
+    /**
+     * @param policy How to split the rope for parallel processing.
+     * Split points are rounded to tree node boundaries.
+     * @return a spliterator over the characters of the rope.
+     * @throws NullPointerException if passed a null policy.
+     */
+    public Spliterator.OfInt spliterator(SplitPolicy policy) {
+        return new RopeSpliterator(root, policy.resolve(root.length()));
+    }
+
+    /**
+     * @return a stream of the characters of the rope without boxing,
+     * which splits on tree node boundaries for parallel processing.
+     */
+    @Override
+    public IntStream chars() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    /**
+     * @return an unmodifiable {@code List<Character>} view of the rope,
+     * like {@code StringList}.
+     */
+    public List<Character> asList() {
+        return new RopeList();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(length());
+        root.appendTo(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Compare the contents of two ropes.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o instanceof Rope) {
+            Rope other = (Rope)o;
+            return length() == other.length() && CharSequence.compare(this, other) == 0;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * @return the same hash code as a {@code String} with the same contents.
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && length() > 0) {
+            int[] acc = new int[1];
+            spliterator().forEachRemaining((int c) -> acc[0] = 31 * acc[0] + c);
+            h = acc[0];
+            hash = h;
+        }
+        return h;
+    }
+
+    private final class RopeList extends AbstractList<Character> implements RandomAccess {
+        @Override public Character get(int i) {
+            return Character.valueOf(charAt(i));
+        }
+
+        @Override public int size() {
+            return length();
+        }
+
+        @Override public Stream<Character> stream() {
+            return Rope.this.chars().mapToObj(c -> Character.valueOf((char)c));
+        }
+
+        @Override public Stream<Character> parallelStream() {
+            return StreamSupport.intStream(Rope.this.spliterator(), true)
+                .mapToObj(c -> Character.valueOf((char)c));
+        }
+    }
+
+    /**
+     * Iterates over the leaves of a tree in order. Splits by handing
+     * off whole subtrees.
+     */
+    private static final class RopeSpliterator implements Spliterator.OfInt {
+        /** Subtrees still to visit, in order. */
+        private final ArrayDeque<Node> pending;
+        private String leaf;
+        private int pos;
+        private long remaining;
+        private final SplitPolicy policy;
+
+        RopeSpliterator(Node root, SplitPolicy policy) {
+            this.pending = new ArrayDeque<Node>();
+            this.pending.add(root);
+            this.leaf = "";
+            this.pos = 0;
+            this.remaining = root.length();
+            this.policy = policy;
+        }
+
+        private RopeSpliterator(String leaf, int pos, ArrayDeque<Node> pending,
+                                long remaining, SplitPolicy policy) {
+            this.pending = pending;
+            this.leaf = leaf;
+            this.pos = pos;
+            this.remaining = remaining;
+            this.policy = policy;
+        }
+
+        private boolean nextLeaf() {
+            while (!pending.isEmpty()) {
+                Node n = pending.pollFirst();
+                if (n instanceof Concat) {
+                    Concat c = (Concat)n;
+                    pending.addFirst(c.right);
+                    pending.addFirst(c.left);
+                } else {
+                    leaf = ((Leaf)n).text;
+                    pos = 0;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override public int characteristics() {
+            return IMMUTABLE | NONNULL | ORDERED | SIZED | SUBSIZED;
+        }
+
+        @Override public long estimateSize() {
+            return remaining;
+        }
+
+        @Override public boolean tryAdvance(IntConsumer action) {
+            while (pos == leaf.length()) {
+                if (!nextLeaf()) {
+                    return false;
+                }
+            }
+            remaining--;
+            action.accept(leaf.charAt(pos++));
+            return true;
+        }
+
+        @Override public void forEachRemaining(IntConsumer action) {
+            do {
+                String s = leaf;
+                for (int i = pos; i < s.length(); i++) {
+                    action.accept(s.charAt(i));
+                }
+                pos = s.length();
+            } while (nextLeaf());
+            remaining = 0;
+        }
+
+        @Override public Spliterator.OfInt trySplit() {
+            long target = policy.splitSize(remaining);
+            if (target == 0) {
+                return null;
+            }
+            // Open up subtrees until there's more than one to divide.
+            while (pending.size() == 1 && pending.peekFirst() instanceof Concat) {
+                Concat c = (Concat)pending.pollFirst();
+                pending.addFirst(c.right);
+                pending.addFirst(c.left);
+            }
+            long prefixLen = leaf.length() - pos;
+            ArrayDeque<Node> prefix = new ArrayDeque<Node>();
+            while (pending.size() > 1
+                   && (prefixLen == 0
+                       || prefixLen + pending.peekFirst().length() <= target)) {
+                Node n = pending.pollFirst();
+                prefixLen += n.length();
+                prefix.addLast(n);
+            }
+            if (prefixLen == 0 || prefixLen == remaining) {
+                // Put back anything taken; nothing to split off.
+                while (!prefix.isEmpty()) {
+                    pending.addFirst(prefix.pollLast());
+                }
+                return null;
+            }
+            RopeSpliterator front = new RopeSpliterator(leaf, pos, prefix, prefixLen, policy);
+            leaf = "";
+            pos = 0;
+            remaining -= prefixLen;
+            return front;
+        }
+    }
+}
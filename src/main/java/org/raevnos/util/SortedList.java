@@ -88,6 +88,27 @@ public class SortedList<T> extends AbstractList<T>
         this.source.sort(this.comparator);
     }
 
+    /** Create a new list populated by the given collection and given
+     * ordering, sorted with a radix sort on a normalized key.
+     * @param c The collection to populate the list from.
+     * @param cmp Comparator to use to determine ordering. If null,
+     * uses the natural ordering.
+     * @param key A prefix key consistent with the ordering.
+     * @throws NullPointerException if the collection or key is null or
+     * the collection has a null element
+     */
+    SortedList(Collection<? extends T> c, Comparator<? super T> cmp,
+               NormalizedKey<? super T> key) {
+        super();
+        if (Objects.requireNonNull(c).stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException();
+        }
+        Objects.requireNonNull(key);
+        this.comparator = cmp;
+        this.source = new ArrayList<T>(c);
+        RadixSort.sort(this.source, key, this.comparator);
+    }
+
     /** Copy an existing SortedList
      * @param sl the sorted list to copy
      * @throws NullPointerException if given a null argument
@@ -183,6 +204,28 @@ public class SortedList<T> extends AbstractList<T>
         return added;
     }
 
+    /** Insert all the elements of a collection, re-sorting with a
+     * radix sort on a normalized key. Faster than {@code
+     * addAll(Collection)} for large bulk loads.
+     * @param c the collection to add
+     * @param key A prefix key consistent with the list's ordering.
+     * @returns true if any elements were added
+     * @throws NullPointerException if an argument is null or element of
+     * the collection is null.
+     */
+    public boolean addAll(Collection<? extends T> c, NormalizedKey<? super T> key) {
+        if (Objects.requireNonNull(c).stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException();
+        }
+        Objects.requireNonNull(key);
+        boolean added = source.addAll(c);
+        if (added) {
+            RadixSort.sort(source, key, comparator);
+            modCount++;
+        }
+        return added;
+    }
+
     @Override
     public void clear() {
         source.clear();
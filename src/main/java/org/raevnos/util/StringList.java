@@ -5,19 +5,21 @@ import java.util.Iterator;
 import java.util.Objects;
 import java.util.RandomAccess;
 import java.util.Spliterator;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import java.io.Serializable;
 
 import org.raevnos.util.iterator.CharIterator;
+import org.raevnos.util.iterator.CharSpliterator;
 
 /**
  * An unmodifiable, space-efficient {@code List<Character>} view of a
- * backing {@code String}.
+ * backing {@code String} or {@code CompactText}.
  */
 public class StringList extends AbstractList<Character>
     implements RandomAccess, Serializable {
-    private final String source;
+    private final CharSequence source;
 
     /**
      * Create a {@code StringList} backed by the given {@code String}.
@@ -29,6 +31,23 @@ public class StringList extends AbstractList<Character>
         this.source = source;
     }
 
+    /**
+     * Create a {@code StringList} backed by the given {@code CompactText}.
+     * @throws NullPointerException if passed a {@code null} argument.
+     */
+    public StringList(CompactText source) {
+        super();
+        Objects.requireNonNull(source);
+        this.source = source;
+    }
+
+    /**
+     * @return the backing string or text.
+     */
+    CharSequence source() {
+        return source;
+    }
+
     @Override public Character get(int i) {
         return Character.valueOf(source.charAt(i));
     }
@@ -48,7 +67,7 @@ public class StringList extends AbstractList<Character>
         Objects.requireNonNull(o);
         if (o instanceof Character) {
             char c = (Character)o;
-            return source.indexOf(c);
+            return indexOf((int)c);
         } else {
             throw new ClassCastException("Argument must be a Character");
         }
@@ -60,7 +79,30 @@ public class StringList extends AbstractList<Character>
      * @return The index, or -1 if not found
      */
     public int indexOf(int c) {
-        return source.indexOf(c);
+        if (source instanceof String) {
+            return ((String)source).indexOf(c);
+        }
+        return Strings.indexOf(source, c, 0);
+    }
+
+    /**
+     * Look for the first character in the list that is a member of a class.
+     * @param chars The characters to look for.
+     * @return The index, or -1 if not found
+     * @throws NullPointerException if the argument is {@code null}
+     */
+    public int indexOfAny(CharClass chars) {
+        return Strings.indexOfAny(source, chars);
+    }
+
+    /**
+     * Count the characters in the list that are members of a class.
+     * @param chars The characters to count.
+     * @return The number of matches.
+     * @throws NullPointerException if the argument is {@code null}
+     */
+    public int countMatches(CharClass chars) {
+        return Strings.countMatches(source, chars);
     }
 
     /**
@@ -74,7 +116,7 @@ public class StringList extends AbstractList<Character>
         Objects.requireNonNull(o);
         if (o instanceof Character) {
             char c = (Character)o;
-            return source.lastIndexOf(c);
+            return lastIndexOf((int)c);
         } else {
             throw new ClassCastException("Argument must be a Character");
         }
@@ -86,7 +128,10 @@ public class StringList extends AbstractList<Character>
      * @return The index, or -1 if not found
      */
     public int lastIndexOf(int c) {
-        return source.lastIndexOf(c);
+        if (source instanceof String) {
+            return ((String)source).lastIndexOf(c);
+        }
+        return Strings.lastIndexOf(source, c);
     }
 
     @Override
@@ -107,14 +152,31 @@ public class StringList extends AbstractList<Character>
         return StreamSupport.stream(new CharIterator(source), true);
     }
 
+    /**
+     * @return a stream of the characters of the list without boxing.
+     */
+    public IntStream chars() {
+        return StreamSupport.intStream(new CharSpliterator(source), false);
+    }
+
+    /**
+     * @return a stream of the codepoints of the list.
+     */
+    public IntStream codePoints() {
+        return StreamSupport.intStream(CharSpliterator.ofCodePoints(source), false);
+    }
+
     @Override public boolean isEmpty() {
-        return source.isEmpty();
+        return source.length() == 0;
     }
 
     @Override public boolean equals(Object o) {
         if (o != null && o instanceof StringList) {
             StringList other = (StringList)o;
-            return source.equals(other.source);
+            if (source instanceof String && other.source instanceof String) {
+                return source.equals(other.source);
+            }
+            return CharSequence.compare(source, other.source) == 0;
         } else {
             return false;
         }
@@ -4,11 +4,18 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.raevnos.util.iterator.CharIterator;
+import org.raevnos.util.iterator.CharSpliterator;
+import org.raevnos.util.iterator.LineSpliterator;
+import org.raevnos.util.iterator.MatchSpliterator;
+import org.raevnos.util.iterator.SplitPolicy;
+import org.raevnos.util.iterator.TokenSpliterator;
 
 /**
  * Various static methods to manipulate {@code String} and {@code CharSequence} objects.
@@ -27,6 +34,65 @@ public class Strings {
         return StreamSupport.stream(new CharIterator(s), false);
     }
 
+    /**
+     * Get a stream of the characters of a {@code CharSequence} object
+     * without boxing. Unlike {@code CharSequence.chars()}, the stream
+     * splits efficiently for parallel processing for any sequence.
+     * @param s The sequence to get a stream from.
+     * @return An {@code IntStream} of UTF-16 characters.
+     * @throws NullPointerException if passed a null argument
+     */
+    static public IntStream chars(CharSequence s) {
+        return StreamSupport.intStream(new CharSpliterator(s), false);
+    }
+
+    /**
+     * Get a stream of the characters of a range of a {@code CharSequence}
+     * object without boxing.
+     * @param s The sequence to get a stream from.
+     * @param begIdxInclusive The starting index of the range.
+     * @param endIdxExclusive One past the ending index of the range.
+     * @param threshold Ranges of this many characters or fewer are not
+     * split for parallel processing.
+     * @return An {@code IntStream} of UTF-16 characters.
+     * @throws NullPointerException if passed a null sequence
+     * @throws IndexOutOfBoundsException if the range is invalid for the given source.
+     * @throws IllegalArgumentException if the threshold is less than 1.
+     */
+    static public IntStream chars(CharSequence s, int begIdxInclusive, int endIdxExclusive,
+                                  int threshold) {
+        return StreamSupport.intStream(new CharSpliterator(s, begIdxInclusive,
+                                                           endIdxExclusive, false,
+                                                           threshold),
+                                       false);
+    }
+
+    /**
+     * Get a stream of the characters of a {@code CharSequence} object
+     * without boxing, splitting for parallel processing according to
+     * a policy.
+     * @param s The sequence to get a stream from.
+     * @param policy How to split the sequence.
+     * @return An {@code IntStream} of UTF-16 characters.
+     * @throws NullPointerException if passed a null argument
+     */
+    static public IntStream chars(CharSequence s, SplitPolicy policy) {
+        return StreamSupport.intStream(new CharSpliterator(s, 0, s.length(), false, policy),
+                                       false);
+    }
+
+    /**
+     * Get a stream of the codepoints of a {@code CharSequence}
+     * object. The stream splits efficiently for parallel processing
+     * for any sequence.
+     * @param s The sequence to get a stream from.
+     * @return An {@code IntStream} of codepoints.
+     * @throws NullPointerException if passed a null argument
+     */
+    static public IntStream codePoints(CharSequence s) {
+        return StreamSupport.intStream(CharSpliterator.ofCodePoints(s), false);
+    }
+
     /**
      * Converts a {@code CharSequence} object to a list of characters.
      * No guarantees are made about the list's implementation,
@@ -69,4 +135,343 @@ public class Strings {
         }
         return sb.toString();
     }
+
+    /**
+     * Converts a stream of UTF-16 characters into a string. Characters
+     * are not boxed, and parallel streams build partial strings
+     * that are concatenated. The builder used stores text as Latin-1
+     * bytes until a wider character is added.
+     * @param chars the characters to convert.
+     * @return A {@code String} made from the elements of the stream.
+     * @throws NullPointerException if passed a null argument.
+     */
+    static public String implodeChars(IntStream chars) {
+        Objects.requireNonNull(chars);
+        return chars.collect(StringBuilder::new,
+                             (sb, c) -> sb.append((char)c),
+                             StringBuilder::append)
+            .toString();
+    }
+
+    /**
+     * Converts a stream of codepoints into a string. Codepoints are
+     * not boxed, and parallel streams build partial strings that are
+     * concatenated.
+     * @param codePoints the codepoints to convert.
+     * @return A {@code String} made from the elements of the stream.
+     * @throws NullPointerException if passed a null argument.
+     * @throws IllegalArgumentException if an element is not a valid codepoint.
+     */
+    static public String implodeCodePoints(IntStream codePoints) {
+        Objects.requireNonNull(codePoints);
+        return codePoints.collect(StringBuilder::new,
+                                  StringBuilder::appendCodePoint,
+                                  StringBuilder::append)
+            .toString();
+    }
+
+    /**
+     * Converts a slice of an array of characters into a string.
+     * @param chars the array
+     * @param offset the index of the first character to use
+     * @param count the number of characters to use
+     * @return A {@code String} made from the characters.
+     * @throws NullPointerException if passed a null argument.
+     * @throws IndexOutOfBoundsException if the slice is out of range.
+     */
+    static public String implode(char[] chars, int offset, int count) {
+        Objects.requireNonNull(chars);
+        return new String(chars, offset, count);
+    }
+
+    /**
+     * Converts a range of a {@code StringList} into a string, sharing
+     * no state with the list's backing string.
+     * @param chars the list
+     * @param fromIndex the index of the first character to use, inclusive
+     * @param toIndex the index of the last character to use, exclusive
+     * @return A {@code String} made from the characters.
+     * @throws NullPointerException if passed a null argument.
+     * @throws IndexOutOfBoundsException if the range is invalid.
+     */
+    static public String implode(StringList chars, int fromIndex, int toIndex) {
+        Objects.requireNonNull(chars);
+        return chars.source().subSequence(fromIndex, toIndex).toString();
+    }
+
+    /**
+     * Returns a {@code Collector} that converts a stream of {@code
+     * Character}s into a string.
+     * @return A {@code Collector} that concatenates characters.
+     */
+    static public Collector<Character, ?, String> joiningChars() {
+        return Collector.of(StringBuilder::new,
+                            StringBuilder::append,
+                            StringBuilder::append,
+                            StringBuilder::toString);
+    }
+
+    /**
+     * Find the first occurrence of a codepoint in a sequence like
+     * {@code String.indexOf(int, int)}.
+     * @param s The sequence to search.
+     * @param cp The codepoint to look for.
+     * @param fromIndex The index to start searching at.
+     * @return The index of the first match, or -1 if not found.
+     * @throws NullPointerException if passed a null sequence.
+     */
+    static public int indexOf(CharSequence s, int cp, int fromIndex) {
+        if (s instanceof CompactText) {
+            return ((CompactText)s).indexOf(cp, fromIndex);
+        }
+        int n = s.length();
+        if (Character.isBmpCodePoint(cp)) {
+            for (int i = Math.max(fromIndex, 0); i < n; i++) {
+                if (s.charAt(i) == cp) {
+                    return i;
+                }
+            }
+        } else if (Character.isValidCodePoint(cp)) {
+            char hi = Character.highSurrogate(cp), lo = Character.lowSurrogate(cp);
+            for (int i = Math.max(fromIndex, 0); i + 1 < n; i++) {
+                if (s.charAt(i) == hi && s.charAt(i + 1) == lo) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the last occurrence of a codepoint in a sequence like
+     * {@code String.lastIndexOf(int)}.
+     * @param s The sequence to search.
+     * @param cp The codepoint to look for.
+     * @return The index of the last match, or -1 if not found.
+     * @throws NullPointerException if passed a null sequence.
+     */
+    static public int lastIndexOf(CharSequence s, int cp) {
+        if (s instanceof CompactText) {
+            return ((CompactText)s).lastIndexOf(cp);
+        }
+        if (Character.isBmpCodePoint(cp)) {
+            for (int i = s.length() - 1; i >= 0; i--) {
+                if (s.charAt(i) == cp) {
+                    return i;
+                }
+            }
+        } else if (Character.isValidCodePoint(cp)) {
+            char hi = Character.highSurrogate(cp), lo = Character.lowSurrogate(cp);
+            for (int i = s.length() - 2; i >= 0; i--) {
+                if (s.charAt(i) == hi && s.charAt(i + 1) == lo) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the first character in a sequence that is a member of a class.
+     * @param s The sequence to search.
+     * @param chars The characters to look for.
+     * @return The index of the first match, or -1 if not found.
+     * @throws NullPointerException if passed a null argument.
+     */
+    static public int indexOfAny(CharSequence s, CharClass chars) {
+        return chars.indexIn(s, 0, s.length());
+    }
+
+    /**
+     * Find the first character in a sequence that is a member of a
+     * class, starting from a given index.
+     * @param s The sequence to search.
+     * @param chars The characters to look for.
+     * @param fromIndex The index to start searching at.
+     * @return The index of the first match, or -1 if not found.
+     * @throws NullPointerException if passed a null argument.
+     * @throws IndexOutOfBoundsException if the starting index is out of range.
+     */
+    static public int indexOfAny(CharSequence s, CharClass chars, int fromIndex) {
+        return chars.indexIn(s, fromIndex, s.length());
+    }
+
+    /**
+     * Count the characters in a sequence that are members of a class.
+     * @param s The sequence to search.
+     * @param chars The characters to count.
+     * @return The number of matching characters.
+     * @throws NullPointerException if passed a null argument.
+     */
+    static public int countMatches(CharSequence s, CharClass chars) {
+        return chars.countIn(s, 0, s.length());
+    }
+
+    /**
+     * Get a stream of the indexes of the characters in a sequence that
+     * are members of a class, such as the split points between
+     * delimited fields. The stream splits efficiently for parallel
+     * processing, so {@code splitPoints(s, chars).parallel().count()}
+     * is a parallel {@code countMatches()}.
+     * @param s The sequence to search.
+     * @param chars The characters to look for.
+     * @return An {@code IntStream} of indexes in increasing order.
+     * @throws NullPointerException if passed a null argument.
+     */
+    static public IntStream splitPoints(CharSequence s, CharClass chars) {
+        return StreamSupport.intStream(new MatchSpliterator(s, chars), false);
+    }
+
+    /**
+     * Replace every character in a sequence that is a member of a class.
+     * @param s The sequence to copy.
+     * @param chars The characters to replace.
+     * @param replacement The character to replace them with.
+     * @return A new string.
+     * @throws NullPointerException if passed a null argument.
+     */
+    static public String replaceAny(CharSequence s, CharClass chars, char replacement) {
+        int len = s.length();
+        int i = chars.indexIn(s, 0, len);
+        if (i < 0) {
+            return s.toString();
+        }
+        StringBuilder sb = new StringBuilder(len);
+        int prev = 0;
+        while (i >= 0) {
+            sb.append(s, prev, i).append(replacement);
+            prev = i + 1;
+            i = prev < len ? chars.indexIn(s, prev, len) : -1;
+        }
+        return sb.append(s, prev, len).toString();
+    }
+
+    /**
+     * Get a stream of the lines of a {@code CharSequence}, like {@code
+     * String.lines()}, as views that share the sequence's characters.
+     * The stream splits efficiently for parallel processing.
+     * @param s The sequence to split into lines.
+     * @return A {@code Stream} of lines without their terminators.
+     * @throws NullPointerException if passed a null argument
+     */
+    static public Stream<CharSequence> lines(CharSequence s) {
+        return StreamSupport.stream(new LineSpliterator(s), false);
+    }
+
+    /**
+     * Get a stream of the lines of a {@code CharSequence}, splitting
+     * for parallel processing according to a policy.
+     * @param s The sequence to split into lines.
+     * @param policy How to split the sequence. Split points are moved
+     * forward to the start of the next line.
+     * @return A {@code Stream} of lines without their terminators.
+     * @throws NullPointerException if passed a null argument
+     */
+    static public Stream<CharSequence> lines(CharSequence s, SplitPolicy policy) {
+        return StreamSupport.stream(new LineSpliterator(s, 0, s.length(), policy), false);
+    }
+
+    /**
+     * Get a stream of the lines of a {@code CharSequence} as strings.
+     * @param s The sequence to split into lines.
+     * @return A {@code Stream} of lines without their terminators.
+     * @throws NullPointerException if passed a null argument
+     * @see #lines(CharSequence)
+     */
+    static public Stream<String> lineStrings(CharSequence s) {
+        return lines(s).map(CharSequence::toString);
+    }
+
+    /**
+     * Get a stream of the tokens of a {@code CharSequence} separated
+     * by runs of delimiters, as views that share the sequence's
+     * characters. The stream splits efficiently for parallel processing.
+     * @param s The sequence to split into tokens.
+     * @param delimiters The characters that separate tokens.
+     * @return A {@code Stream} of non-empty tokens.
+     * @throws NullPointerException if passed a null argument
+     */
+    static public Stream<CharSequence> tokens(CharSequence s, CharClass delimiters) {
+        return StreamSupport.stream(new TokenSpliterator(s, delimiters), false);
+    }
+
+    /**
+     * Get a stream of the whitespace-separated tokens of a {@code
+     * CharSequence}, as views that share the sequence's characters.
+     * @param s The sequence to split into tokens.
+     * @return A {@code Stream} of non-empty tokens.
+     * @throws NullPointerException if passed a null argument
+     */
+    static public Stream<CharSequence> tokens(CharSequence s) {
+        return tokens(s, CharClass.WHITESPACE);
+    }
+
+    /**
+     * Get a stream of the tokens of a {@code CharSequence} separated
+     * by runs of delimiters, splitting for parallel processing
+     * according to a policy.
+     * @param s The sequence to split into tokens.
+     * @param delimiters The characters that separate tokens.
+     * @param policy How to split the sequence. Split points are moved
+     * forward to the next delimiter.
+     * @return A {@code Stream} of non-empty tokens.
+     * @throws NullPointerException if passed a null argument
+     */
+    static public Stream<CharSequence> tokens(CharSequence s, CharClass delimiters,
+                                              SplitPolicy policy) {
+        return StreamSupport.stream(new TokenSpliterator(s, delimiters, 0, s.length(), policy),
+                                    false);
+    }
+
+    /**
+     * Get a stream of the tokens of a {@code CharSequence} as strings.
+     * @param s The sequence to split into tokens.
+     * @param delimiters The characters that separate tokens.
+     * @return A {@code Stream} of non-empty tokens.
+     * @throws NullPointerException if passed a null argument
+     * @see #tokens(CharSequence, CharClass)
+     */
+    static public Stream<String> tokenStrings(CharSequence s, CharClass delimiters) {
+        return tokens(s, delimiters).map(CharSequence::toString);
+    }
+
+    /**
+     * Compute the Levenshtein edit distance between two sequences.
+     * @param a The first sequence.
+     * @param b The second sequence.
+     * @return The number of insertions, deletions and substitutions
+     * needed to turn one into the other.
+     * @throws NullPointerException if passed a null argument
+     * @see EditDistance
+     */
+    static public int editDistance(CharSequence a, CharSequence b) {
+        return EditDistance.of(a).distance(b);
+    }
+
+    /**
+     * Compute the Levenshtein edit distance between two sequences if
+     * it is no more than a limit.
+     * @param a The first sequence.
+     * @param b The second sequence.
+     * @param k The largest distance of interest.
+     * @return The distance, or -1 if it is more than {@code k}.
+     * @throws NullPointerException if passed a null argument
+     * @see EditDistance
+     */
+    static public int editDistance(CharSequence a, CharSequence b, int k) {
+        return EditDistance.of(a).distance(b, k);
+    }
+
+    /**
+     * Find the first approximate occurrence of a pattern in a sequence.
+     * @param s The sequence to search.
+     * @param pattern The text to look for.
+     * @param k The most edits allowed.
+     * @return The index the occurrence starts at, or -1 if not found.
+     * @throws NullPointerException if passed a null argument
+     * @see EditDistance#indexIn(CharSequence, int, int)
+     */
+    static public int fuzzyIndexOf(CharSequence s, CharSequence pattern, int k) {
+        return EditDistance.of(pattern).indexIn(s, k);
+    }
 }
@@ -0,0 +1,423 @@
+package org.raevnos.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * A suffix array over an immutable text, for fast repeated substring
+ * searches. Built with the SA-IS algorithm in linear time.
+ *
+ * The array can be written to a file and mapped back in with {@code
+ * load()} instead of being rebuilt. The text itself is not saved.
+ */
+public class SuffixArray {
+    private static final int MAGIC = 0x53414958; // "SAIX"
+    private static final int NAIVE_THRESHOLD = 10;
+
+    private final CharSequence text;
+    private final IntBuffer sa;
+
+    private SuffixArray(CharSequence text, IntBuffer sa) {
+        this.text = text;
+        this.sa = sa;
+    }
+
+    /**
+     * Build a suffix array over a text. The text must not change while
+     * the index is in use.
+     * @param text the text to index.
+     * @return a new suffix array.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public static SuffixArray build(CharSequence text) {
+        Objects.requireNonNull(text);
+        int n = text.length();
+        // Map the characters to a dense alphabet.
+        boolean[] present = new boolean[Character.MAX_VALUE + 1];
+        for (int i = 0; i < n; i++) {
+            present[text.charAt(i)] = true;
+        }
+        int[] rank = new int[Character.MAX_VALUE + 1];
+        int upper = -1;
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (present[c]) {
+                rank[c] = ++upper;
+            }
+        }
+        int[] s = new int[n];
+        Arrays.parallelSetAll(s, i -> rank[text.charAt(i)]);
+        return new SuffixArray(text, IntBuffer.wrap(saIs(s, Math.max(upper, 0))));
+    }
+
+    /**
+     * Build a suffix array over the characters of a {@code StringList}.
+     * @param text the text to index.
+     * @return a new suffix array.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public static SuffixArray build(StringList text) {
+        return build(Objects.requireNonNull(text).source());
+    }
+
+    /**
+     * Load a suffix array written by {@code write()} by mapping it into memory.
+     * @param p the file holding the array.
+     * @param text the text the array was built over.
+     * @return a suffix array.
+     * @throws IOException on errors reading the file.
+     * @throws IllegalArgumentException if the file isn't a suffix array or
+     * doesn't match the length of the text.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public static SuffixArray load(Path p, CharSequence text) throws IOException {
+        Objects.requireNonNull(p);
+        Objects.requireNonNull(text);
+        try (FileChannel fc = FileChannel.open(p, StandardOpenOption.READ)) {
+            ByteBuffer header = fc.map(FileChannel.MapMode.READ_ONLY, 0, 8);
+            if (header.getInt() != MAGIC) {
+                throw new IllegalArgumentException("not a suffix array file");
+            }
+            int n = header.getInt();
+            if (n != text.length() || fc.size() != 8 + 4L * n) {
+                throw new IllegalArgumentException("suffix array does not match text");
+            }
+            IntBuffer sa = fc.map(FileChannel.MapMode.READ_ONLY, 8, 4L * n).asIntBuffer();
+            return new SuffixArray(text, sa);
+        }
+    }
+
+    /**
+     * Write the array so it can be mapped back in with {@code load()}.
+     * @param out the channel to write to. It is not closed.
+     * @throws IOException on write errors.
+     */
+    public void write(WritableByteChannel out) throws IOException {
+        int n = size();
+        ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+        buf.putInt(MAGIC).putInt(n);
+        for (int i = 0; i < n; i++) {
+            if (buf.remaining() < 4) {
+                flush(buf, out);
+            }
+            buf.putInt(sa.get(i));
+        }
+        flush(buf, out);
+    }
+
+    private static void flush(ByteBuffer buf, WritableByteChannel out) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    /**
+     * @return the indexed text.
+     */
+    public CharSequence text() { return text; }
+
+    /**
+     * @return the number of suffixes, which is the length of the text.
+     */
+    public int size() { return sa.limit(); }
+
+    /**
+     * @param i the rank of a suffix.
+     * @return the starting position in the text of the i-th smallest suffix.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public int get(int i) { return sa.get(i); }
+
+    /**
+     * Compare a pattern with the start of a suffix.
+     * @return less than 0, 0 or greater than 0 if the pattern is less
+     * than, a prefix of, or greater than the suffix.
+     */
+    private int comparePrefix(CharSequence pattern, int suffix) {
+        int n = text.length();
+        int m = pattern.length();
+        for (int k = 0; k < m; k++) {
+            if (suffix + k >= n) {
+                return 1;
+            }
+            int cmp = Character.compare(pattern.charAt(k), text.charAt(suffix + k));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    /** @return the first rank whose suffix does not sort before the pattern. */
+    private int lowerBound(CharSequence pattern) {
+        int lo = 0, hi = size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparePrefix(pattern, sa.get(mid)) > 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** @return the first rank whose suffix sorts after the pattern. */
+    private int upperBound(CharSequence pattern) {
+        int lo = 0, hi = size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparePrefix(pattern, sa.get(mid)) >= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Count the occurrences of a pattern in the text.
+     * @param pattern the substring to look for.
+     * @return the number of times it appears, including overlapping
+     * ones. Like {@code String.indexOf()}, an empty pattern appears at
+     * every index including the end of the text.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public int count(CharSequence pattern) {
+        Objects.requireNonNull(pattern);
+        if (pattern.length() == 0) {
+            return size() + 1;
+        }
+        return upperBound(pattern) - lowerBound(pattern);
+    }
+
+    /**
+     * Find the occurrences of a pattern in the text.
+     * @param pattern the substring to look for.
+     * @return a stream of the starting indexes of each occurrence, in
+     * increasing order.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public IntStream locate(CharSequence pattern) {
+        Objects.requireNonNull(pattern);
+        if (pattern.length() == 0) {
+            return IntStream.rangeClosed(0, size());
+        }
+        int lo = lowerBound(pattern);
+        int hi = upperBound(pattern);
+        return IntStream.range(lo, hi).map(sa::get).sorted();
+    }
+
+    /**
+     * Compute the longest common prefix array with Kasai's algorithm.
+     * @return an array where element i is the length of the common
+     * prefix of the suffixes of rank i - 1 and i.
+     */
+    public int[] lcp() {
+        int n = size();
+        int[] rank = new int[n];
+        for (int i = 0; i < n; i++) {
+            rank[sa.get(i)] = i;
+        }
+        int[] lcp = new int[n];
+        int h = 0;
+        for (int i = 0; i < n; i++) {
+            if (h > 0) {
+                h--;
+            }
+            if (rank[i] == 0) {
+                h = 0;
+                continue;
+            }
+            int j = sa.get(rank[i] - 1);
+            while (i + h < n && j + h < n && text.charAt(i + h) == text.charAt(j + h)) {
+                h++;
+            }
+            lcp[rank[i]] = h;
+        }
+        return lcp;
+    }
+
+    /**
+     * Find the longest substring that appears at least twice in the text.
+     * @return the substring, which is empty if no character repeats.
+     */
+    public CharSequence longestRepeatedSubstring() {
+        int[] lcp = lcp();
+        int best = 0, at = 0;
+        for (int i = 1; i < lcp.length; i++) {
+            if (lcp[i] > best) {
+                best = lcp[i];
+                at = sa.get(i);
+            }
+        }
+        return text.subSequence(at, at + best);
+    }
+
+    /**
+     * Build a compressed FM-index from this suffix array.
+     * @param sampleRate keep one in this many suffix array entries for
+     * locating matches.
+     * @return a new index.
+     * @throws IllegalArgumentException if the sample rate is less than 1.
+     */
+    public FMIndex fmIndex(int sampleRate) {
+        return new FMIndex(this, sampleRate);
+    }
+
+    /** Sort suffixes of short strings directly. */
+    private static int[] saNaive(int[] s) {
+        int n = s.length;
+        Integer[] sa = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            sa[i] = i;
+        }
+        Arrays.sort(sa, (l, r) -> {
+                if (l.equals(r)) {
+                    return 0;
+                }
+                int a = l, b = r;
+                while (a < n && b < n) {
+                    if (s[a] != s[b]) {
+                        return Integer.compare(s[a], s[b]);
+                    }
+                    a++;
+                    b++;
+                }
+                return a == n ? -1 : 1;
+            });
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = sa[i];
+        }
+        return result;
+    }
+
+    /**
+     * Build a suffix array with SA-IS.
+     * @param s the text, with values between 0 and upper inclusive.
+     * @param upper the largest value in the text.
+     * @return the suffix array.
+     */
+    static int[] saIs(int[] s, int upper) {
+        int n = s.length;
+        if (n < NAIVE_THRESHOLD) {
+            return saNaive(s);
+        }
+        int[] sa = new int[n];
+        // ls[i] is true if suffix i is S-type
+        boolean[] ls = new boolean[n];
+        for (int i = n - 2; i >= 0; i--) {
+            ls[i] = s[i] == s[i + 1] ? ls[i + 1] : s[i] < s[i + 1];
+        }
+        int[] sumL = new int[upper + 1];
+        int[] sumS = new int[upper + 1];
+        for (int i = 0; i < n; i++) {
+            if (!ls[i]) {
+                sumS[s[i]]++;
+            } else if (s[i] + 1 <= upper) {
+                sumL[s[i] + 1]++;
+            }
+        }
+        for (int i = 0; i <= upper; i++) {
+            sumS[i] += sumL[i];
+            if (i < upper) {
+                sumL[i + 1] += sumS[i];
+            }
+        }
+
+        int[] lmsMap = new int[n + 1];
+        Arrays.fill(lmsMap, -1);
+        int m = 0;
+        for (int i = 1; i < n; i++) {
+            if (!ls[i - 1] && ls[i]) {
+                lmsMap[i] = m++;
+            }
+        }
+        int[] lms = new int[m];
+        for (int i = 1, j = 0; i < n; i++) {
+            if (!ls[i - 1] && ls[i]) {
+                lms[j++] = i;
+            }
+        }
+
+        induce(s, upper, sa, ls, sumL, sumS, lms);
+
+        if (m > 0) {
+            int[] sortedLms = new int[m];
+            for (int i = 0, j = 0; i < n; i++) {
+                if (lmsMap[sa[i]] != -1) {
+                    sortedLms[j++] = sa[i];
+                }
+            }
+            int[] recS = new int[m];
+            int recUpper = 0;
+            recS[lmsMap[sortedLms[0]]] = 0;
+            for (int i = 1; i < m; i++) {
+                int l = sortedLms[i - 1], r = sortedLms[i];
+                int endL = lmsMap[l] + 1 < m ? lms[lmsMap[l] + 1] : n;
+                int endR = lmsMap[r] + 1 < m ? lms[lmsMap[r] + 1] : n;
+                boolean same = true;
+                if (endL - l != endR - r) {
+                    same = false;
+                } else {
+                    while (l < endL && s[l] == s[r]) {
+                        l++;
+                        r++;
+                    }
+                    if (l == n || s[l] != s[r]) {
+                        same = false;
+                    }
+                }
+                if (!same) {
+                    recUpper++;
+                }
+                recS[lmsMap[sortedLms[i]]] = recUpper;
+            }
+            int[] recSa = saIs(recS, recUpper);
+            for (int i = 0; i < m; i++) {
+                sortedLms[i] = lms[recSa[i]];
+            }
+            induce(s, upper, sa, ls, sumL, sumS, sortedLms);
+        }
+        return sa;
+    }
+
+    /** Induced sorting step of SA-IS. */
+    private static void induce(int[] s, int upper, int[] sa, boolean[] ls,
+                               int[] sumL, int[] sumS, int[] lms) {
+        int n = s.length;
+        Arrays.fill(sa, -1);
+        int[] buf = sumS.clone();
+        for (int d : lms) {
+            if (d != n) {
+                sa[buf[s[d]]++] = d;
+            }
+        }
+        System.arraycopy(sumL, 0, buf, 0, upper + 1);
+        sa[buf[s[n - 1]]++] = n - 1;
+        for (int i = 0; i < n; i++) {
+            int v = sa[i];
+            if (v >= 1 && !ls[v - 1]) {
+                sa[buf[s[v - 1]]++] = v - 1;
+            }
+        }
+        System.arraycopy(sumL, 0, buf, 0, upper + 1);
+        for (int i = n - 1; i >= 0; i--) {
+            int v = sa[i];
+            if (v >= 1 && ls[v - 1]) {
+                sa[--buf[s[v - 1] + 1]] = v - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.raevnos.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Append-only storage for many short texts, such as identifiers,
+ * packed together as Latin-1 or UTF-8 bytes.
+ *
+ * Adding a text returns a {@code long} handle holding its offset,
+ * byte length and encoding. Keeping handles in a {@code long[]} costs
+ * 8 bytes per text plus its encoded characters, where each {@code
+ * String} carries an object header, fields and a separate array.
+ * {@code get()} returns a {@code CompactText} view of a handle's bytes
+ * without copying them.
+ *
+ * Texts are stored in chunks of up to 16 MiB and never span chunks,
+ * so a single text is limited to that size. Adding is synchronized.
+ * A handle can be used by any thread that the handle itself was
+ * safely published to.
+ */
+public final class TextArena {
+    private static final int CHUNK_SHIFT = 24;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int FIRST_CHUNK = 1 << 12;
+
+    private volatile byte[][] chunks = new byte[0][];
+    private int pos; // Next free byte of the last chunk
+    private long size; // Bytes used in all chunks
+
+    /** Create an empty arena. */
+    public TextArena() {}
+
+    /**
+     * Store a text.
+     * @param s the characters to store.
+     * @return a handle to the stored text.
+     * @throws NullPointerException if passed a null argument.
+     * @throws IllegalArgumentException if the text needs 16 MiB or more.
+     */
+    public synchronized long add(CharSequence s) {
+        int n = s.length();
+        int encoded = CompactText.encodedLength(s);
+        boolean utf8 = encoded >= 0;
+        int len = utf8 ? encoded : n;
+        if (len >= CHUNK_SIZE) {
+            throw new IllegalArgumentException("text too long for an arena");
+        }
+        byte[][] cs = chunks;
+        int last = cs.length - 1;
+        if (last < 0 || pos + len > CHUNK_SIZE) {
+            cs = Arrays.copyOf(cs, cs.length + 1);
+            last++;
+            cs[last] = new byte[Math.max(len, last == 0 ? FIRST_CHUNK : CHUNK_SIZE)];
+            pos = 0;
+        } else if (pos + len > cs[last].length) {
+            cs = cs.clone();
+            int grown = Math.max(pos + len, Math.min(cs[last].length * 2, CHUNK_SIZE));
+            cs[last] = Arrays.copyOf(cs[last], grown);
+        }
+        CompactText.encode(s, utf8, cs[last], pos);
+        chunks = cs;
+        long handle = ((((long)last << CHUNK_SHIFT) | pos) << 25) | ((long)len << 1) | (utf8 ? 1 : 0);
+        pos += len;
+        size += len;
+        return handle;
+    }
+
+    /**
+     * Look up a stored text.
+     * @param handle a handle returned by {@code add()}.
+     * @return a view of the text.
+     * @throws IndexOutOfBoundsException if the handle is not from this arena.
+     */
+    public CompactText get(long handle) {
+        long offset = handle >>> 25;
+        int len = (int)(handle >>> 1) & (CHUNK_SIZE - 1);
+        boolean utf8 = (handle & 1) != 0;
+        byte[] chunk = chunks[(int)(offset >>> CHUNK_SHIFT)];
+        int start = (int)offset & (CHUNK_SIZE - 1);
+        Objects.checkFromIndexSize(start, len, chunk.length);
+        int length = utf8 ? CompactText.decodedLength(chunk, start, start + len) : len;
+        return new CompactText(chunk, start, len, utf8, length);
+    }
+
+    /**
+     * @param handle a handle returned by {@code add()}.
+     * @return the number of bytes the text is stored in.
+     */
+    public static int byteLength(long handle) {
+        return (int)(handle >>> 1) & (CHUNK_SIZE - 1);
+    }
+
+    /**
+     * Compare two stored texts like {@code String.compareTo()}.
+     * @param a a handle returned by {@code add()}.
+     * @param b another handle returned by {@code add()}.
+     * @return a negative number, zero, or a positive number as the
+     * first text is less than, equal to, or greater than the second.
+     */
+    public int compare(long a, long b) {
+        return a == b ? 0 : get(a).compareTo(get(b));
+    }
+
+    /** @return the total number of bytes of stored text. */
+    public synchronized long byteSize() {
+        return size;
+    }
+}
@@ -0,0 +1,138 @@
+package org.raevnos.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.raevnos.util.iterator.TupleDecodingSpliterator;
+
+/**
+ * A compact binary encoding of {@code Tuple}s, made up of the
+ * encodings of each component with no framing or type information.
+ * Streams of tuples are written back to back.
+ */
+public class TupleCodec<A extends Object & Comparable<? super A>,
+                        B extends Object & Comparable<? super B>> {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ComponentCodec<A> firstCodec;
+    private final ComponentCodec<B> secondCodec;
+
+    /**
+     * Create a new codec.
+     * @param firstCodec the codec for the first elements.
+     * @param secondCodec the codec for the second elements.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public TupleCodec(ComponentCodec<A> firstCodec, ComponentCodec<B> secondCodec) {
+        this.firstCodec = Objects.requireNonNull(firstCodec);
+        this.secondCodec = Objects.requireNonNull(secondCodec);
+    }
+
+    /**
+     * Write a tuple at the buffer's position.
+     * @param t the tuple to write.
+     * @param buf the buffer to write to.
+     * @throws java.nio.BufferOverflowException if the buffer is too
+     * small. Part of the tuple may have been written.
+     */
+    public void encode(Tuple<A, B> t, ByteBuffer buf) {
+        firstCodec.encode(t.first(), buf);
+        secondCodec.encode(t.second(), buf);
+    }
+
+    /**
+     * Read a tuple from the buffer's position.
+     * @param buf the buffer to read from.
+     * @return the decoded tuple.
+     * @throws java.nio.BufferUnderflowException if the buffer doesn't
+     * hold a complete tuple.
+     */
+    public Tuple<A, B> decode(ByteBuffer buf) {
+        A a = firstCodec.decode(buf);
+        B b = secondCodec.decode(buf);
+        return new Tuple<A, B>(a, b);
+    }
+
+    /**
+     * Write all the tuples of a stream to a channel, in batches.
+     * @param s the stream of tuples.
+     * @param out the channel to write to. It is not closed.
+     * @return the number of tuples written.
+     * @throws IOException on write errors.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public long write(Stream<Tuple<A, B>> s, WritableByteChannel out) throws IOException {
+        Objects.requireNonNull(s);
+        Objects.requireNonNull(out);
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+        long count = 0;
+        Iterator<Tuple<A, B>> it = s.iterator();
+        while (it.hasNext()) {
+            Tuple<A, B> t = it.next();
+            while (true) {
+                int start = buf.position();
+                try {
+                    encode(t, buf);
+                    break;
+                } catch (BufferOverflowException e) {
+                    buf.position(start);
+                    if (start == 0) {
+                        // A single tuple bigger than the buffer.
+                        buf = ByteBuffer.allocate(buf.capacity() * 2);
+                    } else {
+                        flush(buf, out);
+                    }
+                }
+            }
+            count++;
+        }
+        flush(buf, out);
+        return count;
+    }
+
+    private static void flush(ByteBuffer buf, WritableByteChannel out) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    /**
+     * Lazily decode the tuples in the remainder of a buffer. The buffer's
+     * position is advanced as tuples are read.
+     * @param buf the buffer to read from.
+     * @return a stream of tuples.
+     * @throws NullPointerException if passed a null buffer.
+     */
+    public Stream<Tuple<A, B>> stream(ByteBuffer buf) {
+        return StreamSupport.stream(new TupleDecodingSpliterator<A, B>(this, buf), false);
+    }
+
+    /**
+     * Lazily decode tuples read from a channel in batches. Closing the
+     * stream closes the channel.
+     * @param in the channel to read from.
+     * @return a stream of tuples.
+     * @throws NullPointerException if passed a null channel.
+     */
+    public Stream<Tuple<A, B>> stream(ReadableByteChannel in) {
+        return StreamSupport.stream(new TupleDecodingSpliterator<A, B>(this, in, BUFFER_SIZE),
+                                    false)
+            .onClose(() -> {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+}
@@ -0,0 +1,485 @@
+package org.raevnos.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * A {@code List<Tuple<A, B>>} that stores its elements column-wise,
+ * with one array per tuple component. Columns of ints, longs and
+ * doubles are stored as primitive arrays. {@code Tuple} objects are
+ * only created when elements are read through the {@code List}
+ * interface; the primitive accessors and column streams avoid them.
+ *
+ * Null elements and null components are not allowed.
+ */
+public class TupleList<A extends Object & Comparable<? super A>,
+                       B extends Object & Comparable<? super B>>
+    extends AbstractList<Tuple<A, B>> implements RandomAccess {
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private final Column<A> first;
+    private final Column<B> second;
+    private int size;
+
+    /**
+     * The storage type of a column of a {@code TupleList}.
+     */
+    public static final class ColumnType<E extends Object & Comparable<? super E>> {
+        /** A column of ints */
+        public static final ColumnType<Integer> INT = new ColumnType<>(IntColumn::new);
+        /** A column of longs */
+        public static final ColumnType<Long> LONG = new ColumnType<>(LongColumn::new);
+        /** A column of doubles */
+        public static final ColumnType<Double> DOUBLE = new ColumnType<>(DoubleColumn::new);
+
+        private final Supplier<Column<E>> factory;
+
+        private ColumnType(Supplier<Column<E>> factory) {
+            this.factory = factory;
+        }
+
+        /**
+         * @return a column type storing arbitrary objects.
+         */
+        public static <E extends Object & Comparable<? super E>> ColumnType<E> objects() {
+            return new ColumnType<E>(ObjectColumn<E>::new);
+        }
+    }
+
+    /**
+     * Create an empty list with the given column types.
+     * @param firstType the storage type of the first components.
+     * @param secondType the storage type of the second components.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public TupleList(ColumnType<A> firstType, ColumnType<B> secondType) {
+        super();
+        this.first = Objects.requireNonNull(firstType).factory.get();
+        this.second = Objects.requireNonNull(secondType).factory.get();
+        this.size = 0;
+    }
+
+    /**
+     * @return a new empty list of pairs of ints.
+     */
+    public static TupleList<Integer, Integer> ofInts() {
+        return new TupleList<>(ColumnType.INT, ColumnType.INT);
+    }
+
+    /**
+     * @return a new empty list of pairs of longs.
+     */
+    public static TupleList<Long, Long> ofLongs() {
+        return new TupleList<>(ColumnType.LONG, ColumnType.LONG);
+    }
+
+    /**
+     * @return a new empty list of long and double pairs.
+     */
+    public static TupleList<Long, Double> ofLongDoubles() {
+        return new TupleList<>(ColumnType.LONG, ColumnType.DOUBLE);
+    }
+
+    private Column<?> column(int column) {
+        switch (column) {
+        case 0:
+            return first;
+        case 1:
+            return second;
+        default:
+            throw new IndexOutOfBoundsException("column must be 0 or 1");
+        }
+    }
+
+    private void grow() {
+        if (size == first.capacity()) {
+            int newCap = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+            if (newCap < 0) {
+                newCap = Integer.MAX_VALUE - 8;
+            }
+            first.resize(newCap);
+            second.resize(newCap);
+        }
+    }
+
+    @Override public int size() {
+        return size;
+    }
+
+    @Override public Tuple<A, B> get(int index) {
+        Objects.checkIndex(index, size);
+        return new Tuple<A, B>(first.get(index), second.get(index));
+    }
+
+    @Override public Tuple<A, B> set(int index, Tuple<A, B> element) {
+        Objects.requireNonNull(element);
+        Objects.checkIndex(index, size);
+        Tuple<A, B> old = get(index);
+        first.set(index, Objects.requireNonNull(element.first()));
+        second.set(index, Objects.requireNonNull(element.second()));
+        return old;
+    }
+
+    @Override public void add(int index, Tuple<A, B> element) {
+        Objects.requireNonNull(element);
+        Objects.requireNonNull(element.first());
+        Objects.requireNonNull(element.second());
+        Objects.checkIndex(index, size + 1);
+        grow();
+        first.shift(index, size, 1);
+        second.shift(index, size, 1);
+        first.set(index, element.first());
+        second.set(index, element.second());
+        size++;
+        modCount++;
+    }
+
+    @Override public Tuple<A, B> remove(int index) {
+        Objects.checkIndex(index, size);
+        Tuple<A, B> old = get(index);
+        first.shift(index + 1, size, -1);
+        second.shift(index + 1, size, -1);
+        size--;
+        first.clear(size);
+        second.clear(size);
+        modCount++;
+        return old;
+    }
+
+    @Override public void clear() {
+        for (int i = 0; i < size; i++) {
+            first.clear(i);
+            second.clear(i);
+        }
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Append a pair of ints without boxing.
+     * @throws UnsupportedOperationException if the columns don't hold ints.
+     */
+    public void addInts(int a, int b) {
+        if (!(first instanceof IntColumn && second instanceof IntColumn)) {
+            throw new UnsupportedOperationException("columns do not hold ints");
+        }
+        grow();
+        first.setInt(size, a);
+        second.setInt(size, b);
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Append a pair of longs without boxing.
+     * @throws UnsupportedOperationException if the columns don't hold longs.
+     */
+    public void addLongs(long a, long b) {
+        if (!(first instanceof LongColumn && second instanceof LongColumn)) {
+            throw new UnsupportedOperationException("columns do not hold longs");
+        }
+        grow();
+        first.setLong(size, a);
+        second.setLong(size, b);
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Append a long and a double without boxing.
+     * @throws UnsupportedOperationException if the columns don't hold
+     * a long and a double.
+     */
+    public void addLongDouble(long a, double b) {
+        if (!(first instanceof LongColumn && second instanceof DoubleColumn)) {
+            throw new UnsupportedOperationException("columns do not hold a long and a double");
+        }
+        grow();
+        first.setLong(size, a);
+        second.setDouble(size, b);
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Get a component of an element as an int.
+     * @param index the index of the element.
+     * @param column 0 for the first component, 1 for the second.
+     * @throws IndexOutOfBoundsException if the index or column is invalid.
+     * @throws UnsupportedOperationException if the column doesn't hold ints.
+     */
+    public int getInt(int index, int column) {
+        Objects.checkIndex(index, size);
+        return column(column).getInt(index);
+    }
+
+    /**
+     * Get a component of an element as a long.
+     * @param index the index of the element.
+     * @param column 0 for the first component, 1 for the second.
+     * @throws IndexOutOfBoundsException if the index or column is invalid.
+     * @throws UnsupportedOperationException if the column doesn't hold longs.
+     */
+    public long getLong(int index, int column) {
+        Objects.checkIndex(index, size);
+        return column(column).getLong(index);
+    }
+
+    /**
+     * Get a component of an element as a double.
+     * @param index the index of the element.
+     * @param column 0 for the first component, 1 for the second.
+     * @throws IndexOutOfBoundsException if the index or column is invalid.
+     * @throws UnsupportedOperationException if the column doesn't hold doubles.
+     */
+    public double getDouble(int index, int column) {
+        Objects.checkIndex(index, size);
+        return column(column).getDouble(index);
+    }
+
+    /**
+     * @param column 0 for the first components, 1 for the second.
+     * @return a stream of the values of an int column.
+     * @throws IndexOutOfBoundsException if the column is invalid.
+     * @throws UnsupportedOperationException if the column doesn't hold ints.
+     */
+    public IntStream intStream(int column) {
+        return column(column).intStream(size);
+    }
+
+    /**
+     * @param column 0 for the first components, 1 for the second.
+     * @return a stream of the values of a long column.
+     * @throws IndexOutOfBoundsException if the column is invalid.
+     * @throws UnsupportedOperationException if the column doesn't hold longs.
+     */
+    public LongStream longStream(int column) {
+        return column(column).longStream(size);
+    }
+
+    /**
+     * @param column 0 for the first components, 1 for the second.
+     * @return a stream of the values of a double column.
+     * @throws IndexOutOfBoundsException if the column is invalid.
+     * @throws UnsupportedOperationException if the column doesn't hold doubles.
+     */
+    public DoubleStream doubleStream(int column) {
+        return column(column).doubleStream(size);
+    }
+
+    /**
+     * @param column 0 for the first components, 1 for the second.
+     * @return a stream of the boxed values of a column.
+     * @throws IndexOutOfBoundsException if the column is invalid.
+     */
+    public Stream<?> columnStream(int column) {
+        Column<?> col = column(column);
+        return IntStream.range(0, size).mapToObj(col::get);
+    }
+
+    /**
+     * Sort the list in place. A null comparator sorts in tuple order
+     * directly on the columns, without creating any {@code Tuple}s.
+     * The sort is stable.
+     * @param c A comparator or null for natural ordering.
+     */
+    @Override
+    public void sort(Comparator<? super Tuple<A, B>> c) {
+        if (c != null) {
+            super.sort(c);
+            return;
+        }
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[size], 0, size);
+        first.reorder(order, size);
+        second.reorder(order, size);
+        modCount++;
+    }
+
+    private int compareRows(int i, int j) {
+        int cmp = first.compare(i, j);
+        if (cmp == 0) {
+            return second.compare(i, j);
+        } else {
+            return cmp;
+        }
+    }
+
+    /** Stable merge sort of row indexes in tuple order. */
+    private void mergeSort(int[] a, int[] buf, int lo, int hi) {
+        if (hi - lo <= 16) {
+            for (int i = lo + 1; i < hi; i++) {
+                int x = a[i];
+                int j = i - 1;
+                while (j >= lo && compareRows(a[j], x) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = x;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(a, buf, lo, mid);
+        mergeSort(a, buf, mid, hi);
+        if (compareRows(a[mid - 1], a[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(a, lo, buf, lo, hi - lo);
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            a[k++] = compareRows(buf[j], buf[i]) < 0 ? buf[j++] : buf[i++];
+        }
+        while (i < mid) {
+            a[k++] = buf[i++];
+        }
+        while (j < hi) {
+            a[k++] = buf[j++];
+        }
+    }
+
+    /** Storage for one component of the tuples. */
+    private static abstract class Column<E> {
+        abstract int capacity();
+        abstract void resize(int cap);
+        abstract E get(int i);
+        abstract void set(int i, E e);
+        abstract int compare(int i, int j);
+        /** Move elements {@code [from, size)} by {@code by} places. */
+        abstract void shift(int from, int size, int by);
+        /** Replace contents with the elements at the given indexes. */
+        abstract void reorder(int[] order, int size);
+        void clear(int i) {}
+
+        int getInt(int i) {
+            throw new UnsupportedOperationException("column does not hold ints");
+        }
+        long getLong(int i) {
+            throw new UnsupportedOperationException("column does not hold longs");
+        }
+        double getDouble(int i) {
+            throw new UnsupportedOperationException("column does not hold doubles");
+        }
+        void setInt(int i, int v) {
+            throw new UnsupportedOperationException("column does not hold ints");
+        }
+        void setLong(int i, long v) {
+            throw new UnsupportedOperationException("column does not hold longs");
+        }
+        void setDouble(int i, double v) {
+            throw new UnsupportedOperationException("column does not hold doubles");
+        }
+        IntStream intStream(int size) {
+            throw new UnsupportedOperationException("column does not hold ints");
+        }
+        LongStream longStream(int size) {
+            throw new UnsupportedOperationException("column does not hold longs");
+        }
+        DoubleStream doubleStream(int size) {
+            throw new UnsupportedOperationException("column does not hold doubles");
+        }
+    }
+
+    private static final class IntColumn extends Column<Integer> {
+        private int[] data = new int[0];
+
+        @Override int capacity() { return data.length; }
+        @Override void resize(int cap) { data = Arrays.copyOf(data, cap); }
+        @Override Integer get(int i) { return data[i]; }
+        @Override void set(int i, Integer e) { data[i] = e; }
+        @Override int getInt(int i) { return data[i]; }
+        @Override void setInt(int i, int v) { data[i] = v; }
+        @Override int compare(int i, int j) { return Integer.compare(data[i], data[j]); }
+        @Override void shift(int from, int size, int by) {
+            System.arraycopy(data, from, data, from + by, size - from);
+        }
+        @Override void reorder(int[] order, int size) {
+            int[] sorted = new int[data.length];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = data[order[i]];
+            }
+            data = sorted;
+        }
+        @Override IntStream intStream(int size) { return Arrays.stream(data, 0, size); }
+    }
+
+    private static final class LongColumn extends Column<Long> {
+        private long[] data = new long[0];
+
+        @Override int capacity() { return data.length; }
+        @Override void resize(int cap) { data = Arrays.copyOf(data, cap); }
+        @Override Long get(int i) { return data[i]; }
+        @Override void set(int i, Long e) { data[i] = e; }
+        @Override long getLong(int i) { return data[i]; }
+        @Override void setLong(int i, long v) { data[i] = v; }
+        @Override int compare(int i, int j) { return Long.compare(data[i], data[j]); }
+        @Override void shift(int from, int size, int by) {
+            System.arraycopy(data, from, data, from + by, size - from);
+        }
+        @Override void reorder(int[] order, int size) {
+            long[] sorted = new long[data.length];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = data[order[i]];
+            }
+            data = sorted;
+        }
+        @Override LongStream longStream(int size) { return Arrays.stream(data, 0, size); }
+    }
+
+    private static final class DoubleColumn extends Column<Double> {
+        private double[] data = new double[0];
+
+        @Override int capacity() { return data.length; }
+        @Override void resize(int cap) { data = Arrays.copyOf(data, cap); }
+        @Override Double get(int i) { return data[i]; }
+        @Override void set(int i, Double e) { data[i] = e; }
+        @Override double getDouble(int i) { return data[i]; }
+        @Override void setDouble(int i, double v) { data[i] = v; }
+        @Override int compare(int i, int j) { return Double.compare(data[i], data[j]); }
+        @Override void shift(int from, int size, int by) {
+            System.arraycopy(data, from, data, from + by, size - from);
+        }
+        @Override void reorder(int[] order, int size) {
+            double[] sorted = new double[data.length];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = data[order[i]];
+            }
+            data = sorted;
+        }
+        @Override DoubleStream doubleStream(int size) { return Arrays.stream(data, 0, size); }
+    }
+
+    private static final class ObjectColumn<E extends Comparable<? super E>>
+        extends Column<E> {
+        private Object[] data = new Object[0];
+
+        @Override int capacity() { return data.length; }
+        @Override void resize(int cap) { data = Arrays.copyOf(data, cap); }
+        @SuppressWarnings("unchecked")
+        @Override E get(int i) { return (E)data[i]; }
+        @Override void set(int i, E e) { data[i] = e; }
+        @Override void clear(int i) { data[i] = null; }
+        @Override int compare(int i, int j) { return get(i).compareTo(get(j)); }
+        @Override void shift(int from, int size, int by) {
+            System.arraycopy(data, from, data, from + by, size - from);
+        }
+        @Override void reorder(int[] order, int size) {
+            Object[] sorted = new Object[data.length];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = data[order[i]];
+            }
+            data = sorted;
+        }
+    }
+}
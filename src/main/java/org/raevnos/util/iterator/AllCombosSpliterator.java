@@ -7,12 +7,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Spliterator;
-import java.util.Iterator;
 import java.util.ConcurrentModificationException;
 import java.util.RandomAccess;
 import java.util.stream.Collectors;
 import java.util.function.Consumer;
-import java.util.function.IntFunction;
 import org.apache.commons.math3.util.CombinatoricsUtils;
 
 /**
@@ -20,6 +18,11 @@ import org.apache.commons.math3.util.CombinatoricsUtils;
  * combinations of a collection, for {@code r} = 1 to its number of
  * elements.
  *
+ * Combinations are ordered by size, and then in the same order as
+ * {@code ComboSpliterator}. When the total number fits in a {@code
+ * long}, the spliterator splits according to a {@code SplitPolicy}
+ * by computing the combination at the split point from its rank.
+ *
  * Use {@code ComboStream} methods to create streams of all
  * combinations. The backing collection should not be modified while
  * this spliterator is in use. The lists provided by the spliterator
@@ -31,13 +34,21 @@ public class AllCombosSpliterator<T>
     private List<T> elems;
     private int r, flags;
     private final int n;
-    private Iterator<int[]> iter;
-    private long nCr;
+    private int[] indexes; // The next combination, or null when done.
+    private long pos, end; // Rank of the next combination and one past the last.
+    private SplitPolicy policy;
 
     /**
      * Create a new spliterator using the given list.
      */
     public AllCombosSpliterator(List<T> elems) {
+        this(elems, SplitPolicy.DEFAULT);
+    }
+
+    /**
+     * Create a new spliterator using the given list and split policy.
+     */
+    public AllCombosSpliterator(List<T> elems, SplitPolicy policy) {
         Objects.requireNonNull(elems);
         this.flags = NONNULL;
         if (elems instanceof RandomAccess) {
@@ -46,19 +57,20 @@ public class AllCombosSpliterator<T>
             this.elems = new ArrayList<T>(elems);
             this.flags |= IMMUTABLE;
         }
-        this.r = 0;
         this.n = this.elems.size();
+        this.r = 1;
+        this.pos = 0;
         try {
-            nCr = 0;
-            for (int k = 1; k < n; k++) {
-                nCr =
-                    Math.addExact(nCr,
-                                  CombinatoricsUtils.binomialCoefficient(n,k));
+            end = 0;
+            for (int k = 1; k <= n; k++) {
+                end = Math.addExact(end, CombinatoricsUtils.binomialCoefficient(n, k));
             }
             flags |= SIZED | SUBSIZED;
         } catch (ArithmeticException e) {
-            nCr = Long.MAX_VALUE;
+            end = Long.MAX_VALUE;
         }
+        this.indexes = n == 0 ? null : ComboSpliterator.first(1);
+        this.policy = policy.resolve(end);
     }
 
     /**
@@ -69,6 +81,14 @@ public class AllCombosSpliterator<T>
         flags |= IMMUTABLE;
     }
 
+    /**
+     * Create a new spliterator using the given collection and split policy.
+     */
+    public AllCombosSpliterator(Collection<T> elems, SplitPolicy policy) {
+        this(new ArrayList<T>(elems), policy);
+        flags |= IMMUTABLE;
+    }
+
     /**
      * Create a new spliterator using the given array.
      */
@@ -78,47 +98,73 @@ public class AllCombosSpliterator<T>
         flags |= IMMUTABLE;
     }
 
+    /**
+     * Create a new spliterator using the given array and split policy.
+     */
+    public AllCombosSpliterator(T[] elems, SplitPolicy policy) {
+        this(Arrays.stream(elems)
+             .collect(Collectors.toCollection(ArrayList<T>::new)),
+             policy);
+        flags |= IMMUTABLE;
+    }
+
+    /** Make a spliterator over a range of ranks of another one. */
+    private AllCombosSpliterator(AllCombosSpliterator<T> parent, long pos, long end) {
+        this.elems = parent.elems;
+        this.n = parent.n;
+        this.flags = parent.flags;
+        this.policy = parent.policy;
+        this.r = parent.r;
+        this.indexes = parent.indexes.clone();
+        this.pos = pos;
+        this.end = end;
+    }
+
+    /** Move past the current combination. */
+    private void step() {
+        pos++;
+        if (pos == end) {
+            indexes = null;
+        } else if (!ComboSpliterator.next(indexes, n)) {
+            r++;
+            indexes = r > n ? null : ComboSpliterator.first(r);
+        }
+    }
+
+    /** Position at the combination with the given overall rank. */
+    private void seek(long rank) {
+        r = 1;
+        long count;
+        while (rank >= (count = CombinatoricsUtils.binomialCoefficient(n, r))) {
+            rank -= count;
+            r++;
+        }
+        indexes = ComboSpliterator.unrank(rank, n, r);
+    }
+
     @Override
     public int characteristics() { return flags; }
 
     @Override
-    public long estimateSize() { return nCr; }
+    public long estimateSize() {
+        return indexes == null ? 0 : end == Long.MAX_VALUE ? end : end - pos;
+    }
 
     @Override
     public void forEachRemaining(Consumer<? super List<T>> f) {
         var combo = new ArrayList<T>();
-        if (iter != null) {
-            combo.ensureCapacity(r);
-            for (int i = 0; i < r; i++) {
-                combo.add(null);
-            }
-            while (iter.hasNext()) {
-                if (elems.size() != n) {
-                    throw new ConcurrentModificationException();
-                }
-                int[] indexes = iter.next();
-                for (int i = 0; i < indexes.length; i++) {
-                    combo.set(i, elems.get(indexes[i]));
-                }
-                f.accept(Collections.unmodifiableList(combo));
+        while (indexes != null) {
+            if (elems.size() != n) {
+                throw new ConcurrentModificationException();
             }
-        }
-        while (++r <= elems.size()) {
-            iter =
-                CombinatoricsUtils.combinationsIterator(n, r);
-            for (int i = combo.size(); i < r; i++) {
+            while (combo.size() < r) {
                 combo.add(null);
             }
-            while (iter.hasNext()) {
-                if (elems.size() != n) {
-                    throw new ConcurrentModificationException();
-                }
-                int[] indexes = iter.next();
-                for (int i = 0; i < indexes.length; i++) {
-                    combo.set(i, elems.get(indexes[i]));
-                }
-                f.accept(Collections.unmodifiableList(combo));
+            for (int i = 0; i < r; i++) {
+                combo.set(i, elems.get(indexes[i]));
             }
+            step();
+            f.accept(Collections.unmodifiableList(combo));
         }
     }
 
@@ -127,28 +173,30 @@ public class AllCombosSpliterator<T>
         if (elems.size() != n) {
             throw new ConcurrentModificationException();
         }
-        if (iter != null && iter.hasNext()) {
-            int[] indexes = iter.next();
-            List<T> combo = new ArrayList<T>(indexes.length);
-            for (int i : indexes) {
-                combo.add(elems.get(i));
-            }
-            f.accept(Collections.unmodifiableList(combo));
-            return true;
-        }
-        if (++r > elems.size()) {
+        if (indexes == null) {
             return false;
         }
-        iter =
-            CombinatoricsUtils.combinationsIterator(n, r);
-        return tryAdvance(f);
+        List<T> combo = new ArrayList<T>(r);
+        for (int i : indexes) {
+            combo.add(elems.get(i));
+        }
+        step();
+        f.accept(Collections.unmodifiableList(combo));
+        return true;
     }
 
     @Override
     public Spliterator<List<T>> trySplit() {
-        if (++r > elems.size()) {
+        if (indexes == null || end == Long.MAX_VALUE) {
+            return null;
+        }
+        long k = policy.splitSize(end - pos);
+        if (k == 0) {
             return null;
         }
-        return new ComboSpliterator<T>(elems, r);
+        var prefix = new AllCombosSpliterator<T>(this, pos, pos + k);
+        pos += k;
+        seek(pos);
+        return prefix;
     }
 }
@@ -2,6 +2,7 @@ package org.raevnos.util.iterator;
 
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.IntConsumer;
 import java.io.Reader;
 import java.io.Closeable;
@@ -12,17 +13,30 @@ import java.nio.charset.CharacterCodingException;
 /**
  * A {@code Spliterator.OfInt} used to iterate over codepoints read from a file.
  * Use the methods in {@code Readers} class to create streams based on it.
+ * Splits read a batch of codepoints into an array, sized by a {@code SplitPolicy}.
  */
 public class CPSpliterator
     implements Spliterator.OfInt, Closeable {
     private final Reader input;
+    private final SplitPolicy policy;
+    private int batch;
 
     /**
      * Create a new spliterator.
      * @param input The {@code Reader} to get codepoints from.
      */
     public CPSpliterator(Reader input) {
+        this(input, SplitPolicy.DEFAULT);
+    }
+
+    /**
+     * Create a new spliterator with a split policy.
+     * @param input The {@code Reader} to get codepoints from.
+     * @param policy How to batch up codepoints for parallel processing.
+     */
+    public CPSpliterator(Reader input, SplitPolicy policy) {
         this.input = Objects.requireNonNull(input);
+        this.policy = policy.resolve(Long.MAX_VALUE);
     }
 
     /**
@@ -79,7 +93,21 @@ public class CPSpliterator
     }
 
     @Override
-    public Spliterator.OfInt trySplit() { return null; }
+    public Spliterator.OfInt trySplit() {
+        // Read a batch of codepoints into an array and split that off.
+        int size = policy.batchSize(batch);
+        int[] cps = new int[size];
+        int n = 0;
+        int cp;
+        while (n < size && (cp = nextCP()) != -1) {
+            cps[n++] = cp;
+        }
+        if (n == 0) {
+            return null;
+        }
+        batch = size;
+        return Spliterators.spliterator(cps, 0, n, NONNULL | ORDERED | IMMUTABLE);
+    }
 
     @Override
     public void close() throws IOException { input.close(); }
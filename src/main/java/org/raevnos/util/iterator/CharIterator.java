@@ -13,6 +13,7 @@ public class CharIterator implements Iterator<Character>, Spliterator<Character>
     private final CharSequence source;
     private int i;
     private final int endIdx;
+    private final SplitPolicy policy;
 
     /** Make a character iterator
      * @param source The sequence to iterate over
@@ -23,6 +24,7 @@ public class CharIterator implements Iterator<Character>, Spliterator<Character>
         this.source = source;
         this.i = 0;
         this.endIdx = source.length();
+        this.policy = SplitPolicy.DEFAULT;
     }
 
     /** Make a character iterator over a range.
@@ -33,11 +35,25 @@ public class CharIterator implements Iterator<Character>, Spliterator<Character>
      * @throws IndexOutOfBoundsException if the range is invalid for the given source.
      */
     public CharIterator(CharSequence source, int begIdxInclusive, int endIdxExclusive) {
+        this(source, begIdxInclusive, endIdxExclusive, SplitPolicy.DEFAULT);
+    }
+
+    /** Make a character iterator over a range with a split policy.
+     * @param source The sequence to iterate over
+     * @param begIdxInclusive The starting index of the range.
+     * @param endIdxExclusive One past the ending index of the range.
+     * @param policy How to split the range for parallel processing.
+     * @throws NullPointerException if given a null source or policy.
+     * @throws IndexOutOfBoundsException if the range is invalid for the given source.
+     */
+    public CharIterator(CharSequence source, int begIdxInclusive, int endIdxExclusive,
+                        SplitPolicy policy) {
         Objects.requireNonNull(source);
         Objects.checkFromToIndex(begIdxInclusive, endIdxExclusive, source.length());
         this.source = source;
         this.i = begIdxInclusive;
         this.endIdx = endIdxExclusive;
+        this.policy = policy.resolve(endIdxExclusive - begIdxInclusive);
     }
 
     @Override public boolean hasNext() {
@@ -76,16 +92,23 @@ public class CharIterator implements Iterator<Character>, Spliterator<Character>
     }
 
     @Override public Spliterator<Character> trySplit() {
-        // Return a new spliterator covering the front half of the
-        // current range of characters, and adjust this one to cover
-        // the back half.
+        // Return a new spliterator covering the front of the current
+        // range of characters, and adjust this one to cover the
+        // rest.
         int begIdx = i;
-        int splitIdx = ((endIdx - i) / 2) + i;
+        long splitSize = policy.splitSize(endIdx - i);
+        if (splitSize == 0) {
+            return null;
+        }
+        int splitIdx = (int)splitSize + i;
         // Don't break in the middle of a surrogate pair
         if (Character.isLowSurrogate(source.charAt(splitIdx))) {
             splitIdx -= 1;
         }
+        if (splitIdx <= begIdx) {
+            return null;
+        }
         i = splitIdx;
-        return  new CharIterator(source, begIdx, splitIdx);
+        return  new CharIterator(source, begIdx, splitIdx, policy);
     }
 }
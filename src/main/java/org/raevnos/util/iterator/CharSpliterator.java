@@ -0,0 +1,157 @@
+package org.raevnos.util.iterator;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * A {@code Spliterator.OfInt} over the characters or codepoints of a
+ * range of any {@code CharSequence}, without boxing. Splits are made
+ * according to a {@code SplitPolicy}, never between the halves of a
+ * surrogate pair.
+ */
+public class CharSpliterator implements Spliterator.OfInt {
+    /** The default size below which ranges are not split further. */
+    public static final int DEFAULT_THRESHOLD = 1024;
+    /** A balanced policy that doesn't split ranges at or below {@code DEFAULT_THRESHOLD}. */
+    public static final SplitPolicy DEFAULT_POLICY = SplitPolicy.of(DEFAULT_THRESHOLD);
+
+    private final CharSequence source;
+    private int i;
+    private final int endIdx;
+    private final boolean codePoints;
+    private final SplitPolicy policy;
+
+    /**
+     * Make a spliterator over the characters of a sequence.
+     * @param source The sequence to iterate over
+     * @throws NullPointerException if given a null argument
+     */
+    public CharSpliterator(CharSequence source) {
+        this(source, 0, Objects.requireNonNull(source).length(), false,
+             DEFAULT_POLICY);
+    }
+
+    /**
+     * Make a spliterator over a range of a sequence.
+     * @param source The sequence to iterate over
+     * @param begIdxInclusive The starting index of the range.
+     * @param endIdxExclusive One past the ending index of the range.
+     * @param codePoints true to return codepoints, false to return
+     * individual UTF-16 characters.
+     * @param threshold Ranges of this many characters or fewer are not split.
+     * @throws NullPointerException if given a null source.
+     * @throws IndexOutOfBoundsException if the range is invalid for the given source.
+     * @throws IllegalArgumentException if the threshold is less than 1.
+     */
+    public CharSpliterator(CharSequence source, int begIdxInclusive, int endIdxExclusive,
+                           boolean codePoints, int threshold) {
+        this(source, begIdxInclusive, endIdxExclusive, codePoints, SplitPolicy.of(threshold));
+    }
+
+    /**
+     * Make a spliterator over a range of a sequence with a split policy.
+     * @param source The sequence to iterate over
+     * @param begIdxInclusive The starting index of the range.
+     * @param endIdxExclusive One past the ending index of the range.
+     * @param codePoints true to return codepoints, false to return
+     * individual UTF-16 characters.
+     * @param policy How to split the range for parallel processing.
+     * @throws NullPointerException if given a null source or policy.
+     * @throws IndexOutOfBoundsException if the range is invalid for the given source.
+     */
+    public CharSpliterator(CharSequence source, int begIdxInclusive, int endIdxExclusive,
+                           boolean codePoints, SplitPolicy policy) {
+        Objects.requireNonNull(source);
+        Objects.checkFromToIndex(begIdxInclusive, endIdxExclusive, source.length());
+        this.source = source;
+        this.i = begIdxInclusive;
+        this.endIdx = endIdxExclusive;
+        this.codePoints = codePoints;
+        this.policy = policy.resolve(endIdxExclusive - begIdxInclusive);
+    }
+
+    /**
+     * Make a spliterator over the codepoints of a sequence.
+     * @param source The sequence to iterate over
+     * @return a new spliterator
+     * @throws NullPointerException if given a null argument
+     */
+    public static CharSpliterator ofCodePoints(CharSequence source) {
+        return new CharSpliterator(source, 0, Objects.requireNonNull(source).length(),
+                                   true, DEFAULT_POLICY);
+    }
+
+    /**
+     * Return the next element, advancing the position.
+     */
+    private int next() {
+        char c = source.charAt(i++);
+        if (codePoints && Character.isHighSurrogate(c) && i < endIdx) {
+            char c2 = source.charAt(i);
+            if (Character.isLowSurrogate(c2)) {
+                i++;
+                return Character.toCodePoint(c, c2);
+            }
+        }
+        return c;
+    }
+
+    @Override public int characteristics() {
+        int flags = NONNULL | ORDERED;
+        if (source instanceof String) {
+            flags |= IMMUTABLE;
+        }
+        if (!codePoints) {
+            flags |= SIZED | SUBSIZED;
+        }
+        return flags;
+    }
+
+    @Override public long estimateSize() {
+        return endIdx - i;
+    }
+
+    @Override public boolean tryAdvance(IntConsumer action) {
+        if (i < endIdx) {
+            action.accept(next());
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override public void forEachRemaining(IntConsumer action) {
+        if (codePoints) {
+            while (i < endIdx) {
+                action.accept(next());
+            }
+        } else {
+            final CharSequence s = source;
+            final int end = endIdx;
+            for (int j = i; j < end; j++) {
+                action.accept(s.charAt(j));
+            }
+            i = end;
+        }
+    }
+
+    @Override public Spliterator.OfInt trySplit() {
+        int n = (int)policy.splitSize(endIdx - i);
+        if (n == 0) {
+            return null;
+        }
+        int begIdx = i;
+        int splitIdx = begIdx + n;
+        // Don't break in the middle of a surrogate pair
+        if (Character.isLowSurrogate(source.charAt(splitIdx))
+            && Character.isHighSurrogate(source.charAt(splitIdx - 1))) {
+            splitIdx += 1;
+        }
+        if (splitIdx >= endIdx) {
+            return null;
+        }
+        i = splitIdx;
+        return new CharSpliterator(source, begIdx, splitIdx, codePoints, policy);
+    }
+}
@@ -7,12 +7,12 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.RandomAccess;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Spliterator;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.stream.Collectors;
 import java.util.function.Consumer;
-import java.util.function.IntFunction;
 import org.apache.commons.math3.util.CombinatoricsUtils;
 
 /**
@@ -21,6 +21,13 @@ import org.apache.commons.math3.util.CombinatoricsUtils;
  * collection. Use {@code ComboStream} methods for creating streams of
  * combinations.
  *
+ * Combinations are generated in colexicographic order of their
+ * indexes, like {@code CombinatoricsUtils.combinationsIterator()}.
+ * When the number of combinations fits in a {@code long}, the
+ * spliterator splits according to a {@code SplitPolicy} by
+ * computing the combination at the split point directly from its
+ * rank.
+ *
  * The backing collection should not be modified while the
  * stream/spliterator/etc. is being used. The lists provided are
  * immutable.
@@ -30,8 +37,9 @@ public class ComboSpliterator<T>
     private List<T> elems;
     private int r, flags;
     private final int n;
-    private Iterator<int[]> iter;
-    private long nCr;
+    private int[] indexes; // The next combination, or null when done.
+    private long pos, end; // Rank of the next combination and one past the last.
+    private SplitPolicy policy;
 
     /**
      * Create a spliterator that iterates over combinations of {@code r}
@@ -41,6 +49,18 @@ public class ComboSpliterator<T>
      * @throws NullPointerException if passed a null list.
      */
     public ComboSpliterator(List<T> elems, int r) {
+        this(elems, r, SplitPolicy.DEFAULT);
+    }
+
+    /**
+     * Create a spliterator that iterates over combinations of {@code r}
+     * elements of the list.
+     * @param elems The list of elements to get combinations of.
+     * @param r the number of elements of each combination
+     * @param policy How to split the combinations for parallel processing.
+     * @throws NullPointerException if passed a null list or policy.
+     */
+    public ComboSpliterator(List<T> elems, int r, SplitPolicy policy) {
         Objects.requireNonNull(elems);
         this.flags = NONNULL;
         if (elems instanceof RandomAccess) {
@@ -51,14 +71,15 @@ public class ComboSpliterator<T>
         }
         this.r = r;
         this.n = this.elems.size();
-        this.iter =
-            CombinatoricsUtils.combinationsIterator(n, r);
+        this.pos = 0;
         try {
-            nCr = CombinatoricsUtils.binomialCoefficient(n, r);
-            flags |= SIZED;
+            end = CombinatoricsUtils.binomialCoefficient(n, r);
+            flags |= SIZED | SUBSIZED;
         } catch (ArithmeticException e) {
-            nCr = Long.MAX_VALUE;
+            end = Long.MAX_VALUE;
         }
+        this.indexes = end == 0 ? null : first(r);
+        this.policy = policy.resolve(end);
     }
 
     /**
@@ -73,6 +94,19 @@ public class ComboSpliterator<T>
         flags |= IMMUTABLE;
     }
 
+    /**
+     * Create a spliterator that iterates over combinations of {@code r}
+     * elements of the collection.
+     * @param elems A collection of elements to get combinations of.
+     * @param r the number of elements of each combination
+     * @param policy How to split the combinations for parallel processing.
+     * @throws NullPointerException if passed a null collection or policy.
+     */
+    public ComboSpliterator(Collection<T> elems, int r, SplitPolicy policy) {
+        this(new ArrayList<T>(elems), r, policy);
+        flags |= IMMUTABLE;
+    }
+
     /**
      * Create a spliterator that iterates over combinations of {@code r}
      * elements of an array.
@@ -87,16 +121,106 @@ public class ComboSpliterator<T>
         flags |= IMMUTABLE;
     }
 
+    /**
+     * Create a spliterator that iterates over combinations of {@code r}
+     * elements of an array.
+     * @param elems The array of elements to get combinations of.
+     * @param r the number of elements of each combination
+     * @param policy How to split the combinations for parallel processing.
+     * @throws NullPointerException if passed a null array or policy.
+     */
+    public ComboSpliterator(T[] elems, int r, SplitPolicy policy) {
+        this(Arrays.stream(elems)
+             .collect(Collectors.toCollection(ArrayList<T>::new)),
+             r, policy);
+        flags |= IMMUTABLE;
+    }
+
+    /** Make a spliterator over a range of ranks of another one. */
+    private ComboSpliterator(ComboSpliterator<T> parent, long pos, long end) {
+        this.elems = parent.elems;
+        this.r = parent.r;
+        this.n = parent.n;
+        this.flags = parent.flags;
+        this.policy = parent.policy;
+        this.indexes = parent.indexes.clone();
+        this.pos = pos;
+        this.end = end;
+    }
+
+    /** @return the first combination of r indexes. */
+    static int[] first(int r) {
+        int[] c = new int[r];
+        for (int i = 0; i < r; i++) {
+            c[i] = i;
+        }
+        return c;
+    }
+
+    /**
+     * Step to the next combination of indexes less than n in
+     * colexicographic order.
+     * @return false if c was the last combination.
+     */
+    static boolean next(int[] c, int n) {
+        int r = c.length;
+        for (int i = 0; i < r; i++) {
+            int limit = i + 1 < r ? c[i + 1] : n;
+            if (c[i] + 1 < limit) {
+                c[i]++;
+                for (int j = 0; j < i; j++) {
+                    c[j] = j;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the combination of r indexes with the given rank in
+     * colexicographic order.
+     */
+    static int[] unrank(long rank, int n, int r) {
+        int[] c = new int[r];
+        int top = n - 1;
+        for (int i = r; i > 0; i--) {
+            // Find the largest value v with C(v, i) <= rank
+            while (true) {
+                long count = top < i ? 0 : CombinatoricsUtils.binomialCoefficient(top, i);
+                if (count <= rank) {
+                    c[i - 1] = top;
+                    rank -= count;
+                    break;
+                }
+                top--;
+            }
+            top--;
+        }
+        return c;
+    }
+
+    /** Move past the current combination. */
+    private void step() {
+        pos++;
+        if (pos == end || !next(indexes, n)) {
+            indexes = null;
+        }
+    }
+
     @Override
-    public boolean hasNext() { return iter.hasNext(); }
+    public boolean hasNext() { return indexes != null; }
 
     @Override
     public List<T> next() {
-        int[] indexes = iter.next();
+        if (indexes == null) {
+            throw new NoSuchElementException();
+        }
         List<T> combo = new ArrayList<T>(r);
         for (int i : indexes) {
             combo.add(elems.get(i));
         }
+        step();
         return combo;
     }
 
@@ -104,7 +228,9 @@ public class ComboSpliterator<T>
     public int characteristics() { return flags; }
 
     @Override
-    public long estimateSize() { return nCr; }
+    public long estimateSize() {
+        return indexes == null ? 0 : end == Long.MAX_VALUE ? end : end - pos;
+    }
 
     @Override
     public void forEachRemaining(Consumer<? super List<T>> f) {
@@ -115,11 +241,11 @@ public class ComboSpliterator<T>
         for (int i = 0; i < r; i++) {
             combo.add(null);
         }
-        while (iter.hasNext()) {
-            int[] indexes = iter.next();
+        while (indexes != null) {
             for (int i = 0; i < r; i++) {
                 combo.set(i, elems.get(indexes[i]));
             }
+            step();
             f.accept(Collections.unmodifiableList(combo));
         }
     }
@@ -129,20 +255,27 @@ public class ComboSpliterator<T>
         if (elems.size() != n) {
             throw new ConcurrentModificationException();
         }
-        if (!iter.hasNext()) {
+        if (indexes == null) {
             return false;
         }
-        int[] indexes = iter.next();
-        List<T> combo = new ArrayList<T>(r);
-        for (int i : indexes) {
-            combo.add(elems.get(i));
-        }
-        f.accept(Collections.unmodifiableList(combo));
+        f.accept(Collections.unmodifiableList(next()));
         return true;
     }
 
     @Override
-    public Spliterator<List<T>> trySplit() { return null; }
+    public Spliterator<List<T>> trySplit() {
+        if (indexes == null || end == Long.MAX_VALUE) {
+            return null;
+        }
+        long k = policy.splitSize(end - pos);
+        if (k == 0) {
+            return null;
+        }
+        var prefix = new ComboSpliterator<T>(this, pos, pos + k);
+        pos += k;
+        indexes = unrank(pos, n, r);
+        return prefix;
+    }
 
     @Override
     public Iterator<List<T>> iterator() { return this; }
@@ -2,7 +2,8 @@ package org.raevnos.util.iterator;
 
 import java.util.Objects;
 import java.util.Spliterator;
-import java.util.Scanner;
+import java.util.Spliterators;
+import java.util.Locale;
 import java.util.function.DoubleConsumer;
 import java.io.Closeable;
 import java.io.IOException;
@@ -12,17 +13,50 @@ import java.nio.charset.Charset;
 /**
  * Spliterator that reads ints from a file source. Use {@code Readers.doubleStream()}
  * to create streams using it. Closing the Spliterator closes the underlying I/O source.
+ * Splits read a batch of numbers into an array, sized by a {@code SplitPolicy}.
+ *
+ * Numbers are read with the same rules as {@code Scanner}, stopping
+ * at the first token that isn't one. Plain ASCII numbers are parsed
+ * directly from a reusable buffer; other formats fall back to a {@code
+ * Scanner} for the locale, which is the default formatting locale
+ * unless one is given.
  */
 public class DoubleReaderSpliterator implements Spliterator.OfDouble, Closeable {
-    private final Scanner scanner;
+    private final NumberTokenizer tokenizer;
+    private final SplitPolicy policy;
+    private int batch;
 
     /**
      * Create a spliterator from an open reader.
      * @param r the {@code Readable} to use as a data source.
      */
     public DoubleReaderSpliterator(Readable r) {
+        this(r, SplitPolicy.DEFAULT);
+    }
+
+    /**
+     * Create a spliterator from an open reader with a split policy.
+     * @param r the {@code Readable} to use as a data source.
+     * @param policy how to batch up numbers for parallel processing.
+     */
+    public DoubleReaderSpliterator(Readable r, SplitPolicy policy) {
+        Objects.requireNonNull(r);
+        this.tokenizer = new NumberTokenizer(r);
+        this.policy = policy.resolve(Long.MAX_VALUE);
+    }
+
+    /**
+     * Create a spliterator from an open reader with a split policy,
+     * reading numbers that are not plain ASCII the way a {@code
+     * Scanner} for the given locale would.
+     * @param r the {@code Readable} to use as a data source.
+     * @param policy how to batch up numbers for parallel processing.
+     * @param locale the locale to use.
+     */
+    public DoubleReaderSpliterator(Readable r, SplitPolicy policy, Locale locale) {
         Objects.requireNonNull(r);
-        this.scanner = new Scanner(r);
+        this.tokenizer = new NumberTokenizer(r, locale);
+        this.policy = policy.resolve(Long.MAX_VALUE);
     }
 
     /**
@@ -31,7 +65,8 @@ public class DoubleReaderSpliterator implements Spliterator.OfDouble, Closeable
     */
     public DoubleReaderSpliterator(Path p) throws IOException {
         Objects.requireNonNull(p);
-        this.scanner = new Scanner(p);
+        this.tokenizer = NumberTokenizer.open(p, Charset.defaultCharset());
+        this.policy = SplitPolicy.DEFAULT;
     }
 
     /**
@@ -39,9 +74,18 @@ public class DoubleReaderSpliterator implements Spliterator.OfDouble, Closeable
      * should be closed when done.
     */
     public DoubleReaderSpliterator(Path p, Charset cs) throws IOException {
+        this(p, cs, SplitPolicy.DEFAULT);
+    }
+
+    /**
+     * Create a spliterator from a file path with a split policy. The
+     * stream/spliterator should be closed when done.
+     */
+    public DoubleReaderSpliterator(Path p, Charset cs, SplitPolicy policy) throws IOException {
         Objects.requireNonNull(p);
         Objects.requireNonNull(cs);
-        this.scanner = new Scanner(p, cs);
+        this.tokenizer = NumberTokenizer.open(p, cs);
+        this.policy = policy.resolve(Long.MAX_VALUE);
     }
 
     @Override
@@ -52,8 +96,8 @@ public class DoubleReaderSpliterator implements Spliterator.OfDouble, Closeable
 
     @Override
     public boolean tryAdvance(DoubleConsumer f) {
-        if (scanner.hasNextDouble()) {
-            f.accept(scanner.nextDouble());
+        if (tokenizer.hasNextDouble()) {
+            f.accept(tokenizer.nextDouble());
             return true;
         } else {
             return false;
@@ -62,14 +106,27 @@ public class DoubleReaderSpliterator implements Spliterator.OfDouble, Closeable
 
     @Override
     public void forEachRemaining(DoubleConsumer f) {
-        while (scanner.hasNextDouble()) {
-            f.accept(scanner.nextDouble());
+        while (tokenizer.hasNextDouble()) {
+            f.accept(tokenizer.nextDouble());
         }
     }
 
     @Override
-    public Spliterator.OfDouble trySplit() { return null; }
+    public Spliterator.OfDouble trySplit() {
+        // Read a batch of numbers into an array and split that off.
+        int size = policy.batchSize(batch);
+        double[] numbers = new double[size];
+        int n = 0;
+        while (n < size && tokenizer.hasNextDouble()) {
+            numbers[n++] = tokenizer.nextDouble();
+        }
+        if (n == 0) {
+            return null;
+        }
+        batch = size;
+        return Spliterators.spliterator(numbers, 0, n, NONNULL | ORDERED | IMMUTABLE);
+    }
 
     @Override
-    public void close() throws IOException { scanner.close(); }
+    public void close() throws IOException { tokenizer.close(); }
 }
@@ -0,0 +1,108 @@
+package org.raevnos.util.iterator;
+
+import java.math.BigInteger;
+
+/**
+ * Converts a decimal number made of a 64 bit significand and a power
+ * of ten into the nearest double, using the Eisel-Lemire algorithm.
+ *
+ * The significand is multiplied by a 128 bit truncated approximation
+ * of the power of ten. For almost every input the top bits of the
+ * product decide the rounding unambiguously; the rare cases where they
+ * don't, along with results that would be subnormal, are reported as
+ * failures so the caller can fall back to an exact method.
+ */
+final class EiselLemire {
+    private static final int MIN_EXPONENT = -342;
+    private static final int MAX_EXPONENT = 308;
+    /** High and low halves of the normalized mantissas of 10<sup>q</sup>, two per exponent. */
+    private static final long[] POWERS = new long[2 * (MAX_EXPONENT - MIN_EXPONENT + 1)];
+
+    static {
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = MIN_EXPONENT; q <= MAX_EXPONENT; q++) {
+            BigInteger m;
+            if (q >= 0) {
+                // 5^q with its top bit moved to bit 127, truncated.
+                m = BigInteger.valueOf(5).pow(q);
+                m = m.bitLength() > 128 ? m.shiftRight(m.bitLength() - 128) : m.shiftLeft(128 - m.bitLength());
+            } else {
+                // A reciprocal of 5^-q, rounded up and then truncated.
+                BigInteger p = BigInteger.valueOf(5).pow(-q);
+                int z = p.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                m = BigInteger.ONE.shiftLeft(b).divide(p).add(BigInteger.ONE);
+                if (m.bitLength() > 128) {
+                    m = m.shiftRight(m.bitLength() - 128);
+                }
+            }
+            int i = 2 * (q - MIN_EXPONENT);
+            POWERS[i] = m.shiftRight(64).longValue();
+            POWERS[i + 1] = m.and(mask).longValue();
+        }
+    }
+
+    private EiselLemire() {}
+
+    /** @return the high 64 bits of the unsigned product of two longs. */
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    /**
+     * Convert a decimal number to a double.
+     * @param w the significand, as an unsigned long.
+     * @param q the power of ten.
+     * @param negative true for a negative number.
+     * @return the closest double to {@code w * 10^q}, or {@code NaN}
+     * if it can't be found quickly.
+     */
+    static double toDouble(long w, int q, boolean negative) {
+        if (w == 0 || q < MIN_EXPONENT) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (q > MAX_EXPONENT) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+        long exp2 = ((217706L * q) >> 16) + 64 + 1023 - lz;
+        int i = 2 * (q - MIN_EXPONENT);
+        long hi = unsignedMultiplyHigh(w, POWERS[i]);
+        long lo = w * POWERS[i];
+        if ((hi & 0x1FF) == 0x1FF && Long.compareUnsigned(lo + w, w) < 0) {
+            // The truncated product might be off by one in its low bits; widen it.
+            long yHi = unsignedMultiplyHigh(w, POWERS[i + 1]);
+            long yLo = w * POWERS[i + 1];
+            long mergedLo = lo + yHi;
+            long mergedHi = Long.compareUnsigned(mergedLo, lo) < 0 ? hi + 1 : hi;
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo + 1 == 0 && Long.compareUnsigned(yLo + w, w) < 0) {
+                return Double.NaN;
+            }
+            hi = mergedHi;
+            lo = mergedLo;
+        }
+        long msb = hi >>> 63;
+        long mantissa = hi >>> (msb + 9);
+        exp2 -= 1 ^ msb;
+        if (lo == 0 && (hi & 0x1FF) == 0 && (mantissa & 3) == 1) {
+            // Exactly half way between two doubles.
+            return Double.NaN;
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if ((mantissa >>> 53) > 0) {
+            mantissa >>>= 1;
+            exp2++;
+        }
+        if (exp2 <= 0 || exp2 >= 0x7FF) {
+            // Subnormal or overflowing.
+            return Double.NaN;
+        }
+        long bits = (exp2 << 52) | (mantissa & 0x000FFFFFFFFFFFFFL);
+        if (negative) {
+            bits |= Long.MIN_VALUE;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+}
@@ -0,0 +1,112 @@
+package org.raevnos.util.iterator;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.raevnos.util.CharClass;
+import org.raevnos.util.CharSlice;
+
+/**
+ * A spliterator over the lines of a {@code CharSequence}, returned as
+ * {@code CharSlice} views that share the sequence's characters. Lines
+ * are terminated by {@code "\n"}, {@code "\r"} or {@code "\r\n"}, like
+ * {@code String.lines()}, and don't include the terminator.
+ *
+ * Split points are chosen by a {@code SplitPolicy}, then moved
+ * forward to the start of the next line.
+ */
+public class LineSpliterator implements Spliterator<CharSequence> {
+    private static final CharClass TERMINATORS = CharClass.of("\r\n");
+
+    private final CharSequence source;
+    private int i;
+    private final int endIdx;
+    private final SplitPolicy policy;
+
+    /**
+     * Make a spliterator over the lines of a sequence.
+     * @param source The sequence to split into lines.
+     * @throws NullPointerException if given a null argument
+     */
+    public LineSpliterator(CharSequence source) {
+        this(source, 0, Objects.requireNonNull(source).length(),
+             CharSpliterator.DEFAULT_POLICY);
+    }
+
+    /**
+     * Make a spliterator over the lines of a range of a sequence.
+     * @param source The sequence to split into lines.
+     * @param begIdxInclusive The starting index of the range, which
+     * should be the start of a line.
+     * @param endIdxExclusive One past the ending index of the range.
+     * @param policy How to split the range for parallel processing.
+     * @throws NullPointerException if given a null source.
+     * @throws IndexOutOfBoundsException if the range is invalid for the given source.
+     */
+    public LineSpliterator(CharSequence source, int begIdxInclusive, int endIdxExclusive,
+                           SplitPolicy policy) {
+        Objects.requireNonNull(source);
+        Objects.checkFromToIndex(begIdxInclusive, endIdxExclusive, source.length());
+        this.source = source;
+        this.i = begIdxInclusive;
+        this.endIdx = endIdxExclusive;
+        this.policy = policy.resolve(endIdxExclusive - begIdxInclusive);
+    }
+
+    /**
+     * @return the index after the line terminator at index j.
+     */
+    private int skipTerminator(int j) {
+        if (source.charAt(j) == '\r' && j + 1 < endIdx && source.charAt(j + 1) == '\n') {
+            return j + 2;
+        } else {
+            return j + 1;
+        }
+    }
+
+    @Override public int characteristics() {
+        int flags = NONNULL | ORDERED;
+        if (source instanceof String) {
+            flags |= IMMUTABLE;
+        }
+        return flags;
+    }
+
+    @Override public long estimateSize() {
+        return endIdx - i;
+    }
+
+    @Override public boolean tryAdvance(Consumer<? super CharSequence> action) {
+        if (i >= endIdx) {
+            return false;
+        }
+        int j = TERMINATORS.indexIn(source, i, endIdx);
+        if (j < 0) {
+            action.accept(new CharSlice(source, i, endIdx));
+            i = endIdx;
+        } else {
+            action.accept(new CharSlice(source, i, j));
+            i = skipTerminator(j);
+        }
+        return true;
+    }
+
+    @Override public Spliterator<CharSequence> trySplit() {
+        int n = (int)policy.splitSize(endIdx - i);
+        if (n == 0) {
+            return null;
+        }
+        int begIdx = i;
+        int j = TERMINATORS.indexIn(source, begIdx + n, endIdx);
+        if (j < 0) {
+            return null;
+        }
+        int splitIdx = skipTerminator(j);
+        if (splitIdx >= endIdx) {
+            return null;
+        }
+        i = splitIdx;
+        return new LineSpliterator(source, begIdx, splitIdx, policy);
+    }
+}
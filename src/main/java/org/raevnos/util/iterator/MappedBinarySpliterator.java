@@ -0,0 +1,379 @@
+package org.raevnos.util.iterator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+import org.raevnos.util.MappedFile;
+
+/**
+ * Spliterators over fixed-size binary values stored back to back in
+ * a memory mapped file: ints, longs and doubles in either byte order,
+ * or records decoded by a function. Use {@code Readers.binaryIntStream()},
+ * {@code Readers.records()} and their siblings to create streams using
+ * them.
+ *
+ * The number of values is known from the size of the file, so these
+ * are {@code SIZED} and {@code SUBSIZED} and split by index according
+ * to a {@code SplitPolicy}. Bulk traversal reads through views of the
+ * mapping a megabyte at a time instead of copying.
+ */
+public abstract class MappedBinarySpliterator {
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    private final MappedFile file;
+    private final long offset;
+    private final int width;
+    private final ByteOrder order;
+    private final SplitPolicy policy;
+    private long index, end; // Indexes of values
+
+    private MappedBinarySpliterator(MappedFile file, long offset, long count, int width,
+                                    ByteOrder order, SplitPolicy policy) {
+        this.file = Objects.requireNonNull(file);
+        this.order = Objects.requireNonNull(order);
+        if (width < 1) {
+            throw new IllegalArgumentException("width must be at least 1");
+        }
+        if (offset < 0 || count < 0 || count > (file.size() - offset) / width) {
+            throw new IndexOutOfBoundsException("values do not fit in the file");
+        }
+        this.offset = offset;
+        this.width = width;
+        this.end = count;
+        this.policy = policy.resolve(count);
+    }
+
+    private MappedBinarySpliterator(MappedBinarySpliterator parent, long end) {
+        this.file = parent.file;
+        this.offset = parent.offset;
+        this.width = parent.width;
+        this.order = parent.order;
+        this.policy = parent.policy;
+        this.index = parent.index;
+        this.end = end;
+    }
+
+    /** @return the offset in the file of a value. */
+    private long position(long i) {
+        return offset + i * width;
+    }
+
+    /**
+     * Get a view of the next values and move past them.
+     * @return a buffer holding at least one value in the spliterator's order.
+     */
+    private ByteBuffer chunk() {
+        long n = Math.min(end - index, Math.max(1, CHUNK_BYTES / width));
+        ByteBuffer b = file.slice(position(index), (int)(n * width)).order(order);
+        index += n;
+        return b;
+    }
+
+    /**
+     * Work out where to split.
+     * @return the end of the prefix, or -1 to not split.
+     */
+    private long splitPoint() {
+        long k = policy.splitSize(end - index);
+        return k == 0 ? -1 : index + k;
+    }
+
+    /** @return the number of values left. */
+    public long estimateSize() {
+        return end - index;
+    }
+
+    /** @return the number of values left. */
+    public long getExactSizeIfKnown() {
+        return end - index;
+    }
+
+    /** @return the characteristics of the spliterator. */
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED
+            | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+
+    /** A spliterator of ints. */
+    public static final class OfInt extends MappedBinarySpliterator implements Spliterator.OfInt {
+        /**
+         * Read all the ints of a file.
+         * @param file the file to read.
+         * @param order the byte order of the ints.
+         * @param policy how to split the ints for parallel processing.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfInt(MappedFile file, ByteOrder order, SplitPolicy policy) {
+            this(file, 0, file.size() / Integer.BYTES, order, policy);
+        }
+
+        /**
+         * Read ints from part of a file.
+         * @param file the file to read.
+         * @param offset the offset of the first int.
+         * @param count the number of ints.
+         * @param order the byte order of the ints.
+         * @param policy how to split the ints for parallel processing.
+         * @throws IndexOutOfBoundsException if the ints don't fit in the file.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfInt(MappedFile file, long offset, long count, ByteOrder order, SplitPolicy policy) {
+            super(file, offset, count, Integer.BYTES, order, policy);
+        }
+
+        private OfInt(MappedBinarySpliterator.OfInt parent, long end) {
+            super(parent, end);
+        }
+
+        private int get(long i) {
+            int v = super.file.getInt(super.position(i));
+            return super.order == ByteOrder.LITTLE_ENDIAN ? v : Integer.reverseBytes(v);
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer f) {
+            if (super.index >= super.end) {
+                return false;
+            }
+            f.accept(get(super.index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer f) {
+            while (super.index < super.end) {
+                IntBuffer b = super.chunk().asIntBuffer();
+                for (int i = 0, n = b.limit(); i < n; i++) {
+                    f.accept(b.get(i));
+                }
+            }
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            long mid = super.splitPoint();
+            if (mid < 0) {
+                return null;
+            }
+            var prefix = new MappedBinarySpliterator.OfInt(this, mid);
+            super.index = mid;
+            return prefix;
+        }
+    }
+
+    /** A spliterator of longs. */
+    public static final class OfLong extends MappedBinarySpliterator implements Spliterator.OfLong {
+        /**
+         * Read all the longs of a file.
+         * @param file the file to read.
+         * @param order the byte order of the longs.
+         * @param policy how to split the longs for parallel processing.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfLong(MappedFile file, ByteOrder order, SplitPolicy policy) {
+            this(file, 0, file.size() / Long.BYTES, order, policy);
+        }
+
+        /**
+         * Read longs from part of a file.
+         * @param file the file to read.
+         * @param offset the offset of the first long.
+         * @param count the number of longs.
+         * @param order the byte order of the longs.
+         * @param policy how to split the longs for parallel processing.
+         * @throws IndexOutOfBoundsException if the longs don't fit in the file.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfLong(MappedFile file, long offset, long count, ByteOrder order, SplitPolicy policy) {
+            super(file, offset, count, Long.BYTES, order, policy);
+        }
+
+        private OfLong(MappedBinarySpliterator.OfLong parent, long end) {
+            super(parent, end);
+        }
+
+        private long get(long i) {
+            long v = super.file.getLong(super.position(i));
+            return super.order == ByteOrder.LITTLE_ENDIAN ? v : Long.reverseBytes(v);
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer f) {
+            if (super.index >= super.end) {
+                return false;
+            }
+            f.accept(get(super.index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer f) {
+            while (super.index < super.end) {
+                LongBuffer b = super.chunk().asLongBuffer();
+                for (int i = 0, n = b.limit(); i < n; i++) {
+                    f.accept(b.get(i));
+                }
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long mid = super.splitPoint();
+            if (mid < 0) {
+                return null;
+            }
+            var prefix = new MappedBinarySpliterator.OfLong(this, mid);
+            super.index = mid;
+            return prefix;
+        }
+    }
+
+    /** A spliterator of doubles. */
+    public static final class OfDouble extends MappedBinarySpliterator implements Spliterator.OfDouble {
+        /**
+         * Read all the doubles of a file.
+         * @param file the file to read.
+         * @param order the byte order of the doubles.
+         * @param policy how to split the doubles for parallel processing.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfDouble(MappedFile file, ByteOrder order, SplitPolicy policy) {
+            this(file, 0, file.size() / Double.BYTES, order, policy);
+        }
+
+        /**
+         * Read doubles from part of a file.
+         * @param file the file to read.
+         * @param offset the offset of the first double.
+         * @param count the number of doubles.
+         * @param order the byte order of the doubles.
+         * @param policy how to split the doubles for parallel processing.
+         * @throws IndexOutOfBoundsException if the doubles don't fit in the file.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfDouble(MappedFile file, long offset, long count, ByteOrder order, SplitPolicy policy) {
+            super(file, offset, count, Double.BYTES, order, policy);
+        }
+
+        private OfDouble(MappedBinarySpliterator.OfDouble parent, long end) {
+            super(parent, end);
+        }
+
+        private double get(long i) {
+            long v = super.file.getLong(super.position(i));
+            return Double.longBitsToDouble(super.order == ByteOrder.LITTLE_ENDIAN ? v : Long.reverseBytes(v));
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer f) {
+            if (super.index >= super.end) {
+                return false;
+            }
+            f.accept(get(super.index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer f) {
+            while (super.index < super.end) {
+                DoubleBuffer b = super.chunk().asDoubleBuffer();
+                for (int i = 0, n = b.limit(); i < n; i++) {
+                    f.accept(b.get(i));
+                }
+            }
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            long mid = super.splitPoint();
+            if (mid < 0) {
+                return null;
+            }
+            var prefix = new MappedBinarySpliterator.OfDouble(this, mid);
+            super.index = mid;
+            return prefix;
+        }
+    }
+
+    /**
+     * A spliterator of fixed-size records. Each record is passed to
+     * a decoding function as a read-only buffer holding just that
+     * record, from position 0, in the spliterator's byte order. The
+     * buffer shares the mapping, so the function should copy out
+     * anything it keeps.
+     *
+     * @param <T> the type of the decoded records.
+     */
+    public static final class OfRecord<T> extends MappedBinarySpliterator implements Spliterator<T> {
+        private final Function<? super ByteBuffer, ? extends T> decoder;
+
+        /**
+         * Read all the records of a file.
+         * @param file the file to read.
+         * @param recordSize the size of each record in bytes.
+         * @param order the byte order of the buffers passed to the decoder.
+         * @param decoder turns a record into a value.
+         * @param policy how to split the records for parallel processing.
+         * @throws IllegalArgumentException if the record size is less than 1.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfRecord(MappedFile file, int recordSize, ByteOrder order,
+                        Function<? super ByteBuffer, ? extends T> decoder, SplitPolicy policy) {
+            super(file, 0, file.size() / Math.max(1, recordSize), recordSize, order, policy);
+            this.decoder = Objects.requireNonNull(decoder);
+        }
+
+        private OfRecord(MappedBinarySpliterator.OfRecord<T> parent, long end) {
+            super(parent, end);
+            this.decoder = parent.decoder;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> f) {
+            if (super.index >= super.end) {
+                return false;
+            }
+            long pos = super.position(super.index++);
+            f.accept(decoder.apply(super.file.slice(pos, super.width).order(super.order)));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> f) {
+            int width = super.width;
+            while (super.index < super.end) {
+                ByteBuffer b = super.chunk();
+                for (int i = 0, n = b.limit(); i < n; i += width) {
+                    f.accept(decoder.apply(b.slice(i, width).order(super.order)));
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            long mid = super.splitPoint();
+            if (mid < 0) {
+                return null;
+            }
+            var prefix = new MappedBinarySpliterator.OfRecord<T>(this, mid);
+            super.index = mid;
+            return prefix;
+        }
+
+        @Override
+        public int characteristics() {
+            // Decoders may return null.
+            return super.characteristics() & ~NONNULL;
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package org.raevnos.util.iterator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+import org.raevnos.util.MappedFile;
+import org.raevnos.util.Tuple;
+
+/**
+ * Spliterators that read one or two columns of a memory mapped
+ * delimited text file, such as CSV or TSV, in UTF-8. Use {@code
+ * Readers.intColumn()} and its siblings to create streams using them.
+ *
+ * Each line is a record. Only the requested fields are copied out of
+ * the mapping and parsed; the others are only scanned for delimiters,
+ * quotes and the end of the line. Fields may be quoted with {@code
+ * "}, in which case they can hold delimiters, doubled quotes and line
+ * breaks. A trailing carriage return is removed from each line, and
+ * blank lines are skipped.
+ *
+ * Numeric fields, less any surrounding spaces and tabs, are parsed
+ * with the same rules as {@code Scanner} in the root locale. A line
+ * without the requested columns, or with a field that is not a
+ * number, throws {@code InputMismatchException}.
+ *
+ * Ranges split by byte according to a {@code SplitPolicy}, with split
+ * points moved forward to the start of the next line. When read in
+ * parallel, quoted fields should therefore not hold line breaks.
+ */
+public abstract class MappedColumnSpliterator {
+    /** The default policy: ranges of 64 KiB or less aren't split. */
+    public static final SplitPolicy DEFAULT_POLICY = SplitPolicy.of(1 << 16);
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int INT = 0, LONG = 1, DOUBLE = 2;
+
+    private final MappedFile file;
+    private final SplitPolicy policy;
+    private final byte delimiter;
+    private final int[] columns;
+    private final int lastColumn;
+    private final NumberParser parser = new NumberParser(Locale.ROOT);
+    private long pos, end;
+    private byte[] buf;
+    private long bufStart;
+    private int bufLen;
+    private final char[][] fields; // The requested fields of the current line
+    private final int[] fieldLen;
+    private final boolean[] fieldAscii;
+    private int fieldCount;
+    private long lineStart;
+
+    private MappedColumnSpliterator(MappedFile file, int[] columns, char delimiter, boolean header,
+                                    SplitPolicy policy) {
+        this.file = Objects.requireNonNull(file);
+        if (delimiter >= 0x80 || delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("invalid delimiter");
+        }
+        this.delimiter = (byte)delimiter;
+        this.columns = columns;
+        int last = 0;
+        for (int c : columns) {
+            if (c < 0) {
+                throw new IllegalArgumentException("negative column");
+            }
+            last = Math.max(last, c);
+        }
+        this.lastColumn = last;
+        this.fields = new char[columns.length][32];
+        this.fieldLen = new int[columns.length];
+        this.fieldAscii = new boolean[columns.length];
+        this.end = file.size();
+        this.policy = policy.resolve(end);
+        if (header) {
+            readLine();
+        }
+    }
+
+    private MappedColumnSpliterator(MappedColumnSpliterator parent, long end) {
+        this.file = parent.file;
+        this.policy = parent.policy;
+        this.delimiter = parent.delimiter;
+        this.columns = parent.columns;
+        this.lastColumn = parent.lastColumn;
+        this.fields = new char[columns.length][32];
+        this.fieldLen = new int[columns.length];
+        this.fieldAscii = new boolean[columns.length];
+        this.pos = parent.pos;
+        this.end = end;
+    }
+
+    /** Read the part of the file starting at an offset into the buffer. */
+    private void fill(long at) {
+        if (buf == null) {
+            buf = new byte[(int)Math.max(1, Math.min(BUFFER_SIZE, end - pos))];
+        }
+        bufStart = at;
+        bufLen = (int)Math.min(buf.length, end - at);
+        file.get(at, buf, 0, bufLen);
+    }
+
+    /** @return the slot of the field in the requested columns, or -1. */
+    private int slotOf(int field) {
+        for (int s = 0; s < columns.length; s++) {
+            if (columns[s] == field) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    private void append(int slot, byte b) {
+        if (fieldLen[slot] == fields[slot].length) {
+            fields[slot] = Arrays.copyOf(fields[slot], fields[slot].length * 2);
+        }
+        fields[slot][fieldLen[slot]++] = (char)(b & 0xFF);
+        fieldAscii[slot] &= b >= 0;
+    }
+
+    /**
+     * Read the next line that isn't blank, copying out the requested fields.
+     * @return false at the end of the range.
+     */
+    private boolean readLine() {
+        while (pos < end) {
+            lineStart = pos;
+            Arrays.fill(fieldLen, 0);
+            Arrays.fill(fieldAscii, true);
+            int field = 0, slot = slotOf(0);
+            boolean fieldStart = true, quoted = false, quotePending = false, blank = true;
+            scan:
+            while (pos < end) {
+                if (pos >= bufStart + bufLen || pos < bufStart) {
+                    fill(pos);
+                }
+                int i = (int)(pos - bufStart);
+                for (; i < bufLen; i++) {
+                    byte b = buf[i];
+                    if (b != '\r' && b != '\n') {
+                        blank = false;
+                    }
+                    if (quoted) {
+                        if (!quotePending) {
+                            if (b == '"') {
+                                quotePending = true;
+                            } else if (slot >= 0) {
+                                append(slot, b);
+                            }
+                            continue;
+                        }
+                        quotePending = false;
+                        if (b == '"') {
+                            if (slot >= 0) {
+                                append(slot, b);
+                            }
+                            continue;
+                        }
+                        quoted = false;
+                    }
+                    if (b == '\n') {
+                        i++;
+                        pos = bufStart + i;
+                        break scan;
+                    } else if (b == delimiter) {
+                        field++;
+                        slot = field > lastColumn ? -1 : slotOf(field);
+                        fieldStart = true;
+                    } else if (b == '"' && fieldStart) {
+                        quoted = true;
+                        fieldStart = false;
+                    } else {
+                        fieldStart = false;
+                        if (slot >= 0) {
+                            append(slot, b);
+                        }
+                    }
+                }
+                pos = bufStart + i;
+            }
+            if (slot >= 0 && fieldLen[slot] > 0 && fields[slot][fieldLen[slot] - 1] == '\r') {
+                fieldLen[slot]--;
+            }
+            if (!blank) {
+                fieldCount = field + 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return the text of a requested field of the current line. */
+    private String text(int slot) {
+        if (fieldAscii[slot]) {
+            return new String(fields[slot], 0, fieldLen[slot]);
+        }
+        byte[] bytes = new byte[fieldLen[slot]];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte)fields[slot][i];
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Make sure the current line has a requested field. */
+    private void checkField(int slot) {
+        if (columns[slot] >= fieldCount) {
+            throw new InputMismatchException("line at byte " + lineStart + " has no column " + columns[slot]);
+        }
+    }
+
+    /** Parse a requested field of the current line as a number into the parser. */
+    private void parse(int type, int slot) {
+        checkField(slot);
+        char[] chars = fields[slot];
+        int from = 0, to = fieldLen[slot];
+        if (!fieldAscii[slot]) {
+            chars = text(slot).toCharArray();
+            to = chars.length;
+        }
+        while (from < to && (chars[from] == ' ' || chars[from] == '\t')) {
+            from++;
+        }
+        while (to > from && (chars[to - 1] == ' ' || chars[to - 1] == '\t')) {
+            to--;
+        }
+        boolean ok = from < to && (type == INT ? parser.parseInt(chars, from, to)
+                                   : type == LONG ? parser.parseLong(chars, from, to)
+                                   : parser.parseDouble(chars, from, to));
+        if (!ok) {
+            throw new InputMismatchException("column " + columns[slot] + " of the line at byte "
+                                             + lineStart + " is not a number: \"" + text(slot) + "\"");
+        }
+    }
+
+    /**
+     * Work out where to split the range.
+     * @return the end of the prefix, or -1 to not split.
+     */
+    private long splitPoint() {
+        long k = policy.splitSize(end - pos);
+        if (k == 0) {
+            return -1;
+        }
+        for (long mid = pos + k - 1; mid < end - 1; mid++) {
+            if (file.get(mid) == '\n') {
+                return mid + 1;
+            }
+        }
+        return -1;
+    }
+
+    /** @return the greatest number of lines left in the range. */
+    public long estimateSize() {
+        return (end - pos + 1) / 2;
+    }
+
+    /** @return the characteristics of the spliterator. */
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+
+    /** A spliterator of a column of ints. */
+    public static final class OfInt extends MappedColumnSpliterator implements Spliterator.OfInt {
+        /**
+         * Read a column of a mapped file.
+         * @param file the file to read.
+         * @param column the index of the column, starting from 0.
+         * @param delimiter the ASCII character between fields.
+         * @param header true to skip the first line.
+         * @param policy how to split the file for parallel processing, in bytes.
+         * @throws IllegalArgumentException if the column is negative or
+         * the delimiter is not ASCII, or is a quote or line break.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfInt(MappedFile file, int column, char delimiter, boolean header, SplitPolicy policy) {
+            super(file, new int[] {column}, delimiter, header, policy);
+        }
+
+        private OfInt(MappedColumnSpliterator.OfInt parent, long end) {
+            super(parent, end);
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer f) {
+            if (!super.readLine()) {
+                return false;
+            }
+            super.parse(INT, 0);
+            f.accept((int)super.parser.longValue());
+            return true;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            long mid = super.splitPoint();
+            if (mid < 0) {
+                return null;
+            }
+            var prefix = new MappedColumnSpliterator.OfInt(this, mid);
+            super.pos = mid;
+            return prefix;
+        }
+    }
+
+    /** A spliterator of a column of longs. */
+    public static final class OfLong extends MappedColumnSpliterator implements Spliterator.OfLong {
+        /**
+         * Read a column of a mapped file.
+         * @param file the file to read.
+         * @param column the index of the column, starting from 0.
+         * @param delimiter the ASCII character between fields.
+         * @param header true to skip the first line.
+         * @param policy how to split the file for parallel processing, in bytes.
+         * @throws IllegalArgumentException if the column is negative or
+         * the delimiter is not ASCII, or is a quote or line break.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfLong(MappedFile file, int column, char delimiter, boolean header, SplitPolicy policy) {
+            super(file, new int[] {column}, delimiter, header, policy);
+        }
+
+        private OfLong(MappedColumnSpliterator.OfLong parent, long end) {
+            super(parent, end);
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer f) {
+            if (!super.readLine()) {
+                return false;
+            }
+            super.parse(LONG, 0);
+            f.accept(super.parser.longValue());
+            return true;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long mid = super.splitPoint();
+            if (mid < 0) {
+                return null;
+            }
+            var prefix = new MappedColumnSpliterator.OfLong(this, mid);
+            super.pos = mid;
+            return prefix;
+        }
+    }
+
+    /** A spliterator of a column of doubles. */
+    public static final class OfDouble extends MappedColumnSpliterator implements Spliterator.OfDouble {
+        /**
+         * Read a column of a mapped file.
+         * @param file the file to read.
+         * @param column the index of the column, starting from 0.
+         * @param delimiter the ASCII character between fields.
+         * @param header true to skip the first line.
+         * @param policy how to split the file for parallel processing, in bytes.
+         * @throws IllegalArgumentException if the column is negative or
+         * the delimiter is not ASCII, or is a quote or line break.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfDouble(MappedFile file, int column, char delimiter, boolean header, SplitPolicy policy) {
+            super(file, new int[] {column}, delimiter, header, policy);
+        }
+
+        private OfDouble(MappedColumnSpliterator.OfDouble parent, long end) {
+            super(parent, end);
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer f) {
+            if (!super.readLine()) {
+                return false;
+            }
+            super.parse(DOUBLE, 0);
+            f.accept(super.parser.doubleValue());
+            return true;
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            long mid = super.splitPoint();
+            if (mid < 0) {
+                return null;
+            }
+            var prefix = new MappedColumnSpliterator.OfDouble(this, mid);
+            super.pos = mid;
+            return prefix;
+        }
+    }
+
+    /**
+     * A spliterator of pairs of columns, each converted from its text
+     * by a function.
+     *
+     * @param <A> the type of the first element of the tuples.
+     * @param <B> the type of the second element of the tuples.
+     */
+    public static final class OfTuple<A extends Object & Comparable<? super A>,
+                                      B extends Object & Comparable<? super B>>
+        extends MappedColumnSpliterator implements Spliterator<Tuple<A, B>> {
+        private final Function<? super String, ? extends A> firstParser;
+        private final Function<? super String, ? extends B> secondParser;
+        private final int secondSlot; // The same slot as the first when reading one column twice
+
+        /**
+         * Read two columns of a mapped file.
+         * @param file the file to read.
+         * @param first the index of the column of the first elements, starting from 0.
+         * @param second the index of the column of the second elements.
+         * @param delimiter the ASCII character between fields.
+         * @param header true to skip the first line.
+         * @param firstParser converts the text of a field into a first element.
+         * @param secondParser converts the text of a field into a second element.
+         * @param policy how to split the file for parallel processing, in bytes.
+         * @throws IllegalArgumentException if a column is negative or
+         * the delimiter is not ASCII, or is a quote or line break.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfTuple(MappedFile file, int first, int second, char delimiter, boolean header,
+                       Function<? super String, ? extends A> firstParser,
+                       Function<? super String, ? extends B> secondParser, SplitPolicy policy) {
+            super(file, new int[] {first, second}, delimiter, header, policy);
+            this.firstParser = Objects.requireNonNull(firstParser);
+            this.secondParser = Objects.requireNonNull(secondParser);
+            this.secondSlot = first == second ? 0 : 1;
+        }
+
+        private OfTuple(MappedColumnSpliterator.OfTuple<A, B> parent, long end) {
+            super(parent, end);
+            this.firstParser = parent.firstParser;
+            this.secondParser = parent.secondParser;
+            this.secondSlot = parent.secondSlot;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Tuple<A, B>> f) {
+            if (!super.readLine()) {
+                return false;
+            }
+            super.checkField(0);
+            super.checkField(secondSlot);
+            f.accept(new Tuple<A, B>(firstParser.apply(super.text(0)),
+                                     secondParser.apply(super.text(secondSlot))));
+            return true;
+        }
+
+        @Override
+        public Spliterator<Tuple<A, B>> trySplit() {
+            long mid = super.splitPoint();
+            if (mid < 0) {
+                return null;
+            }
+            var prefix = new MappedColumnSpliterator.OfTuple<A, B>(this, mid);
+            super.pos = mid;
+            return prefix;
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package org.raevnos.util.iterator;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+import org.raevnos.util.MappedFile;
+
+/**
+ * Spliterators that read whitespace-separated numbers from a memory
+ * mapped file, with the same rules as {@code Scanner}. Use {@code
+ * Readers.intStream(Path)} and its siblings to create streams using
+ * them.
+ *
+ * Unlike the reader spliterators, these know the size of their
+ * source, so they split by byte range according to a {@code
+ * SplitPolicy} whose sizes are counted in bytes. Split points are
+ * moved forward to the next ASCII whitespace byte, so every token
+ * belongs to exactly one range, and each range reads the mapping
+ * through its own buffer.
+ *
+ * Only charsets where ASCII bytes always stand for themselves are
+ * supported: UTF-8, ISO-8859-1 and US-ASCII. Tokens holding other
+ * bytes are decoded and split on {@code Character.isWhitespace()}
+ * before parsing.
+ *
+ * Reading stops at the first token that is not a number of the
+ * requested type. Once the file has been split, later ranges may
+ * already have produced numbers by the time such a token is found,
+ * so it throws {@code InputMismatchException} instead, and other
+ * ranges stop when they reach it.
+ */
+public abstract class MappedNumberSpliterator {
+    /** The default policy: ranges of 64 KiB or less aren't split. */
+    public static final SplitPolicy DEFAULT_POLICY = SplitPolicy.of(1 << 16);
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int INT = 0, LONG = 1, DOUBLE = 2;
+
+    private final MappedFile file;
+    private final Charset cs;
+    private final Locale locale;
+    private final SplitPolicy policy;
+    private final NumberParser parser;
+    private final AtomicLong stop; // Offset of the first bad token found, shared by all splits
+    private final AtomicBoolean split; // Set once any range has been split
+    private long pos, end;
+    private byte[] buf;
+    private long bufStart;
+    private int bufLen;
+    private char[] token = new char[32];
+    private int tokenLen;
+    private long tokenStart;
+    private char[] pending; // A decoded non-ASCII token, not all parsed yet
+    private int pendingPos;
+
+    private MappedNumberSpliterator(MappedFile file, Charset cs, SplitPolicy policy, Locale locale) {
+        this.file = Objects.requireNonNull(file);
+        this.cs = Objects.requireNonNull(cs);
+        if (!supports(cs)) {
+            throw new IllegalArgumentException("unsupported charset " + cs);
+        }
+        this.locale = Objects.requireNonNull(locale);
+        this.parser = new NumberParser(locale);
+        this.end = file.size();
+        this.policy = policy.resolve(end);
+        this.stop = new AtomicLong(Long.MAX_VALUE);
+        this.split = new AtomicBoolean();
+    }
+
+    private MappedNumberSpliterator(MappedNumberSpliterator parent, long end) {
+        this.file = parent.file;
+        this.cs = parent.cs;
+        this.locale = parent.locale;
+        this.policy = parent.policy;
+        this.parser = new NumberParser(locale);
+        this.stop = parent.stop;
+        this.split = parent.split;
+        this.pos = parent.pos;
+        this.end = end;
+    }
+
+    /**
+     * @param cs a charset.
+     * @return true if files in the charset can be read by these spliterators.
+     */
+    public static boolean supports(Charset cs) {
+        return cs.equals(StandardCharsets.UTF_8) || cs.equals(StandardCharsets.ISO_8859_1)
+            || cs.equals(StandardCharsets.US_ASCII);
+    }
+
+    /** @return true if a byte is a character that {@code Character.isWhitespace()} accepts. */
+    private static boolean isSpace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+    }
+
+    /** Read the part of the file starting at an offset into the buffer. */
+    private void fill(long at) {
+        if (buf == null) {
+            buf = new byte[(int)Math.min(BUFFER_SIZE, end - pos)];
+        }
+        bufStart = at;
+        bufLen = (int)Math.min(buf.length, end - at);
+        file.get(at, buf, 0, bufLen);
+    }
+
+    /**
+     * Find the next token in the range.
+     * @return 0 at the end of the range, 1 for a token of ASCII bytes,
+     * which is then in token, or -1 for one with other bytes.
+     */
+    private int nextToken() {
+        while (true) {
+            if (pos >= end) {
+                return 0;
+            }
+            if (pos >= bufStart + bufLen || pos < bufStart) {
+                fill(pos);
+            }
+            int i = (int)(pos - bufStart);
+            while (i < bufLen && isSpace(buf[i])) {
+                i++;
+            }
+            pos = bufStart + i;
+            if (i < bufLen) {
+                break;
+            }
+        }
+        tokenStart = pos;
+        tokenLen = 0;
+        boolean ascii = true;
+        while (pos < end) {
+            if (pos >= bufStart + bufLen) {
+                fill(pos);
+            }
+            int i = (int)(pos - bufStart);
+            for (; i < bufLen && !isSpace(buf[i]); i++) {
+                if (tokenLen == token.length) {
+                    token = Arrays.copyOf(token, token.length * 2);
+                }
+                token[tokenLen++] = (char)(buf[i] & 0xFF);
+                ascii &= buf[i] >= 0;
+            }
+            pos = bufStart + i;
+            if (i < bufLen) {
+                break;
+            }
+        }
+        return ascii ? 1 : -1;
+    }
+
+    /** Decode the token into pending. */
+    private void decode() {
+        byte[] bytes = new byte[tokenLen];
+        for (int i = 0; i < tokenLen; i++) {
+            bytes[i] = (byte)token[i];
+        }
+        pending = new String(bytes, cs).toCharArray();
+        pendingPos = 0;
+    }
+
+    private boolean parse(int type, char[] chars, int from, int to) {
+        switch (type) {
+        case INT:
+            return parser.parseInt(chars, from, to);
+        case LONG:
+            return parser.parseLong(chars, from, to);
+        default:
+            return parser.parseDouble(chars, from, to);
+        }
+    }
+
+    /**
+     * Stop reading at the current token.
+     * @throws InputMismatchException if the file has been split.
+     */
+    private boolean fail() {
+        stop.accumulateAndGet(tokenStart, Math::min);
+        pos = end;
+        pending = null;
+        if (split.get()) {
+            throw new InputMismatchException("not a number at byte " + tokenStart);
+        }
+        return false;
+    }
+
+    /**
+     * Read the next number into the parser.
+     * @return false at the end of the range or at a token that is not
+     * a number of the type.
+     */
+    private boolean advance(int type) {
+        while (true) {
+            if (pending != null) {
+                int from = pendingPos;
+                while (from < pending.length && Character.isWhitespace(pending[from])) {
+                    from++;
+                }
+                int to = from;
+                while (to < pending.length && !Character.isWhitespace(pending[to])) {
+                    to++;
+                }
+                if (from < to) {
+                    if (!parse(type, pending, from, to)) {
+                        return fail();
+                    }
+                    pendingPos = to;
+                    return true;
+                }
+                pending = null;
+            }
+            int kind = nextToken();
+            if (kind == 0) {
+                return false;
+            }
+            if (tokenStart >= stop.get()) {
+                pos = end;
+                return false;
+            }
+            if (kind < 0) {
+                decode();
+            } else if (parse(type, token, 0, tokenLen)) {
+                return true;
+            } else {
+                return fail();
+            }
+        }
+    }
+
+    /**
+     * Work out where to split the range.
+     * @return the end of the prefix, or -1 to not split.
+     */
+    private long splitPoint() {
+        if (pending != null || pos >= stop.get()) {
+            return -1;
+        }
+        long k = policy.splitSize(end - pos);
+        if (k == 0) {
+            return -1;
+        }
+        for (long mid = pos + k; mid < end; mid++) {
+            if (isSpace(file.get(mid))) {
+                split.set(true);
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** @return the greatest number of numbers left in the range. */
+    public long estimateSize() {
+        return (end - pos + 1) / 2;
+    }
+
+    /** @return the characteristics of the spliterator. */
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+
+    /** A spliterator of ints. */
+    public static final class OfInt extends MappedNumberSpliterator implements Spliterator.OfInt {
+        /**
+         * Read a mapped file with the default policy and formatting locale.
+         * @param file the file to read.
+         * @param cs the character encoding of the file.
+         * @throws IllegalArgumentException if the charset is not supported.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfInt(MappedFile file, Charset cs) {
+            this(file, cs, DEFAULT_POLICY, Locale.getDefault(Locale.Category.FORMAT));
+        }
+
+        /**
+         * Read a mapped file.
+         * @param file the file to read.
+         * @param cs the character encoding of the file.
+         * @param policy how to split the file for parallel processing, in bytes.
+         * @param locale the locale to use for numbers not in plain ASCII form.
+         * @throws IllegalArgumentException if the charset is not supported.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfInt(MappedFile file, Charset cs, SplitPolicy policy, Locale locale) {
+            super(file, cs, policy, locale);
+        }
+
+        private OfInt(MappedNumberSpliterator.OfInt parent, long end) {
+            super(parent, end);
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer f) {
+            if (super.advance(INT)) {
+                f.accept((int)super.parser.longValue());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer f) {
+            while (super.advance(INT)) {
+                f.accept((int)super.parser.longValue());
+            }
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            long mid = super.splitPoint();
+            if (mid < 0) {
+                return null;
+            }
+            var prefix = new MappedNumberSpliterator.OfInt(this, mid);
+            super.pos = mid;
+            return prefix;
+        }
+    }
+
+    /** A spliterator of longs. */
+    public static final class OfLong extends MappedNumberSpliterator implements Spliterator.OfLong {
+        /**
+         * Read a mapped file with the default policy and formatting locale.
+         * @param file the file to read.
+         * @param cs the character encoding of the file.
+         * @throws IllegalArgumentException if the charset is not supported.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfLong(MappedFile file, Charset cs) {
+            this(file, cs, DEFAULT_POLICY, Locale.getDefault(Locale.Category.FORMAT));
+        }
+
+        /**
+         * Read a mapped file.
+         * @param file the file to read.
+         * @param cs the character encoding of the file.
+         * @param policy how to split the file for parallel processing, in bytes.
+         * @param locale the locale to use for numbers not in plain ASCII form.
+         * @throws IllegalArgumentException if the charset is not supported.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfLong(MappedFile file, Charset cs, SplitPolicy policy, Locale locale) {
+            super(file, cs, policy, locale);
+        }
+
+        private OfLong(MappedNumberSpliterator.OfLong parent, long end) {
+            super(parent, end);
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer f) {
+            if (super.advance(LONG)) {
+                f.accept(super.parser.longValue());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer f) {
+            while (super.advance(LONG)) {
+                f.accept(super.parser.longValue());
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long mid = super.splitPoint();
+            if (mid < 0) {
+                return null;
+            }
+            var prefix = new MappedNumberSpliterator.OfLong(this, mid);
+            super.pos = mid;
+            return prefix;
+        }
+    }
+
+    /** A spliterator of doubles. */
+    public static final class OfDouble extends MappedNumberSpliterator implements Spliterator.OfDouble {
+        /**
+         * Read a mapped file with the default policy and formatting locale.
+         * @param file the file to read.
+         * @param cs the character encoding of the file.
+         * @throws IllegalArgumentException if the charset is not supported.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfDouble(MappedFile file, Charset cs) {
+            this(file, cs, DEFAULT_POLICY, Locale.getDefault(Locale.Category.FORMAT));
+        }
+
+        /**
+         * Read a mapped file.
+         * @param file the file to read.
+         * @param cs the character encoding of the file.
+         * @param policy how to split the file for parallel processing, in bytes.
+         * @param locale the locale to use for numbers not in plain ASCII form.
+         * @throws IllegalArgumentException if the charset is not supported.
+         * @throws NullPointerException if passed a null argument.
+         */
+        public OfDouble(MappedFile file, Charset cs, SplitPolicy policy, Locale locale) {
+            super(file, cs, policy, locale);
+        }
+
+        private OfDouble(MappedNumberSpliterator.OfDouble parent, long end) {
+            super(parent, end);
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer f) {
+            if (super.advance(DOUBLE)) {
+                f.accept(super.parser.doubleValue());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer f) {
+            while (super.advance(DOUBLE)) {
+                f.accept(super.parser.doubleValue());
+            }
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            long mid = super.splitPoint();
+            if (mid < 0) {
+                return null;
+            }
+            var prefix = new MappedNumberSpliterator.OfDouble(this, mid);
+            super.pos = mid;
+            return prefix;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.raevnos.util.iterator;
+
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+import org.raevnos.util.CharClass;
+
+/**
+ * A {@code Spliterator.OfInt} over the indexes of the characters in a
+ * range of a {@code CharSequence} that are members of a {@code
+ * CharClass}. Ranges are searched with {@code CharClass.indexIn()},
+ * and split according to a {@code SplitPolicy}.
+ */
+public class MatchSpliterator implements Spliterator.OfInt {
+    private final CharSequence source;
+    private final CharClass chars;
+    private int i;
+    private final int endIdx;
+    private final SplitPolicy policy;
+
+    /**
+     * Make a spliterator over the matches in a sequence.
+     * @param source The sequence to search.
+     * @param chars The characters to look for.
+     * @throws NullPointerException if given a null argument
+     */
+    public MatchSpliterator(CharSequence source, CharClass chars) {
+        this(source, chars, 0, Objects.requireNonNull(source).length(),
+             CharSpliterator.DEFAULT_POLICY);
+    }
+
+    /**
+     * Make a spliterator over the matches in a range of a sequence.
+     * @param source The sequence to search.
+     * @param chars The characters to look for.
+     * @param begIdxInclusive The starting index of the range.
+     * @param endIdxExclusive One past the ending index of the range.
+     * @param policy How to split the range for parallel processing.
+     * @throws NullPointerException if given a null argument.
+     * @throws IndexOutOfBoundsException if the range is invalid for the given source.
+     */
+    public MatchSpliterator(CharSequence source, CharClass chars, int begIdxInclusive,
+                            int endIdxExclusive, SplitPolicy policy) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(chars);
+        Objects.checkFromToIndex(begIdxInclusive, endIdxExclusive, source.length());
+        this.source = source;
+        this.chars = chars;
+        this.i = begIdxInclusive;
+        this.endIdx = endIdxExclusive;
+        this.policy = policy.resolve(endIdxExclusive - begIdxInclusive);
+    }
+
+    @Override public int characteristics() {
+        int flags = DISTINCT | NONNULL | ORDERED | SORTED;
+        if (source instanceof String) {
+            flags |= IMMUTABLE;
+        }
+        return flags;
+    }
+
+    @Override public Comparator<? super Integer> getComparator() { return null; }
+
+    @Override public long estimateSize() {
+        return endIdx - i;
+    }
+
+    @Override public boolean tryAdvance(IntConsumer action) {
+        if (i >= endIdx) {
+            return false;
+        }
+        int j = chars.indexIn(source, i, endIdx);
+        if (j < 0) {
+            i = endIdx;
+            return false;
+        }
+        i = j + 1;
+        action.accept(j);
+        return true;
+    }
+
+    @Override public void forEachRemaining(IntConsumer action) {
+        while (tryAdvance(action)) {}
+    }
+
+    @Override public Spliterator.OfInt trySplit() {
+        int n = (int)policy.splitSize(endIdx - i);
+        if (n == 0) {
+            return null;
+        }
+        int begIdx = i;
+        int splitIdx = begIdx + n;
+        i = splitIdx;
+        return new MatchSpliterator(source, chars, begIdx, splitIdx, policy);
+    }
+}
@@ -0,0 +1,263 @@
+package org.raevnos.util.iterator;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Scanner;
+
+/**
+ * Parses single whitespace-free tokens held in a {@code char[]} the
+ * way {@code Scanner}'s {@code hasNextInt()}, {@code hasNextLong()} and
+ * {@code hasNextDouble()} would. Shared by the tokenizers in this
+ * package.
+ *
+ * Tokens made of an optional sign and ASCII digits, and for doubles a
+ * decimal point and exponent or {@code NaN} and {@code Infinity}, are
+ * parsed directly. Decimal numbers that a single floating point
+ * operation can't convert exactly go through {@code EiselLemire}, with
+ * {@code Double.parseDouble()} for the few it can't decide. Any other
+ * token is handed to a {@code Scanner} for the parser's locale.
+ */
+final class NumberParser {
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Locale locale;
+    private final boolean pointDecimals; // True if the locale's decimal separator is '.'
+    private long longValue;
+    private double doubleValue;
+
+    /**
+     * @param locale the locale to use for numbers not in plain ASCII form.
+     */
+    NumberParser(Locale locale) {
+        this.locale = Objects.requireNonNull(locale);
+        this.pointDecimals = DecimalFormatSymbols.getInstance(locale).getDecimalSeparator() == '.';
+    }
+
+    /** @return the value of the last integer parsed. */
+    long longValue() { return longValue; }
+
+    /** @return the value of the last double parsed. */
+    double doubleValue() { return doubleValue; }
+
+    private Scanner fallback(char[] buf, int start, int end) {
+        return new Scanner(new String(buf, start, end - start)).useLocale(locale);
+    }
+
+    /**
+     * Parse a plain ASCII integer into longValue.
+     * @return 1 if it is one in range, 0 if it is not plain, -1 if it
+     * is plain but out of range.
+     */
+    private int parsePlain(char[] buf, int start, int end, long min, long max) {
+        int i = start;
+        boolean negative = false;
+        if (buf[i] == '-' || buf[i] == '+') {
+            negative = buf[i] == '-';
+            i++;
+        }
+        if (i == end) {
+            return 0;
+        }
+        // Accumulate negatively so the minimum value fits.
+        long limit = negative ? min : -max;
+        long multmin = limit / 10;
+        long v = 0;
+        boolean overflow = false;
+        for (; i < end; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) {
+                return 0;
+            }
+            if (v < multmin) {
+                overflow = true;
+            } else {
+                v *= 10;
+                if (v < limit + d) {
+                    overflow = true;
+                } else {
+                    v -= d;
+                }
+            }
+        }
+        if (overflow) {
+            return -1;
+        }
+        longValue = negative ? v : -v;
+        return 1;
+    }
+
+    /**
+     * Parse a token as an int.
+     * @param buf holds the token.
+     * @param start the index of the first character of the token.
+     * @param end one past the index of the last character of the token.
+     * @return true if it is an int, which is then in {@code longValue()}.
+     */
+    boolean parseInt(char[] buf, int start, int end) {
+        int r = parsePlain(buf, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        if (r == 0) {
+            Scanner s = fallback(buf, start, end);
+            if (s.hasNextInt()) {
+                longValue = s.nextInt();
+                r = 1;
+            }
+        }
+        return r == 1;
+    }
+
+    /**
+     * Parse a token as a long.
+     * @param buf holds the token.
+     * @param start the index of the first character of the token.
+     * @param end one past the index of the last character of the token.
+     * @return true if it is a long, which is then in {@code longValue()}.
+     */
+    boolean parseLong(char[] buf, int start, int end) {
+        int r = parsePlain(buf, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+        if (r == 0) {
+            Scanner s = fallback(buf, start, end);
+            if (s.hasNextLong()) {
+                longValue = s.nextLong();
+                r = 1;
+            }
+        }
+        return r == 1;
+    }
+
+    /**
+     * Parse a plain ASCII decimal number into doubleValue.
+     * @return false if it is not plain.
+     */
+    private boolean parsePlainDouble(char[] buf, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (buf[i] == '-' || buf[i] == '+') {
+            negative = buf[i] == '-';
+            i++;
+        }
+        long digits = 0; // Unsigned
+        int nDigits = 0, significant = 0, scale = 0;
+        boolean point = false, truncated = false;
+        for (; i < end; i++) {
+            char c = buf[i];
+            if (c >= '0' && c <= '9') {
+                nDigits++;
+                if (significant < 19) {
+                    if (digits != 0 || c != '0') {
+                        digits = digits * 10 + (c - '0');
+                        significant++;
+                    }
+                    if (point) {
+                        scale--;
+                    }
+                } else {
+                    truncated |= c != '0';
+                    if (!point) {
+                        scale++;
+                    }
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (nDigits == 0) {
+            return false;
+        }
+        if (i < end) {
+            if (buf[i] != 'e' && buf[i] != 'E') {
+                return false;
+            }
+            i++;
+            boolean negExp = false;
+            if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+                negExp = buf[i] == '-';
+                i++;
+            }
+            if (i == end) {
+                return false;
+            }
+            int exp = 0;
+            for (; i < end; i++) {
+                int d = buf[i] - '0';
+                if (d < 0 || d > 9) {
+                    return false;
+                }
+                exp = Math.min(exp * 10 + d, 100000);
+            }
+            scale += negExp ? -exp : exp;
+        }
+        double v;
+        if (!truncated && significant <= 15 && Math.abs(scale) <= 22) {
+            // Both parts are exact doubles, so one operation rounds correctly.
+            v = scale < 0 ? digits / POWERS_OF_TEN[-scale] : digits * POWERS_OF_TEN[scale];
+            v = negative ? -v : v;
+        } else {
+            v = EiselLemire.toDouble(digits, scale, negative);
+            if (truncated && v == v && v != EiselLemire.toDouble(digits + 1, scale, negative)) {
+                // The dropped digits could change the result.
+                v = Double.NaN;
+            }
+        }
+        doubleValue = v == v ? v : Double.parseDouble(new String(buf, start, end - start));
+        return true;
+    }
+
+    /**
+     * Parse {@code NaN} or {@code Infinity} with an optional sign, which
+     * {@code Scanner} accepts in every locale, into doubleValue.
+     * @return false if it is neither.
+     */
+    private boolean parseNonNumber(char[] buf, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (buf[i] == '-' || buf[i] == '+') {
+            negative = buf[i] == '-';
+            i++;
+        }
+        if (matches(buf, i, end, "NaN")) {
+            doubleValue = Double.NaN;
+        } else if (matches(buf, i, end, "Infinity")) {
+            doubleValue = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean matches(char[] buf, int start, int end, String word) {
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (buf[start + i] != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse a token as a double.
+     * @param buf holds the token.
+     * @param start the index of the first character of the token.
+     * @param end one past the index of the last character of the token.
+     * @return true if it is a double, which is then in {@code doubleValue()}.
+     */
+    boolean parseDouble(char[] buf, int start, int end) {
+        if ((pointDecimals && parsePlainDouble(buf, start, end)) || parseNonNumber(buf, start, end)) {
+            return true;
+        }
+        Scanner s = fallback(buf, start, end);
+        if (s.hasNextDouble()) {
+            doubleValue = s.nextDouble();
+            return true;
+        }
+        return false;
+    }
+}
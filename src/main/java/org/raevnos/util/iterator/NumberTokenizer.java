@@ -0,0 +1,176 @@
+package org.raevnos.util.iterator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Reads whitespace-separated numbers from a {@code Readable} with the
+ * same results as the {@code hasNextInt()}/{@code nextInt()} family of
+ * {@code Scanner} methods, without regular expressions or allocating
+ * a {@code String} for each number.
+ *
+ * Tokens are collected in a reusable buffer and parsed by a {@code
+ * NumberParser}. Tokens made of an optional sign and ASCII digits, and
+ * for doubles a decimal point and exponent, are parsed directly. Any
+ * other token, such as one with grouping separators, non-ASCII digits
+ * or {@code NaN}, is handed to a {@code Scanner} for the tokenizer's
+ * locale, so locale-specific formats are still read like {@code
+ * Scanner} does. As with {@code Scanner}, a token that is
+ * not a number of the requested type is left unread.
+ */
+final class NumberTokenizer implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Readable source;
+    private final NumberParser parser;
+    private char[] buf = new char[BUFFER_SIZE];
+    private int pos, limit;
+    private boolean eof;
+    private int start, end; // The current token, valid when end > start
+
+    /**
+     * Read from a source using the default formatting locale, like {@code Scanner}.
+     * @param source where to read from.
+     */
+    NumberTokenizer(Readable source) {
+        this(source, Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Read from a source using a locale for numbers not in plain ASCII form.
+     * @param source where to read from.
+     * @param locale the locale to use.
+     */
+    NumberTokenizer(Readable source, Locale locale) {
+        this.source = Objects.requireNonNull(source);
+        this.parser = new NumberParser(locale);
+    }
+
+    /** Open a file like {@code new Scanner(p, cs)} does. */
+    static NumberTokenizer open(Path p, Charset cs) throws IOException {
+        return new NumberTokenizer(new InputStreamReader(Files.newInputStream(p), cs));
+    }
+
+    /** Read more characters, keeping the current token at the start of the buffer. */
+    private boolean fill() {
+        if (eof) {
+            return false;
+        }
+        int keep = Math.max(0, Math.min(start, pos));
+        if (keep > 0) {
+            System.arraycopy(buf, keep, buf, 0, limit - keep);
+            limit -= keep;
+            pos -= keep;
+            start -= keep;
+            end = Math.max(0, end - keep);
+        }
+        if (limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        try {
+            int n;
+            do {
+                n = source.read(CharBuffer.wrap(buf, limit, buf.length - limit));
+            } while (n == 0);
+            if (n < 0) {
+                eof = true;
+                return false;
+            }
+            limit += n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** @return true if there is a token, which is then in buf[start, end). */
+    private boolean token() {
+        if (end > start) {
+            return true;
+        }
+        while (true) {
+            while (pos < limit && Character.isWhitespace(buf[pos])) {
+                pos++;
+            }
+            if (pos < limit) {
+                break;
+            }
+            start = pos;
+            if (!fill()) {
+                return false;
+            }
+        }
+        start = pos;
+        int i = start;
+        while (true) {
+            while (i < limit && !Character.isWhitespace(buf[i])) {
+                i++;
+            }
+            if (i < limit) {
+                break;
+            }
+            int offset = start;
+            boolean more = fill();
+            i -= offset - start;
+            if (!more) {
+                break;
+            }
+        }
+        end = i;
+        return true;
+    }
+
+    private void consume() {
+        pos = end;
+        start = end;
+    }
+
+    /** @return true if the next token is an int. */
+    boolean hasNextInt() {
+        return token() && parser.parseInt(buf, start, end);
+    }
+
+    /** @return the next token as an int. Call after {@code hasNextInt()} returns true. */
+    int nextInt() {
+        consume();
+        return (int)parser.longValue();
+    }
+
+    /** @return true if the next token is a long. */
+    boolean hasNextLong() {
+        return token() && parser.parseLong(buf, start, end);
+    }
+
+    /** @return the next token as a long. Call after {@code hasNextLong()} returns true. */
+    long nextLong() {
+        consume();
+        return parser.longValue();
+    }
+
+    /** @return true if the next token is a double. */
+    boolean hasNextDouble() {
+        return token() && parser.parseDouble(buf, start, end);
+    }
+
+    /** @return the next token as a double. Call after {@code hasNextDouble()} returns true. */
+    double nextDouble() {
+        consume();
+        return parser.doubleValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (source instanceof Closeable) {
+            ((Closeable)source).close();
+        }
+    }
+}
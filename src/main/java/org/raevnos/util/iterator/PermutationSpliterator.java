@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Iterator;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.Collections;
 import java.util.function.Consumer;
 import org.apache.commons.collections4.iterators.PermutationIterator;
@@ -14,6 +15,10 @@ import org.apache.commons.math3.util.CombinatoricsUtils;
  * permutations of the elements of a collection. Use {@code
  * PermutationStream} methods for creating streams of permutations.
  *
+ * Permutations are generated in the order of {@code
+ * PermutationIterator}, which can't jump ahead, so splits take a
+ * batch of permutations sized by a {@code SplitPolicy}.
+ *
  * The backing collection should not be modified while the
  * stream/spliterator/etc. is being used.
  */
@@ -24,6 +29,8 @@ public class PermutationSpliterator<T>
     private PermutationIterator<T> it;
     private int flags;
     private long nPermutations;
+    private SplitPolicy policy;
+    private int batch;
 
     /**
      * Create a new spliterator to iterate over the permutations of the collection.
@@ -31,6 +38,16 @@ public class PermutationSpliterator<T>
      * @throws NullPointerException if passed a null object.
      */
     public PermutationSpliterator(Collection<T> elems) {
+        this(elems, SplitPolicy.DEFAULT);
+    }
+
+    /**
+     * Create a new spliterator to iterate over the permutations of the collection.
+     * @param elems The elements to permute.
+     * @param policy How to batch up permutations for parallel processing.
+     * @throws NullPointerException if passed a null object.
+     */
+    public PermutationSpliterator(Collection<T> elems, SplitPolicy policy) {
         this.it = new PermutationIterator<T>(elems);
         this.flags = NONNULL;
         try {
@@ -39,6 +56,7 @@ public class PermutationSpliterator<T>
         } catch (ArithmeticException e) {
             this.nPermutations = Long.MAX_VALUE;
         }
+        this.policy = policy.resolve(nPermutations);
     }
 
     @Override
@@ -50,6 +68,9 @@ public class PermutationSpliterator<T>
     @Override
     public boolean tryAdvance(Consumer<? super List<T>> f) {
         if (it.hasNext()) {
+            if ((flags & SIZED) != 0) {
+                nPermutations--;
+            }
             f.accept(Collections.unmodifiableList(it.next()));
             return true;
         } else {
@@ -60,12 +81,38 @@ public class PermutationSpliterator<T>
     @Override
     public void forEachRemaining(Consumer<? super List<T>> f) {
         while (it.hasNext()) {
+            if ((flags & SIZED) != 0) {
+                nPermutations--;
+            }
             f.accept(Collections.unmodifiableList(it.next()));
         }
     }
 
     @Override
-    public Spliterator<List<T>> trySplit() { return null; }
+    public Spliterator<List<T>> trySplit() {
+        // Collect a batch of permutations into an array and split that off.
+        long size = policy.batchSize(batch);
+        if ((flags & SIZED) != 0) {
+            size = Math.min(size, policy.splitSize(nPermutations));
+        }
+        if (size == 0) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+            List<T>[] perms = (List<T>[])new List<?>[(int)size];
+        int n = 0;
+        while (n < size && it.hasNext()) {
+            perms[n++] = Collections.unmodifiableList(it.next());
+        }
+        if (n == 0) {
+            return null;
+        }
+        batch = (int)size;
+        if ((flags & SIZED) != 0) {
+            nPermutations -= n;
+        }
+        return Spliterators.spliterator(perms, 0, n, flags);
+    }
 
     @Override
     public Iterator<List<T>> iterator() { return it; }
@@ -0,0 +1,177 @@
+package org.raevnos.util.iterator;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+import org.raevnos.util.RollingHash;
+
+/**
+ * Adapts a {@code Spliterator.OfInt} into one of the rolling hashes
+ * of every window of its elements.
+ *
+ * The source is split by reading batches of elements into arrays, with
+ * sizes set by a {@code SplitPolicy}. Each batch carries the elements
+ * before it that its first windows need, and batches split by range.
+ */
+public class RollingHashAdaptorSpliterator implements Spliterator.OfLong {
+    private final Spliterator.OfInt source; // Null when reading part of a batch
+    private final int[] values; // The batch, or null when reading the source
+    private int pos, end; // The range of the batch left to read
+    private final RollingHash hash;
+    private final SplitPolicy policy;
+    private final int window;
+    private final int[] ring; // The last window elements read
+    private long count; // Elements read
+    private long h;
+    private int batch;
+    private final Feeder feeder = new Feeder();
+
+    /** Rolls each element into the hash and passes full windows on. */
+    private final class Feeder implements IntConsumer {
+        LongConsumer sink;
+        boolean emitted;
+
+        @Override
+        public void accept(int v) {
+            int slot = (int)(count % window);
+            if (count < window) {
+                h = hash.push(h, v);
+            } else {
+                h = hash.roll(h, ring[slot], v);
+            }
+            ring[slot] = v;
+            count++;
+            if (count >= window && sink != null) {
+                emitted = true;
+                sink.accept(h);
+            }
+        }
+    }
+
+    /**
+     * Create a new adaptor.
+     * @param source the elements to hash.
+     * @param hash the hash to compute.
+     * @param policy how to batch elements for parallel processing.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public RollingHashAdaptorSpliterator(Spliterator.OfInt source, RollingHash hash,
+                                         SplitPolicy policy) {
+        this.source = Objects.requireNonNull(source);
+        this.values = null;
+        this.hash = Objects.requireNonNull(hash);
+        this.policy = policy.resolve(Long.MAX_VALUE);
+        this.window = hash.window();
+        this.ring = new int[window];
+    }
+
+    /**
+     * Read part of a batch.
+     * @param from the index of the first element the first window needs.
+     * @param pos the index of the first element to end a window on.
+     * @param end one past the index of the last element.
+     */
+    private RollingHashAdaptorSpliterator(RollingHashAdaptorSpliterator parent, int[] values,
+                                          int from, int pos, int end) {
+        this.source = null;
+        this.values = values;
+        this.hash = parent.hash;
+        this.policy = parent.policy;
+        this.window = parent.window;
+        this.ring = new int[window];
+        restart(from, pos);
+        this.pos = pos;
+        this.end = end;
+    }
+
+    /** Reset the hash to the state after reading values[from, to). */
+    private void restart(int from, int to) {
+        count = 0;
+        h = 0;
+        feeder.sink = null;
+        for (int i = Math.max(from, to - (window - 1)); i < to; i++) {
+            feeder.accept(values[i]);
+        }
+    }
+
+    /** Read one element. @return false at the end. */
+    private boolean feed() {
+        if (values == null) {
+            return source.tryAdvance(feeder);
+        } else if (pos < end) {
+            feeder.accept(values[pos++]);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        feeder.sink = action;
+        feeder.emitted = false;
+        while (!feeder.emitted && feed()) {
+        }
+        return feeder.emitted;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+        feeder.sink = action;
+        if (values == null) {
+            source.forEachRemaining(feeder);
+        } else {
+            while (pos < end) {
+                feeder.accept(values[pos++]);
+            }
+        }
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+        if (values != null) {
+            int k = (int)policy.splitSize(end - pos);
+            if (k == 0) {
+                return null;
+            }
+            int mid = pos + k;
+            var prefix = new RollingHashAdaptorSpliterator(this, values, 0, pos, mid);
+            restart(0, mid);
+            pos = mid;
+            return prefix;
+        }
+        int carry = (int)Math.min(count, window - 1);
+        batch = policy.batchSize(batch);
+        int[] batchValues = new int[carry + batch];
+        for (int i = 0; i < carry; i++) {
+            batchValues[i] = ring[(int)((count - carry + i) % window)];
+        }
+        int[] n = {carry};
+        while (n[0] < batchValues.length && source.tryAdvance((int v) -> batchValues[n[0]++] = v)) {
+        }
+        if (n[0] == carry) {
+            return null;
+        }
+        var prefix = new RollingHashAdaptorSpliterator(this, batchValues, 0, carry, n[0]);
+        // Restart with the elements the next windows need.
+        count = 0;
+        h = 0;
+        feeder.sink = null;
+        for (int i = Math.max(0, n[0] - (window - 1)); i < n[0]; i++) {
+            feeder.accept(batchValues[i]);
+        }
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return values == null ? source.estimateSize() : end - pos;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
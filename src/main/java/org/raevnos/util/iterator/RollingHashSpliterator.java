@@ -0,0 +1,111 @@
+package org.raevnos.util.iterator;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.function.LongToIntFunction;
+
+import org.raevnos.util.RollingHash;
+
+/**
+ * A {@code Spliterator} of the rolling hashes of every window of a
+ * random access source of values, such as the characters of a {@code
+ * CharSequence} or the bytes of a mapped file.
+ *
+ * Ranges split according to a {@code SplitPolicy}. A newly split
+ * range hashes its first window in full and rolls from there.
+ */
+public class RollingHashSpliterator implements Spliterator.OfLong {
+    private final LongToIntFunction source;
+    private final RollingHash hash;
+    private final SplitPolicy policy;
+    private final int window;
+    private long pos, end; // Start of the next window and one past the last start
+    private long h;
+    private boolean primed; // True once h holds the hash of the window before pos
+
+    /**
+     * Create a spliterator over a range of a source.
+     * @param source returns the value at an index.
+     * @param fromIndex the index of the first value.
+     * @param toIndex one past the index of the last value.
+     * @param hash the hash to compute.
+     * @param policy how to split the range for parallel processing.
+     * @throws NullPointerException if passed a null argument.
+     * @throws IndexOutOfBoundsException if {@code toIndex} is less than {@code fromIndex}.
+     */
+    public RollingHashSpliterator(LongToIntFunction source, long fromIndex, long toIndex,
+                                  RollingHash hash, SplitPolicy policy) {
+        if (toIndex < fromIndex || fromIndex < 0) {
+            throw new IndexOutOfBoundsException("invalid range");
+        }
+        this.source = Objects.requireNonNull(source);
+        this.hash = Objects.requireNonNull(hash);
+        this.window = hash.window();
+        this.pos = fromIndex;
+        this.end = Math.max(fromIndex, toIndex - window + 1);
+        this.policy = policy.resolve(end - pos);
+    }
+
+    private RollingHashSpliterator(RollingHashSpliterator parent, long end) {
+        this.source = parent.source;
+        this.hash = parent.hash;
+        this.window = parent.window;
+        this.policy = parent.policy;
+        this.pos = parent.pos;
+        this.end = end;
+        this.h = parent.h;
+        this.primed = parent.primed;
+    }
+
+    /** @return the hash of the window starting at pos. */
+    private long next() {
+        if (primed) {
+            h = hash.roll(h, source.applyAsInt(pos - 1), source.applyAsInt(pos + window - 1));
+        } else {
+            h = 0;
+            for (int i = 0; i < window; i++) {
+                h = hash.push(h, source.applyAsInt(pos + i));
+            }
+            primed = true;
+        }
+        pos++;
+        return h;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        if (pos >= end) {
+            return false;
+        }
+        action.accept(next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+        while (pos < end) {
+            action.accept(next());
+        }
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+        long k = policy.splitSize(end - pos);
+        if (k == 0) {
+            return null;
+        }
+        var prefix = new RollingHashSpliterator(this, pos + k);
+        pos += k;
+        primed = false;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() { return end - pos; }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+}
@@ -0,0 +1,196 @@
+package org.raevnos.util.iterator;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Controls how the spliterators in this package divide their work
+ * for parallel streams. Instances are immutable.
+ *
+ * A policy has three settings:
+ * <ul>
+ * <li>A minimum leaf size. Ranges holding this many elements or
+ * fewer are never split.</li>
+ * <li>A target number of leaves per thread of the common {@code
+ * ForkJoinPool}. When the size of a source is known, its ranges
+ * are not split below {@code size / (parallelism * leavesPerThread)}
+ * elements either. Zero means no target.</li>
+ * <li>A shape. {@code BALANCED} splits ranges in half. {@code
+ * FRONT_LOADED} splits single leaves off the front, which suits
+ * short-circuiting operations that usually finish early.</li>
+ * </ul>
+ *
+ * Sources of unknown size, like files, are split by reading batches
+ * into arrays. Batches start at the leaf size or 1024 elements,
+ * whichever is larger. They grow arithmetically in {@code BALANCED}
+ * mode and stay the same size in {@code FRONT_LOADED} mode.
+ */
+public final class SplitPolicy {
+    /** How a range is divided. */
+    public enum Shape {
+        /** Split ranges in half. */
+        BALANCED,
+        /** Split one leaf at a time off the front of ranges. */
+        FRONT_LOADED
+    }
+
+    /** Amount to increase batch sizes by for sources of unknown size. */
+    private static final int BATCH_UNIT = 1 << 10;
+    /** Largest batch to read at once. */
+    private static final int MAX_BATCH = 1 << 25;
+
+    /** Splits balanced ranges down to single elements. */
+    public static final SplitPolicy DEFAULT = new SplitPolicy(1, 0, Shape.BALANCED);
+
+    private final long minLeafSize;
+    private final int leavesPerThread;
+    private final Shape shape;
+
+    private SplitPolicy(long minLeafSize, int leavesPerThread, Shape shape) {
+        if (minLeafSize < 1) {
+            throw new IllegalArgumentException("minimum leaf size must be at least 1");
+        }
+        if (leavesPerThread < 0) {
+            throw new IllegalArgumentException("leaves per thread must not be negative");
+        }
+        this.minLeafSize = minLeafSize;
+        this.leavesPerThread = leavesPerThread;
+        this.shape = Objects.requireNonNull(shape);
+    }
+
+    /**
+     * Make a balanced policy with no target leaf count.
+     * @param minLeafSize ranges of this many elements or fewer are not split.
+     * @return a new policy.
+     * @throws IllegalArgumentException if the size is less than 1.
+     */
+    public static SplitPolicy of(long minLeafSize) {
+        return new SplitPolicy(minLeafSize, 0, Shape.BALANCED);
+    }
+
+    /**
+     * Make a policy.
+     * @param minLeafSize ranges of this many elements or fewer are not split.
+     * @param leavesPerThread the target number of leaves for each
+     * thread of the common pool, or 0 for no target.
+     * @param shape how to divide ranges.
+     * @return a new policy.
+     * @throws IllegalArgumentException if the size is less than 1 or
+     * the leaf count is negative.
+     * @throws NullPointerException if passed a null shape.
+     */
+    public static SplitPolicy of(long minLeafSize, int leavesPerThread, Shape shape) {
+        return new SplitPolicy(minLeafSize, leavesPerThread, shape);
+    }
+
+    /** @return the minimum leaf size. */
+    public long minLeafSize() { return minLeafSize; }
+
+    /** @return the target number of leaves per thread, or 0 for none. */
+    public int leavesPerThread() { return leavesPerThread; }
+
+    /** @return the shape of splits. */
+    public Shape shape() { return shape; }
+
+    /**
+     * @param minLeafSize the new minimum leaf size.
+     * @return a copy of this policy with a different minimum leaf size.
+     * @throws IllegalArgumentException if the size is less than 1.
+     */
+    public SplitPolicy withMinLeafSize(long minLeafSize) {
+        return new SplitPolicy(minLeafSize, leavesPerThread, shape);
+    }
+
+    /**
+     * @param leavesPerThread the new target leaf count.
+     * @return a copy of this policy with a different target leaf count.
+     * @throws IllegalArgumentException if the count is negative.
+     */
+    public SplitPolicy withLeavesPerThread(int leavesPerThread) {
+        return new SplitPolicy(minLeafSize, leavesPerThread, shape);
+    }
+
+    /**
+     * @param shape the new shape.
+     * @return a copy of this policy with a different shape.
+     * @throws NullPointerException if passed a null shape.
+     */
+    public SplitPolicy withShape(Shape shape) {
+        return new SplitPolicy(minLeafSize, leavesPerThread, shape);
+    }
+
+    /**
+     * Fix the leaf size for a source, taking the target leaf count
+     * into account. Spliterators resolve their policy once, when
+     * created over a whole source, and pass the result on to the
+     * spliterators they split off.
+     * @param totalSize the size of the source, or {@code
+     * Long.MAX_VALUE} if unknown.
+     * @return a policy with no target leaf count.
+     */
+    public SplitPolicy resolve(long totalSize) {
+        if (leavesPerThread == 0) {
+            return this;
+        }
+        long leaf = minLeafSize;
+        if (totalSize != Long.MAX_VALUE) {
+            long leaves = (long)ForkJoinPool.getCommonPoolParallelism() * leavesPerThread;
+            leaf = Math.max(leaf, totalSize / leaves);
+        }
+        return new SplitPolicy(leaf, 0, shape);
+    }
+
+    /**
+     * Work out how many elements to split off the front of a range.
+     * @param remaining the number of elements in the range.
+     * @return the number of elements to split off, or 0 to not split.
+     * It is always less than {@code remaining}.
+     */
+    public long splitSize(long remaining) {
+        if (remaining <= minLeafSize) {
+            return 0;
+        } else if (shape == Shape.FRONT_LOADED) {
+            return minLeafSize;
+        } else {
+            return remaining / 2;
+        }
+    }
+
+    /**
+     * Work out how many elements to read for the next batch split off
+     * a source of unknown size.
+     * @param previous the size of the previous batch, or 0 for the first.
+     * @return the size of the next batch.
+     */
+    public int batchSize(int previous) {
+        int leaf = (int)Math.min(Math.max(minLeafSize, BATCH_UNIT), MAX_BATCH);
+        if (shape == Shape.FRONT_LOADED || previous == 0) {
+            return leaf;
+        } else {
+            return (int)Math.min((long)previous + leaf, MAX_BATCH);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof SplitPolicy) {
+            SplitPolicy other = (SplitPolicy)o;
+            return minLeafSize == other.minLeafSize
+                && leavesPerThread == other.leavesPerThread
+                && shape == other.shape;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minLeafSize, leavesPerThread, shape);
+    }
+
+    @Override
+    public String toString() {
+        return "SplitPolicy[minLeafSize=" + minLeafSize + ", leavesPerThread="
+            + leavesPerThread + ", shape=" + shape + "]";
+    }
+}
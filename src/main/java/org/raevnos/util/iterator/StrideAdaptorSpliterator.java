@@ -1,5 +1,6 @@
 package org.raevnos.util.iterator;
 
+import java.util.Comparator;
 import java.util.Objects;
 import java.util.Spliterator;
 import java.util.function.Consumer;
@@ -9,10 +10,17 @@ import java.util.function.LongConsumer;
 
 /**
  * Adapt an existing spliterator into one that returns every nth element.
+ *
+ * If the source spliterator is {@code SUBSIZED}, the adaptor splits
+ * where the source does, as allowed by a {@code SplitPolicy}, and
+ * works out how many elements the second half has to skip to stay
+ * in step. Otherwise it doesn't split.
  */
 public class StrideAdaptorSpliterator<T> implements Spliterator<T> {
     private final Spliterator<T> source;
     private final int strideLen;
+    private final SplitPolicy policy;
+    private int skip; // Elements to discard before taking the next one
 
     /**
      * Construct a new adaptor.
@@ -22,39 +30,59 @@ public class StrideAdaptorSpliterator<T> implements Spliterator<T> {
      * @throws IndexOutOfBoundsException if {@code n <= 0}
      */
     public StrideAdaptorSpliterator(Spliterator<T> s, int n) {
+        this(s, n, SplitPolicy.DEFAULT);
+    }
+
+    /**
+     * Construct a new adaptor with a split policy.
+     * @param s the spliterator to adapt
+     * @param n the size of the strde to take.
+     * @param policy how to split for parallel processing.
+     * @throws NullPointerException if passed a null spliterator or policy
+     * @throws IndexOutOfBoundsException if {@code n <= 0}
+     */
+    public StrideAdaptorSpliterator(Spliterator<T> s, int n, SplitPolicy policy) {
         Objects.requireNonNull(s);
         if (n <= 0) {
             throw new IndexOutOfBoundsException("stride must be greater than 0");
         }
         this.source = s;
         this.strideLen = n;
+        this.skip = 0;
+        this.policy = policy.resolve(estimateSize());
+    }
+
+    private StrideAdaptorSpliterator(Spliterator<T> s, int n, SplitPolicy policy, int skip) {
+        this.source = s;
+        this.strideLen = n;
+        this.policy = policy;
+        this.skip = skip;
     }
 
     @Override
     public int characteristics() {
-        return source.characteristics() & (DISTINCT | IMMUTABLE | NONNULL | ORDERED | SORTED);
+        return strideCharacteristics(source);
     }
 
     @Override
-    public long estimateSize() {
-        long size = source.estimateSize();
-        if (size == Long.MAX_VALUE) {
-            return size;
-        } else {
-            return size / strideLen;
-        }
+    public Comparator<? super T> getComparator() {
+        return source.getComparator();
     }
 
-    static private <T> void discard(T unused) {}
+    @Override
+    public long estimateSize() {
+        return strideSize(source.estimateSize(), skip, strideLen);
+    }
 
     @Override
     public boolean tryAdvance(Consumer<? super T> action) {
-        if (source.tryAdvance(action)) {
-            for (int i = 1; i < strideLen; i++) {
-                if (!source.tryAdvance(StrideAdaptorSpliterator::discard)) {
-                    break;
-                }
+        for (; skip > 0; skip--) {
+            if (!source.tryAdvance(StrideAdaptorSpliterator::discard)) {
+                return false;
             }
+        }
+        if (source.tryAdvance(action)) {
+            skip = strideLen - 1;
             return true;
         } else {
             return false;
@@ -63,13 +91,60 @@ public class StrideAdaptorSpliterator<T> implements Spliterator<T> {
 
     @Override
     public Spliterator<T> trySplit() {
-        return null;
+        if ((source.characteristics() & SUBSIZED) == 0
+            || policy.splitSize(estimateSize()) == 0) {
+            return null;
+        }
+        Spliterator<T> prefix = source.trySplit();
+        if (prefix == null) {
+            return null;
+        }
+        int prefixSkip = skip;
+        skip = skipAfter(prefix.getExactSizeIfKnown(), skip, strideLen);
+        return new StrideAdaptorSpliterator<T>(prefix, strideLen, policy, prefixSkip);
+    }
+
+    static private <T> void discard(T unused) {}
+
+    /** @return the characteristics of a stride over a source. */
+    static private int strideCharacteristics(Spliterator<?> source) {
+        int flags = source.characteristics();
+        int result = flags & (DISTINCT | IMMUTABLE | NONNULL | ORDERED | SORTED);
+        if ((flags & SUBSIZED) != 0) {
+            result |= SIZED | SUBSIZED;
+        }
+        return result;
+    }
+
+    /** @return the number of elements a stride over a source takes. */
+    static private long strideSize(long size, int skip, int strideLen) {
+        if (size == Long.MAX_VALUE) {
+            return size;
+        } else if (size <= skip) {
+            return 0;
+        } else {
+            return (size - skip + strideLen - 1) / strideLen;
+        }
+    }
+
+    /**
+     * @return the number of elements to skip at the start of the
+     * rest of a source after a prefix of the given size is split off.
+     */
+    static private int skipAfter(long prefixSize, int skip, int strideLen) {
+        if (prefixSize <= skip) {
+            return (int)(skip - prefixSize);
+        } else {
+            return (int)Math.floorMod(skip - prefixSize, (long)strideLen);
+        }
     }
 
     static public class OfDouble implements Spliterator.OfDouble {
         static private final DoubleConsumer discard = x -> {};
         private final Spliterator.OfDouble source;
         private final int strideLen;
+        private final SplitPolicy policy;
+        private int skip; // Elements to discard before taking the next one
 
         /**
          * Construct a new adaptor.
@@ -79,38 +154,59 @@ public class StrideAdaptorSpliterator<T> implements Spliterator<T> {
          * @throws IndexOutOfBoundsException if {@code n <= 0}
          */
         public OfDouble(Spliterator.OfDouble s, int n) {
+            this(s, n, SplitPolicy.DEFAULT);
+        }
+
+        /**
+         * Construct a new adaptor with a split policy.
+         * @param s the spliterator to adapt
+         * @param n the size of the strde to take.
+         * @param policy how to split for parallel processing.
+         * @throws NullPointerException if passed a null spliterator or policy
+         * @throws IndexOutOfBoundsException if {@code n <= 0}
+         */
+        public OfDouble(Spliterator.OfDouble s, int n, SplitPolicy policy) {
             Objects.requireNonNull(s);
             if (n <= 0) {
                 throw new IndexOutOfBoundsException("stride must be greater than 0");
             }
             this.source = s;
             this.strideLen = n;
+            this.skip = 0;
+            this.policy = policy.resolve(estimateSize());
+        }
+
+        private OfDouble(Spliterator.OfDouble s, int n, SplitPolicy policy, int skip) {
+            this.source = s;
+            this.strideLen = n;
+            this.policy = policy;
+            this.skip = skip;
         }
 
         @Override
         public int characteristics() {
-            return source.characteristics()
-                & (DISTINCT | IMMUTABLE | NONNULL | ORDERED | SORTED);
+            return strideCharacteristics(source);
+        }
+
+        @Override
+        public Comparator<? super Double> getComparator() {
+            return source.getComparator();
         }
 
         @Override
         public long estimateSize() {
-            long size = source.estimateSize();
-            if (size == Long.MAX_VALUE) {
-                return size;
-            } else {
-                return size / strideLen;
-            }
+            return strideSize(source.estimateSize(), skip, strideLen);
         }
 
         @Override
         public boolean tryAdvance(DoubleConsumer action) {
-            if (source.tryAdvance(action)) {
-                for (int i = 1; i < strideLen; i++) {
-                    if (!source.tryAdvance(discard)) {
-                        break;
-                    }
+            for (; skip > 0; skip--) {
+                if (!source.tryAdvance(discard)) {
+                    return false;
                 }
+            }
+            if (source.tryAdvance(action)) {
+                skip = strideLen - 1;
                 return true;
             } else {
                 return false;
@@ -119,7 +215,17 @@ public class StrideAdaptorSpliterator<T> implements Spliterator<T> {
 
         @Override
         public Spliterator.OfDouble trySplit() {
-            return null;
+            if ((source.characteristics() & SUBSIZED) == 0
+                || policy.splitSize(estimateSize()) == 0) {
+                return null;
+            }
+            Spliterator.OfDouble prefix = source.trySplit();
+            if (prefix == null) {
+                return null;
+            }
+            int prefixSkip = skip;
+            skip = skipAfter(prefix.getExactSizeIfKnown(), skip, strideLen);
+            return new StrideAdaptorSpliterator.OfDouble(prefix, strideLen, policy, prefixSkip);
         }
     }
 
@@ -127,6 +233,8 @@ public class StrideAdaptorSpliterator<T> implements Spliterator<T> {
         static private final IntConsumer discard = x -> {};
         private final Spliterator.OfInt source;
         private final int strideLen;
+        private final SplitPolicy policy;
+        private int skip; // Elements to discard before taking the next one
 
         /**
          * Construct a new adaptor.
@@ -136,38 +244,59 @@ public class StrideAdaptorSpliterator<T> implements Spliterator<T> {
          * @throws IndexOutOfBoundsException if {@code n <= 0}
          */
         public OfInt(Spliterator.OfInt s, int n) {
+            this(s, n, SplitPolicy.DEFAULT);
+        }
+
+        /**
+         * Construct a new adaptor with a split policy.
+         * @param s the spliterator to adapt
+         * @param n the size of the strde to take.
+         * @param policy how to split for parallel processing.
+         * @throws NullPointerException if passed a null spliterator or policy
+         * @throws IndexOutOfBoundsException if {@code n <= 0}
+         */
+        public OfInt(Spliterator.OfInt s, int n, SplitPolicy policy) {
             Objects.requireNonNull(s);
             if (n <= 0) {
                 throw new IndexOutOfBoundsException("stride must be greater than 0");
             }
             this.source = s;
             this.strideLen = n;
+            this.skip = 0;
+            this.policy = policy.resolve(estimateSize());
+        }
+
+        private OfInt(Spliterator.OfInt s, int n, SplitPolicy policy, int skip) {
+            this.source = s;
+            this.strideLen = n;
+            this.policy = policy;
+            this.skip = skip;
         }
 
         @Override
         public int characteristics() {
-            return source.characteristics()
-                & (DISTINCT | IMMUTABLE | NONNULL | ORDERED | SORTED);
+            return strideCharacteristics(source);
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return source.getComparator();
         }
 
         @Override
         public long estimateSize() {
-            long size = source.estimateSize();
-            if (size == Long.MAX_VALUE) {
-                return size;
-            } else {
-                return size / strideLen;
-            }
+            return strideSize(source.estimateSize(), skip, strideLen);
         }
 
         @Override
         public boolean tryAdvance(IntConsumer action) {
-            if (source.tryAdvance(action)) {
-                for (int i = 1; i < strideLen; i++) {
-                    if (!source.tryAdvance(discard)) {
-                        break;
-                    }
+            for (; skip > 0; skip--) {
+                if (!source.tryAdvance(discard)) {
+                    return false;
                 }
+            }
+            if (source.tryAdvance(action)) {
+                skip = strideLen - 1;
                 return true;
             } else {
                 return false;
@@ -176,7 +305,17 @@ public class StrideAdaptorSpliterator<T> implements Spliterator<T> {
 
         @Override
         public Spliterator.OfInt trySplit() {
-            return null;
+            if ((source.characteristics() & SUBSIZED) == 0
+                || policy.splitSize(estimateSize()) == 0) {
+                return null;
+            }
+            Spliterator.OfInt prefix = source.trySplit();
+            if (prefix == null) {
+                return null;
+            }
+            int prefixSkip = skip;
+            skip = skipAfter(prefix.getExactSizeIfKnown(), skip, strideLen);
+            return new StrideAdaptorSpliterator.OfInt(prefix, strideLen, policy, prefixSkip);
         }
     }
 
@@ -184,6 +323,8 @@ public class StrideAdaptorSpliterator<T> implements Spliterator<T> {
         static private final LongConsumer discard = x -> {};
         private final Spliterator.OfLong source;
         private final int strideLen;
+        private final SplitPolicy policy;
+        private int skip; // Elements to discard before taking the next one
 
         /**
          * Construct a new adaptor.
@@ -193,38 +334,59 @@ public class StrideAdaptorSpliterator<T> implements Spliterator<T> {
          * @throws IndexOutOfBoundsException if {@code n <= 0}
          */
         public OfLong(Spliterator.OfLong s, int n) {
+            this(s, n, SplitPolicy.DEFAULT);
+        }
+
+        /**
+         * Construct a new adaptor with a split policy.
+         * @param s the spliterator to adapt
+         * @param n the size of the strde to take.
+         * @param policy how to split for parallel processing.
+         * @throws NullPointerException if passed a null spliterator or policy
+         * @throws IndexOutOfBoundsException if {@code n <= 0}
+         */
+        public OfLong(Spliterator.OfLong s, int n, SplitPolicy policy) {
             Objects.requireNonNull(s);
             if (n <= 0) {
                 throw new IndexOutOfBoundsException("stride must be greater than 0");
             }
             this.source = s;
             this.strideLen = n;
+            this.skip = 0;
+            this.policy = policy.resolve(estimateSize());
+        }
+
+        private OfLong(Spliterator.OfLong s, int n, SplitPolicy policy, int skip) {
+            this.source = s;
+            this.strideLen = n;
+            this.policy = policy;
+            this.skip = skip;
         }
 
         @Override
         public int characteristics() {
-            return source.characteristics()
-                & (DISTINCT | IMMUTABLE | NONNULL | ORDERED | SORTED);
+            return strideCharacteristics(source);
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            return source.getComparator();
         }
 
         @Override
         public long estimateSize() {
-            long size = source.estimateSize();
-            if (size == Long.MAX_VALUE) {
-                return size;
-            } else {
-                return size / strideLen;
-            }
+            return strideSize(source.estimateSize(), skip, strideLen);
         }
 
         @Override
         public boolean tryAdvance(LongConsumer action) {
-            if (source.tryAdvance(action)) {
-                for (int i = 1; i < strideLen; i++) {
-                    if (!source.tryAdvance(discard)) {
-                        break;
-                    }
+            for (; skip > 0; skip--) {
+                if (!source.tryAdvance(discard)) {
+                    return false;
                 }
+            }
+            if (source.tryAdvance(action)) {
+                skip = strideLen - 1;
                 return true;
             } else {
                 return false;
@@ -233,7 +395,17 @@ public class StrideAdaptorSpliterator<T> implements Spliterator<T> {
 
         @Override
         public Spliterator.OfLong trySplit() {
-            return null;
+            if ((source.characteristics() & SUBSIZED) == 0
+                || policy.splitSize(estimateSize()) == 0) {
+                return null;
+            }
+            Spliterator.OfLong prefix = source.trySplit();
+            if (prefix == null) {
+                return null;
+            }
+            int prefixSkip = skip;
+            skip = skipAfter(prefix.getExactSizeIfKnown(), skip, strideLen);
+            return new StrideAdaptorSpliterator.OfLong(prefix, strideLen, policy, prefixSkip);
         }
     }
 }
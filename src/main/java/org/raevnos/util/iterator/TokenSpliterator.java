@@ -0,0 +1,101 @@
+package org.raevnos.util.iterator;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.raevnos.util.CharClass;
+import org.raevnos.util.CharSlice;
+
+/**
+ * A spliterator over the tokens of a {@code CharSequence} separated
+ * by runs of delimiter characters, returned as {@code CharSlice}
+ * views that share the sequence's characters. Empty tokens are
+ * skipped.
+ *
+ * Split points are chosen by a {@code SplitPolicy}, then moved
+ * forward to the next delimiter.
+ */
+public class TokenSpliterator implements Spliterator<CharSequence> {
+    private final CharSequence source;
+    private final CharClass delimiters;
+    private int i;
+    private final int endIdx;
+    private final SplitPolicy policy;
+
+    /**
+     * Make a spliterator over the tokens of a sequence.
+     * @param source The sequence to split into tokens.
+     * @param delimiters The characters that separate tokens.
+     * @throws NullPointerException if given a null argument
+     */
+    public TokenSpliterator(CharSequence source, CharClass delimiters) {
+        this(source, delimiters, 0, Objects.requireNonNull(source).length(),
+             CharSpliterator.DEFAULT_POLICY);
+    }
+
+    /**
+     * Make a spliterator over the tokens of a range of a sequence.
+     * @param source The sequence to split into tokens.
+     * @param delimiters The characters that separate tokens.
+     * @param begIdxInclusive The starting index of the range, which
+     * should not be in the middle of a token.
+     * @param endIdxExclusive One past the ending index of the range.
+     * @param policy How to split the range for parallel processing.
+     * @throws NullPointerException if given a null argument.
+     * @throws IndexOutOfBoundsException if the range is invalid for the given source.
+     */
+    public TokenSpliterator(CharSequence source, CharClass delimiters, int begIdxInclusive,
+                            int endIdxExclusive, SplitPolicy policy) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(delimiters);
+        Objects.checkFromToIndex(begIdxInclusive, endIdxExclusive, source.length());
+        this.source = source;
+        this.delimiters = delimiters;
+        this.i = begIdxInclusive;
+        this.endIdx = endIdxExclusive;
+        this.policy = policy.resolve(endIdxExclusive - begIdxInclusive);
+    }
+
+    @Override public int characteristics() {
+        int flags = NONNULL | ORDERED;
+        if (source instanceof String) {
+            flags |= IMMUTABLE;
+        }
+        return flags;
+    }
+
+    @Override public long estimateSize() {
+        return endIdx - i;
+    }
+
+    @Override public boolean tryAdvance(Consumer<? super CharSequence> action) {
+        while (i < endIdx && delimiters.contains(source.charAt(i))) {
+            i++;
+        }
+        if (i >= endIdx) {
+            return false;
+        }
+        int j = delimiters.indexIn(source, i, endIdx);
+        if (j < 0) {
+            j = endIdx;
+        }
+        action.accept(new CharSlice(source, i, j));
+        i = j;
+        return true;
+    }
+
+    @Override public Spliterator<CharSequence> trySplit() {
+        int n = (int)policy.splitSize(endIdx - i);
+        if (n == 0) {
+            return null;
+        }
+        int begIdx = i;
+        int splitIdx = delimiters.indexIn(source, begIdx + n, endIdx);
+        if (splitIdx < 0) {
+            return null;
+        }
+        i = splitIdx;
+        return new TokenSpliterator(source, delimiters, begIdx, splitIdx, policy);
+    }
+}
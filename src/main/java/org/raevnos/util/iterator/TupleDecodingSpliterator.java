@@ -0,0 +1,160 @@
+package org.raevnos.util.iterator;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import org.raevnos.util.Tuple;
+import org.raevnos.util.TupleCodec;
+
+/**
+ * A {@code Spliterator} that decodes {@code Tuple}s from a buffer or
+ * a channel. Use {@code TupleCodec.stream()} to create streams using it.
+ * Splits decode a batch of tuples into an array, sized by a {@code SplitPolicy}.
+ */
+public class TupleDecodingSpliterator<A extends Object & Comparable<? super A>,
+                                      B extends Object & Comparable<? super B>>
+    implements Spliterator<Tuple<A, B>> {
+    private final TupleCodec<A, B> codec;
+    private final ReadableByteChannel input;
+    private ByteBuffer buf;
+    private boolean eof;
+    private final SplitPolicy policy;
+    private int batch;
+
+    /**
+     * Decode tuples from the remaining contents of a buffer.
+     * @param codec the codec to decode with.
+     * @param buf the buffer holding encoded tuples.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public TupleDecodingSpliterator(TupleCodec<A, B> codec, ByteBuffer buf) {
+        this(codec, buf, SplitPolicy.DEFAULT);
+    }
+
+    /**
+     * Decode tuples from the remaining contents of a buffer.
+     * @param codec the codec to decode with.
+     * @param buf the buffer holding encoded tuples.
+     * @param policy how to batch up tuples for parallel processing.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public TupleDecodingSpliterator(TupleCodec<A, B> codec, ByteBuffer buf,
+                                    SplitPolicy policy) {
+        this.codec = Objects.requireNonNull(codec);
+        this.buf = Objects.requireNonNull(buf);
+        this.input = null;
+        this.eof = true;
+        this.policy = policy.resolve(Long.MAX_VALUE);
+    }
+
+    /**
+     * Decode tuples read from a channel.
+     * @param codec the codec to decode with.
+     * @param input the channel to read encoded tuples from.
+     * @param bufferSize the initial size of the read buffer.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public TupleDecodingSpliterator(TupleCodec<A, B> codec, ReadableByteChannel input,
+                                    int bufferSize) {
+        this(codec, input, bufferSize, SplitPolicy.DEFAULT);
+    }
+
+    /**
+     * Decode tuples read from a channel.
+     * @param codec the codec to decode with.
+     * @param input the channel to read encoded tuples from.
+     * @param bufferSize the initial size of the read buffer.
+     * @param policy how to batch up tuples for parallel processing.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public TupleDecodingSpliterator(TupleCodec<A, B> codec, ReadableByteChannel input,
+                                    int bufferSize, SplitPolicy policy) {
+        this.codec = Objects.requireNonNull(codec);
+        this.input = Objects.requireNonNull(input);
+        this.buf = ByteBuffer.allocate(bufferSize);
+        this.buf.flip();
+        this.eof = false;
+        this.policy = policy.resolve(Long.MAX_VALUE);
+    }
+
+    /**
+     * Read more data from the channel, growing the buffer if a
+     * single tuple doesn't fit in it.
+     * @return false if no more data can be read.
+     */
+    private boolean refill() {
+        if (eof) {
+            return false;
+        }
+        try {
+            buf.compact();
+            if (!buf.hasRemaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+                buf.flip();
+                bigger.put(buf);
+                buf = bigger;
+            }
+            int n = input.read(buf);
+            buf.flip();
+            if (n < 0) {
+                eof = true;
+                return false;
+            } else {
+                return true;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int characteristics() { return ORDERED | NONNULL | IMMUTABLE; }
+
+    @Override
+    public long estimateSize() { return Long.MAX_VALUE; }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Tuple<A, B>> f) {
+        while (true) {
+            if (!buf.hasRemaining() && !refill()) {
+                return false;
+            }
+            int start = buf.position();
+            Tuple<A, B> t;
+            try {
+                t = codec.decode(buf);
+            } catch (BufferUnderflowException e) {
+                buf.position(start);
+                if (!refill()) {
+                    throw new UncheckedIOException(new EOFException("truncated tuple"));
+                }
+                continue;
+            }
+            f.accept(t);
+            return true;
+        }
+    }
+
+    @Override
+    public Spliterator<Tuple<A, B>> trySplit() {
+        // Decode a batch of tuples into an array and split that off.
+        int size = policy.batchSize(batch);
+        @SuppressWarnings("unchecked")
+            Tuple<A, B>[] tuples = (Tuple<A, B>[])new Tuple<?, ?>[size];
+        int[] n = new int[1];
+        while (n[0] < size && tryAdvance(t -> tuples[n[0]++] = t)) {}
+        if (n[0] == 0) {
+            return null;
+        }
+        batch = size;
+        return Spliterators.spliterator(tuples, 0, n[0], ORDERED | NONNULL | IMMUTABLE);
+    }
+}
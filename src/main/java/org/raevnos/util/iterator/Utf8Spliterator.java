@@ -0,0 +1,200 @@
+package org.raevnos.util.iterator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+import org.raevnos.util.MappedFile;
+
+/**
+ * A {@code Spliterator.OfInt} of the code points of a memory mapped
+ * UTF-8 file. Use {@code Readers.codePoints(Path)} to create streams
+ * using it.
+ *
+ * Bytes are decoded straight from views of the mapping, eight at a
+ * time while they are ASCII. Malformed input is replaced the way the
+ * JDK's UTF-8 decoder does it: each maximal prefix of a valid sequence,
+ * a single byte that can't start one, or an encoded surrogate becomes
+ * U+FFFD.
+ *
+ * Ranges split at byte offsets according to a {@code SplitPolicy},
+ * moved forward past continuation bytes so that each split starts
+ * where a sequence does.
+ */
+public class Utf8Spliterator implements Spliterator.OfInt {
+    /** The default policy: ranges of 64 KiB or less aren't split. */
+    public static final SplitPolicy DEFAULT_POLICY = SplitPolicy.of(1 << 16);
+
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final long ASCII_MASK = 0x8080808080808080L;
+
+    private final MappedFile file;
+    private final SplitPolicy policy;
+    private long pos, end;
+    private ByteBuffer chunk; // A view of the mapping starting at chunkStart
+    private long chunkStart;
+
+    /**
+     * Decode a whole file with the default policy.
+     * @param file the file to decode.
+     * @throws NullPointerException if passed a null file.
+     */
+    public Utf8Spliterator(MappedFile file) {
+        this(file, DEFAULT_POLICY);
+    }
+
+    /**
+     * Decode a whole file.
+     * @param file the file to decode.
+     * @param policy how to split the file for parallel processing, in bytes.
+     * @throws NullPointerException if passed a null argument.
+     */
+    public Utf8Spliterator(MappedFile file, SplitPolicy policy) {
+        this.file = Objects.requireNonNull(file);
+        this.end = file.size();
+        this.policy = policy.resolve(end);
+    }
+
+    private Utf8Spliterator(Utf8Spliterator parent, long end) {
+        this.file = parent.file;
+        this.policy = parent.policy;
+        this.pos = parent.pos;
+        this.end = end;
+    }
+
+    /** @return true if a byte can follow a lead byte in a sequence. */
+    private static boolean isContinuation(int b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    /**
+     * Decode the sequence starting at an index of a buffer.
+     * @param b the buffer.
+     * @param i the index of the first byte.
+     * @param limit the index past the last byte that can be used.
+     * @return the code point in the low 32 bits and the number of
+     * bytes used in the high bits.
+     */
+    private static long decode(ByteBuffer b, int i, int limit) {
+        int b0 = b.get(i) & 0xFF;
+        if (b0 < 0x80) {
+            return (1L << 32) | b0;
+        }
+        int len, cp, lo = 0x80, hi = 0xBF; // Range of the second byte
+        if (b0 >= 0xC2 && b0 < 0xE0) {
+            len = 2;
+            cp = b0 & 0x1F;
+        } else if (b0 >= 0xE0 && b0 < 0xF0) {
+            len = 3;
+            cp = b0 & 0x0F;
+            if (b0 == 0xE0) {
+                lo = 0xA0;
+            }
+        } else if (b0 >= 0xF0 && b0 < 0xF5) {
+            len = 4;
+            cp = b0 & 0x07;
+            if (b0 == 0xF0) {
+                lo = 0x90;
+            } else if (b0 == 0xF4) {
+                hi = 0x8F;
+            }
+        } else {
+            return (1L << 32) | 0xFFFD;
+        }
+        for (int k = 1; k < len; k++) {
+            int bk = i + k < limit ? b.get(i + k) & 0xFF : -1;
+            if (k == 1 ? bk < lo || bk > hi : !isContinuation(bk)) {
+                return ((long)k << 32) | 0xFFFD;
+            }
+            cp = (cp << 6) | (bk & 0x3F);
+        }
+        if (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE) {
+            // Like the JDK, replace an encoded surrogate as a whole.
+            return ((long)len << 32) | 0xFFFD;
+        }
+        return ((long)len << 32) | cp;
+    }
+
+    /**
+     * Make sure the chunk holds pos and, unless the range ends sooner,
+     * the rest of any sequence starting there.
+     */
+    private void ensureChunk() {
+        long chunkEnd = chunk == null ? 0 : chunkStart + chunk.limit();
+        if (chunk == null || pos < chunkStart || pos >= chunkEnd || (chunkEnd < end && pos + 4 > chunkEnd)) {
+            chunkStart = pos;
+            chunk = file.slice(pos, (int)Math.min(CHUNK_SIZE, end - pos)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer f) {
+        if (pos >= end) {
+            return false;
+        }
+        ensureChunk();
+        long d = decode(chunk, (int)(pos - chunkStart), chunk.limit());
+        pos += d >>> 32;
+        f.accept((int)d);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer f) {
+        while (pos < end) {
+            ensureChunk();
+            ByteBuffer b = chunk;
+            int n = b.limit();
+            // Sequences starting before safe are complete in the chunk.
+            int safe = chunkStart + n == end ? n : n - 3;
+            int i = (int)(pos - chunkStart);
+            while (i < safe) {
+                if (i + 8 <= n) {
+                    long v = b.getLong(i);
+                    if ((v & ASCII_MASK) == 0) {
+                        for (int k = 0; k < 64; k += 8) {
+                            f.accept((int)(v >>> k) & 0x7F);
+                        }
+                        i += 8;
+                        continue;
+                    }
+                }
+                long d = decode(b, i, n);
+                f.accept((int)d);
+                i += (int)(d >>> 32);
+            }
+            pos = chunkStart + i;
+        }
+    }
+
+    @Override
+    public Spliterator.OfInt trySplit() {
+        long k = policy.splitSize(end - pos);
+        if (k == 0) {
+            return null;
+        }
+        long mid = pos + k;
+        while (mid < end && isContinuation(file.get(mid))) {
+            mid++;
+        }
+        if (mid >= end) {
+            return null;
+        }
+        var prefix = new Utf8Spliterator(this, mid);
+        pos = mid;
+        return prefix;
+    }
+
+    /** @return the number of bytes left, which is at least the number of code points. */
+    @Override
+    public long estimateSize() {
+        return end - pos;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
@@ -9,6 +9,7 @@ import java.util.stream.StreamSupport;
 
 import org.raevnos.util.iterator.AllCombosSpliterator;
 import org.raevnos.util.iterator.ComboSpliterator;
+import org.raevnos.util.iterator.SplitPolicy;
 
 /**
  * Create streams of combinations of elements of collections or
@@ -126,4 +127,89 @@ public class ComboStream {
             StreamSupport.stream(new AllCombosSpliterator<T>(elems),
                                  true);
     }
+
+    /**
+     * Return a stream of combinations of a list that splits for
+     * parallel processing according to a policy.
+     * @param elems The elements to get combinations of
+     * @param r the number of elements in each combination.
+     * @param policy how to split the stream.
+     * @return a stream of r-sized combinations of elements.
+     */
+    public static <T> Stream<List<T>> of(List<T> elems, int r, SplitPolicy policy) {
+        return
+            StreamSupport.stream(new ComboSpliterator<T>(elems, r, policy),
+                                 false);
+    }
+
+    /**
+     * Return a stream of combinations of a collection that splits for
+     * parallel processing according to a policy.
+     * @param elems The elements to get combinations of
+     * @param r the number of elements in each combination.
+     * @param policy how to split the stream.
+     * @return a stream of r-sized combinations of elements.
+     */
+    public static <T> Stream<List<T>> of(Collection<T> elems, int r, SplitPolicy policy) {
+        return
+            StreamSupport.stream(new ComboSpliterator<T>(elems, r, policy),
+                                 false);
+    }
+
+    /**
+     * Return a stream of combinations of an array that splits for
+     * parallel processing according to a policy.
+     * @param elems The elements to get combinations of
+     * @param r the number of elements in each combination.
+     * @param policy how to split the stream.
+     * @return a stream of r-sized combinations of elements.
+     */
+    public static <T> Stream<List<T>> of(T[] elems, int r, SplitPolicy policy) {
+        return
+            StreamSupport.stream(new ComboSpliterator<T>(elems, r, policy),
+                                 false);
+    }
+
+    /**
+     * Return a stream of all combinations of all possible values of
+     * {@code r} of a list that splits for parallel processing
+     * according to a policy.
+     * @param elems The elements to get combinations of
+     * @param policy how to split the stream.
+     * @return a stream of combinations of elements.
+     */
+    public static <T> Stream<List<T>> ofAllCombinations(List<T> elems, SplitPolicy policy) {
+        return
+            StreamSupport.stream(new AllCombosSpliterator<T>(elems, policy),
+                                 false);
+    }
+
+    /**
+     * Return a stream of all combinations of all possible values of
+     * {@code r} of a collection that splits for parallel processing
+     * according to a policy.
+     * @param elems The elements to get combinations of
+     * @param policy how to split the stream.
+     * @return a stream of combinations of elements.
+     */
+    public static <T> Stream<List<T>> ofAllCombinations(Collection<T> elems,
+                                                        SplitPolicy policy) {
+        return
+            StreamSupport.stream(new AllCombosSpliterator<T>(elems, policy),
+                                 false);
+    }
+
+    /**
+     * Return a stream of all combinations of all possible values of
+     * {@code r} of an array that splits for parallel processing
+     * according to a policy.
+     * @param elems The elements to get combinations of
+     * @param policy how to split the stream.
+     * @return a stream of combinations of elements.
+     */
+    public static <T> Stream<List<T>> ofAllCombinations(T[] elems, SplitPolicy policy) {
+        return
+            StreamSupport.stream(new AllCombosSpliterator<T>(elems, policy),
+                                 false);
+    }
 }
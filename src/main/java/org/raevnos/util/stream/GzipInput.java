@@ -0,0 +1,240 @@
+package org.raevnos.util.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.raevnos.util.MappedFile;
+
+/**
+ * Opens gzip compressed files for the {@code Readers} methods that
+ * take a {@code Path}.
+ *
+ * BGZF files, made of gzip members that record their own compressed
+ * size in a {@code BC} extra field as written by {@code bgzip}, are
+ * inflated in parallel: blocks are found by hopping from header to
+ * header in a memory mapping, and a window of upcoming blocks is
+ * inflated in the common pool while earlier ones are read in order.
+ * Other gzip files, including concatenated multi-member ones, have
+ * no way to find where a member ends without inflating it, so they
+ * are read by a single {@code GZIPInputStream} with a large buffer.
+ */
+final class GzipInput {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int HEADER_SIZE = 12; // Up to and including XLEN
+    private static final int TRAILER_SIZE = 8;
+    private static final int FEXTRA = 4;
+
+    private GzipInput() {}
+
+    /**
+     * @return true if a path is a regular file that starts with the
+     * gzip magic number.
+     */
+    static boolean isGzip(Path p) throws IOException {
+        if (!Files.isRegularFile(p)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(p)) {
+            return in.read() == 0x1F && in.read() == 0x8B;
+        }
+    }
+
+    /**
+     * Open a gzip file for reading its uncompressed contents.
+     * @param p the file.
+     * @return a stream of its contents.
+     * @throws IOException on errors opening the file.
+     */
+    static InputStream open(Path p) throws IOException {
+        MappedFile file = MappedFile.open(p);
+        long[] blocks = bgzfBlocks(file);
+        if (blocks != null) {
+            return new BgzfInputStream(file, blocks);
+        }
+        return new GZIPInputStream(Files.newInputStream(p), BUFFER_SIZE);
+    }
+
+    private static int getShort(MappedFile file, long pos) {
+        return (file.get(pos) & 0xFF) | (file.get(pos + 1) & 0xFF) << 8;
+    }
+
+    /**
+     * Find the blocks of a BGZF file.
+     * @return the offsets of the start of each block followed by the
+     * size of the file, or null if it is not all BGZF blocks.
+     */
+    private static long[] bgzfBlocks(MappedFile file) {
+        long size = file.size();
+        long[] starts = new long[16];
+        int n = 0;
+        long pos = 0;
+        while (pos < size) {
+            if (pos + HEADER_SIZE > size || file.get(pos) != 0x1F || file.get(pos + 1) != (byte)0x8B
+                || file.get(pos + 2) != 8 || (file.get(pos + 3) & FEXTRA) == 0) {
+                return null;
+            }
+            int xlen = getShort(file, pos + 10);
+            long extraEnd = pos + HEADER_SIZE + xlen;
+            long blockSize = -1;
+            for (long f = pos + HEADER_SIZE; f + 4 <= extraEnd && extraEnd <= size;
+                 f += 4 + getShort(file, f + 2)) {
+                if (file.get(f) == 'B' && file.get(f + 1) == 'C' && getShort(file, f + 2) == 2) {
+                    blockSize = getShort(file, f + 4) + 1;
+                    break;
+                }
+            }
+            if (blockSize < HEADER_SIZE + xlen + TRAILER_SIZE || pos + blockSize > size) {
+                return null;
+            }
+            if (n == starts.length) {
+                starts = Arrays.copyOf(starts, n * 2);
+            }
+            starts[n++] = pos;
+            pos += blockSize;
+        }
+        starts = Arrays.copyOf(starts, n + 1);
+        starts[n] = size;
+        return starts;
+    }
+
+    /** Reads the inflated blocks of a BGZF file in order, inflating ahead in parallel. */
+    private static final class BgzfInputStream extends InputStream {
+        private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+        private final MappedFile file;
+        private final long[] blocks;
+        private final int window = 4 * ForkJoinPool.getCommonPoolParallelism();
+        private final ArrayDeque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+        private int submitted;
+        private byte[] current = new byte[0];
+        private int pos;
+        private boolean closed;
+
+        BgzfInputStream(MappedFile file, long[] blocks) {
+            this.file = file;
+            this.blocks = blocks;
+        }
+
+        /** Inflate a block, checking its length and checksum. */
+        private static byte[] inflate(MappedFile file, long start, long end) {
+            int xlen = getShort(file, start + 10);
+            long data = start + HEADER_SIZE + xlen;
+            int crc = file.getInt(end - TRAILER_SIZE);
+            int isize = file.getInt(end - 4);
+            try {
+                if (isize < 0 || isize > 1 << 16) {
+                    throw new ZipException("invalid BGZF block size");
+                }
+                // One spare byte, so running past the recorded size shows up.
+                byte[] out = new byte[isize + 1];
+                Inflater inf = INFLATERS.get();
+                inf.reset();
+                inf.setInput(file.slice(data, (int)(end - TRAILER_SIZE - data)));
+                int n = 0;
+                try {
+                    while (n < out.length && !inf.finished() && !inf.needsInput()) {
+                        int k = inf.inflate(out, n, out.length - n);
+                        if (k == 0 && inf.needsDictionary()) {
+                            break;
+                        }
+                        n += k;
+                    }
+                } catch (DataFormatException e) {
+                    throw new ZipException(e.getMessage());
+                }
+                if (n != isize || !inf.finished()) {
+                    throw new ZipException("corrupt BGZF block");
+                }
+                out = Arrays.copyOf(out, isize);
+                CRC32 check = new CRC32();
+                check.update(out);
+                if ((int)check.getValue() != crc) {
+                    throw new ZipException("BGZF block CRC mismatch");
+                }
+                return out;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /** @return false at the end of the file. */
+        private boolean nextBlock() throws IOException {
+            while (pos == current.length) {
+                while (submitted < blocks.length - 1 && pending.size() < window) {
+                    long start = blocks[submitted], end = blocks[submitted + 1];
+                    pending.add(CompletableFuture.supplyAsync(() -> inflate(file, start, end),
+                                                              ForkJoinPool.commonPool()));
+                    submitted++;
+                }
+                CompletableFuture<byte[]> next = pending.poll();
+                if (next == null) {
+                    return false;
+                }
+                try {
+                    current = next.join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof UncheckedIOException) {
+                        throw ((UncheckedIOException)e.getCause()).getCause();
+                    }
+                    throw e;
+                }
+                pos = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (closed) {
+                throw new IOException("stream closed");
+            }
+            return nextBlock() ? current[pos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (closed) {
+                throw new IOException("stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextBlock()) {
+                return -1;
+            }
+            int n = Math.min(len, current.length - pos);
+            System.arraycopy(current, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return current.length - pos;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            for (CompletableFuture<byte[]> f : pending) {
+                f.cancel(false);
+            }
+            pending.clear();
+        }
+    }
+}
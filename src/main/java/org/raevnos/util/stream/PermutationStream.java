@@ -9,6 +9,7 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.raevnos.util.iterator.PermutationSpliterator;
+import org.raevnos.util.iterator.SplitPolicy;
 
 /**
  * Create streams of all permutations of a collection.  The lists the
@@ -41,4 +42,17 @@ public class PermutationStream {
                                  false);
     }
 
+    /**
+     * Return a stream of all permutations of the elements of a
+     * collection that splits for parallel processing according to a
+     * policy.
+     * @param elems The elements to permute
+     * @param policy how to split the stream.
+     * @return A stream of permutations.
+     */
+    public static <T> Stream<List<T>> of(Collection<T> elems, SplitPolicy policy) {
+        return
+            StreamSupport.stream(new PermutationSpliterator<T>(elems, policy),
+                                 false);
+    }
 }
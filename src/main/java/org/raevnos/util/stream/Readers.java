@@ -3,19 +3,35 @@ package org.raevnos.util.stream;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import java.nio.file.Path;
 import java.nio.file.Files;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.Function;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.io.BufferedReader;
 import java.io.Closeable;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 
+import org.raevnos.util.MappedFile;
+import org.raevnos.util.Tuple;
+import org.raevnos.util.TupleCodec;
 import org.raevnos.util.iterator.CPSpliterator;
 import org.raevnos.util.iterator.DoubleReaderSpliterator;
 import org.raevnos.util.iterator.IntReaderSpliterator;
 import org.raevnos.util.iterator.LongReaderSpliterator;
+import org.raevnos.util.iterator.MappedBinarySpliterator;
+import org.raevnos.util.iterator.MappedColumnSpliterator;
+import org.raevnos.util.iterator.MappedNumberSpliterator;
+import org.raevnos.util.iterator.SplitPolicy;
+import org.raevnos.util.iterator.Utf8Spliterator;
 
 /**
  * Create streams from files.
@@ -33,6 +49,14 @@ public class Readers {
         };
     }
 
+    /**
+     * @return true if a file can be read through a memory mapping
+     * instead of a reader.
+     */
+    static private boolean mappable(Path p, Charset cs) {
+        return MappedNumberSpliterator.supports(cs) && Files.isRegularFile(p);
+    }
+
     static private IntStream make(IntReaderSpliterator sp) {
         return StreamSupport.intStream(sp, false).onClose(makeCloser(sp));
     }
@@ -52,21 +76,39 @@ public class Readers {
         return make(new IntReaderSpliterator(r));
     }
 
+    /**
+     * @return a new {@code IntStream} that reads from the given reader,
+     * reading numbers that are not plain ASCII the way a {@code
+     * Scanner} for the given locale would.
+     */
+    static public IntStream intStream(Readable r, Locale locale) {
+        return make(new IntReaderSpliterator(r, SplitPolicy.DEFAULT, locale));
+    }
+
     /**
      * @return a new {@code IntStream} that reads from the given file
      * using the default character encoding. The stream should be
      * closed when finished with.
      */
     static public IntStream intStream(Path p) throws IOException {
-        return make(new IntReaderSpliterator(p));
+        return intStream(p, Charset.defaultCharset());
     }
 
     /**
      * @return a new {@code IntStream} that reads from the given file
      * using the given character encoding. The stream should be
-     * closed when finished with.
+     * closed when finished with. Regular files in UTF-8, ISO-8859-1
+     * or US-ASCII are memory mapped and split by byte range, so the
+     * stream reads them in parallel well. Gzip compressed files are
+     * decompressed as they are read.
      */
     static public IntStream intStream(Path p, Charset cs) throws IOException {
+        if (GzipInput.isGzip(p)) {
+            return intStream(new InputStreamReader(GzipInput.open(p), cs));
+        }
+        if (mappable(p, cs)) {
+            return StreamSupport.intStream(new MappedNumberSpliterator.OfInt(MappedFile.open(p), cs), false);
+        }
         return make(new IntReaderSpliterator(p, cs));
     }
 
@@ -77,6 +119,15 @@ public class Readers {
         return make(new LongReaderSpliterator(r));
     }
 
+    /**
+     * @return a new {@code LongStream} that reads from the given reader,
+     * reading numbers that are not plain ASCII the way a {@code
+     * Scanner} for the given locale would.
+     */
+    static public LongStream longStream(Readable r, Locale locale) {
+        return make(new LongReaderSpliterator(r, SplitPolicy.DEFAULT, locale));
+    }
+
     /**
      * @return a new {@code LongStream} that reads from the given file
      * using the default character encoding. The stream should be
@@ -84,15 +135,24 @@ public class Readers {
      * @throws IOException on errors opening the file.
      */
     static public LongStream longStream(Path p) throws IOException {
-        return make(new LongReaderSpliterator(p));
+        return longStream(p, Charset.defaultCharset());
     }
 
     /**
      * @return a new {@code LongStream} that reads from the given file
      * using the given character encoding. The stream should be
-     * closed when finished with.
+     * closed when finished with. Regular files in UTF-8, ISO-8859-1
+     * or US-ASCII are memory mapped and split by byte range, so the
+     * stream reads them in parallel well. Gzip compressed files are
+     * decompressed as they are read.
      */
     static public LongStream longStream(Path p, Charset cs) throws IOException {
+        if (GzipInput.isGzip(p)) {
+            return longStream(new InputStreamReader(GzipInput.open(p), cs));
+        }
+        if (mappable(p, cs)) {
+            return StreamSupport.longStream(new MappedNumberSpliterator.OfLong(MappedFile.open(p), cs), false);
+        }
         return make(new LongReaderSpliterator(p, cs));
     }
 
@@ -103,6 +163,15 @@ public class Readers {
         return make(new DoubleReaderSpliterator(r));
     }
 
+    /**
+     * @return a new {@code DoubleStream} that reads from the given reader,
+     * reading numbers that are not plain ASCII the way a {@code
+     * Scanner} for the given locale would.
+     */
+    static public DoubleStream doubleStream(Readable r, Locale locale) {
+        return make(new DoubleReaderSpliterator(r, SplitPolicy.DEFAULT, locale));
+    }
+
     /**
      * @return a new {@code DoubleStream} that reads from the given file
      * using the default character encoding. The stream should be
@@ -110,15 +179,24 @@ public class Readers {
      * @throws IOException on errors opening the file.
      */
     static public DoubleStream doubleStream(Path p) throws IOException {
-        return make(new DoubleReaderSpliterator(p));
+        return doubleStream(p, Charset.defaultCharset());
     }
 
     /**
      * @return a new {@code DoubleStream} that reads from the given file
      * using the given character encoding. The stream should be
-     * closed when finished with.
+     * closed when finished with. Regular files in UTF-8, ISO-8859-1
+     * or US-ASCII are memory mapped and split by byte range, so the
+     * stream reads them in parallel well. Gzip compressed files are
+     * decompressed as they are read.
      */
     static public DoubleStream doubleStream(Path p, Charset cs) throws IOException {
+        if (GzipInput.isGzip(p)) {
+            return doubleStream(new InputStreamReader(GzipInput.open(p), cs));
+        }
+        if (mappable(p, cs)) {
+            return StreamSupport.doubleStream(new MappedNumberSpliterator.OfDouble(MappedFile.open(p), cs), false);
+        }
         return make(new DoubleReaderSpliterator(p, cs));
     }
 
@@ -145,14 +223,250 @@ public class Readers {
 
     /**
      * Create a new {@code IntStream} of code points read from the given {@code Path}.
-     * The stream should be closed when done with it.
+     * The stream should be closed when done with it. Regular files in
+     * UTF-8 are memory mapped and decoded directly, and the stream
+     * splits them by byte range for parallel processing. Gzip
+     * compressed files are decompressed as they are read.
      * @param path {@code Path} of the file to read using the given character encoding.
      * @param cs The character encoding of the file.
      * @throws IOException on error opening the file.
      */
     public static IntStream codePoints(Path path, Charset cs) throws IOException {
+        if (GzipInput.isGzip(path)) {
+            return codePoints(new BufferedReader(new InputStreamReader(GzipInput.open(path), cs)));
+        }
+        if (cs.equals(StandardCharsets.UTF_8) && Files.isRegularFile(path)) {
+            return StreamSupport.intStream(new Utf8Spliterator(MappedFile.open(path)), false);
+        }
         var br = Files.newBufferedReader(path, cs);
         return StreamSupport.intStream(new CPSpliterator(br), false)
             .onClose(makeCloser(br));
     }
+
+    /** @return a mapping of a file that holds a whole number of values of a size. */
+    static private MappedFile openBinary(Path p, int width) throws IOException {
+        MappedFile file = MappedFile.open(p);
+        if (file.size() % width != 0) {
+            throw new IOException(p + ": size is not a multiple of " + width + " bytes");
+        }
+        return file;
+    }
+
+    /**
+     * Create a new {@code IntStream} of the raw 4 byte ints that make up a file.
+     * The file is memory mapped, and the stream splits evenly for parallel processing.
+     * @param p the file to read.
+     * @param order the byte order of the ints.
+     * @throws IOException on errors mapping the file, or if its size
+     * is not a multiple of 4.
+     */
+    public static IntStream binaryIntStream(Path p, ByteOrder order) throws IOException {
+        return StreamSupport.intStream(new MappedBinarySpliterator.OfInt(openBinary(p, Integer.BYTES),
+                                                                         order, SplitPolicy.DEFAULT),
+                                       false);
+    }
+
+    /**
+     * Create a new {@code LongStream} of the raw 8 byte longs that make up a file.
+     * The file is memory mapped, and the stream splits evenly for parallel processing.
+     * @param p the file to read.
+     * @param order the byte order of the longs.
+     * @throws IOException on errors mapping the file, or if its size
+     * is not a multiple of 8.
+     */
+    public static LongStream binaryLongStream(Path p, ByteOrder order) throws IOException {
+        return StreamSupport.longStream(new MappedBinarySpliterator.OfLong(openBinary(p, Long.BYTES),
+                                                                           order, SplitPolicy.DEFAULT),
+                                        false);
+    }
+
+    /**
+     * Create a new {@code DoubleStream} of the raw IEEE 754 doubles that make up a file.
+     * The file is memory mapped, and the stream splits evenly for parallel processing.
+     * @param p the file to read.
+     * @param order the byte order of the doubles.
+     * @throws IOException on errors mapping the file, or if its size
+     * is not a multiple of 8.
+     */
+    public static DoubleStream binaryDoubleStream(Path p, ByteOrder order) throws IOException {
+        return StreamSupport.doubleStream(new MappedBinarySpliterator.OfDouble(openBinary(p, Double.BYTES),
+                                                                               order, SplitPolicy.DEFAULT),
+                                          false);
+    }
+
+    /**
+     * Create a new {@code Stream} of the fixed-size records that make up a file.
+     * The file is memory mapped, and the stream splits evenly for parallel processing.
+     * @param p the file to read.
+     * @param recordSize the size of each record in bytes.
+     * @param order the byte order of the buffers passed to the decoder.
+     * @param decoder turns a read-only buffer holding a record into a value.
+     * The buffer shares the mapping and is only valid during the call.
+     * @throws IOException on errors mapping the file, or if its size
+     * is not a multiple of the record size.
+     * @throws IllegalArgumentException if the record size is less than 1.
+     */
+    public static <T> Stream<T> records(Path p, int recordSize, ByteOrder order,
+                                        Function<? super ByteBuffer, ? extends T> decoder)
+        throws IOException {
+        if (recordSize < 1) {
+            throw new IllegalArgumentException("record size must be at least 1");
+        }
+        return StreamSupport.stream(new MappedBinarySpliterator.OfRecord<T>(openBinary(p, recordSize),
+                                                                            recordSize, order, decoder,
+                                                                            SplitPolicy.DEFAULT),
+                                    false);
+    }
+
+    /**
+     * Create a new {@code Stream} of the tuples in a file of fixed-size
+     * records written by a {@code TupleCodec}, such as one whose
+     * components are all fixed width.
+     * @param p the file to read.
+     * @param codec the codec to decode each record with.
+     * @param recordSize the size of each record in bytes.
+     * @throws IOException on errors mapping the file, or if its size
+     * is not a multiple of the record size.
+     * @throws IllegalArgumentException if the record size is less than 1.
+     */
+    public static <A extends Object & Comparable<? super A>, B extends Object & Comparable<? super B>>
+        Stream<Tuple<A, B>> records(Path p, TupleCodec<A, B> codec, int recordSize) throws IOException {
+        return records(p, recordSize, ByteOrder.BIG_ENDIAN, codec::decode);
+    }
+
+    /**
+     * Create a new {@code IntStream} of one column of a delimited text
+     * file, such as CSV or TSV, in UTF-8. Other fields are skipped
+     * without being parsed. The file is memory mapped and split by
+     * line for parallel processing.
+     * @param p the file to read.
+     * @param column the index of the column, starting from 0.
+     * @param delimiter the ASCII character between fields.
+     * @throws IOException on errors mapping the file.
+     * @throws IllegalArgumentException if the column is negative or the
+     * delimiter is not ASCII, or is a quote or line break.
+     * @see MappedColumnSpliterator
+     */
+    public static IntStream intColumn(Path p, int column, char delimiter) throws IOException {
+        return intColumn(p, column, delimiter, false);
+    }
+
+    /**
+     * Create a new {@code IntStream} of one column of a delimited text
+     * file in UTF-8, optionally skipping a header line.
+     * @param p the file to read.
+     * @param column the index of the column, starting from 0.
+     * @param delimiter the ASCII character between fields.
+     * @param header true to skip the first line.
+     * @throws IOException on errors mapping the file.
+     * @throws IllegalArgumentException if the column is negative or the
+     * delimiter is not ASCII, or is a quote or line break.
+     * @see MappedColumnSpliterator
+     */
+    public static IntStream intColumn(Path p, int column, char delimiter, boolean header)
+        throws IOException {
+        var sp = new MappedColumnSpliterator.OfInt(MappedFile.open(p), column, delimiter, header,
+                                                    MappedColumnSpliterator.DEFAULT_POLICY);
+        return StreamSupport.intStream(sp, false);
+    }
+
+    /**
+     * Create a new {@code LongStream} of one column of a delimited text
+     * file, such as CSV or TSV, in UTF-8. Other fields are skipped
+     * without being parsed. The file is memory mapped and split by
+     * line for parallel processing.
+     * @param p the file to read.
+     * @param column the index of the column, starting from 0.
+     * @param delimiter the ASCII character between fields.
+     * @throws IOException on errors mapping the file.
+     * @throws IllegalArgumentException if the column is negative or the
+     * delimiter is not ASCII, or is a quote or line break.
+     * @see MappedColumnSpliterator
+     */
+    public static LongStream longColumn(Path p, int column, char delimiter) throws IOException {
+        return longColumn(p, column, delimiter, false);
+    }
+
+    /**
+     * Create a new {@code LongStream} of one column of a delimited text
+     * file in UTF-8, optionally skipping a header line.
+     * @param p the file to read.
+     * @param column the index of the column, starting from 0.
+     * @param delimiter the ASCII character between fields.
+     * @param header true to skip the first line.
+     * @throws IOException on errors mapping the file.
+     * @throws IllegalArgumentException if the column is negative or the
+     * delimiter is not ASCII, or is a quote or line break.
+     * @see MappedColumnSpliterator
+     */
+    public static LongStream longColumn(Path p, int column, char delimiter, boolean header)
+        throws IOException {
+        var sp = new MappedColumnSpliterator.OfLong(MappedFile.open(p), column, delimiter, header,
+                                                    MappedColumnSpliterator.DEFAULT_POLICY);
+        return StreamSupport.longStream(sp, false);
+    }
+
+    /**
+     * Create a new {@code DoubleStream} of one column of a delimited text
+     * file, such as CSV or TSV, in UTF-8. Other fields are skipped
+     * without being parsed. The file is memory mapped and split by
+     * line for parallel processing.
+     * @param p the file to read.
+     * @param column the index of the column, starting from 0.
+     * @param delimiter the ASCII character between fields.
+     * @throws IOException on errors mapping the file.
+     * @throws IllegalArgumentException if the column is negative or the
+     * delimiter is not ASCII, or is a quote or line break.
+     * @see MappedColumnSpliterator
+     */
+    public static DoubleStream doubleColumn(Path p, int column, char delimiter) throws IOException {
+        return doubleColumn(p, column, delimiter, false);
+    }
+
+    /**
+     * Create a new {@code DoubleStream} of one column of a delimited text
+     * file in UTF-8, optionally skipping a header line.
+     * @param p the file to read.
+     * @param column the index of the column, starting from 0.
+     * @param delimiter the ASCII character between fields.
+     * @param header true to skip the first line.
+     * @throws IOException on errors mapping the file.
+     * @throws IllegalArgumentException if the column is negative or the
+     * delimiter is not ASCII, or is a quote or line break.
+     * @see MappedColumnSpliterator
+     */
+    public static DoubleStream doubleColumn(Path p, int column, char delimiter, boolean header)
+        throws IOException {
+        var sp = new MappedColumnSpliterator.OfDouble(MappedFile.open(p), column, delimiter, header,
+                                                    MappedColumnSpliterator.DEFAULT_POLICY);
+        return StreamSupport.doubleStream(sp, false);
+    }
+
+    /**
+     * Create a new {@code Stream} of pairs of fields from two columns
+     * of a delimited text file in UTF-8, converted from text by a
+     * function for each column. Other fields are skipped. The file is
+     * memory mapped and split by line for parallel processing.
+     * @param p the file to read.
+     * @param first the index of the column of the first elements, starting from 0.
+     * @param second the index of the column of the second elements.
+     * @param delimiter the ASCII character between fields.
+     * @param header true to skip the first line.
+     * @param firstParser converts the text of a field into a first element.
+     * @param secondParser converts the text of a field into a second element.
+     * @throws IOException on errors mapping the file.
+     * @throws IllegalArgumentException if a column is negative or the
+     * delimiter is not ASCII, or is a quote or line break.
+     * @see MappedColumnSpliterator
+     */
+    public static <A extends Object & Comparable<? super A>, B extends Object & Comparable<? super B>>
+        Stream<Tuple<A, B>> columns(Path p, int first, int second, char delimiter, boolean header,
+                                    Function<? super String, ? extends A> firstParser,
+                                    Function<? super String, ? extends B> secondParser)
+        throws IOException {
+        var sp = new MappedColumnSpliterator.OfTuple<A, B>(MappedFile.open(p), first, second, delimiter,
+                                                           header, firstParser, secondParser,
+                                                           MappedColumnSpliterator.DEFAULT_POLICY);
+        return StreamSupport.stream(sp, false);
+    }
 }
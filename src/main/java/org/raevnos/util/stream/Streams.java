@@ -1,9 +1,14 @@
 package org.raevnos.util.stream;
 
+import java.util.Comparator;
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.*;
 
+import org.raevnos.util.NormalizedKey;
+import org.raevnos.util.RadixSort;
+import org.raevnos.util.iterator.SplitPolicy;
 import org.raevnos.util.iterator.StrideAdaptorSpliterator;
 
 /**
@@ -100,5 +105,106 @@ public class Streams {
                                         false);
     }
 
+    /**
+     * Build a stream that returns every Nth element of the original
+     * starting with the first, in encounter order, splitting for
+     * parallel processing according to a policy.
+     *
+     * This is a stateful intermediate operation.
+     *
+     * @param s the stream to adapt
+     * @param n the size of the stride to take.
+     * @param policy how to split the stream.
+     * @return a new stream
+     * @throws NullPointerException if passed a null stream or policy.
+     * @throws IndexOutOfBoundsException if {@code n <= 0}
+     */
+    static public <T> Stream<T> stride(Stream<T> s, int n, SplitPolicy policy) {
+        Objects.requireNonNull(s);
+        return StreamSupport.stream(new StrideAdaptorSpliterator<T>(s.spliterator(), n, policy),
+                                    s.isParallel());
+    }
+
+    /**
+     * Build a stream that returns every Nth element of the original
+     * starting with the first, in encounter order, splitting for
+     * parallel processing according to a policy.
+     *
+     * @param s the stream to adapt
+     * @param n the size of the stride to take.
+     * @param policy how to split the stream.
+     * @return a new stream
+     * @throws NullPointerException if passed a null stream or policy.
+     * @throws IndexOutOfBoundsException if {@code n <= 0}
+     */
+    static public DoubleStream strideDouble(DoubleStream s, int n, SplitPolicy policy) {
+        Objects.requireNonNull(s);
+        return StreamSupport.doubleStream(new StrideAdaptorSpliterator.OfDouble(s.spliterator(),
+                                                                               n, policy),
+                                          s.isParallel());
+    }
 
+    /**
+     * Build a stream that returns every Nth element of the original
+     * starting with the first, in encounter order, splitting for
+     * parallel processing according to a policy.
+     *
+     * @param s the stream to adapt
+     * @param n the size of the stride to take.
+     * @param policy how to split the stream.
+     * @return a new stream
+     * @throws NullPointerException if passed a null stream or policy.
+     * @throws IndexOutOfBoundsException if {@code n <= 0}
+     */
+    static public IntStream strideInt(IntStream s, int n, SplitPolicy policy) {
+        Objects.requireNonNull(s);
+        return StreamSupport.intStream(new StrideAdaptorSpliterator.OfInt(s.spliterator(),
+                                                                         n, policy),
+                                       s.isParallel());
+    }
+
+    /**
+     * Build a stream that returns every Nth element of the original
+     * starting with the first, in encounter order, splitting for
+     * parallel processing according to a policy.
+     *
+     * @param s the stream to adapt
+     * @param n the size of the stride to take.
+     * @param policy how to split the stream.
+     * @return a new stream
+     * @throws NullPointerException if passed a null stream or policy.
+     * @throws IndexOutOfBoundsException if {@code n <= 0}
+     */
+    static public LongStream strideLong(LongStream s, int n, SplitPolicy policy) {
+        Objects.requireNonNull(s);
+        return StreamSupport.longStream(new StrideAdaptorSpliterator.OfLong(s.spliterator(),
+                                                                           n, policy),
+                                        s.isParallel());
+    }
+
+    /**
+     * Sort a stream using a radix sort on a normalized key, falling
+     * back on a comparator for elements with equal key prefixes.
+     *
+     * Unlike {@code Stream.sorted()}, the source stream is consumed
+     * immediately.
+     *
+     * @param s the stream to sort
+     * @param key a prefix key consistent with {@code cmp}
+     * @param cmp the comparator to order equal prefixes with. If
+     * null, uses the natural ordering.
+     * @return a new sorted stream
+     * @throws NullPointerException if passed a null stream or key.
+     */
+    static public <T> Stream<T> sorted(Stream<T> s, NormalizedKey<? super T> key,
+                                       Comparator<? super T> cmp) {
+        Objects.requireNonNull(s);
+        Objects.requireNonNull(key);
+        boolean parallel = s.isParallel();
+        @SuppressWarnings("unchecked")
+            T[] elems = (T[])s.toArray();
+        RadixSort.sort(elems, key, cmp);
+        return StreamSupport.<T>stream(Spliterators.spliterator(elems, Spliterator.ORDERED),
+                                       parallel).onClose(s::close);
+    }
 }
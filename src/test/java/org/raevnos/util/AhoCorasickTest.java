@@ -0,0 +1,152 @@
+package org.raevnos.util;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import org.raevnos.util.iterator.SplitPolicy;
+import org.raevnos.util.stream.Readers;
+
+public class AhoCorasickTest {
+    private static final List<String> PATTERNS =
+        Arrays.asList("he", "she", "his", "hers", "ab", "aba", "b", "😀x");
+
+    /** Find matches the slow way. */
+    private static long[] naive(List<String> patterns, String text, boolean ignoreCase) {
+        List<long[]> found = new ArrayList<>();
+        for (int end = 1; end <= text.length(); end++) {
+            for (int p = 0; p < patterns.size(); p++) {
+                String pat = patterns.get(p);
+                int start = end - pat.length();
+                if (start >= 0 && text.regionMatches(ignoreCase, start, pat, 0, pat.length())) {
+                    found.add(new long[] { end, -pat.length(), p, start });
+                }
+            }
+        }
+        found.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        return found.stream().mapToLong(m -> (m[2] << 40) | m[3]).toArray();
+    }
+
+    private static String randomText(Random rng, int n) {
+        StringBuilder sb = new StringBuilder(n);
+        String alphabet = "abehirsABEHS ";
+        for (int i = 0; i < n; i++) {
+            sb.append(alphabet.charAt(rng.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testMatches() {
+        AhoCorasick ac = AhoCorasick.of(PATTERNS);
+        String text = "ushers abab 😀x";
+        long[] found = ac.matches(text).toArray();
+        assertTrue("match list", Arrays.equals(naive(PATTERNS, text, false), found));
+        long first = found[0];
+        assertEquals("first pattern", "she", ac.pattern(AhoCorasick.matchPattern(first)));
+        assertEquals("first start", 1, AhoCorasick.matchStart(first));
+        assertTrue("containsAny", ac.containsAny("xxhisxx"));
+        assertTrue("!containsAny", !ac.containsAny("xyz"));
+        assertEquals("StringList", found.length, ac.matches(new StringList(text)).count());
+    }
+
+    @Test
+    public void testIgnoreCase() {
+        AhoCorasick ac = AhoCorasick.of(PATTERNS, true);
+        Random rng = new Random(7);
+        String text = randomText(rng, 2000);
+        assertTrue("case-insensitive matches",
+                   Arrays.equals(naive(PATTERNS, text, true), ac.matches(text).toArray()));
+    }
+
+    @Test
+    public void testParallel() {
+        Random rng = new Random(11);
+        List<String> pats = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            pats.add(randomText(rng, 2 + rng.nextInt(6)).trim() + "e");
+        }
+        AhoCorasick ac = AhoCorasick.of(pats);
+        String text = randomText(rng, 50000);
+        long[] expected = naive(pats, text, false);
+        assertTrue("sequential", Arrays.equals(expected, ac.matches(text).toArray()));
+        assertTrue("parallel", Arrays.equals(expected, ac.matches(text, SplitPolicy.of(64))
+                                             .parallel().toArray()));
+        assertTrue("front-loaded", Arrays.equals(expected, ac.matches(text,
+            SplitPolicy.of(7, 0, SplitPolicy.Shape.FRONT_LOADED)).parallel().toArray()));
+    }
+
+    @Test
+    public void testCodePoints() {
+        AhoCorasick ac = AhoCorasick.of(PATTERNS);
+        Random rng = new Random(3);
+        String text = randomText(rng, 5000).replace(' ', 'x').replace("S", "😀");
+        long[] expected = Arrays.stream(naive(PATTERNS, text, false))
+            .map(m -> {
+                    int p = AhoCorasick.matchPattern(m);
+                    int start = text.codePointCount(0, (int)AhoCorasick.matchStart(m));
+                    return ((long)p << 40) | start;
+                }).toArray();
+        assertTrue("sequential codepoints",
+                   Arrays.equals(expected, ac.matches(text.codePoints()).toArray()));
+        long[] parallel = ac.matches(Readers.codePoints(new StringReader(text)).parallel(),
+                                     SplitPolicy.of(100)).toArray();
+        assertTrue("parallel codepoints", Arrays.equals(expected, parallel));
+    }
+
+    @Test
+    public void testParallelSizedCodePoints() {
+        AhoCorasick ac = AhoCorasick.of(List.of("ab".repeat(40), "zz"));
+        String text = "ab".repeat(40) + "x".repeat(130) + "zz";
+        long[] expected = ac.matches(text.codePoints()).toArray();
+        assertEquals("sequential count", 2, expected.length);
+        assertTrue("parallel", Arrays.equals(expected, ac.matches(text.codePoints().parallel()).toArray()));
+        long[] small = ac.matches(text.codePoints().parallel(), SplitPolicy.of(3)).toArray();
+        assertTrue("small leaves", Arrays.equals(expected, small));
+    }
+
+    /** Read a spliterator after splitting it as far as it goes, in order. */
+    private static void splitAll(Spliterator.OfLong sp, List<Long> out) {
+        Spliterator.OfLong prefix = sp.trySplit();
+        if (prefix != null) {
+            splitAll(prefix, out);
+            splitAll(sp, out);
+        } else {
+            sp.forEachRemaining((long m) -> out.add(m));
+        }
+    }
+
+    @Test
+    public void testSplitBatches() {
+        String pattern = "0123456789abcdefghijklmnopqrst";
+        AhoCorasick ac = AhoCorasick.of(List.of(pattern, "zz"));
+        String text = "x".repeat(1014) + pattern + "zz" + "y".repeat(10000);
+        long[] expected = ac.matches(text.codePoints()).toArray();
+        assertEquals("sequential count", 2, expected.length);
+        assertTrue("parallel", Arrays.equals(expected, ac.matches(text.codePoints().parallel()).toArray()));
+        for (SplitPolicy policy : List.of(SplitPolicy.of(1), SplitPolicy.of(7), SplitPolicy.of(1000))) {
+            List<Long> split = new ArrayList<>();
+            splitAll(ac.matches(text.codePoints(), policy).spliterator(), split);
+            assertTrue("split with " + policy,
+                       Arrays.equals(expected, split.stream().mapToLong(Long::longValue).toArray()));
+        }
+        // A pattern found across a full batch and the short one after it.
+        Spliterator.OfLong sp = ac.matches(text.substring(0, 1044).codePoints()).spliterator();
+        Spliterator.OfLong first = sp.trySplit();
+        Spliterator.OfLong second = sp.trySplit();
+        assertEquals("across splits", 1, count(first) + count(second) + count(sp));
+    }
+
+    private static long count(Spliterator.OfLong sp) {
+        long[] n = {0};
+        sp.forEachRemaining((long m) -> n[0]++);
+        return n[0];
+    }
+}
@@ -0,0 +1,131 @@
+package org.raevnos.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import org.raevnos.util.iterator.CharIterator;
+
+public class CompactTextTest {
+    private static final String[] WORDS = {
+        "", "a", "abc", "abd", "ab", "café", "cafè", "naïve",
+        "λάμδα", "中文", "Ａ", "x",
+        "😀", "😀a", "a😁", "Ā", "zzz"
+    };
+
+    @Test
+    public void testMatchesString() {
+        for (String w : WORDS) {
+            CompactText t = CompactText.of(w);
+            assertEquals("toString of " + w, w, t.toString());
+            assertEquals("length of " + w, w.length(), t.length());
+            assertEquals("hashCode of " + w, w.hashCode(), t.hashCode());
+            for (int i = 0; i < w.length(); i++) {
+                assertEquals("charAt of " + w, w.charAt(i), t.charAt(i));
+            }
+            assertEquals("chars of " + w, w, StreamSupport.stream(new CharIterator(t), false)
+                         .map(String::valueOf).collect(Collectors.joining()));
+        }
+        assertTrue("latin-1 text", CompactText.of("café").isLatin1());
+        assertEquals("latin-1 size", 4, CompactText.of("café").byteLength());
+        assertTrue("utf-8 text", !CompactText.of("中文").isLatin1());
+    }
+
+    @Test
+    public void testCompare() {
+        for (String a : WORDS) {
+            for (String b : WORDS) {
+                int expected = Integer.signum(a.compareTo(b));
+                CompactText ta = CompactText.of(a), tb = CompactText.of(b);
+                assertEquals(a + " vs " + b, expected, Integer.signum(ta.compareTo(tb)));
+                assertEquals(a + " equals " + b, a.equals(b), ta.equals(tb));
+            }
+        }
+    }
+
+    @Test
+    public void testSubSequence() {
+        CompactText t = CompactText.of("x中😀y");
+        assertEquals("middle", "中😀", t.subSequence(1, 4).toString());
+        assertTrue("shared view", t.subSequence(1, 4) instanceof CompactText);
+        assertEquals("split pair", "\ud83d", t.subSequence(2, 3).toString());
+        CompactText l = CompactText.of("hello world");
+        assertEquals("latin-1 slice", CompactText.of("world"), l.subSequence(6, 11));
+        assertEquals("slice hash", "world".hashCode(), l.subSequence(6, 11).hashCode());
+    }
+
+    @Test
+    public void testArena() {
+        TextArena arena = new TextArena();
+        long[] handles = new long[WORDS.length * 1000];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = arena.add(WORDS[i % WORDS.length] + i);
+        }
+        for (int i = 0; i < handles.length; i++) {
+            assertEquals("arena text", WORDS[i % WORDS.length] + i, arena.get(handles[i]).toString());
+        }
+        String[] sorted = Arrays.stream(handles).boxed()
+            .sorted(arena::compare)
+            .map(h -> arena.get(h).toString())
+            .toArray(String[]::new);
+        String[] expected = Arrays.stream(handles).mapToObj(h -> arena.get(h).toString())
+            .sorted(Comparator.naturalOrder()).toArray(String[]::new);
+        assertTrue("arena order", Arrays.equals(expected, sorted));
+    }
+
+    @Test
+    public void testStringList() {
+        String s = "späm 😀 eggs";
+        StringList a = new StringList(s), b = new StringList(CompactText.of(s));
+        assertEquals("equal lists", a, b);
+        assertEquals("hash codes", a.hashCode(), b.hashCode());
+        assertEquals("indexOf", a.indexOf(0x1F600), b.indexOf(0x1F600));
+        assertEquals("lastIndexOf", a.lastIndexOf('s'), b.lastIndexOf('s'));
+        assertEquals("countMatches", 2, b.countMatches(CharClass.WHITESPACE));
+        assertEquals("implode", "eggs", Strings.implode(b, 8, 12));
+        assertEquals("latin-1 scan", 4,
+                     Strings.indexOfAny(CompactText.of("späm eggs"), CharClass.WHITESPACE));
+    }
+
+    @Test
+    public void testIndexOf() {
+        int[] cps = {'a', 'x', 'q', 'é', 'λ', '中', 0x1F600, 0xD83D, 0xDE00, 0x1F601, -1};
+        for (String w : WORDS) {
+            String s = w + "λx" + w + "😀é";
+            CompactText t = CompactText.of(s);
+            for (int cp : cps) {
+                for (int from = -1; from <= s.length() + 1; from++) {
+                    assertEquals("indexOf " + cp + " in " + s + " from " + from,
+                                 s.indexOf(cp, from), t.indexOf(cp, from));
+                }
+                assertEquals("lastIndexOf " + cp + " in " + s, s.lastIndexOf(cp), t.lastIndexOf(cp));
+            }
+        }
+    }
+
+    @Test
+    public void testRandomAccess() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append(i % 3 == 0 ? "λ" : i % 3 == 1 ? "😀" : "x");
+        }
+        String s = sb.toString();
+        CompactText t = CompactText.of(s);
+        for (int i = s.length() - 1; i >= 0; i--) {
+            assertEquals("backwards at " + i, s.charAt(i), t.charAt(i));
+        }
+        for (int i = 0; i < s.length(); i += 997) {
+            assertEquals("jump to " + i, s.charAt(i), t.charAt(i));
+        }
+        assertEquals("parallel", s, StreamSupport.stream(new CharIterator(t), true)
+                     .map(String::valueOf).collect(Collectors.joining()));
+        CompactText big = CompactText.of("λ".repeat(200000) + "x");
+        assertEquals("lastIndexOf", -1, Strings.lastIndexOf(big, 'q'));
+        assertEquals("StringList lastIndexOf", 200000, new StringList(big).lastIndexOf('x'));
+    }
+}
@@ -1,9 +1,15 @@
 package org.raevnos.util;
 
+import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Random;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
@@ -37,4 +43,47 @@ public class ComparatorsTest {
         assertTrue("third element not a", test.get(2).orElse("ugh").equals("a"));
         assertTrue("fourth element not empty", test.get(3).isEmpty());
     }
+
+    @Test
+    public void collatingTest() {
+        Collator collator = Collator.getInstance(Locale.US);
+        ArrayList<String> test = new ArrayList<>(List.of("b", "A", "é", "a", "e", "B"));
+        ArrayList<String> expected = new ArrayList<>(test);
+        expected.sort(collator);
+        CollationKeyComparator cmp = Comparators.collating(collator, 4);
+        test.sort(cmp);
+        assertEquals("wrong collation order", expected, test);
+        assertTrue("cache should be bounded", cmp.cacheSize() <= 4);
+        long misses = cmp.missCount();
+        long hits = cmp.hitCount();
+        cmp.compare("x", "y");
+        cmp.compare("x", "y");
+        assertEquals("should miss the cache once per string", misses + 2, cmp.missCount());
+        assertEquals("should hit the cache", hits + 2, cmp.hitCount());
+    }
+
+    @Test
+    public void collatingParallelTest() {
+        Collator collator = Collator.getInstance(Locale.FRANCE);
+        Random rng = new Random(27);
+        String letters = "aAeéèbBcç";
+        String[] words = new String[20000];
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = rng.nextInt(6) + 1; j > 0; j--) {
+                sb.append(letters.charAt(rng.nextInt(letters.length())));
+            }
+            words[i] = sb.toString();
+        }
+        String[] expected = words.clone();
+        Arrays.sort(expected, collator);
+        CollationKeyComparator cmp = Comparators.collating(collator, 1000);
+        String[] sorted = words.clone();
+        Arrays.parallelSort(sorted, cmp);
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals("wrong order at " + i, 0, collator.compare(expected[i], sorted[i]));
+        }
+        assertTrue("cache should be bounded", cmp.cacheSize() <= 1000);
+        assertTrue("cache should be used", cmp.hitCount() > 0);
+    }
 }
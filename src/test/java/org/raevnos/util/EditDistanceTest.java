@@ -0,0 +1,102 @@
+package org.raevnos.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class EditDistanceTest {
+    /** The textbook dynamic programming version. */
+    private static int naive(String a, String b) {
+        int[] prev = new int[b.length() + 1], cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int sub = prev[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                cur[j] = Math.min(sub, Math.min(prev[j], cur[j - 1]) + 1);
+            }
+            int[] t = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[b.length()];
+    }
+
+    private static String random(Random rng, int n, String alphabet) {
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) {
+            sb.append(alphabet.charAt(rng.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testDistance() {
+        assertEquals("kitten", 3, Strings.editDistance("kitten", "sitting"));
+        assertEquals("empty pattern", 4, Strings.editDistance("", "abcd"));
+        assertEquals("empty text", 4, Strings.editDistance("abcd", ""));
+        assertEquals("non-latin", 1, Strings.editDistance("λάμδα", "λάμβα"));
+        Random rng = new Random(5);
+        for (int t = 0; t < 300; t++) {
+            // Lengths up to 200 exercise patterns of several words.
+            String a = random(rng, rng.nextInt(200), "abcλ");
+            String b = random(rng, rng.nextInt(200), "abcλ");
+            assertEquals(a + " vs " + b, naive(a, b), Strings.editDistance(a, b));
+        }
+    }
+
+    @Test
+    public void testBounded() {
+        Random rng = new Random(9);
+        for (int t = 0; t < 300; t++) {
+            String a = random(rng, 50 + rng.nextInt(100), "ab");
+            String b = random(rng, 50 + rng.nextInt(100), "ab");
+            int d = naive(a, b);
+            int k = rng.nextInt(80);
+            assertEquals("bounded " + k, d <= k ? d : -1, Strings.editDistance(a, b, k));
+        }
+    }
+
+    @Test
+    public void testIndexOf() {
+        assertEquals("exact", 4, Strings.fuzzyIndexOf("the quick fox", "quick", 0));
+        assertEquals("one substitution", 4, Strings.fuzzyIndexOf("the quack fox", "quick", 1));
+        assertEquals("one deletion", 4, Strings.fuzzyIndexOf("the quck fox", "quick", 1));
+        assertEquals("too far", -1, Strings.fuzzyIndexOf("the quack fox", "quick", 0));
+        Random rng = new Random(13);
+        String text = random(rng, 5000, "acgt");
+        String pattern = text.substring(3000, 3100);
+        String mutated = pattern.substring(0, 40) + "x" + pattern.substring(41, 70) + pattern.substring(71);
+        EditDistance ed = EditDistance.of(mutated);
+        int at = ed.indexIn(text, 3);
+        assertTrue("long pattern found", at >= 0);
+        int end = at + pattern.length();
+        assertTrue("found occurrence within 3", naive(mutated, text.substring(at, end)) <= 3
+                   || naive(mutated, text.substring(at, end - 1)) <= 3);
+    }
+
+    @Test
+    public void testBatch() {
+        Random rng = new Random(17);
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            candidates.add(random(rng, 8 + rng.nextInt(4), "abc"));
+        }
+        EditDistance ed = EditDistance.of("abcabcabc");
+        int[] d = ed.distances(candidates, 3);
+        for (int i = 0; i < d.length; i++) {
+            int expected = naive("abcabcabc", candidates.get(i));
+            assertEquals("batch distance", expected <= 3 ? expected : -1, d[i]);
+        }
+        long within = candidates.stream().filter(c -> naive("abcabcabc", c) <= 3).count();
+        assertEquals("within", within, ed.within(candidates.parallelStream(), 3).count());
+        assertEquals("stream", within, ed.distances(candidates.parallelStream(), 3)
+                     .filter(x -> x >= 0).count());
+    }
+}
@@ -0,0 +1,30 @@
+package org.raevnos.util;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class IntIntTupleTest {
+    @Test
+    public void testPackOrder() {
+        Random rng = new Random(5);
+        int[] interesting = { Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE };
+        for (int i = 0; i < 1000; i++) {
+            IntIntTuple a = new IntIntTuple(i < 25 ? interesting[i % 5] : rng.nextInt(),
+                                            i < 25 ? interesting[i / 5] : rng.nextInt(3));
+            IntIntTuple b = new IntIntTuple(rng.nextInt(3) - 1, rng.nextInt());
+            assertEquals("packed order differs", Integer.signum(a.compareTo(b)),
+                         Integer.signum(Long.compare(a.pack(), b.pack())));
+            assertEquals("tuple order differs", Integer.signum(a.compareTo(b)),
+                         Integer.signum(a.toTuple().compareTo(b.toTuple())));
+            assertEquals("unpack failed", a, IntIntTuple.unpack(a.pack()));
+        }
+    }
+
+    @Test
+    public void testConversion() {
+        Tuple<Integer, Integer> t = new Tuple<>(3, -4);
+        assertEquals("conversion failed", t, IntIntTuple.of(t).toTuple());
+    }
+}
@@ -0,0 +1,59 @@
+package org.raevnos.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class InternerTest {
+    @Test
+    public void testIntern() {
+        Interner interner = new Interner(1024, 4);
+        String a = new String("hostname");
+        assertSame("first string is kept", a, interner.intern(a));
+        assertSame("equal string", a, interner.intern(new String("hostname")));
+        assertSame("StringBuilder", a, interner.intern(new StringBuilder("hostname")));
+        assertSame("range", a, interner.intern("my hostname here", 3, 11));
+        assertSame("chars", a, interner.intern("xhostnamex".toCharArray(), 1, 9));
+        byte[] bytes = "<hostname>".getBytes(StandardCharsets.ISO_8859_1);
+        assertSame("latin-1 bytes", a, interner.intern(bytes, 1, 9));
+        assertSame("compact text", a, interner.intern(CompactText.of("hostname")));
+        assertEquals("hits", 6, interner.hits());
+        assertEquals("misses", 1, interner.misses());
+        assertEquals("size", 1, interner.size());
+
+        StringList l = interner.intern(new StringList("hostname"));
+        assertSame("list", l, interner.intern(new StringList(new String("hostname"))));
+        assertSame("list of compact text", l, interner.intern(new StringList(CompactText.of("hostname"))));
+        assertEquals("list contents", "hostname", Strings.implode(l));
+    }
+
+    @Test
+    public void testBounded() {
+        Interner interner = new Interner(64, 2);
+        assertEquals("capacity", 64, interner.capacity());
+        for (int i = 0; i < 10000; i++) {
+            interner.intern("value" + i);
+        }
+        assertTrue("size bounded", interner.size() <= 64);
+        assertEquals("all misses", 10000, interner.misses());
+        interner.clear();
+        assertEquals("cleared", 0, interner.size());
+        assertEquals("counts reset", 0.0, interner.hitRate(), 0.0);
+    }
+
+    @Test
+    public void testConcurrent() {
+        Interner interner = new Interner(4096);
+        String[] canonical = IntStream.range(0, 100).mapToObj(i -> "status" + i)
+            .map(interner::intern).toArray(String[]::new);
+        IntStream.range(0, 100000).parallel().forEach(i -> {
+                String s = interner.intern(new StringBuilder("status").append(i % 100));
+                assertSame("same instance", canonical[i % 100], s);
+            });
+        assertEquals("hit rate", 100000.0 / 100100.0, interner.hitRate(), 1e-9);
+    }
+}
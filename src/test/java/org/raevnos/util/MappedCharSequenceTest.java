@@ -0,0 +1,104 @@
+package org.raevnos.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import org.raevnos.util.iterator.CharIterator;
+
+public class MappedCharSequenceTest {
+    private static String sample() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            sb.append("line ").append(i).append(i % 7 == 0 ? " é𐐷漢\n" : "\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testUtf8() throws IOException {
+        String test = sample();
+        Path p = Files.createTempFile("mapped", ".txt");
+        try {
+            Files.writeString(p, test, StandardCharsets.UTF_8);
+            MappedCharSequence mcs = MappedCharSequence.open(p, MappedCharSequence.Encoding.UTF8);
+            assertEquals("wrong length", test.length(), mcs.length());
+            for (int i = test.length() - 1; i >= 0; i -= 3) {
+                assertEquals("wrong char at " + i, test.charAt(i), mcs.charAt(i));
+            }
+            assertEquals("wrong contents", test, mcs.toString());
+            assertEquals("wrong subsequence", test.substring(5000, 9000),
+                         mcs.subSequence(5000, 9000).toString());
+            String copy = StreamSupport.stream(new CharIterator(mcs), true)
+                .map(String::valueOf)
+                .collect(Collectors.joining());
+            assertEquals("wrong parallel iteration", test, copy);
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testThreads() throws Exception {
+        String test = sample();
+        Path p = Files.createTempFile("mapped", ".txt");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Files.writeString(p, test, StandardCharsets.UTF_8);
+            MappedCharSequence mcs = MappedCharSequence.open(p, MappedCharSequence.Encoding.UTF8);
+            int half = test.length() / 2;
+            MappedCharSequence[] views = {
+                mcs.subSequence(0, half + 100), mcs.subSequence(half, test.length())
+            };
+            String[] expected = { test.substring(0, half + 100), test.substring(half) };
+            CyclicBarrier start = new CyclicBarrier(8);
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                MappedCharSequence view = views[t % 2];
+                String s = expected[t % 2];
+                boolean backwards = t >= 4;
+                results.add(pool.submit(() -> {
+                            start.await();
+                            // Backwards reads restart from an index entry, so skip some.
+                            for (int k = 0; k < s.length(); k += backwards ? 7 : 1) {
+                                int i = backwards ? s.length() - 1 - k : k;
+                                assertEquals("wrong char at " + i, s.charAt(i), view.charAt(i));
+                            }
+                            return null;
+                        }));
+            }
+            for (Future<?> f : results) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testLatin1() throws IOException {
+        String test = "abcéÿ";
+        Path p = Files.createTempFile("mapped", ".txt");
+        try {
+            Files.writeString(p, test, StandardCharsets.ISO_8859_1);
+            MappedCharSequence mcs = MappedCharSequence.open(p, MappedCharSequence.Encoding.LATIN1);
+            assertEquals("wrong contents", test, mcs.toString());
+            assertEquals("wrong subsequence", "cé", mcs.subSequence(2, 4).toString());
+        } finally {
+            Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.raevnos.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class RadixSortTest {
+    @Test
+    public void testInts() {
+        Random rng = new Random(42);
+        Integer[] test = new Integer[1000];
+        for (int i = 0; i < test.length; i++) {
+            test[i] = rng.nextInt();
+        }
+        Integer[] expected = test.clone();
+        java.util.Arrays.sort(expected);
+        RadixSort.sort(test, NormalizedKey.ofInt(), null);
+        assertArrayEquals("ints not sorted", expected, test);
+    }
+
+    @Test
+    public void testDoubles() {
+        Double[] test = new Double[200];
+        for (int i = 0; i < test.length; i++) {
+            test[i] = (i % 2 == 0 ? -1.0 : 1.0) * i / 7.0;
+        }
+        test[3] = -0.0;
+        test[5] = Double.NaN;
+        test[7] = Double.NEGATIVE_INFINITY;
+        Double[] expected = test.clone();
+        java.util.Arrays.sort(expected);
+        RadixSort.sort(test, NormalizedKey.ofDouble(), null);
+        assertArrayEquals("doubles not sorted", expected, test);
+    }
+
+    @Test
+    public void testStringTuples() {
+        Random rng = new Random(7);
+        List<Tuple<String, Integer>> test = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            test.add(new Tuple<>("key" + rng.nextInt(20), rng.nextInt(10)));
+        }
+        List<Tuple<String, Integer>> expected = new ArrayList<>(test);
+        expected.sort(null);
+        RadixSort.sort(test, NormalizedKey.tuple(NormalizedKey.ofString(),
+                                                 NormalizedKey.ofInt()), null);
+        assertEquals("tuples not sorted", expected, test);
+    }
+
+    @Test
+    public void testIntTuples() {
+        Random rng = new Random(9);
+        List<Tuple<Integer, Integer>> test = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            test.add(new Tuple<>(rng.nextInt(50) - 25, rng.nextInt()));
+        }
+        List<Tuple<Integer, Integer>> expected = new ArrayList<>(test);
+        expected.sort(null);
+        NormalizedKey<Tuple<Integer, Integer>> key =
+            NormalizedKey.tuple(NormalizedKey.ofInt(), NormalizedKey.ofInt());
+        assertEquals("tuple key should be exact", true, key.isExact());
+        RadixSort.sort(test, key, null);
+        assertEquals("tuples not sorted", expected, test);
+    }
+
+    @Test
+    public void testOptionals() {
+        Random rng = new Random(3);
+        List<Optional<Integer>> test = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            test.add(i % 10 == 0 ? Optional.empty() : Optional.of(rng.nextInt()));
+        }
+        Comparator<Optional<? extends Integer>> cmp =
+            Comparators.emptyLast(Comparator.naturalOrder());
+        List<Optional<Integer>> expected = new ArrayList<>(test);
+        expected.sort(cmp);
+        RadixSort.sort(test, NormalizedKey.emptyLast(NormalizedKey.ofInt()), cmp);
+        assertEquals("optionals not sorted", expected, test);
+    }
+
+    @Test
+    public void testSortedListBulkLoad() {
+        Random rng = new Random(11);
+        List<String> test = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            test.add(Integer.toString(rng.nextInt(100000)));
+        }
+        SortedList<String> sl = new SortedList<String>(test, null, NormalizedKey.ofString());
+        test.sort(null);
+        assertEquals("bulk load not sorted", test, sl);
+    }
+}
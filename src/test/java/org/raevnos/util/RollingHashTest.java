@@ -0,0 +1,117 @@
+package org.raevnos.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import org.raevnos.util.iterator.RollingHashAdaptorSpliterator;
+import org.raevnos.util.iterator.SplitPolicy;
+import org.raevnos.util.stream.Readers;
+
+public class RollingHashTest {
+    private static String text(Random rng, int n) {
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) {
+            sb.append(i % 97 == 0 ? '漢' : (char)('a' + rng.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testFingerprints() {
+        String s = text(new Random(1), 10000);
+        for (RollingHash rh : Arrays.asList(RollingHash.rabinKarp(16), RollingHash.buzhash(48),
+                                            RollingHash.buzhash(64), RollingHash.rabinKarp(1))) {
+            long[] expected = IntStream.rangeClosed(0, s.length() - rh.window())
+                .mapToLong(i -> rh.hash(s, i)).toArray();
+            assertTrue(rh.kind() + " sequential", Arrays.equals(expected, rh.fingerprints(s).toArray()));
+            assertTrue(rh.kind() + " parallel", Arrays.equals(expected,
+                rh.fingerprints(s, SplitPolicy.of(100)).parallel().toArray()));
+            long[] streamed = rh.fingerprints(Readers.codePoints(new StringReader(s)).parallel())
+                .toArray();
+            assertTrue(rh.kind() + " codepoint stream", Arrays.equals(expected, streamed));
+        }
+        assertEquals("window longer than text", 0, RollingHash.buzhash(10).fingerprints("short").count());
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        byte[] data = new byte[300000];
+        new Random(2).nextBytes(data);
+        Path p = Files.createTempFile("rolling", ".bin");
+        try {
+            Files.write(p, data);
+            MappedFile file = MappedFile.open(p);
+            RollingHash rh = RollingHash.buzhash(32);
+            long[] parallel = rh.fingerprints(file, SplitPolicy.of(1000)).parallel().toArray();
+            long[] sequential = rh.fingerprints(file).toArray();
+            assertEquals("count", data.length - 31, parallel.length);
+            assertTrue("parallel matches sequential", Arrays.equals(sequential, parallel));
+
+            Chunker chunker = Chunker.of(4096);
+            long[] cuts = chunker.boundaries(file).toArray();
+            assertTrue("same as array", Arrays.equals(cuts,
+                chunker.boundaries(data).asLongStream().toArray()));
+            assertEquals("last cut", data.length, cuts[cuts.length - 1]);
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testChunker() {
+        Random rng = new Random(3);
+        byte[] data = new byte[3 << 20];
+        rng.nextBytes(data);
+        Chunker chunker = Chunker.of(1024, 4096, 16384);
+        int[] cuts = chunker.boundaries(data).toArray();
+        int prev = 0;
+        for (int i = 0; i < cuts.length; i++) {
+            int len = cuts[i] - prev;
+            assertTrue("chunk too big", len <= 16384);
+            assertTrue("chunk too small", len > 1024 || i == cuts.length - 1);
+            prev = cuts[i];
+        }
+        assertEquals("last cut", data.length, prev);
+        double avg = (double)data.length / cuts.length;
+        assertTrue("average size " + avg, avg > 2048 && avg < 8192);
+
+        // Inserting data at the front only changes the first few chunks.
+        byte[] shifted = new byte[data.length + 100];
+        System.arraycopy(data, 0, shifted, 100, data.length);
+        Set<Integer> before = Arrays.stream(cuts).boxed().collect(Collectors.toSet());
+        long kept = chunker.boundaries(shifted).filter(c -> before.contains(c - 100)).count();
+        assertTrue("cut points survive a shift", kept >= cuts.length - 3);
+    }
+
+    @Test
+    public void testParallelSizedCodePoints() {
+        Random rng = new Random(4);
+        for (int n : new int[] {220, 1024, 1031, 2000, 5000}) {
+            String s = text(rng, n);
+            for (int window : new int[] {8, 1500}) {
+                RollingHash rh = RollingHash.rabinKarp(window);
+                long[] expected = rh.fingerprints(s).toArray();
+                assertEquals("sequential count", Math.max(0, n - window + 1), expected.length);
+                assertTrue("parallel " + n + "/" + window,
+                           Arrays.equals(expected, rh.fingerprints(s.codePoints().parallel()).toArray()));
+                for (SplitPolicy policy : new SplitPolicy[] {SplitPolicy.of(1), SplitPolicy.of(5)}) {
+                    var sp = new RollingHashAdaptorSpliterator(s.codePoints().spliterator(), rh, policy);
+                    long[] small = StreamSupport.longStream(sp, true).toArray();
+                    assertTrue("small leaves " + n + "/" + window, Arrays.equals(expected, small));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.raevnos.util;
+
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import org.raevnos.util.iterator.CharIterator;
+
+public class RopeTest {
+    private static String text(int n) {
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) {
+            sb.append((char)('a' + i % 26));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testEdits() {
+        Random rng = new Random(42);
+        String expected = text(5000);
+        Rope rope = Rope.of(expected);
+        for (int i = 0; i < 500; i++) {
+            int at = rng.nextInt(expected.length() + 1);
+            if (rng.nextBoolean() || expected.isEmpty()) {
+                String ins = text(rng.nextInt(700));
+                expected = expected.substring(0, at) + ins + expected.substring(at);
+                rope = rope.insert(at, ins);
+            } else {
+                int to = at + rng.nextInt(Math.min(expected.length() - at, 300) + 1);
+                expected = expected.substring(0, at) + expected.substring(to);
+                rope = rope.delete(at, to);
+            }
+        }
+        assertEquals("edits don't match", expected, rope.toString());
+        assertEquals("length mismatch", expected.length(), rope.length());
+        assertEquals("charAt mismatch", expected.charAt(expected.length() / 2),
+                     rope.charAt(expected.length() / 2));
+        assertEquals("subSequence mismatch", expected.substring(100, 3000),
+                     rope.subSequence(100, 3000).toString());
+        assertEquals("hashCode mismatch", expected.hashCode(), rope.hashCode());
+        assertEquals("equals failed", Rope.of(expected), rope);
+    }
+
+    @Test
+    public void testConcat() {
+        Rope rope = Rope.empty();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            String s = Integer.toString(i);
+            rope = rope.concat(s);
+            sb.append(s);
+        }
+        assertEquals("concat mismatch", sb.toString(), rope.toString());
+    }
+
+    @Test
+    public void testSpliterator() {
+        String s = text(100000);
+        Rope rope = Rope.of("").concat(s.substring(0, 30000)).concat(s.substring(30000));
+        assertTrue("didn't split", rope.spliterator().trySplit() != null);
+        assertEquals("parallel traversal failed", s,
+                     Strings.implodeChars(rope.chars().parallel()));
+        assertEquals("list view failed", s,
+                     rope.asList().parallelStream().map(String::valueOf)
+                     .collect(Collectors.joining()));
+        StringBuilder sb = new StringBuilder();
+        new CharIterator(rope).forEachRemaining(sb::append);
+        assertEquals("CharIterator failed", s, sb.toString());
+    }
+}
@@ -0,0 +1,128 @@
+package org.raevnos.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class StringsTest {
+    private static final String TEST = "plain ascii, then é and 𐐷";
+
+    @Test
+    public void testImplodeChars() {
+        assertEquals("round trip failed", TEST,
+                     Strings.implodeChars(Strings.chars(TEST)));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append(TEST);
+        }
+        String big = sb.toString();
+        assertEquals("parallel round trip failed", big,
+                     Strings.implodeChars(Strings.chars(big).parallel()));
+    }
+
+    @Test
+    public void testImplodeCodePoints() {
+        assertEquals("round trip failed", TEST,
+                     Strings.implodeCodePoints(Strings.codePoints(TEST)));
+    }
+
+    @Test
+    public void testImplodeSlices() {
+        assertEquals("array slice failed", "ain",
+                     Strings.implode(TEST.toCharArray(), 2, 3));
+        assertEquals("list range failed", "ain",
+                     Strings.implode(new StringList(TEST), 2, 5));
+        assertEquals("collector failed", "abc",
+                     Stream.of('a', 'b', 'c').collect(Strings.joiningChars()));
+    }
+
+    @Test
+    public void testIndexOfAny() {
+        CharClass delims = CharClass.of(",;é");
+        assertEquals("wrong first match", 11, Strings.indexOfAny(TEST, delims));
+        assertEquals("wrong match from index", 18, Strings.indexOfAny(TEST, delims, 12));
+        assertEquals("found a missing char", -1,
+                     Strings.indexOfAny(TEST, CharClass.of("xyz\u4E00")));
+        assertEquals("wrong count", 5, Strings.countMatches(TEST, CharClass.WHITESPACE));
+        assertEquals("wrong replacement", "plain_ascii,_then_é_and_𐐷",
+                     Strings.replaceAny(TEST, CharClass.WHITESPACE, '_'));
+        assertEquals("StringList count failed", 2,
+                     new StringList(TEST).countMatches(delims));
+    }
+
+    @Test
+    public void testSplitPoints() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append(i).append(i % 3 == 0 ? ';' : ',');
+        }
+        String big = sb.toString();
+        CharClass delims = CharClass.of(",;");
+        int[] expected = IntStream.range(0, big.length())
+            .filter(i -> delims.contains(big.charAt(i))).toArray();
+        assertEquals("wrong count", expected.length, Strings.countMatches(big, delims));
+        assertArrayEquals("wrong split points", expected,
+                          Strings.splitPoints(big, delims).parallel().toArray());
+
+        byte[] bytes = big.getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals("wrong byte count", expected.length,
+                     delims.countIn(bytes, 0, bytes.length));
+        assertEquals("wrong byte index", expected[5], delims.indexIn(bytes, expected[4] + 1,
+                                                                    bytes.length));
+        Path p = Files.createTempFile("swar", ".txt");
+        try {
+            Files.write(p, bytes);
+            MappedCharSequence mcs =
+                MappedCharSequence.open(p, MappedCharSequence.Encoding.LATIN1);
+            assertEquals("wrong mapped count", expected.length,
+                         Strings.countMatches(mcs, delims));
+            assertEquals("wrong mapped index", expected[4] - 3,
+                         Strings.indexOfAny(mcs.subSequence(3, mcs.length()), delims,
+                                            expected[3] - 2));
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testLines() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append("line ").append(i).append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\n" : "\r");
+            if (i % 100 == 0) {
+                sb.append('\n');
+            }
+        }
+        sb.append("last");
+        String big = sb.toString();
+        assertArrayEquals("lines differ", big.lines().toArray(),
+                          Strings.lineStrings(big).parallel().toArray());
+        assertEquals("slice isn't a view", CharSlice.class,
+                     Strings.lines(big).findFirst().get().getClass());
+    }
+
+    @Test
+    public void testTokens() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append("  tok").append(i % 50).append(i % 7 == 0 ? "\t\n" : " ");
+        }
+        String big = sb.toString();
+        String[] expected = big.trim().split("\\s+");
+        assertArrayEquals("tokens differ", expected,
+                          Strings.tokenStrings(big, CharClass.WHITESPACE).parallel().toArray());
+        assertEquals("wrong parallel count", expected.length,
+                     Strings.tokens(big).parallel().count());
+        assertEquals("wrong distinct count", 50,
+                     Strings.tokens(big).parallel().distinct().count());
+        assertEquals("slice hash differs", "tok1".hashCode(),
+                     Strings.tokens(big).skip(1).findFirst().get().hashCode());
+    }
+}
@@ -0,0 +1,106 @@
+package org.raevnos.util;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class SuffixArrayTest {
+    private static int[] naiveLocate(String text, String pattern) {
+        return IntStream.rangeClosed(0, text.length() - pattern.length())
+            .filter(i -> text.startsWith(pattern, i))
+            .toArray();
+    }
+
+    private static String randomText(int n) {
+        Random rng = new Random(17);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append("abcé".charAt(rng.nextInt(4)));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testSorted() {
+        String text = randomText(2000);
+        SuffixArray sa = SuffixArray.build(text);
+        for (int i = 1; i < sa.size(); i++) {
+            String prev = text.substring(sa.get(i - 1));
+            String cur = text.substring(sa.get(i));
+            assertEquals("suffixes out of order", -1, Integer.signum(prev.compareTo(cur)));
+        }
+    }
+
+    @Test
+    public void testSearch() {
+        String text = randomText(5000);
+        SuffixArray sa = SuffixArray.build(new StringList(text));
+        FMIndex fm = sa.fmIndex(4);
+        for (String pattern : new String[] { "a", "ab", "cab", "ééa", "abcabc", "x", "" }) {
+            int[] expected = naiveLocate(text, pattern);
+            assertEquals("wrong count of " + pattern, expected.length, sa.count(pattern));
+            assertArrayEquals("wrong locations of " + pattern, expected,
+                              sa.locate(pattern).toArray());
+            assertEquals("wrong FM count of " + pattern, expected.length, fm.count(pattern));
+            assertArrayEquals("wrong FM locations of " + pattern, expected,
+                              fm.locate(pattern).toArray());
+        }
+    }
+
+    @Test
+    public void testFMAlphabets() {
+        Random rng = new Random(34);
+        for (int sigma : new int[] { 1, 2, 3, 64, 100 }) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 3000; i++) {
+                sb.append((char)('!' + rng.nextInt(sigma)));
+            }
+            String text = sb.toString();
+            FMIndex fm = SuffixArray.build(text).fmIndex(3);
+            for (int i = 0; i < 50; i++) {
+                int start = rng.nextInt(text.length() - 4);
+                String pattern = text.substring(start, start + 1 + rng.nextInt(3));
+                assertArrayEquals("wrong FM locations of " + pattern + " with " + sigma + " characters",
+                                  naiveLocate(text, pattern), fm.locate(pattern).toArray());
+            }
+        }
+        assertEquals("empty text", 1, SuffixArray.build("").fmIndex(1).count(""));
+        assertArrayEquals("one character", new int[] { 0 },
+                          SuffixArray.build("a").fmIndex(2).locate("a").toArray());
+    }
+
+    @Test
+    public void testLongestRepeated() {
+        assertEquals("wrong repeat", "ana",
+                     SuffixArray.build("banana").longestRepeatedSubstring().toString());
+        assertEquals("wrong repeat", "",
+                     SuffixArray.build("abc").longestRepeatedSubstring().toString());
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        String text = randomText(1000);
+        SuffixArray sa = SuffixArray.build(text);
+        Path p = Files.createTempFile("sa", ".bin");
+        try {
+            try (FileChannel fc = FileChannel.open(p, StandardOpenOption.WRITE)) {
+                sa.write(fc);
+            }
+            SuffixArray loaded = SuffixArray.load(p, text);
+            assertEquals("wrong size", sa.size(), loaded.size());
+            for (int i = 0; i < sa.size(); i++) {
+                assertEquals("wrong entry", sa.get(i), loaded.get(i));
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.raevnos.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class TupleCodecTest {
+    @Test
+    public void testBuffer() {
+        TupleCodec<Integer, String> codec =
+            new TupleCodec<>(ComponentCodec.zigZagInt(), ComponentCodec.utf8());
+        List<Tuple<Integer, String>> test =
+            List.of(new Tuple<>(-1, "a"), new Tuple<>(300, "été"),
+                    new Tuple<>(Integer.MIN_VALUE, ""));
+        ByteBuffer buf = ByteBuffer.allocate(100);
+        test.forEach(t -> codec.encode(t, buf));
+        buf.flip();
+        assertEquals("round trip failed", test,
+                     codec.stream(buf).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testChannel() throws IOException {
+        TupleCodec<Long, Double> codec =
+            new TupleCodec<>(ComponentCodec.varLong(), ComponentCodec.fixedDouble());
+        List<Tuple<Long, Double>> test = IntStream.range(0, 50000)
+            .mapToObj(i -> new Tuple<>((long)i * i, i / 3.0))
+            .collect(Collectors.toList());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertEquals("wrong count", test.size(),
+                     codec.write(test.stream(), Channels.newChannel(bytes)));
+        try (Stream<Tuple<Long, Double>> s =
+             codec.stream(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())))) {
+            assertEquals("round trip failed", test, s.collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.raevnos.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class TupleListTest {
+    @Test
+    public void testSortInts() {
+        Random rng = new Random(1);
+        TupleList<Integer, Integer> tl = TupleList.ofInts();
+        List<Tuple<Integer, Integer>> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int a = rng.nextInt(30), b = rng.nextInt();
+            tl.addInts(a, b);
+            expected.add(new Tuple<>(a, b));
+        }
+        expected.sort(null);
+        tl.sort(null);
+        assertEquals("column sort failed", expected, tl);
+        assertArrayEquals("wrong first column",
+                          expected.stream().mapToInt(Tuple::first).toArray(),
+                          tl.intStream(0).toArray());
+    }
+
+    @Test
+    public void testObjects() {
+        TupleList<String, Double> tl =
+            new TupleList<>(TupleList.ColumnType.<String>objects(),
+                            TupleList.ColumnType.DOUBLE);
+        tl.add(new Tuple<>("b", 1.0));
+        tl.add(new Tuple<>("a", 2.0));
+        tl.add(0, new Tuple<>("a", 1.0));
+        assertEquals("wrong size", 3, tl.size());
+        tl.sort(null);
+        assertEquals("wrong order", List.of(new Tuple<>("a", 1.0), new Tuple<>("a", 2.0),
+                                            new Tuple<>("b", 1.0)), tl);
+        assertEquals("wrong removed element", new Tuple<>("a", 2.0), tl.remove(1));
+        assertEquals("wrong double", 1.0, tl.getDouble(1, 1), 0.0);
+        assertEquals("wrong sum", 2.0, tl.doubleStream(1).sum(), 0.0);
+    }
+}
@@ -6,6 +6,7 @@ import java.util.Spliterator;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
@@ -92,4 +93,11 @@ public class CharIteratorTest {
         assertEquals("wrong size after split mid surrogate pair (new)",
                      s2.estimateSize(), 3);
     }
+
+    @Test
+    public void testSpliterator_SplitEmpty() {
+        assertNull("empty", new CharIterator("").trySplit());
+        assertNull("empty range", new CharIterator("abc", 3, 3).trySplit());
+        assertNull("one character", new CharIterator("abc", 2, 3).trySplit());
+    }
 }
@@ -0,0 +1,46 @@
+package org.raevnos.util.iterator;
+
+import java.util.Spliterator;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/** Test CharSpliterator splitting and codepoint handling */
+public class CharSpliteratorTest {
+    @Test
+    public void testThreshold() {
+        String test = "testword";
+        Spliterator.OfInt s = new CharSpliterator(test, 0, test.length(), false, 8);
+        assertNull("should not split at threshold", s.trySplit());
+        s = new CharSpliterator(test, 0, test.length(), false, 4);
+        Spliterator.OfInt s2 = s.trySplit();
+        assertNotNull("should split above threshold", s2);
+        assertEquals("wrong size after split", 4, s2.estimateSize());
+        assertNull("should not split at threshold", s2.trySplit());
+    }
+
+    @Test
+    public void testSurrogateSplit() {
+        StringBuilder sb = new StringBuilder("tes𐐷ord");
+        Spliterator.OfInt s = new CharSpliterator(sb, 0, sb.length(), true, 1);
+        Spliterator.OfInt s2 = s.trySplit();
+        assertNotNull("trySplit should work", s2);
+        assertEquals("wrong size after split mid surrogate pair (new)", 5, s2.estimateSize());
+        assertEquals("wrong size after split mid surrogate pair (orig)", 3, s.estimateSize());
+    }
+
+    @Test
+    public void testParallelCodePoints() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append("ab𐐷");
+        }
+        int[] cps = StreamSupport.intStream(new CharSpliterator(sb, 0, sb.length(), true, 16),
+                                            true).toArray();
+        assertArrayEquals("different codepoints", sb.codePoints().toArray(), cps);
+    }
+}
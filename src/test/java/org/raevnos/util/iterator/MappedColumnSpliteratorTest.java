@@ -0,0 +1,131 @@
+package org.raevnos.util.iterator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import org.raevnos.util.MappedFile;
+import org.raevnos.util.Tuple;
+
+public class MappedColumnSpliteratorTest {
+    private static final SplitPolicy SMALL = SplitPolicy.of(16);
+
+    private static Path write(String contents) throws IOException {
+        Path p = Files.createTempFile("columns", ".csv");
+        Files.write(p, contents.getBytes(StandardCharsets.UTF_8));
+        return p;
+    }
+
+    @Test
+    public void testColumns() throws IOException {
+        Path p = write("id,name,score\r\n"
+                       + "1,\"Smith, \"\"Jo\"\"\",2.5\r\n"
+                       + "\r\n"
+                       + "2,café, 7 \r\n"
+                       + "3,\"multi\nline\",-1e3");
+        try {
+            MappedFile file = MappedFile.open(p);
+            var ids = new MappedColumnSpliterator.OfInt(file, 0, ',', true, SMALL);
+            assertArrayEquals("ints", new int[] {1, 2, 3}, StreamSupport.intStream(ids, false).toArray());
+            var longs = new MappedColumnSpliterator.OfLong(file, 0, ',', true, SMALL);
+            assertArrayEquals("longs", new long[] {1, 2, 3}, StreamSupport.longStream(longs, false).toArray());
+            var scores = new MappedColumnSpliterator.OfDouble(file, 2, ',', true, SMALL);
+            assertArrayEquals(new double[] {2.5, 7, -1000},
+                              StreamSupport.doubleStream(scores, false).toArray(), 0.0);
+            var pairs = new MappedColumnSpliterator.OfTuple<Integer, String>(file, 0, 1, ',', true,
+                                                                             Integer::valueOf,
+                                                                             Function.identity(), SMALL);
+            assertEquals("tuples",
+                         List.of(new Tuple<>(1, "Smith, \"Jo\""), new Tuple<>(2, "café"),
+                                 new Tuple<>(3, "multi\nline")),
+                         StreamSupport.stream(pairs, false).collect(Collectors.toList()));
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testParallel() throws IOException {
+        Random r = new Random(50);
+        int[] a = r.ints(5000, -1000, 1000).toArray();
+        StringBuilder sb = new StringBuilder("a\tb\tc\n");
+        for (int i = 0; i < a.length; i++) {
+            sb.append("\"x\ty\"\t").append(a[i]).append('\t').append(i).append('\n');
+        }
+        Path p = write(sb.toString());
+        try {
+            MappedFile file = MappedFile.open(p);
+            var sp = new MappedColumnSpliterator.OfInt(file, 1, '\t', true, SMALL);
+            assertArrayEquals("parallel", a, StreamSupport.intStream(sp, true).toArray());
+            var pairs = new MappedColumnSpliterator.OfTuple<Integer, Integer>(file, 2, 1, '\t', true,
+                                                                              Integer::valueOf,
+                                                                              Integer::valueOf, SMALL);
+            assertArrayEquals("parallel tuples", a,
+                              StreamSupport.stream(pairs, true).mapToInt(Tuple::second).toArray());
+            var index = new MappedColumnSpliterator.OfLong(file, 2, '\t', true, SMALL);
+            assertArrayEquals("order", IntStream.range(0, a.length).asLongStream().toArray(),
+                              StreamSupport.longStream(index, true).toArray());
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testSameColumnTwice() throws IOException {
+        Path p = write("1,2\n3,4");
+        try {
+            MappedFile file = MappedFile.open(p);
+            var pairs = new MappedColumnSpliterator.OfTuple<Integer, String>(file, 1, 1, ',', false,
+                                                                             Integer::valueOf,
+                                                                             Function.identity(), SMALL);
+            assertEquals("same column", List.of(new Tuple<>(2, "2"), new Tuple<>(4, "4")),
+                         StreamSupport.stream(pairs, false).collect(Collectors.toList()));
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test(expected = InputMismatchException.class)
+    public void testMissingColumn() throws IOException {
+        Path p = write("1,2\n3\n");
+        try {
+            var sp = new MappedColumnSpliterator.OfInt(MappedFile.open(p), 1, ',', false, SMALL);
+            StreamSupport.intStream(sp, false).sum();
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test(expected = InputMismatchException.class)
+    public void testNotANumber() throws IOException {
+        Path p = write("1,2\n3,four\n");
+        try {
+            var sp = new MappedColumnSpliterator.OfDouble(MappedFile.open(p), 1, ',', false, SMALL);
+            StreamSupport.doubleStream(sp, false).sum();
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadDelimiter() throws IOException {
+        Path p = write("1\n");
+        try {
+            new MappedColumnSpliterator.OfInt(MappedFile.open(p), 0, '"', false, SMALL);
+        } finally {
+            Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.raevnos.util.iterator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.InputMismatchException;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+import org.raevnos.util.MappedFile;
+
+public class MappedNumberSpliteratorTest {
+    private static final SplitPolicy SMALL = SplitPolicy.of(16);
+
+    private static Path write(String contents) throws IOException {
+        Path p = Files.createTempFile("mapped", ".txt");
+        Files.write(p, contents.getBytes(StandardCharsets.UTF_8));
+        return p;
+    }
+
+    private static String randomNumbers(int n) {
+        Random r = new Random(45);
+        StringBuilder sb = new StringBuilder();
+        String[] spaces = {" ", "\n", "\t", "  ", "\r\n"};
+        for (int i = 0; i < n; i++) {
+            sb.append(r.nextInt(2000) - 1000).append(spaces[r.nextInt(spaces.length)]);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testParallelMatchesScanner() throws IOException {
+        String input = randomNumbers(5000);
+        Path p = write(input);
+        try {
+            MappedFile file = MappedFile.open(p);
+            int[] expected = new Scanner(input).tokens().mapToInt(Integer::parseInt).toArray();
+            var ints = new MappedNumberSpliterator.OfInt(file, StandardCharsets.UTF_8, SMALL, Locale.US);
+            assertArrayEquals("parallel ints", expected,
+                              StreamSupport.intStream(ints, true).toArray());
+            var longs = new MappedNumberSpliterator.OfLong(file, StandardCharsets.UTF_8, SMALL, Locale.US);
+            assertArrayEquals("parallel longs", IntStream.of(expected).asLongStream().toArray(),
+                              StreamSupport.longStream(longs, true).toArray());
+            var doubles = new MappedNumberSpliterator.OfDouble(file, StandardCharsets.UTF_8, SMALL, Locale.US);
+            assertArrayEquals(IntStream.of(expected).asDoubleStream().toArray(),
+                              StreamSupport.doubleStream(doubles, true).toArray(), 0.0);
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testNonAsciiAndStop() throws IOException {
+        // An em space separates 3 and 4, and 1,234 needs the locale.
+        String input = "1 2 3\u20034 ١٢ 1,234 x 5 6";
+        Path p = write(input);
+        try {
+            MappedFile file = MappedFile.open(p);
+            var longs = new MappedNumberSpliterator.OfLong(file, StandardCharsets.UTF_8, SMALL, Locale.US);
+            assertArrayEquals("sequential longs", new long[] {1, 2, 3, 4, 12, 1234},
+                              StreamSupport.longStream(longs, false).toArray());
+            var doubles = new MappedNumberSpliterator.OfDouble(file, StandardCharsets.UTF_8,
+                                                               SMALL, Locale.GERMANY);
+            assertArrayEquals(new double[] {1, 2, 3, 4, 12, 1.234},
+                              StreamSupport.doubleStream(doubles, false).toArray(), 0.0);
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        Path p = write("  \n ");
+        try {
+            var ints = new MappedNumberSpliterator.OfInt(MappedFile.open(p), StandardCharsets.US_ASCII);
+            assertArrayEquals("no ints", new int[0], StreamSupport.intStream(ints, true).toArray());
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testParallelStop() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append(i).append(i == 1000 ? " x\n" : "\n");
+        }
+        Path p = write(sb.toString());
+        try {
+            MappedFile file = MappedFile.open(p);
+            var sequential = new MappedNumberSpliterator.OfInt(file, StandardCharsets.UTF_8, SMALL, Locale.US);
+            assertArrayEquals("sequential stops", IntStream.rangeClosed(0, 1000).toArray(),
+                              StreamSupport.intStream(sequential, false).toArray());
+            var parallel = new MappedNumberSpliterator.OfInt(file, StandardCharsets.UTF_8, SMALL, Locale.US);
+            try {
+                StreamSupport.intStream(parallel, true).toArray();
+                fail("parallel read past a bad token");
+            } catch (InputMismatchException e) {
+                // Expected
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.raevnos.util.iterator;
+
+import java.io.StringReader;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Scanner;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class NumberTokenizerTest {
+    private static final String[] TOKENS = {
+        "0", "7", "-12", "+34", "2147483647", "-2147483648", "2147483648",
+        "9223372036854775807", "-9223372036854775808", "9223372036854775808",
+        "1.5", "-0.25", ".5", "5.", "1e10", "2.5E-3", "1,234", "1,234.5",
+        "NaN", "Infinity", "-Infinity", "0x1p3", "00042", "-0", "1.2.3", "abc",
+        "123456789012345678901234", "3.14159265358979323846", "4.9e-324", "1e400",
+        "-", "+", ".", "e5", "1e", "١٢٣", "+NaN", "-NaN", "+Infinity", "nan",
+        "9007199254740993", "2.2250738585072011e-308", "1.7976931348623159e308"
+    };
+
+    /** Read tokens with Scanner and the tokenizer, comparing as they go. */
+    private static void compare(String input, Locale locale) {
+        for (int type = 0; type < 3; type++) {
+            Scanner scanner = new Scanner(input).useLocale(locale);
+            NumberTokenizer tokenizer = new NumberTokenizer(new StringReader(input), locale);
+            int n = 0;
+            while (true) {
+                boolean expected = type == 0 ? scanner.hasNextInt()
+                    : type == 1 ? scanner.hasNextLong() : scanner.hasNextDouble();
+                boolean actual = type == 0 ? tokenizer.hasNextInt()
+                    : type == 1 ? tokenizer.hasNextLong() : tokenizer.hasNextDouble();
+                assertEquals("hasNext " + type + " at " + n, expected, actual);
+                if (!expected) {
+                    // Skip the token in both, like a caller switching types would.
+                    if (!scanner.hasNext()) {
+                        break;
+                    }
+                    scanner.next();
+                    tokenizer.hasNextDouble();
+                    tokenizer.nextDouble();
+                    n++;
+                    continue;
+                }
+                if (type == 0) {
+                    assertEquals("int " + n, scanner.nextInt(), tokenizer.nextInt());
+                } else if (type == 1) {
+                    assertEquals("long " + n, scanner.nextLong(), tokenizer.nextLong());
+                } else {
+                    assertEquals("double " + n, Double.doubleToLongBits(scanner.nextDouble()),
+                                 Double.doubleToLongBits(tokenizer.nextDouble()));
+                }
+                n++;
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesScanner() {
+        StringBuilder sb = new StringBuilder();
+        Random rng = new Random(4);
+        for (int i = 0; i < 5000; i++) {
+            sb.append(TOKENS[rng.nextInt(TOKENS.length)]);
+            sb.append(rng.nextBoolean() ? " " : "\n\t ");
+        }
+        compare(sb.toString(), Locale.US);
+        compare(sb.toString(), Locale.GERMANY);
+    }
+
+    @Test
+    public void testRandomDoubles() {
+        StringBuilder sb = new StringBuilder();
+        Random rng = new Random(8);
+        for (int i = 0; i < 20000; i++) {
+            double d = rng.nextDouble() * Math.pow(10, rng.nextInt(40) - 20);
+            sb.append(i % 3 == 0 ? Double.toString(d) : String.format(Locale.ROOT, "%.6f", d));
+            sb.append(' ');
+        }
+        compare(sb.toString(), Locale.US);
+    }
+
+    @Test
+    public void testLongToken() {
+        // A token longer than the buffer.
+        String input = "1 " + "0".repeat(20000) + "5 2";
+        compare(input, Locale.US);
+    }
+
+    @Test
+    public void testHardDoubles() {
+        NumberParser parser = new NumberParser(Locale.US);
+        Random rng = new Random(47);
+        for (int i = 0; i < 200000; i++) {
+            String token;
+            if (i % 2 == 0) {
+                double d = Double.longBitsToDouble(rng.nextLong());
+                token = Double.isFinite(d) ? Double.toString(d) : "0";
+            } else {
+                // Long significands that get truncated, over the whole exponent range.
+                StringBuilder sb = new StringBuilder();
+                sb.append(1 + rng.nextInt(9));
+                for (int n = rng.nextInt(25); n > 0; n--) {
+                    sb.append(rng.nextInt(10));
+                }
+                sb.append('e').append(rng.nextInt(700) - 360);
+                token = sb.toString();
+            }
+            char[] chars = token.toCharArray();
+            assertEquals(token, true, parser.parseDouble(chars, 0, chars.length));
+            assertEquals(token, Double.doubleToLongBits(Double.parseDouble(token)),
+                         Double.doubleToLongBits(parser.doubleValue()));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.raevnos.util.iterator;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+import org.apache.commons.math3.util.CombinatoricsUtils;
+
+/** Test that spliterators follow their split policies */
+public class SplitPolicyTest {
+    private static final SplitPolicy FRONT =
+        SplitPolicy.of(3, 0, SplitPolicy.Shape.FRONT_LOADED);
+
+    @Test
+    public void testSplitSize() {
+        assertEquals("balanced should halve", 50, SplitPolicy.of(10).splitSize(100));
+        assertEquals("shouldn't split a leaf", 0, SplitPolicy.of(10).splitSize(10));
+        assertEquals("front loaded should take a leaf", 3, FRONT.splitSize(100));
+        SplitPolicy resolved = SplitPolicy.DEFAULT.withLeavesPerThread(1).resolve(1000000);
+        assertEquals("target leaf count ignored",
+                     1000000 / ForkJoinPool.getCommonPoolParallelism(),
+                     resolved.minLeafSize());
+    }
+
+    @Test
+    public void testCharIterator() {
+        Spliterator<Character> s = new CharIterator("abcdefghij", 0, 10, FRONT);
+        Spliterator<Character> s2 = s.trySplit();
+        assertNotNull("should split", s2);
+        assertEquals("wrong front size", 3, s2.estimateSize());
+        assertNull("shouldn't split a leaf", s2.trySplit());
+    }
+
+    private static List<List<Integer>> expectedCombos(int n, int r) {
+        List<List<Integer>> result = new ArrayList<>();
+        Iterator<int[]> it = CombinatoricsUtils.combinationsIterator(n, r);
+        while (it.hasNext()) {
+            List<Integer> combo = new ArrayList<>();
+            for (int i : it.next()) {
+                combo.add(i);
+            }
+            result.add(combo);
+        }
+        return result;
+    }
+
+    @Test
+    public void testCombos() {
+        List<Integer> elems = IntStream.range(0, 14).boxed().collect(Collectors.toList());
+        for (SplitPolicy policy : List.of(SplitPolicy.DEFAULT, FRONT,
+                                          SplitPolicy.of(10).withLeavesPerThread(4))) {
+            List<List<Integer>> combos =
+                StreamSupport.stream(new ComboSpliterator<Integer>(elems, 5, policy), true)
+                .map(ArrayList::new)
+                .collect(Collectors.toList());
+            assertEquals("combinations differ with " + policy, expectedCombos(14, 5), combos);
+        }
+    }
+
+    @Test
+    public void testAllCombos() {
+        List<Integer> elems = IntStream.range(0, 12).boxed().collect(Collectors.toList());
+        List<List<Integer>> expected = new ArrayList<>();
+        for (int r = 1; r <= 12; r++) {
+            expected.addAll(expectedCombos(12, r));
+        }
+        AllCombosSpliterator<Integer> sp = new AllCombosSpliterator<Integer>(elems);
+        assertEquals("wrong size", (1 << 12) - 1, sp.estimateSize());
+        List<List<Integer>> combos = StreamSupport.stream(sp, true)
+            .map(ArrayList::new)
+            .collect(Collectors.toList());
+        assertEquals("combinations differ", expected, combos);
+    }
+
+    @Test
+    public void testPermutations() {
+        List<Integer> elems = IntStream.range(0, 8).boxed().collect(Collectors.toList());
+        long count = StreamSupport.stream(new PermutationSpliterator<Integer>(elems), true)
+            .distinct()
+            .count();
+        assertEquals("wrong permutation count", 40320, count);
+    }
+
+    @Test
+    public void testStride() {
+        int[] source = IntStream.range(0, 100000).toArray();
+        int[] expected = IntStream.range(0, 100000).filter(i -> i % 7 == 0).toArray();
+        Spliterator.OfInt s =
+            new StrideAdaptorSpliterator.OfInt(IntStream.of(source).spliterator(), 7);
+        assertEquals("wrong size", expected.length, s.getExactSizeIfKnown());
+        assertArrayEquals("parallel stride differs", expected,
+                          StreamSupport.intStream(s, true).toArray());
+    }
+
+    @Test
+    public void testReader() {
+        String numbers = IntStream.range(0, 5000).mapToObj(Integer::toString)
+            .collect(Collectors.joining(" "));
+        Spliterator.OfInt s = new IntReaderSpliterator(new StringReader(numbers), FRONT);
+        Spliterator.OfInt s2 = s.trySplit();
+        assertNotNull("should split", s2);
+        assertEquals("wrong batch size", 1024, s2.estimateSize());
+        s = new IntReaderSpliterator(new StringReader(numbers));
+        assertArrayEquals("parallel read differs", IntStream.range(0, 5000).toArray(),
+                          StreamSupport.intStream(s, true).toArray());
+    }
+}
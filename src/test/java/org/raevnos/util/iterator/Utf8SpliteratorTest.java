@@ -0,0 +1,81 @@
+package org.raevnos.util.iterator;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertArrayEquals;
+import org.junit.Test;
+
+import org.raevnos.util.MappedFile;
+
+public class Utf8SpliteratorTest {
+    /** Decode a file the way InputStreamReader does. */
+    private static int[] expected(Path p) throws IOException {
+        IntStream.Builder cps = IntStream.builder();
+        try (Reader r = new InputStreamReader(Files.newInputStream(p), StandardCharsets.UTF_8)) {
+            StringBuilder sb = new StringBuilder();
+            char[] buf = new char[4096];
+            int n;
+            while ((n = r.read(buf)) > 0) {
+                sb.append(buf, 0, n);
+            }
+            sb.codePoints().forEach(cps);
+        }
+        return cps.build().toArray();
+    }
+
+    private static void check(byte[] bytes) throws IOException {
+        Path p = Files.createTempFile("utf8", ".txt");
+        try {
+            Files.write(p, bytes);
+            int[] expected = expected(p);
+            MappedFile file = MappedFile.open(p);
+            assertArrayEquals("sequential", expected,
+                              StreamSupport.intStream(new Utf8Spliterator(file), false).toArray());
+            assertArrayEquals("parallel", expected,
+                              StreamSupport.intStream(new Utf8Spliterator(file, SplitPolicy.of(7)), true)
+                              .toArray());
+            IntStream.Builder stepped = IntStream.builder();
+            var sp = new Utf8Spliterator(file);
+            while (sp.tryAdvance(stepped)) {
+            }
+            assertArrayEquals("tryAdvance", expected, stepped.build().toArray());
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testValidText() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        Random rng = new Random(48);
+        int[] samples = {'a', ' ', '\n', 0xE9, 0x3B1, 0x4E2D, 0xFFFD, 0x1F600, 0x10FFFF};
+        for (int i = 0; i < 20000; i++) {
+            sb.appendCodePoint(rng.nextInt(4) == 0 ? samples[rng.nextInt(samples.length)] : 'a' + rng.nextInt(26));
+        }
+        check(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testMalformed() throws IOException {
+        byte[][] cases = {
+            {(byte)0xE2, (byte)0x80, 'A'}, {(byte)0xF0, (byte)0x80, (byte)0x80, (byte)0x80},
+            {(byte)0xED, (byte)0xA0, (byte)0x80}, {(byte)0xC0, (byte)0xAF}, {(byte)0xFF, 'x'},
+            {(byte)0xF4, (byte)0x90, (byte)0x80, (byte)0x80}, {(byte)0x80, (byte)0xBF},
+            {(byte)0xF0, (byte)0x9F, (byte)0x98}, {'a', (byte)0xE0}
+        };
+        for (byte[] c : cases) {
+            check(c);
+        }
+        byte[] random = new byte[50000];
+        new Random(480).nextBytes(random);
+        check(random);
+    }
+}
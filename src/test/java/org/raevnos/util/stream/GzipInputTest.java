@@ -0,0 +1,144 @@
+package org.raevnos.util.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class GzipInputTest {
+    private static final int N = 100000;
+
+    private static byte[] numbers() {
+        return IntStream.range(0, N).mapToObj(Integer::toString)
+            .collect(Collectors.joining("\n")).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Compress data into BGZF blocks the way bgzip does, ending with an empty block. */
+    private static byte[] bgzf(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int off = 0; off < data.length; off += 0xFF00) {
+            block(out, data, off, Math.min(0xFF00, data.length - off));
+        }
+        block(out, data, 0, 0);
+        return out.toByteArray();
+    }
+
+    private static void block(ByteArrayOutputStream out, byte[] data, int off, int len) {
+        Deflater d = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        d.setInput(data, off, len);
+        d.finish();
+        byte[] cdata = new byte[len + 1024];
+        int clen = d.deflate(cdata);
+        d.end();
+        CRC32 crc = new CRC32();
+        crc.update(data, off, len);
+        ByteBuffer block = ByteBuffer.allocate(18 + clen + 8).order(ByteOrder.LITTLE_ENDIAN);
+        block.put(new byte[] {0x1F, (byte)0x8B, 8, 4, 0, 0, 0, 0, 0, (byte)0xFF, 6, 0, 'B', 'C', 2, 0});
+        block.putShort((short)(block.capacity() - 1));
+        block.put(cdata, 0, clen);
+        block.putInt((int)crc.getValue());
+        block.putInt(len);
+        out.writeBytes(block.array());
+    }
+
+    private static byte[] gzip(byte[] data, int from, int to) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data, from, to - from);
+        }
+        return out.toByteArray();
+    }
+
+    private static void checkNumbers(byte[] contents) throws IOException {
+        Path p = Files.createTempFile("gzip", ".gz");
+        try {
+            Files.write(p, contents);
+            try (IntStream is = Readers.intStream(p, StandardCharsets.UTF_8)) {
+                assertArrayEquals("Different integers", IntStream.range(0, N).toArray(), is.toArray());
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testBgzf() throws IOException {
+        byte[] data = numbers();
+        byte[] bgzf = bgzf(data);
+        checkNumbers(bgzf);
+        Path p = Files.createTempFile("gzip", ".gz");
+        try {
+            Files.write(p, bgzf);
+            try (InputStream in = GzipInput.open(p)) {
+                assertTrue("Should be a BGZF reader", !(in instanceof GZIPInputStream));
+                assertArrayEquals("Different contents", data, in.readAllBytes());
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testMultiMember() throws IOException {
+        byte[] data = numbers();
+        int mid = data.length / 2;
+        while (data[mid] != '\n') {
+            mid++;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(gzip(data, 0, mid));
+        out.writeBytes(gzip(data, mid, data.length));
+        checkNumbers(out.toByteArray());
+        checkNumbers(gzip(data, 0, data.length));
+    }
+
+    @Test
+    public void testCorruptBlock() throws IOException {
+        byte[] bgzf = bgzf(numbers());
+        // Flip a bit in the first block's CRC.
+        int firstSize = (bgzf[16] & 0xFF | (bgzf[17] & 0xFF) << 8) + 1;
+        bgzf[firstSize - 8] ^= 1;
+        Path p = Files.createTempFile("gzip", ".gz");
+        try {
+            Files.write(p, bgzf);
+            try (IntStream is = Readers.intStream(p, StandardCharsets.UTF_8)) {
+                is.toArray();
+                fail("Should have thrown");
+            } catch (UncheckedIOException e) {
+                assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("CRC"));
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testCodePoints() throws IOException {
+        String text = "grüße 😀 ".repeat(20000);
+        Path p = Files.createTempFile("gzip", ".gz");
+        try {
+            Files.write(p, bgzf(text.getBytes(StandardCharsets.UTF_8)));
+            try (IntStream cps = Readers.codePoints(p, StandardCharsets.UTF_8)) {
+                assertArrayEquals("Different code points", text.codePoints().toArray(), cps.toArray());
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
+}
@@ -2,11 +2,23 @@ package org.raevnos.util.stream;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 import java.util.stream.DoubleStream;
+import java.util.stream.Collectors;
+
+import org.raevnos.util.ComponentCodec;
+import org.raevnos.util.Tuple;
+import org.raevnos.util.TupleCodec;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
@@ -50,4 +62,75 @@ public class ReadersTest {
             assertTrue("Should be 7 codepoints", cps.length == 7);
         }
     }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        Path p = Files.createTempFile("readers", ".txt");
+        try {
+            Files.writeString(p, "1 2 3\n4 5 6\n", StandardCharsets.UTF_8);
+            try (IntStream is = Readers.intStream(p, StandardCharsets.UTF_8)) {
+                assertArrayEquals("Different integers", new int[] {1, 2, 3, 4, 5, 6},
+                                  is.parallel().toArray());
+            }
+            try (IntStream is = Readers.intStream(p, StandardCharsets.UTF_16LE)) {
+                assertArrayEquals("Should not be numbers", new int[0], is.toArray());
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testBinaryStreams() throws IOException {
+        Path p = Files.createTempFile("readers", ".bin");
+        try {
+            int n = 100000;
+            for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                ByteBuffer buf = ByteBuffer.allocate(n * 8).order(order);
+                for (int i = 0; i < n; i++) {
+                    buf.putLong(i * 1000003L - 7);
+                }
+                Files.write(p, buf.array());
+                long[] longs = LongStream.range(0, n).map(i -> i * 1000003L - 7).toArray();
+                try (LongStream ls = Readers.binaryLongStream(p, order)) {
+                    assertArrayEquals("Different longs", longs, ls.parallel().toArray());
+                }
+                try (DoubleStream ds = Readers.binaryDoubleStream(p, order)) {
+                    assertArrayEquals(LongStream.of(longs).mapToDouble(Double::longBitsToDouble).toArray(),
+                                      ds.parallel().toArray(), 0.0);
+                }
+                int[] ints = new int[n * 2];
+                buf.rewind().asIntBuffer().get(ints);
+                try (IntStream is = Readers.binaryIntStream(p, order)) {
+                    assertEquals("Wrong size", n * 2, is.spliterator().getExactSizeIfKnown());
+                }
+                try (IntStream is = Readers.binaryIntStream(p, order)) {
+                    assertArrayEquals("Different ints", ints, is.parallel().toArray());
+                }
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testRecords() throws IOException {
+        var codec = new TupleCodec<Integer, Double>(ComponentCodec.fixedInt(), ComponentCodec.fixedDouble());
+        Path p = Files.createTempFile("readers", ".bin");
+        try {
+            var tuples = IntStream.range(0, 5000).mapToObj(i -> new Tuple<Integer, Double>(i, i / 4.0))
+                .collect(Collectors.toList());
+            try (var out = Files.newByteChannel(p, StandardOpenOption.WRITE)) {
+                codec.write(tuples.stream(), out);
+            }
+            try (var s = Readers.records(p, codec, 12)) {
+                assertEquals("Different tuples", tuples, s.parallel().collect(Collectors.toList()));
+            }
+            try (var s = Readers.records(p, 12, ByteOrder.BIG_ENDIAN, b -> b.getInt(0))) {
+                assertEquals("Wrong sum", 4999 * 5000 / 2, s.mapToInt(Integer::intValue).sum());
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
 }
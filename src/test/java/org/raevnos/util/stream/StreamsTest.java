@@ -6,9 +6,12 @@ import java.util.List;
 import java.util.stream.Stream;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 
+import org.raevnos.util.NormalizedKey;
+
 public class StreamsTest {
     @Test
     public void testStrideNull() {
@@ -63,4 +66,14 @@ public class StreamsTest {
                           .toArray(),
                           new long[]{1,3,5,7});
     }
+
+    @Test
+    public void testSortedClose() {
+        boolean[] closed = {false};
+        Stream<String> source = Stream.of("c", "a", "b").onClose(() -> closed[0] = true);
+        try (Stream<String> sorted = Streams.sorted(source, NormalizedKey.ofString(), null)) {
+            assertArrayEquals("sorted", new String[]{"a", "b", "c"}, sorted.toArray(String[]::new));
+        }
+        assertTrue("source closed", closed[0]);
+    }
 }